@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.bytecode;
+
+import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 属性拷贝器
+ * 按 (源类型, 目标类型) 生成专用的拷贝类并缓存，按属性名匹配可读的源属性与可写的目标属性，转换规则：
+ * 1. 类型相同、可赋值或基本类型与包装类型互转时直接赋值；
+ * 2. 其他类型通过 commons-beanutils 的 ConvertUtils 转换；
+ * 3. 值为null且目标为基本类型时不赋值
+ * 无法生成拷贝类时（非public类等）退化为 commons-beanutils 的反射拷贝
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ClassGenerator
+ * @since 1.0.0
+ */
+
+public abstract class BeanCopier {
+    private static final Logger logger = LoggerFactory.getLogger(BeanCopier.class);
+
+    private static final AtomicLong COPIER_CLASS_COUNTER = new AtomicLong(0);
+    private static final Map<CopierKey, BeanCopier> COPIER_CACHE = new ConcurrentHashMap<>();
+
+    private Class<?>[] convertTypes;
+
+    protected BeanCopier() {
+    }
+
+    /**
+     * 获取拷贝器
+     * @param sourceClass 源类型
+     * @param targetClass 目标类型
+     * @return
+     */
+    public static BeanCopier getCopier(Class<?> sourceClass, Class<?> targetClass) {
+        CopierKey key = new CopierKey(sourceClass, targetClass);
+        BeanCopier beanCopier = COPIER_CACHE.get(key);
+        if (null == beanCopier) {
+            beanCopier = COPIER_CACHE.computeIfAbsent(key, k -> createCopier(sourceClass, targetClass));
+        }
+        return beanCopier;
+    }
+
+    /**
+     * 属性拷贝
+     * @param source 源对象
+     * @param target 目标对象
+     */
+    public abstract void copy(Object source, Object target);
+
+    /**
+     * 供生成的拷贝类调用，非直接赋值的属性转换
+     * @param value 属性值，基本类型已装箱
+     * @param index 转换属性的序号
+     * @return
+     */
+    protected Object convert(Object value, int index) {
+        if (null == value) {
+            return null;
+        }
+        Class<?> type = this.convertTypes[index];
+        return value instanceof String ? ConvertUtils.convert((String) value, type) : ConvertUtils.convert(value, type);
+    }
+
+    private static BeanCopier createCopier(Class<?> sourceClass, Class<?> targetClass) {
+        ClassLoader classLoader = targetClass.getClassLoader();
+        if (!isGeneratable(sourceClass, classLoader) || !isGeneratable(targetClass, classLoader) || !isGeneratable(BeanCopier.class, classLoader)) {
+            return new ReflectiveBeanCopier();
+        }
+        ClassGenerator classGenerator = null;
+        try {
+            List<Class<?>> convertTypes = new ArrayList<>();
+            int propertyIndex = 0;
+            String sourceName = JavassistHelper.getName(sourceClass);
+            String targetName = JavassistHelper.getName(targetClass);
+            StringBuilder code = new StringBuilder("public void copy(Object arg0, Object arg1){ ");
+            code.append(sourceName).append(" s = (").append(sourceName).append(") arg0; ");
+            code.append(targetName).append(" t = (").append(targetName).append(") arg1; ");
+            Map<String, PropertyDescriptor> targetDescriptors = new HashMap<>();
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(targetClass).getPropertyDescriptors()) {
+                if (null != descriptor.getWriteMethod()) {
+                    targetDescriptors.put(descriptor.getName(), descriptor);
+                }
+            }
+            for (PropertyDescriptor sourceDescriptor : Introspector.getBeanInfo(sourceClass).getPropertyDescriptors()) {
+                PropertyDescriptor targetDescriptor = targetDescriptors.get(sourceDescriptor.getName());
+                if ("class".equals(sourceDescriptor.getName()) || null == sourceDescriptor.getReadMethod() || null == targetDescriptor) {
+                    continue;
+                }
+                if (!isPublicDeclared(sourceDescriptor.getReadMethod()) || !isPublicDeclared(targetDescriptor.getWriteMethod())) {
+                    return new ReflectiveBeanCopier();
+                }
+                appendProperty(code, sourceDescriptor.getReadMethod(), targetDescriptor.getWriteMethod(), convertTypes, propertyIndex++);
+            }
+            code.append('}');
+
+            classGenerator = ClassGenerator.newInstance(classLoader);
+            classGenerator.setClassName(BeanCopier.class.getName() + COPIER_CLASS_COUNTER.getAndIncrement());
+            classGenerator.setSuperClass(BeanCopier.class);
+            classGenerator.addDefaultConstructor();
+            classGenerator.addMethod(code.toString());
+            BeanCopier beanCopier = (BeanCopier) classGenerator.toClass(classLoader, BeanCopier.class.getProtectionDomain()).newInstance();
+            beanCopier.convertTypes = convertTypes.toArray(new Class<?>[convertTypes.size()]);
+            return beanCopier;
+        } catch (IntrospectionException | ReflectiveOperationException | RuntimeException | LinkageError e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to generate bean copier from {} to {}, fall back to reflective copy.", sourceClass.getName(), targetClass.getName(), e);
+            }
+            return new ReflectiveBeanCopier();
+        } finally {
+            if (null != classGenerator) {
+                classGenerator.release();
+            }
+        }
+    }
+
+    private static void appendProperty(StringBuilder code, Method readMethod, Method writeMethod, List<Class<?>> convertTypes, int propertyIndex) {
+        Class<?> sourceType = readMethod.getReturnType();
+        Class<?> targetType = writeMethod.getParameterTypes()[0];
+        String getter = "s." + readMethod.getName() + "()";
+        String setter = "t." + writeMethod.getName();
+        String variable = "v" + propertyIndex;
+        if (targetType.isAssignableFrom(sourceType)) {
+            code.append(setter).append('(').append(getter).append("); ");
+        } else if (sourceType.isPrimitive() && targetType.isAssignableFrom(ClassUtils.primitiveToWrapper(sourceType))) {
+            code.append(setter).append('(').append(box(sourceType, getter)).append("); ");
+        } else if (targetType.isPrimitive() && sourceType == ClassUtils.primitiveToWrapper(targetType)) {
+            code.append(sourceType.getName()).append(' ').append(variable).append(" = ").append(getter).append("; ")
+                    .append("if (").append(variable).append(" != null) ").append(setter).append('(').append(unbox(targetType, variable)).append("); ");
+        } else {
+            int index = convertTypes.size();
+            convertTypes.add(targetType);
+            String value = sourceType.isPrimitive() ? box(sourceType, getter) : getter;
+            if (targetType.isPrimitive()) {
+                code.append("Object ").append(variable).append(" = convert(").append(value).append(", ").append(index).append("); ")
+                        .append("if (").append(variable).append(" != null) ").append(setter).append('(')
+                        .append(unbox(targetType, "((" + ClassUtils.primitiveToWrapper(targetType).getName() + ") " + variable + ")")).append("); ");
+            } else {
+                code.append(setter).append("((").append(JavassistHelper.getName(targetType)).append(") convert(")
+                        .append(value).append(", ").append(index).append(")); ");
+            }
+        }
+    }
+
+    private static String box(Class<?> primitiveType, String expression) {
+        return ClassUtils.primitiveToWrapper(primitiveType).getName() + ".valueOf(" + expression + ")";
+    }
+
+    private static String unbox(Class<?> primitiveType, String expression) {
+        return expression + "." + primitiveType.getName() + "Value()";
+    }
+
+    private static boolean isPublicDeclared(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    private static boolean isGeneratable(Class<?> type, ClassLoader classLoader) {
+        if (null == classLoader || !Modifier.isPublic(type.getModifiers()) || type.isInterface() || type.isArray() || type.isPrimitive()) {
+            return false;
+        }
+        try {
+            return Class.forName(type.getName(), false, classLoader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 反射拷贝
+     */
+    private static class ReflectiveBeanCopier extends BeanCopier {
+        @Override
+        public void copy(Object source, Object target) {
+            try {
+                org.apache.commons.beanutils.BeanUtils.copyProperties(target, source);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static class CopierKey {
+        private final Class<?> sourceClass;
+        private final Class<?> targetClass;
+
+        CopierKey(Class<?> sourceClass, Class<?> targetClass) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CopierKey)) {
+                return false;
+            }
+            CopierKey that = (CopierKey) o;
+            return this.sourceClass == that.sourceClass && this.targetClass == that.targetClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.sourceClass.hashCode() + this.targetClass.hashCode();
+        }
+    }
+}
@@ -17,7 +17,11 @@
 
 package com.galaxy.lemon.common.utils;
 
+import com.galaxy.lemon.common.bytecode.BeanCopier;
+import org.apache.commons.beanutils.DynaBean;
+
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
 
 /**
  * BeanUtils
@@ -28,12 +32,16 @@ import java.lang.reflect.InvocationTargetException;
 
 public class BeanUtils extends org.apache.commons.beanutils.BeanUtils {
     /**
-     * 属性拷贝
+     * 属性拷贝，Java Bean之间通过生成的{@link BeanCopier}拷贝，Map及DynaBean使用commons-beanutils
      * @param dest 目的对象 
      * @param orig 源对象
      */
     public static void copyProperties(Object dest, Object orig) {
         //org.springframework.beans.BeanUtils.copyProperties(orig, dest);
+        if (isBeanCopierApplicable(dest, orig)) {
+            BeanCopier.getCopier(orig.getClass(), dest.getClass()).copy(orig, dest);
+            return;
+        }
         try {
             org.apache.commons.beanutils.BeanUtils.copyProperties(dest, orig);
         } catch (IllegalAccessException | InvocationTargetException e) {
@@ -48,12 +56,13 @@ public class BeanUtils extends org.apache.commons.beanutils.BeanUtils {
      * @return
      */
     public static <D, O> D copyPropertiesReturnDest(D dest, O orig) {
-        //org.springframework.beans.BeanUtils.copyProperties(orig, dest);
-        try {
-            org.apache.commons.beanutils.BeanUtils.copyProperties(dest, orig);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+        copyProperties(dest, orig);
         return dest;
     }
+
+    private static boolean isBeanCopierApplicable(Object dest, Object orig) {
+        return null != dest && null != orig
+                && !(dest instanceof Map) && !(orig instanceof Map)
+                && !(dest instanceof DynaBean) && !(orig instanceof DynaBean);
+    }
 }
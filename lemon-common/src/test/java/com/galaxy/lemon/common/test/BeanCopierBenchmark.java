@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.common.test;
+
+import com.galaxy.lemon.common.bytecode.BeanCopier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 属性拷贝的基准测试，对比 commons-beanutils 反射拷贝与生成的{@link BeanCopier}
+ * 通过 {@link #main(String[])} 运行
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCopierBenchmark {
+
+    private OrderDO orderDO;
+    private BeanCopier beanCopier;
+
+    @Setup
+    public void setup() {
+        this.orderDO = new OrderDO();
+        this.orderDO.setOrderNo("201801010000000001");
+        this.orderDO.setUserId("U0001");
+        this.orderDO.setAmount(new BigDecimal("100.50"));
+        this.orderDO.setQuantity(3);
+        this.orderDO.setStatus(1);
+        this.orderDO.setRemark("remark");
+        this.orderDO.setCreateTime(LocalDateTime.now());
+        this.beanCopier = BeanCopier.getCopier(OrderDO.class, OrderBO.class);
+    }
+
+    @Benchmark
+    public OrderBO commonsBeanUtils() throws InvocationTargetException, IllegalAccessException {
+        OrderBO orderBO = new OrderBO();
+        org.apache.commons.beanutils.BeanUtils.copyProperties(orderBO, this.orderDO);
+        return orderBO;
+    }
+
+    @Benchmark
+    public OrderBO beanCopier() {
+        OrderBO orderBO = new OrderBO();
+        this.beanCopier.copy(this.orderDO, orderBO);
+        return orderBO;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BeanCopierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class OrderDO {
+        private String orderNo;
+        private String userId;
+        private BigDecimal amount;
+        private int quantity;
+        private Integer status;
+        private String remark;
+        private LocalDateTime createTime;
+
+        public String getOrderNo() {
+            return orderNo;
+        }
+
+        public void setOrderNo(String orderNo) {
+            this.orderNo = orderNo;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public Integer getStatus() {
+            return status;
+        }
+
+        public void setStatus(Integer status) {
+            this.status = status;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(LocalDateTime createTime) {
+            this.createTime = createTime;
+        }
+    }
+
+    public static class OrderBO {
+        private String orderNo;
+        private String userId;
+        private BigDecimal amount;
+        private Integer quantity;
+        private int status;
+        private String remark;
+        private LocalDateTime createTime;
+
+        public String getOrderNo() {
+            return orderNo;
+        }
+
+        public void setOrderNo(String orderNo) {
+            this.orderNo = orderNo;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(LocalDateTime createTime) {
+            this.createTime = createTime;
+        }
+    }
+}
@@ -21,12 +21,17 @@ import com.galaxy.lemon.common.LemonConstants;
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.common.utils.OrderUtils;
 import com.galaxy.lemon.common.utils.StringUtils;
+import com.galaxy.lemon.framework.actuator.endpoint.LocksEndpoint;
+import com.galaxy.lemon.framework.actuator.endpoint.NearCachesEndpoint;
 import com.galaxy.lemon.framework.actuator.endpoint.OfflineEndpoint;
 import com.galaxy.lemon.framework.actuator.endpoint.StatusEndpoint;
+import com.galaxy.lemon.framework.cache.near.NearCacheManager;
+import com.galaxy.lemon.framework.lock.LockMetrics;
 import com.galaxy.lemon.framework.offline.OfflineListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -70,4 +75,24 @@ public class EndpointAutoConfiguration {
     public StatusEndpoint statusEndpoint() {
         return new StatusEndpoint();
     }
+
+    @Configuration
+    @ConditionalOnClass(LockMetrics.class)
+    public static class LocksEndpointConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public LocksEndpoint locksEndpoint(ObjectProvider<LockMetrics> lockMetrics) {
+            return new LocksEndpoint(lockMetrics);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(NearCacheManager.class)
+    public static class NearCachesEndpointConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public NearCachesEndpoint nearCachesEndpoint(ObjectProvider<NearCacheManager> nearCacheManager) {
+            return new NearCachesEndpoint(nearCacheManager);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.actuator.endpoint;
+
+import com.galaxy.lemon.framework.lock.LockMetrics;
+import com.galaxy.lemon.framework.lock.LockStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分布式锁统计，按锁名输出获取锁耗时及竞争情况
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see LockMetrics
+ * @since 1.0.0
+ */
+
+@ConfigurationProperties(prefix = "endpoints.locks")
+public class LocksEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    private ObjectProvider<LockMetrics> lockMetrics;
+
+    public LocksEndpoint(ObjectProvider<LockMetrics> lockMetrics) {
+        super("locks", true, true);
+        this.lockMetrics = lockMetrics;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        LockMetrics metrics = this.lockMetrics.getIfAvailable();
+        if (null == metrics) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> result = new TreeMap<>();
+        metrics.getAllStatistics().forEach((k, v) -> result.put(k, toMap(v)));
+        return result;
+    }
+
+    private Map<String, Object> toMap(LockStatistics statistics) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("acquired", statistics.getAcquiredCount());
+        map.put("failed", statistics.getFailedCount());
+        map.put("localContended", statistics.getLocalContendedCount());
+        map.put("meanAcquireMillis", statistics.getMeanAcquireMillis());
+        map.put("maxAcquireMillis", statistics.getMaxAcquireMillis());
+        map.put("meanHoldMillis", statistics.getMeanHoldMillis());
+        map.put("maxHoldMillis", statistics.getMaxHoldMillis());
+        return map;
+    }
+}
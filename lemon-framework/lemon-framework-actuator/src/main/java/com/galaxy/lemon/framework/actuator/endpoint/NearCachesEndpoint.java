@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.actuator.endpoint;
+
+import com.galaxy.lemon.framework.cache.near.NearCache;
+import com.galaxy.lemon.framework.cache.near.NearCacheManager;
+import com.galaxy.lemon.framework.cache.near.NearCacheStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.Cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 二级缓存统计，按缓存名输出本地缓存命中率及远端访问耗时
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see NearCacheStatistics
+ * @since 1.0.0
+ */
+
+@ConfigurationProperties(prefix = "endpoints.nearcaches")
+public class NearCachesEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    private ObjectProvider<NearCacheManager> nearCacheManager;
+
+    public NearCachesEndpoint(ObjectProvider<NearCacheManager> nearCacheManager) {
+        super("nearcaches", true, true);
+        this.nearCacheManager = nearCacheManager;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        NearCacheManager manager = this.nearCacheManager.getIfAvailable();
+        if (null == manager) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> result = new TreeMap<>();
+        for (String cacheName : manager.getCacheNames()) {
+            Cache cache = manager.getCache(cacheName);
+            if (cache instanceof NearCache) {
+                result.put(cacheName, toMap((NearCache) cache));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> toMap(NearCache nearCache) {
+        NearCacheStatistics statistics = nearCache.getStatistics();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", statistics.getHitCount());
+        map.put("misses", statistics.getMissCount());
+        map.put("hitRatio", statistics.getHitRatio());
+        map.put("remoteHits", statistics.getRemoteHitCount());
+        map.put("averageRemoteLoadNanos", statistics.getAverageRemoteLoadNanos());
+        map.put("invalidations", statistics.getInvalidationCount());
+        map.put("localSize", nearCache.getLocalSize());
+        map.put("localEvictions", nearCache.getLocalEvictionCount());
+        return map;
+    }
+}
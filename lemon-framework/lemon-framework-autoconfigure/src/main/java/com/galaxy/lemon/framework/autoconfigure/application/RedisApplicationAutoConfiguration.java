@@ -17,6 +17,7 @@
 
 package com.galaxy.lemon.framework.autoconfigure.application;
 
+import com.galaxy.lemon.framework.cumulative.BufferedRedisCumulative;
 import com.galaxy.lemon.framework.cumulative.Cumulative;
 import com.galaxy.lemon.framework.cumulative.RedisCumulative;
 import com.galaxy.lemon.framework.random.BindingTokenRandomTemplate;
@@ -25,6 +26,7 @@ import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -55,12 +57,17 @@ public class RedisApplicationAutoConfiguration {
 
     @Configuration
     @ConditionalOnClass({Cumulative.class, RedisCumulative.class})
+    @EnableConfigurationProperties(CumulativeProperties.class)
     public static class CumulativeConfiguration {
 
         @Bean
         @ConditionalOnBean(name = "stringRedisTemplate")
         @ConditionalOnMissingBean
-        public Cumulative redisCumulative(RedisTemplate<String, String> stringRedisTemplate) {
+        public Cumulative redisCumulative(RedisTemplate<String, String> stringRedisTemplate, CumulativeProperties cumulativeProperties) {
+            CumulativeProperties.Buffer buffer = cumulativeProperties.getBuffer();
+            if (buffer.isEnabled()) {
+                return new BufferedRedisCumulative(stringRedisTemplate, buffer.getMaxSize(), buffer.getFlushInterval());
+            }
             return new RedisCumulative(stringRedisTemplate);
         }
     }
@@ -62,6 +62,8 @@ public class CacheProperties {
 
 	private final Guava guava = new Guava();
 
+	private final SingleFlight singleFlight = new SingleFlight();
+
 	public CacheType getType() {
 		return this.type;
 	}
@@ -107,6 +109,10 @@ public class CacheProperties {
 		return this.guava;
 	}
 
+	public SingleFlight getSingleFlight() {
+		return this.singleFlight;
+	}
+
 	/**
 	 * Resolve the config location if set.
 	 * @param config the config resource
@@ -296,4 +302,65 @@ public class CacheProperties {
 
 	}
 
+	/**
+	 * Coalescing of concurrent cache loads, applies to caches with sync = true.
+	 */
+	public static class SingleFlight {
+
+		/**
+		 * Collapse concurrent misses for the same key into one load per JVM.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Guard loads cluster-wide by a short redis lease, redis cache only.
+		 */
+		private boolean leaseEnabled = false;
+
+		/**
+		 * Lease time in milliseconds, also the max time waiting for the lease holder to
+		 * release the lease.
+		 */
+		private long leaseMillis = 3000;
+
+		/**
+		 * Factor of probabilistic early refresh before expiry, 0 to disable. Only applies
+		 * to caches with a known expiry, and to keys loaded by the local node.
+		 */
+		private double earlyRefreshBeta = 0;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isLeaseEnabled() {
+			return this.leaseEnabled;
+		}
+
+		public void setLeaseEnabled(boolean leaseEnabled) {
+			this.leaseEnabled = leaseEnabled;
+		}
+
+		public long getLeaseMillis() {
+			return this.leaseMillis;
+		}
+
+		public void setLeaseMillis(long leaseMillis) {
+			this.leaseMillis = leaseMillis;
+		}
+
+		public double getEarlyRefreshBeta() {
+			return this.earlyRefreshBeta;
+		}
+
+		public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+			this.earlyRefreshBeta = earlyRefreshBeta;
+		}
+
+	}
+
 }
@@ -19,6 +19,7 @@ package com.galaxy.lemon.framework.autoconfigure.cache.jcache;
 
 import com.galaxy.lemon.framework.autoconfigure.cache.CacheProperties;
 import com.galaxy.lemon.framework.cache.NameResolvedCacheResolver;
+import com.galaxy.lemon.framework.cache.SingleFlightCache;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizers;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
@@ -151,7 +152,13 @@ public class JCacheCacheConfiguration {
 
     @Bean
     public CacheResolver jCacheCacheResolver(org.springframework.cache.CacheManager jcacheCacheManager) {
-        return new NameResolvedCacheResolver(jcacheCacheManager);
+        NameResolvedCacheResolver cacheResolver = new NameResolvedCacheResolver(jcacheCacheManager);
+        CacheProperties.SingleFlight singleFlight = this.cacheProperties.getSingleFlight();
+        if (singleFlight.isEnabled()) {
+            //jcache为本地缓存，仅JVM内合并加载
+            cacheResolver.setCacheDecorator(cache -> new SingleFlightCache(cache, null, singleFlight.getLeaseMillis(), 0L, 0D));
+        }
+        return cacheResolver;
     }
 
     /**
@@ -19,7 +19,16 @@ package com.galaxy.lemon.framework.autoconfigure.cache.redis;
 
 import com.galaxy.lemon.common.KVPair;
 import com.galaxy.lemon.common.utils.JudgeUtils;
+import com.galaxy.lemon.framework.autoconfigure.cache.CacheProperties;
+import com.galaxy.lemon.framework.cache.CacheLoadLease;
+import com.galaxy.lemon.framework.cache.MixCacheResolver;
 import com.galaxy.lemon.framework.cache.NameResolvedCacheResolver;
+import com.galaxy.lemon.framework.cache.SingleFlightCache;
+import com.galaxy.lemon.framework.cache.near.NearCacheManager;
+import com.galaxy.lemon.framework.cache.near.NearCacheMixCacheResolver;
+import com.galaxy.lemon.framework.cache.near.redis.RedisNearCacheInvalidator;
+import com.galaxy.lemon.framework.cache.redis.RedisCacheLoadLease;
+import org.springframework.beans.factory.ObjectProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizers;
@@ -36,8 +45,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.jedis.JedisConnection;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.util.StringValueResolver;
 import redis.clients.jedis.Jedis;
 
@@ -45,6 +57,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.galaxy.lemon.common.KVPair.instance;
@@ -65,14 +78,15 @@ import static org.apache.commons.lang3.math.NumberUtils.toLong;
 @Import({CacheRedisConfiguration.class})
 public class RedisCacheConfiguration {
     private static final Logger logger = LoggerFactory.getLogger(RedisCacheConfiguration.class);
+    private static final String DEFAULT_REDIS_CACHE_PREFIX = "CACHE";
+    public static final String CACHE_NAME_PREFIX_SEPARATOR = ":";
+    public static final String NEAR_CACHE_MANAGER = "nearCacheManager";
 
     @Configuration
     public static class InternalRedisCacheConfiguration implements EmbeddedValueResolverAware, EnvironmentAware {
 
         private static final int DEFAULT_EXPIRE_TIME = 600; //s
-        private static final String DEFAULT_REDIS_CACHE_PREFIX = "CACHE";
         public static final String CACHE_REDIS_EXPIRES = "lemon.cache.redis.expires";
-        public static final String CACHE_NAME_PREFIX_SEPARATOR = ":";
 
 
         private StringValueResolver stringValueResolver;
@@ -80,11 +94,14 @@ public class RedisCacheConfiguration {
 
         private final CacheManagerCustomizers customizerInvoker;
         private final RedisCacheProperties redisCacheProperties;
+        private final CacheProperties cacheProperties;
 
         public InternalRedisCacheConfiguration(CacheManagerCustomizers customizerInvoker,
-                                       RedisCacheProperties properties) {
+                                       RedisCacheProperties properties,
+                                       CacheProperties cacheProperties) {
             this.customizerInvoker = customizerInvoker;
             this.redisCacheProperties = properties;
+            this.cacheProperties = cacheProperties;
         }
 
         @Bean
@@ -108,9 +125,23 @@ public class RedisCacheConfiguration {
         }
 
         @Bean
-        public CacheResolver redisCacheResolver(CacheManager redisCacheManager) {
+        public CacheResolver redisCacheResolver(CacheManager redisCacheManager, ObjectProvider<Map<String, CacheManager>> cacheManagers,
+                                                ObjectProvider<CacheLoadLease> cacheLoadLease) {
             //return new NameResolvedCacheResolver(redisCacheManager, new CacheNamePrefix.SimpleCacheNamePrefix(getCacheNamePrefix()));
-            return new NameResolvedCacheResolver(redisCacheManager, originalCacheName -> resolveCacheName(originalCacheName));
+            //开启本地缓存时由二级缓存管理器解析
+            CacheManager cacheManager = Optional.ofNullable(cacheManagers.getIfAvailable()).map(cms -> cms.get(NEAR_CACHE_MANAGER)).orElse(redisCacheManager);
+            NameResolvedCacheResolver cacheResolver = new NameResolvedCacheResolver(cacheManager, originalCacheName -> resolveCacheName(originalCacheName));
+            CacheProperties.SingleFlight singleFlight = this.cacheProperties.getSingleFlight();
+            if (singleFlight.isEnabled()) {
+                Map<String, Long> expires = Optional.ofNullable(parseRedisCacheExpires()).orElse(Collections.emptyMap());
+                CacheLoadLease lease = cacheLoadLease.getIfAvailable();
+                cacheResolver.setCacheDecorator(cache -> new SingleFlightCache(cache, lease, singleFlight.getLeaseMillis(),
+                        TimeUnit.SECONDS.toMillis(expires.getOrDefault(cache.getName(), (long) getDefaultExpireTime())), singleFlight.getEarlyRefreshBeta()));
+                if(logger.isInfoEnabled()) {
+                    logger.info("redis cache single flight loading enabled, lease {}, early refresh beta {}", lease, singleFlight.getEarlyRefreshBeta());
+                }
+            }
+            return cacheResolver;
         }
 
         private int getDefaultExpireTime() {
@@ -134,18 +165,7 @@ public class RedisCacheConfiguration {
         }
 
         private String resolveCacheName(String cacheName) {
-            cacheName = this.stringValueResolver.resolveStringValue(cacheName);
-            StringBuilder cacheNameStringBuilder = new StringBuilder();
-            String cacheNamePrefix = getCacheNamePrefix();
-            if (JudgeUtils.isNotEmpty(cacheNamePrefix) && ! cacheName.startsWith(cacheNamePrefix)) {
-                cacheNameStringBuilder.append(cacheNamePrefix).append(CACHE_NAME_PREFIX_SEPARATOR);
-            }
-            cacheNameStringBuilder.append(cacheName);
-            return cacheNameStringBuilder.toString();
-        }
-
-        private String getCacheNamePrefix() {
-            return Optional.ofNullable(this.redisCacheProperties.getCacheNamePrefix()).filter(JudgeUtils::isNotEmpty).orElse(DEFAULT_REDIS_CACHE_PREFIX);
+            return RedisCacheConfiguration.resolveCacheName(this.stringValueResolver, this.redisCacheProperties, cacheName);
         }
 
         @Override
@@ -160,5 +180,92 @@ public class RedisCacheConfiguration {
 
     }
 
+    /**
+     * 缓存加载租约
+     */
+    @Configuration
+    @ConditionalOnClass(RedisCacheLoadLease.class)
+    @ConditionalOnProperty(prefix = "lemon.cache.single-flight", name = {"enabled", "lease-enabled"})
+    public static class CacheLoadLeaseConfiguration {
+
+        @Bean
+        public RedisCacheLoadLease redisCacheLoadLease(RedisTemplate cacheRedisTemplate) {
+            return new RedisCacheLoadLease(cacheRedisTemplate);
+        }
+
+        /**
+         * 订阅租约释放通知，唤醒等待其他节点加载的线程
+         * @param redisCacheLoadLease
+         * @param cacheRedisTemplate
+         * @return
+         */
+        @Bean
+        public RedisMessageListenerContainer cacheLoadLeaseMessageListenerContainer(RedisCacheLoadLease redisCacheLoadLease, RedisTemplate cacheRedisTemplate) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(cacheRedisTemplate.getConnectionFactory());
+            container.addMessageListener(redisCacheLoadLease, new ChannelTopic(redisCacheLoadLease.getChannel()));
+            return container;
+        }
+    }
+
+    /**
+     * 本地缓存 + redis 二级缓存
+     */
+    @Configuration
+    @ConditionalOnClass(NearCacheManager.class)
+    @ConditionalOnProperty(prefix = "lemon.cache.redis.near", name = "enabled")
+    public static class NearCacheConfiguration implements EmbeddedValueResolverAware {
+        private StringValueResolver stringValueResolver;
+        private final RedisCacheProperties redisCacheProperties;
+
+        public NearCacheConfiguration(RedisCacheProperties redisCacheProperties) {
+            this.redisCacheProperties = redisCacheProperties;
+        }
+
+        @Bean(name = NEAR_CACHE_MANAGER)
+        public NearCacheManager nearCacheManager(CacheManager redisCacheManager, RedisTemplate cacheRedisTemplate) {
+            RedisCacheProperties.Near near = this.redisCacheProperties.getNear();
+            NearCacheManager nearCacheManager = new NearCacheManager(redisCacheManager, near.getMaximumSize(), near.getTtl(), TimeUnit.SECONDS);
+            nearCacheManager.setNearCacheNames(near.getCacheNames().stream().map(cn -> resolveCacheName(this.stringValueResolver, this.redisCacheProperties, cn)).collect(Collectors.toList()));
+            nearCacheManager.setNearCacheInvalidator(new RedisNearCacheInvalidator(cacheRedisTemplate, near.getChannel(), nearCacheManager));
+            if(logger.isInfoEnabled()) {
+                logger.info("near cache enabled, maximum size {}, ttl {}/s, cache names {}", near.getMaximumSize(), near.getTtl(), near.getCacheNames());
+            }
+            return nearCacheManager;
+        }
+
+        /**
+         * 使用 MixCacheManager 时，"near."前缀的缓存名路由到二级缓存
+         * @return
+         */
+        @Bean
+        public MixCacheResolver nearCacheMixCacheResolver() {
+            return new NearCacheMixCacheResolver();
+        }
+
+        @Bean
+        public RedisMessageListenerContainer nearCacheMessageListenerContainer(NearCacheManager nearCacheManager, RedisTemplate cacheRedisTemplate) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(cacheRedisTemplate.getConnectionFactory());
+            container.addMessageListener((MessageListener) nearCacheManager.getNearCacheInvalidator(), new ChannelTopic(this.redisCacheProperties.getNear().getChannel()));
+            return container;
+        }
+
+        @Override
+        public void setEmbeddedValueResolver(StringValueResolver resolver) {
+            this.stringValueResolver = resolver;
+        }
+    }
+
+    static String resolveCacheName(StringValueResolver stringValueResolver, RedisCacheProperties redisCacheProperties, String cacheName) {
+        cacheName = stringValueResolver.resolveStringValue(cacheName);
+        StringBuilder cacheNameStringBuilder = new StringBuilder();
+        String cacheNamePrefix = Optional.ofNullable(redisCacheProperties.getCacheNamePrefix()).filter(JudgeUtils::isNotEmpty).orElse(DEFAULT_REDIS_CACHE_PREFIX);
+        if (JudgeUtils.isNotEmpty(cacheNamePrefix) && ! cacheName.startsWith(cacheNamePrefix)) {
+            cacheNameStringBuilder.append(cacheNamePrefix).append(CACHE_NAME_PREFIX_SEPARATOR);
+        }
+        cacheNameStringBuilder.append(cacheName);
+        return cacheNameStringBuilder.toString();
+    }
 
 }
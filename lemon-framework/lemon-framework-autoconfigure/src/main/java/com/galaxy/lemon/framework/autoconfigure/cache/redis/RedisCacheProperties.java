@@ -86,6 +86,8 @@ public class RedisCacheProperties {
 
     private Cluster cluster;
 
+    private Near near = new Near();
+
     public int getDatabase() {
         return this.database;
     }
@@ -190,6 +192,14 @@ public class RedisCacheProperties {
         this.cacheNames = cacheNames;
     }
 
+    public Near getNear() {
+        return near;
+    }
+
+    public void setNear(Near near) {
+        this.near = near;
+    }
+
     /**
      * Pool properties.
      */
@@ -322,4 +332,76 @@ public class RedisCacheProperties {
 
     }
 
+    /**
+     * Near cache properties, local cache in front of redis cache.
+     */
+    public static class Near {
+
+        /**
+         * Enable local cache in front of redis cache.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Max number of entries in local cache of each cache name.
+         */
+        private int maximumSize = 10000;
+
+        /**
+         * Time to live in seconds of local cache entries, 0 never expire.
+         */
+        private long ttl = 60;
+
+        /**
+         * Cache names using local cache, all redis caches if empty.
+         */
+        private List<String> cacheNames = new ArrayList<String>();
+
+        /**
+         * Redis pub/sub channel for cross node invalidation.
+         */
+        private String channel = "lemon:cache:near:invalidation";
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumSize() {
+            return this.maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getTtl() {
+            return this.ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public List<String> getCacheNames() {
+            return this.cacheNames;
+        }
+
+        public void setCacheNames(List<String> cacheNames) {
+            this.cacheNames = cacheNames;
+        }
+
+        public String getChannel() {
+            return this.channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+    }
+
 }
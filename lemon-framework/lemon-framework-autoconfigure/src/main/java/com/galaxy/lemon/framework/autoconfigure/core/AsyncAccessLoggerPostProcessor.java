@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.autoconfigure.core;
+
+import com.galaxy.lemon.common.log.AccessLogger;
+import com.galaxy.lemon.common.log.AsyncAccessLogger;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 将指定名称的{@link AccessLogger} 包装为{@link AsyncAccessLogger}
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see AsyncAccessLogger
+ * @since 1.0.0
+ */
+
+public class AsyncAccessLoggerPostProcessor implements BeanPostProcessor, DisposableBean {
+    private final Set<String> beanNames;
+    private final int bufferSize;
+    private final AsyncAccessLogger.OverflowPolicy overflowPolicy;
+    private final long blockTimeout;
+    private final List<AsyncAccessLogger> asyncAccessLoggers = new ArrayList<>();
+
+    public AsyncAccessLoggerPostProcessor(Collection<String> beanNames, int bufferSize,
+                                          AsyncAccessLogger.OverflowPolicy overflowPolicy, long blockTimeout) {
+        this.beanNames = new HashSet<>(beanNames);
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof AccessLogger) || bean instanceof AsyncAccessLogger || !this.beanNames.contains(beanName)) {
+            return bean;
+        }
+        AsyncAccessLogger asyncAccessLogger = new AsyncAccessLogger((AccessLogger) bean, "lemon-access-logger-" + beanName,
+                this.bufferSize, this.overflowPolicy, this.blockTimeout);
+        synchronized (this.asyncAccessLoggers) {
+            this.asyncAccessLoggers.add(asyncAccessLogger);
+        }
+        return asyncAccessLogger;
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (this.asyncAccessLoggers) {
+            this.asyncAccessLoggers.forEach(AsyncAccessLogger::shutdown);
+            this.asyncAccessLoggers.clear();
+        }
+    }
+}
@@ -37,6 +37,7 @@ import com.galaxy.lemon.framework.data.instantiator.GenericDTOInstantiator;
 import com.galaxy.lemon.framework.data.instantiator.LemonDataInstantiator;
 import com.galaxy.lemon.framework.data.instantiator.RelaxedAggregatedDataInstantiator;
 import com.galaxy.lemon.framework.data.interceptor.EnableInitialLemonData;
+import com.galaxy.lemon.framework.data.support.CompactLemonDataMessageConverter;
 import com.galaxy.lemon.framework.data.support.DTOMessageConverterSupport;
 import com.galaxy.lemon.framework.data.support.DefaultLemonDataMessageConverter;
 import com.galaxy.lemon.framework.data.support.OnlyInstantiationContextLemonDataInitializer;
@@ -53,6 +54,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import java.util.Optional;
+
 /**
  *
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
@@ -138,8 +141,10 @@ public class CoreAutoConfiguration {
 
         @Bean
         public LemonDataMessageConverter lemonDataMessageConverter(LemonDataInstantiator lemonDataInstantiator,
-                                                                   ObjectCodec objectCodec) {
-            return new DefaultLemonDataMessageConverter(lemonDataInstantiator, objectCodec);
+                                                                   ObjectCodec objectCodec,
+                                                                   CoreProperties coreProperties) {
+            boolean compactTransport = Optional.ofNullable(coreProperties.getLemonData()).map(CoreProperties.LemonDataProperties::isCompactTransport).orElse(false);
+            return new CompactLemonDataMessageConverter(lemonDataInstantiator, new DefaultLemonDataMessageConverter(lemonDataInstantiator, objectCodec), compactTransport);
         }
     }
 
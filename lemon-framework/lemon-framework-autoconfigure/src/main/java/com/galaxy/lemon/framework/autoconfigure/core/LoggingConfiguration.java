@@ -21,11 +21,15 @@ import com.galaxy.lemon.framework.jackson.log.DefaultLoggingCodec;
 import com.galaxy.lemon.common.log.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.util.Arrays;
+
 /**
  *
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
@@ -68,4 +72,22 @@ public class LoggingConfiguration {
         return new DefaultKeywordsResolver(logKeywordsExpressionEvaluator, keywordsExpressionSource, expressions);
     }
 
+    /**
+     * 访问日志异步输出，lemon.logger.async.enabled=true 时开启
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "lemon.logger.async", name = "enabled")
+    public static class AsyncAccessLoggerConfiguration {
+
+        @Bean
+        public static AsyncAccessLoggerPostProcessor asyncAccessLoggerPostProcessor(Environment environment) {
+            String[] beanNames = environment.getProperty("lemon.logger.async.loggers", String[].class,
+                    new String[]{"webAccessLogger", "feignAccessLogger", "gatewayAccessLogger"});
+            return new AsyncAccessLoggerPostProcessor(Arrays.asList(beanNames),
+                    environment.getProperty("lemon.logger.async.bufferSize", Integer.class, AsyncAccessLogger.DEFAULT_BUFFER_SIZE),
+                    environment.getProperty("lemon.logger.async.overflowPolicy", AsyncAccessLogger.OverflowPolicy.class, AsyncAccessLogger.OverflowPolicy.DROP),
+                    environment.getProperty("lemon.logger.async.blockTimeout", Long.class, 100L));
+        }
+    }
+
 }
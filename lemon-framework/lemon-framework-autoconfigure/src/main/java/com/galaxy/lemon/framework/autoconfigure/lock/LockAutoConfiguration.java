@@ -21,6 +21,7 @@ import com.galaxy.lemon.framework.autoconfigure.redisson.RedissonAutoConfigurati
 import com.galaxy.lemon.framework.lock.DistributedLocker;
 import com.galaxy.lemon.framework.autoconfigure.lock.LockAutoConfiguration.LockProperties;
 import com.galaxy.lemon.framework.lock.DistributedLockerAspect;
+import com.galaxy.lemon.framework.lock.LockMetrics;
 import com.galaxy.lemon.framework.lock.RedisDistributedLocker;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -57,9 +58,16 @@ public class LockAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public DistributedLocker distributedLocker(RedissonClient redissonClient) {
+    public LockMetrics lockMetrics() {
+        return new LockMetrics(getDefaultIfNull(this.lockProperties.getMaxMetricsLockNames(), LockMetrics.DEFAULT_MAX_LOCK_NAMES));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DistributedLocker distributedLocker(RedissonClient redissonClient, LockMetrics lockMetrics) {
         return new RedisDistributedLocker(redissonClient, getDefaultIfNull(this.lockProperties.getDefaultLeaseTime(), DEFAULT_LEASE_TIME),
-                getDefaultIfNull(this.lockProperties.getDefaultWaitTime(), DEFAULT_WAIT_TIME));
+                getDefaultIfNull(this.lockProperties.getDefaultWaitTime(), DEFAULT_WAIT_TIME),
+                getDefaultIfNull(this.lockProperties.getLocalStripes(), RedisDistributedLocker.DEFAULT_LOCAL_STRIPES), lockMetrics);
     }
 
     @Configuration
@@ -73,6 +81,14 @@ public class LockAutoConfiguration {
     public static class LockProperties {
         private Integer defaultLeaseTime;
         private Integer defaultWaitTime;
+        /**
+         * 本地条带锁数量，小于等于0时不使用本地锁
+         */
+        private Integer localStripes;
+        /**
+         * 统计的最大锁名数量
+         */
+        private Integer maxMetricsLockNames;
         
         public Integer getDefaultLeaseTime() {
             return defaultLeaseTime;
@@ -86,6 +102,18 @@ public class LockAutoConfiguration {
         public void setDefaultWaitTime(Integer defaultWaitTime) {
             this.defaultWaitTime = defaultWaitTime;
         }
+        public Integer getLocalStripes() {
+            return localStripes;
+        }
+        public void setLocalStripes(Integer localStripes) {
+            this.localStripes = localStripes;
+        }
+        public Integer getMaxMetricsLockNames() {
+            return maxMetricsLockNames;
+        }
+        public void setMaxMetricsLockNames(Integer maxMetricsLockNames) {
+            this.maxMetricsLockNames = maxMetricsLockNames;
+        }
         
     }
 }
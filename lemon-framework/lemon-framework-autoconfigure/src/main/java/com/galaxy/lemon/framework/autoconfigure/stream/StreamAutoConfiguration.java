@@ -17,17 +17,43 @@
 
 package com.galaxy.lemon.framework.autoconfigure.stream;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.galaxy.lemon.common.log.LoggingCodec;
+import com.galaxy.lemon.framework.autoconfigure.datasource.DataSourceAutoConfiguration;
+import com.galaxy.lemon.framework.autoconfigure.transaction.TransactionManagementAutoConfiguration;
+import com.galaxy.lemon.framework.datasource.DynamicDataSource;
 import com.galaxy.lemon.framework.stream.MultiOutput;
 import com.galaxy.lemon.framework.stream.consumer.DefaultInputConsumer;
 import com.galaxy.lemon.framework.stream.logging.InputLogger;
 import com.galaxy.lemon.framework.stream.logging.SimpleInputLogger;
+import com.galaxy.lemon.framework.stream.outbox.JdbcOutboxStore;
+import com.galaxy.lemon.framework.stream.outbox.OutboxDataSourceRouter;
+import com.galaxy.lemon.framework.stream.outbox.OutboxRelay;
+import com.galaxy.lemon.framework.stream.outbox.OutboxStore;
+import com.galaxy.lemon.framework.stream.outbox.OutboxWriter;
 import com.galaxy.lemon.framework.stream.producer.ProducerAspect;
+import com.galaxy.lemon.framework.stream.producer.ProducerPipeline;
+import com.galaxy.lemon.framework.stream.producer.PublisherConfirmRetrier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.binding.BinderAwareChannelResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Optional;
 
 /**
  *
@@ -39,6 +65,8 @@ import org.springframework.context.annotation.Import;
 @Configuration
 @ConditionalOnClass(MultiOutput.class)
 @Import({DefaultInputConsumer.class, MultiOutput.class, ProducerAspect.class})
+@EnableConfigurationProperties(StreamProperties.class)
+@AutoConfigureAfter({DataSourceAutoConfiguration.class, TransactionManagementAutoConfiguration.class})
 public class StreamAutoConfiguration {
 
     @Bean
@@ -46,4 +74,97 @@ public class StreamAutoConfiguration {
     public InputLogger inputLogger(LoggingCodec loggingCodec) {
         return new SimpleInputLogger(loggingCodec, DefaultInputConsumer.class);
     }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lemon.stream.producer", name = "async")
+    public ProducerPipeline producerPipeline(StreamProperties streamProperties) {
+        StreamProperties.Producer producer = streamProperties.getProducer();
+        return new ProducerPipeline(producer.getQueueCapacity(), producer.getBatchSize(), producer.getThreads(),
+                producer.getMaxAttempts(), producer.getRetryBackoff(), producer.getSendTimeout(), producer.getOfferTimeout());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lemon.stream.producer", name = "publisher-confirms")
+    public PublisherConfirmRetrier publisherConfirmRetrier(StreamProperties streamProperties,
+                                                           @Qualifier(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME) SubscribableChannel errorChannel) {
+        StreamProperties.Producer producer = streamProperties.getProducer();
+        PublisherConfirmRetrier publisherConfirmRetrier = new PublisherConfirmRetrier(producer.getMaxAttempts(),
+                producer.getRetryBackoff(), producer.getSendTimeout());
+        publisherConfirmRetrier.subscribe(errorChannel);
+        return publisherConfirmRetrier;
+    }
+
+    @Configuration
+    @ConditionalOnClass(JdbcTemplate.class)
+    @ConditionalOnBean(DataSource.class)
+    @ConditionalOnProperty(prefix = "lemon.stream.outbox", name = "enabled")
+    public static class OutboxConfiguration {
+        private final StreamProperties.Outbox outbox;
+
+        public OutboxConfiguration(StreamProperties streamProperties) {
+            this.outbox = streamProperties.getOutbox();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OutboxStore outboxStore(DataSource dataSource) {
+            return new JdbcOutboxStore(dataSource, this.outbox.getTableName());
+        }
+
+        @Bean(initMethod = "start", destroyMethod = "shutdown")
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "lemon.stream.outbox", name = "relay-enabled", matchIfMissing = true)
+        public OutboxRelay outboxRelay(OutboxStore outboxStore, BinderAwareChannelResolver binderAwareChannelResolver,
+                                       ObjectProvider<ObjectMapper> objectMapper, ObjectProvider<OutboxDataSourceRouter> outboxDataSourceRouter) {
+            OutboxRelay outboxRelay = new OutboxRelay(outboxStore, binderAwareChannelResolver,
+                    Optional.ofNullable(objectMapper.getIfAvailable()).orElseGet(ObjectMapper::new),
+                    outboxDataSourceRouter.getIfAvailable(), this.outbox.getDataSources());
+            outboxRelay.setBatchSize(this.outbox.getBatchSize());
+            outboxRelay.setPollInterval(this.outbox.getPollInterval());
+            outboxRelay.setLeaseTime(this.outbox.getLeaseTime());
+            outboxRelay.setMaxAttempts(this.outbox.getMaxAttempts());
+            outboxRelay.setRetryBackoff(this.outbox.getRetryBackoff());
+            outboxRelay.setRetryDelay(this.outbox.getRetryDelay());
+            outboxRelay.setDeadAttempts(this.outbox.getDeadAttempts());
+            outboxRelay.setSendTimeout(this.outbox.getSendTimeout());
+            return outboxRelay;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OutboxWriter outboxWriter(OutboxStore outboxStore, ObjectProvider<ObjectMapper> objectMapper,
+                                         ObjectProvider<PlatformTransactionManager> transactionManager,
+                                         ObjectProvider<OutboxRelay> outboxRelay) {
+            PlatformTransactionManager platformTransactionManager = transactionManager.getIfAvailable();
+            return new OutboxWriter(outboxStore, Optional.ofNullable(objectMapper.getIfAvailable()).orElseGet(ObjectMapper::new),
+                    null == platformTransactionManager ? null : new TransactionTemplate(platformTransactionManager),
+                    outboxRelay.getIfAvailable());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass({JdbcTemplate.class, DynamicDataSource.class})
+    @ConditionalOnProperty(prefix = "lemon.stream.outbox", name = "enabled")
+    public static class OutboxDynamicDataSourceConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OutboxDataSourceRouter outboxDataSourceRouter() {
+            return new OutboxDataSourceRouter() {
+                @Override
+                public void route(String dataSource) {
+                    if (null != dataSource) {
+                        DynamicDataSource.setDatasource(dataSource);
+                    }
+                }
+
+                @Override
+                public void clear() {
+                    DynamicDataSource.clearDatasource();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.autoconfigure.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@ConfigurationProperties("lemon.stream")
+public class StreamProperties {
+
+    private Producer producer = new Producer();
+
+    private Outbox outbox = new Outbox();
+
+    public Producer getProducer() {
+        return producer;
+    }
+
+    public void setProducer(Producer producer) {
+        this.producer = producer;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * 异步发送管道
+     */
+    public static class Producer {
+        /**
+         * true 时通过异步管道发送，队列中的消息在进程崩溃时会丢失；默认false，在业务线程发送，多个通道并行发送
+         */
+        private boolean async = false;
+        /**
+         * true 时broker nack或无法路由的消息按 maxAttempts、retryBackoff 重发；
+         * 需同时开启 spring.rabbitmq.publisher-confirms 及绑定的 spring.cloud.stream.bindings.&lt;name&gt;.producer.errorChannelEnabled
+         */
+        private boolean publisherConfirms = false;
+        /**
+         * 队列容量
+         */
+        private int queueCapacity = 10000;
+        /**
+         * 每批最大条数
+         */
+        private int batchSize = 100;
+        /**
+         * 发送线程数，为1时同一通道的消息保持发送顺序
+         */
+        private int threads = 1;
+        /**
+         * 最大发送次数
+         */
+        private int maxAttempts = 3;
+        /**
+         * 重试间隔(毫秒)
+         */
+        private long retryBackoff = 200;
+        /**
+         * 单次发送超时(毫秒)，小于0时不超时
+         */
+        private long sendTimeout = 5000;
+        /**
+         * 队列满时业务线程的最长等待时间(毫秒)，超时后在业务线程同步发送
+         */
+        private long offerTimeout = 100;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public boolean isPublisherConfirms() {
+            return publisherConfirms;
+        }
+
+        public void setPublisherConfirms(boolean publisherConfirms) {
+            this.publisherConfirms = publisherConfirms;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(long retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public long getSendTimeout() {
+            return sendTimeout;
+        }
+
+        public void setSendTimeout(long sendTimeout) {
+            this.sendTimeout = sendTimeout;
+        }
+
+        public long getOfferTimeout() {
+            return offerTimeout;
+        }
+
+        public void setOfferTimeout(long offerTimeout) {
+            this.offerTimeout = offerTimeout;
+        }
+    }
+
+    /**
+     * 事务发件箱
+     */
+    public static class Outbox {
+        private boolean enabled = false;
+        /**
+         * 发件箱表名
+         */
+        private String tableName = "lemon_outbox";
+        /**
+         * 是否在本实例运行中继，需要严格顺序时只在一个实例开启
+         */
+        private boolean relayEnabled = true;
+        /**
+         * 中继轮询的数据源名，为空时只轮询默认数据源
+         */
+        private List<String> dataSources = new ArrayList<>();
+        /**
+         * 每批最大条数
+         */
+        private int batchSize = 100;
+        /**
+         * 轮询间隔(毫秒)
+         */
+        private long pollInterval = 1000;
+        /**
+         * 认领有效期(毫秒)
+         */
+        private long leaseTime = 30000;
+        /**
+         * 单条消息每轮最大发送次数
+         */
+        private int maxAttempts = 3;
+        /**
+         * 重试间隔(毫秒)
+         */
+        private long retryBackoff = 200;
+        /**
+         * 发送失败后暂停中继的时间(毫秒)
+         */
+        private long retryDelay = 5000;
+        /**
+         * 失败次数达到该值的消息不再发送
+         */
+        private int deadAttempts = 10;
+        /**
+         * 单次发送超时(毫秒)
+         */
+        private long sendTimeout = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public void setTableName(String tableName) {
+            this.tableName = tableName;
+        }
+
+        public boolean isRelayEnabled() {
+            return relayEnabled;
+        }
+
+        public void setRelayEnabled(boolean relayEnabled) {
+            this.relayEnabled = relayEnabled;
+        }
+
+        public List<String> getDataSources() {
+            return dataSources;
+        }
+
+        public void setDataSources(List<String> dataSources) {
+            this.dataSources = dataSources;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public long getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(long leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(long retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public long getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(long retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        public int getDeadAttempts() {
+            return deadAttempts;
+        }
+
+        public void setDeadAttempts(int deadAttempts) {
+            this.deadAttempts = deadAttempts;
+        }
+
+        public long getSendTimeout() {
+            return sendTimeout;
+        }
+
+        public void setSendTimeout(long sendTimeout) {
+            this.sendTimeout = sendTimeout;
+        }
+    }
+}
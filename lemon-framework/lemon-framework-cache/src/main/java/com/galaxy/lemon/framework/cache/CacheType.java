@@ -27,7 +27,11 @@ import com.galaxy.lemon.common.utils.StringUtils;
  */
 
 public enum CacheType {
-    NONE, MIX, REDIS, EHCACHE, JCACHE;
+    NONE, MIX, REDIS, EHCACHE, JCACHE,
+    /**
+     * 本地缓存 + redis 二级缓存
+     */
+    NEAR;
     public String getCacheType() {
         return StringUtils.lowerCase(this.name());
     }
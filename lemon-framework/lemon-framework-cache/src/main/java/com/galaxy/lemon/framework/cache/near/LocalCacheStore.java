@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地有界缓存（分段LRU + TTL）
+ * 每个分段为按访问排序的LinkedHashMap，容量超限时淘汰最久未访问的条目
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class LocalCacheStore {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlNanos;
+    /**
+     * 失效代数，用于丢弃与失效消息并发的回填
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     *
+     * @param maximumSize 最大条目数
+     * @param ttl 存活时间，小于等于0表示不过期
+     * @param timeUnit
+     */
+    public LocalCacheStore(int maximumSize, long ttl, TimeUnit timeUnit) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be greater than 0, but is " + maximumSize);
+        }
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maximumSize) {
+            segmentCount <<= 1;
+        }
+        this.segments = new Segment[segmentCount];
+        int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.ttlNanos = ttl > 0 ? timeUnit.toNanos(ttl) : 0L;
+    }
+
+    public Object get(Object key) {
+        return segmentFor(key).get(key, this.ttlNanos > 0 ? System.nanoTime() : 0L);
+    }
+
+    /**
+     * 本节点写入，同时使并发中的回填失效
+     * @param key
+     * @param value
+     */
+    public void put(Object key, Object value) {
+        Segment segment = segmentFor(key);
+        long expireAt = this.ttlNanos > 0 ? System.nanoTime() + this.ttlNanos : 0L;
+        synchronized (segment) {
+            this.generation.incrementAndGet();
+            segment.map.put(key, new Entry(value, expireAt));
+        }
+    }
+
+    /**
+     * 仅当{@link #generation()}取值之后未发生失效时写入
+     * @param key
+     * @param value
+     * @param expectedGeneration
+     */
+    public void putIfNotInvalidated(Object key, Object value, long expectedGeneration) {
+        Segment segment = segmentFor(key);
+        long expireAt = this.ttlNanos > 0 ? System.nanoTime() + this.ttlNanos : 0L;
+        synchronized (segment) {
+            if (this.generation.get() == expectedGeneration) {
+                segment.map.put(key, new Entry(value, expireAt));
+            }
+        }
+    }
+
+    public void remove(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            this.generation.incrementAndGet();
+            segment.map.remove(key);
+        }
+    }
+
+    public void clear() {
+        this.generation.incrementAndGet();
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.map.clear();
+            }
+        }
+    }
+
+    public long generation() {
+        return this.generation.get();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getEvictionCount() {
+        long evictions = 0L;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return this.segments[h & this.segmentMask];
+    }
+
+    static class Entry {
+        final Object value;
+        final long expireAt;
+
+        Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    static class Segment {
+        private final LinkedHashMap<Object, Entry> map;
+        private long evictions;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<Object, Entry>(Math.min(capacity, 1024), 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Object get(Object key, long now) {
+            Entry entry = this.map.get(key);
+            if (null == entry) {
+                return null;
+            }
+            if (entry.expireAt != 0L && now - entry.expireAt >= 0) {
+                this.map.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+}
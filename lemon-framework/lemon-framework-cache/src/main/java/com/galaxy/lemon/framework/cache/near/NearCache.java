@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 二级缓存，本地L1缓存在前，远端L2缓存（如redis）在后
+ * 本节点写入、失效时通过{@link NearCacheInvalidator}通知其他节点失效本地缓存；null值不进入本地缓存
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class NearCache implements Cache {
+    private final Cache remoteCache;
+    private final LocalCacheStore localCacheStore;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final NearCacheStatistics statistics = new NearCacheStatistics();
+
+    public NearCache(Cache remoteCache, LocalCacheStore localCacheStore, NearCacheInvalidator nearCacheInvalidator) {
+        this.remoteCache = remoteCache;
+        this.localCacheStore = localCacheStore;
+        this.nearCacheInvalidator = null == nearCacheInvalidator ? NearCacheInvalidator.NONE : nearCacheInvalidator;
+    }
+
+    @Override
+    public String getName() {
+        return this.remoteCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = (ValueWrapper) this.localCacheStore.get(key);
+        if (null != valueWrapper) {
+            this.statistics.recordHit();
+            return valueWrapper;
+        }
+        long generation = this.localCacheStore.generation();
+        long start = System.nanoTime();
+        valueWrapper = this.remoteCache.get(key);
+        this.statistics.recordMiss(null != valueWrapper, System.nanoTime() - start);
+        if (null != valueWrapper && null != valueWrapper.get()) {
+            this.localCacheStore.putIfNotInvalidated(key, new SimpleValueWrapper(valueWrapper.get()), generation);
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = null == valueWrapper ? null : valueWrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = (ValueWrapper) this.localCacheStore.get(key);
+        if (null != valueWrapper) {
+            this.statistics.recordHit();
+            return (T) valueWrapper.get();
+        }
+        long generation = this.localCacheStore.generation();
+        long start = System.nanoTime();
+        T value = this.remoteCache.get(key, valueLoader);
+        this.statistics.recordMiss(true, System.nanoTime() - start);
+        if (null != value) {
+            this.localCacheStore.putIfNotInvalidated(key, new SimpleValueWrapper(value), generation);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        this.remoteCache.put(key, value);
+        if (null == value) {
+            this.localCacheStore.remove(key);
+        } else {
+            this.localCacheStore.put(key, new SimpleValueWrapper(value));
+        }
+        this.nearCacheInvalidator.invalidate(getName(), key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = this.remoteCache.putIfAbsent(key, value);
+        this.localCacheStore.remove(key);
+        if (null == existing) {
+            this.nearCacheInvalidator.invalidate(getName(), key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.remoteCache.evict(key);
+        this.localCacheStore.remove(key);
+        this.nearCacheInvalidator.invalidate(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        this.remoteCache.clear();
+        this.localCacheStore.clear();
+        this.nearCacheInvalidator.invalidate(getName(), null);
+    }
+
+    /**
+     * 收到其他节点失效通知时调用，仅失效本地缓存
+     * @param key 为null时清空本地缓存
+     */
+    public void invalidateLocal(Object key) {
+        if (null == key) {
+            this.localCacheStore.clear();
+        } else {
+            this.localCacheStore.remove(key);
+        }
+        this.statistics.recordInvalidation();
+    }
+
+    public Cache getRemoteCache() {
+        return this.remoteCache;
+    }
+
+    public NearCacheStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    public int getLocalSize() {
+        return this.localCacheStore.size();
+    }
+
+    public long getLocalEvictionCount() {
+        return this.localCacheStore.getEvictionCount();
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near;
+
+import com.galaxy.lemon.common.utils.JudgeUtils;
+import com.galaxy.lemon.common.utils.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 二级缓存管理，为远端缓存管理器中的缓存增加本地L1缓存
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class NearCacheManager extends AbstractCacheManager {
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheManager.class);
+
+    private CacheManager remoteCacheManager;
+    private int maximumSize;
+    private long ttl;
+    private TimeUnit timeUnit;
+    private NearCacheInvalidator nearCacheInvalidator = NearCacheInvalidator.NONE;
+    /**
+     * 需要本地缓存的缓存名，为空时所有缓存均使用本地缓存
+     */
+    private Set<String> nearCacheNames = Collections.emptySet();
+
+    public NearCacheManager(CacheManager remoteCacheManager, int maximumSize, long ttl, TimeUnit timeUnit) {
+        Validate.notNull(remoteCacheManager, "remoteCacheManager can not be null.");
+        this.remoteCacheManager = remoteCacheManager;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl;
+        this.timeUnit = timeUnit;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        Collection<Cache> caches = new ArrayList<>();
+        Optional.ofNullable(this.remoteCacheManager.getCacheNames()).filter(JudgeUtils::isNotEmpty)
+                .ifPresent(cns -> cns.stream().map(this.remoteCacheManager::getCache).filter(Objects::nonNull).map(this::decorateRemoteCache).forEach(caches::add));
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remoteCache = this.remoteCacheManager.getCache(name);
+        return null == remoteCache ? null : decorateRemoteCache(remoteCache);
+    }
+
+    private Cache decorateRemoteCache(Cache remoteCache) {
+        if (JudgeUtils.isNotEmpty(this.nearCacheNames) && !this.nearCacheNames.contains(remoteCache.getName())) {
+            return remoteCache;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("near cache '{}' created, maximum size {}, ttl {} {}", remoteCache.getName(), this.maximumSize, this.ttl, this.timeUnit);
+        }
+        return new NearCache(remoteCache, new LocalCacheStore(this.maximumSize, this.ttl, this.timeUnit), this.nearCacheInvalidator);
+    }
+
+    /**
+     * 失效本地缓存，用于处理其他节点的失效通知
+     * @param cacheName
+     * @param key 为null时清空
+     */
+    public void invalidateLocal(String cacheName, Object key) {
+        Cache cache = lookupCache(cacheName);
+        if (cache instanceof NearCache) {
+            ((NearCache) cache).invalidateLocal(key);
+        }
+    }
+
+    /**
+     * 各缓存的命中统计
+     * @return cache name : statistics
+     */
+    public Map<String, NearCacheStatistics> getStatistics() {
+        return getCacheNames().stream().map(this::lookupCache).filter(c -> c instanceof NearCache)
+                .collect(Collectors.toMap(Cache::getName, c -> ((NearCache) c).getStatistics()));
+    }
+
+    public CacheManager getRemoteCacheManager() {
+        return this.remoteCacheManager;
+    }
+
+    public NearCacheInvalidator getNearCacheInvalidator() {
+        return this.nearCacheInvalidator;
+    }
+
+    public void setNearCacheInvalidator(NearCacheInvalidator nearCacheInvalidator) {
+        this.nearCacheInvalidator = null == nearCacheInvalidator ? NearCacheInvalidator.NONE : nearCacheInvalidator;
+    }
+
+    public void setNearCacheNames(Collection<String> nearCacheNames) {
+        this.nearCacheNames = null == nearCacheNames ? Collections.emptySet() : new HashSet<>(nearCacheNames);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near;
+
+import com.galaxy.lemon.framework.cache.AbstractMixCacheResolver;
+import com.galaxy.lemon.framework.cache.CacheType;
+import org.springframework.cache.CacheManager;
+
+/**
+ * 二级缓存名解析
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class NearCacheMixCacheResolver extends AbstractMixCacheResolver {
+
+    public NearCacheMixCacheResolver() {
+        super(CacheType.NEAR);
+    }
+
+    @Override
+    public boolean match(CacheManager cacheManager) {
+        return cacheManager instanceof NearCacheManager;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 近端缓存命中统计
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class NearCacheStatistics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteLoadNanos = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    void recordHit() {
+        this.hits.increment();
+    }
+
+    /**
+     * 本地未命中，记录远端缓存访问耗时
+     * @param remoteHit 远端缓存是否命中
+     * @param loadNanos 远端访问耗时
+     */
+    void recordMiss(boolean remoteHit, long loadNanos) {
+        this.misses.increment();
+        if (remoteHit) {
+            this.remoteHits.increment();
+        }
+        this.remoteLoadNanos.add(loadNanos);
+    }
+
+    void recordInvalidation() {
+        this.invalidations.increment();
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getRemoteHitCount() {
+        return this.remoteHits.sum();
+    }
+
+    public long getInvalidationCount() {
+        return this.invalidations.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    /**
+     * 远端缓存平均访问耗时（纳秒）
+     * @return
+     */
+    public long getAverageRemoteLoadNanos() {
+        long misses = getMissCount();
+        return misses == 0 ? 0L : this.remoteLoadNanos.sum() / misses;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheStatistics{hits=" + getHitCount() + ", misses=" + getMissCount() + ", remoteHits=" + getRemoteHitCount()
+                + ", invalidations=" + getInvalidationCount() + ", averageRemoteLoadNanos=" + getAverageRemoteLoadNanos() + "}";
+    }
+}
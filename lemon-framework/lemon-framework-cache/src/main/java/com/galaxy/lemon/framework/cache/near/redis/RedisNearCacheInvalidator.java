@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.near.redis;
+
+import com.galaxy.lemon.framework.cache.near.NearCacheInvalidator;
+import com.galaxy.lemon.framework.cache.near.NearCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * 基于redis pub/sub的近端缓存失效通知
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class RedisNearCacheInvalidator implements NearCacheInvalidator, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(RedisNearCacheInvalidator.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private RedisTemplate<?, ?> redisTemplate;
+    private String channel;
+    private NearCacheManager nearCacheManager;
+
+    public RedisNearCacheInvalidator(RedisTemplate<?, ?> redisTemplate, String channel, NearCacheManager nearCacheManager) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.nearCacheManager = nearCacheManager;
+    }
+
+    @Override
+    public void invalidate(String cacheName, Object key) {
+        try {
+            this.redisTemplate.convertAndSend(this.channel, new Invalidation(this.nodeId, cacheName, key));
+        } catch (Exception e) {
+            logger.warn("Failed to publish near cache invalidation, cache name {}, key {}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body;
+        try {
+            body = this.redisTemplate.getValueSerializer().deserialize(message.getBody());
+        } catch (Exception e) {
+            logger.warn("Failed to deserialize near cache invalidation message on channel {}", this.channel, e);
+            return;
+        }
+        if (!(body instanceof Invalidation)) {
+            return;
+        }
+        Invalidation invalidation = (Invalidation) body;
+        if (this.nodeId.equals(invalidation.getNodeId())) {
+            return;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received near cache invalidation, cache name {}, key {}", invalidation.getCacheName(), invalidation.getKey());
+        }
+        this.nearCacheManager.invalidateLocal(invalidation.getCacheName(), invalidation.getKey());
+    }
+
+    public String getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * 失效消息
+     */
+    public static class Invalidation {
+        private String nodeId;
+        private String cacheName;
+        private Object key;
+
+        public Invalidation() {
+        }
+
+        public Invalidation(String nodeId, String cacheName, Object key) {
+            this.nodeId = nodeId;
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public void setCacheName(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public void setKey(Object key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache.redis;
+
+import com.galaxy.lemon.framework.cache.CacheLoadLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于redis SET NX PX 的缓存加载租约
+ * 释放租约时在{@link #getChannel()}上发布租约key，等待者订阅该频道后被唤醒
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class RedisCacheLoadLease implements CacheLoadLease, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheLoadLease.class);
+    private static final StringRedisSerializer STRING_REDIS_SERIALIZER = new StringRedisSerializer();
+    private static final GenericToStringSerializer<Long> LONG_REDIS_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+    private static final String LEASE_KEY_PREFIX = "LEASE:";
+    public static final String DEFAULT_CHANNEL = "CACHE:LEASE:RELEASED";
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('del', KEYS[1]) redis.call('publish', ARGV[2], KEYS[1]) return 1 else return 0 end", Long.class);
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, CompletableFuture<Void>> releaseWaiters = new ConcurrentHashMap<>();
+    private RedisTemplate<String, ?> redisTemplate;
+    private String channel;
+
+    public RedisCacheLoadLease(RedisTemplate<String, ?> redisTemplate) {
+        this(redisTemplate, DEFAULT_CHANNEL);
+    }
+
+    /**
+     *
+     * @param redisTemplate
+     * @param channel 租约释放通知频道
+     */
+    public RedisCacheLoadLease(RedisTemplate<String, ?> redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    @Override
+    public boolean tryAcquire(String leaseKey, long leaseMillis) {
+        try {
+            Long rst = this.redisTemplate.execute(ACQUIRE_SCRIPT, STRING_REDIS_SERIALIZER, LONG_REDIS_SERIALIZER,
+                    Collections.singletonList(LEASE_KEY_PREFIX + leaseKey), this.owner, String.valueOf(leaseMillis));
+            return null != rst && rst == 1L;
+        } catch (Exception e) {
+            //租约不可用时退化为本节点加载
+            logger.warn("Failed to acquire cache load lease {}", leaseKey, e);
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String leaseKey) {
+        try {
+            this.redisTemplate.execute(RELEASE_SCRIPT, STRING_REDIS_SERIALIZER, LONG_REDIS_SERIALIZER,
+                    Collections.singletonList(LEASE_KEY_PREFIX + leaseKey), this.owner, this.channel);
+        } catch (Exception e) {
+            logger.warn("Failed to release cache load lease {}", leaseKey, e);
+        }
+    }
+
+    @Override
+    public boolean awaitRelease(String leaseKey, long timeoutMillis) throws InterruptedException {
+        String redisKey = LEASE_KEY_PREFIX + leaseKey;
+        CompletableFuture<Void> released = this.releaseWaiters.computeIfAbsent(redisKey, k -> new CompletableFuture<>());
+        try {
+            //先登记再检查，避免错过检查与登记之间的释放通知
+            if (!Boolean.TRUE.equals(this.redisTemplate.hasKey(redisKey))) {
+                return true;
+            }
+            released.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to check cache load lease {}", leaseKey, e);
+            return false;
+        } finally {
+            this.releaseWaiters.remove(redisKey, released);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String redisKey = STRING_REDIS_SERIALIZER.deserialize(message.getBody());
+        CompletableFuture<Void> released = null == redisKey ? null : this.releaseWaiters.remove(redisKey);
+        if (null != released) {
+            released.complete(null);
+        }
+    }
+
+    public String getChannel() {
+        return this.channel;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemonframework.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按{@link ExecutorMode}创建执行器
+ * <p>
+ * 虚拟线程通过反射创建，类加载时试建一次虚拟线程，不可用（JDK 21 以下或未开启预览特性）时退化为 work-stealing 线程池；
+ * 只有{@code propagateContext}为{@code true}时才包装为{@link ContextPropagatingExecutorService}
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ExecutorMode
+ * @since 1.0.0
+ */
+
+public class ConcurrentExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentExecutors.class);
+
+    private static final VirtualThreadSupport virtualThreadSupport = VirtualThreadSupport.probe();
+
+    private ConcurrentExecutors() {
+    }
+
+    /**
+     * @see #createExecutor(String, ExecutorMode, int, int, long, int, boolean)
+     */
+    public static ExecutorService createExecutor(String name, ExecutorMode executorMode, int corePoolSize,
+                                                 int maximumPoolSize, long keepAliveTime, int queueSize) {
+        return createExecutor(name, executorMode, corePoolSize, maximumPoolSize, keepAliveTime, queueSize, false);
+    }
+
+    /**
+     * @param name
+     * @param executorMode
+     * @param corePoolSize
+     * @param maximumPoolSize
+     * @param keepAliveTime   秒
+     * @param queueSize
+     * @param propagateContext 是否向任务传递提交线程的上下文
+     * @return
+     */
+    public static ExecutorService createExecutor(String name, ExecutorMode executorMode, int corePoolSize,
+                                                 int maximumPoolSize, long keepAliveTime, int queueSize, boolean propagateContext) {
+        ExecutorService executorService;
+        switch (null == executorMode ? ExecutorMode.THREAD_POOL : executorMode) {
+            case VIRTUAL_THREAD:
+                if (isVirtualThreadSupported()) {
+                    executorService = newVirtualThreadPerTaskExecutor(name);
+                } else {
+                    logger.warn("Virtual threads are not supported by the current JVM, executor {} falls back to {}.", name, ExecutorMode.WORK_STEALING);
+                    executorService = newWorkStealingPool(name, maximumPoolSize);
+                }
+                break;
+            case WORK_STEALING:
+                executorService = newWorkStealingPool(name, maximumPoolSize);
+                break;
+            default:
+                executorService = LemonThreadPool.createThreadPool(name, corePoolSize, maximumPoolSize, keepAliveTime, queueSize);
+        }
+        return propagateContext ? new ContextPropagatingExecutorService(executorService) : executorService;
+    }
+
+    /**
+     * 每个任务一个虚拟线程
+     * @param name
+     * @return
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JVM.");
+        }
+        try {
+            return virtualThreadSupport.newThreadPerTaskExecutor(threadNamePrefix(name));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor " + name, e);
+        }
+    }
+
+    /**
+     * work-stealing 线程池，并行度取 maximumPoolSize 与CPU核数的较大值
+     * @param name
+     * @param maximumPoolSize
+     * @return
+     */
+    public static ExecutorService newWorkStealingPool(String name, int maximumPoolSize) {
+        int parallelism = Math.max(maximumPoolSize, Runtime.getRuntime().availableProcessors());
+        String namePrefix = threadNamePrefix(name);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(namePrefix + threadNumber.getAndIncrement());
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, threadFactory, null, true);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return null != virtualThreadSupport;
+    }
+
+    private static String threadNamePrefix(String name) {
+        return "lemon-pool-" + name + "-thread-";
+    }
+
+    /**
+     * 反射调用 Thread.ofVirtual() 及 Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static class VirtualThreadSupport {
+        private final Method ofVirtual;
+        private final Method name;
+        private final Method factory;
+        private final Method newThreadPerTaskExecutor;
+
+        private VirtualThreadSupport(Method ofVirtual, Method name, Method factory, Method newThreadPerTaskExecutor) {
+            this.ofVirtual = ofVirtual;
+            this.name = name;
+            this.factory = factory;
+            this.newThreadPerTaskExecutor = newThreadPerTaskExecutor;
+        }
+
+        /**
+         * 方法存在不代表可用，JDK 19/20 未开启预览特性时调用 Thread.ofVirtual() 抛出 UnsupportedOperationException，
+         * 因此实际创建一个（不启动的）虚拟线程，任何异常都视为不支持
+         * @return 不支持时返回{@code null}
+         */
+        static VirtualThreadSupport probe() {
+            try {
+                Method ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builderClass = ofVirtual.getReturnType();
+                VirtualThreadSupport virtualThreadSupport = new VirtualThreadSupport(ofVirtual,
+                        builderClass.getMethod("name", String.class, long.class), builderClass.getMethod("factory"),
+                        Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class));
+                virtualThreadSupport.newThreadFactory("lemon-probe-").newThread(() -> {});
+                return virtualThreadSupport;
+            } catch (Throwable t) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Virtual threads are not available, cause: {}", t.toString());
+                }
+                return null;
+            }
+        }
+
+        ThreadFactory newThreadFactory(String namePrefix) throws ReflectiveOperationException {
+            return (ThreadFactory) this.factory.invoke(this.name.invoke(this.ofVirtual.invoke(null), namePrefix, 1L));
+        }
+
+        ExecutorService newThreadPerTaskExecutor(String namePrefix) throws ReflectiveOperationException {
+            return (ExecutorService) this.newThreadPerTaskExecutor.invoke(null, newThreadFactory(namePrefix));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemonframework.concurrent;
+
+import com.galaxy.lemon.common.context.LemonContext;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
+import org.slf4j.MDC;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 线程上下文快照，包括 LemonContext、LemonData、MDC 及 locale
+ * <p>
+ * 在提交任务的线程捕获，在执行任务的线程恢复，执行完毕后还原执行线程原有的上下文；
+ * 用于 CompletableFuture 的各阶段时可通过{@link #wrap(Function)}等方法包装
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class ContextSnapshot {
+    private final LemonContext lemonContext;
+    private final BaseLemonData lemonData;
+    private final Map<String, String> mdcContextMap;
+    private final LocaleContext localeContext;
+    /**
+     * 恢复时是否复制LemonContext，快照可能在多个线程中恢复
+     */
+    private final boolean copyOnRestore;
+
+    private ContextSnapshot(LemonContext lemonContext, BaseLemonData lemonData, Map<String, String> mdcContextMap,
+                            LocaleContext localeContext, boolean copyOnRestore) {
+        this.lemonContext = lemonContext;
+        this.lemonData = lemonData;
+        this.mdcContextMap = mdcContextMap;
+        this.localeContext = localeContext;
+        this.copyOnRestore = copyOnRestore;
+    }
+
+    /**
+     * 捕获当前线程上下文
+     * @return
+     */
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(LemonContext.snapshotCurrentContext(), LemonDataHolder.getLemonData(),
+                MDC.getCopyOfContextMap(), LocaleContextHolder.getLocaleContext(), true);
+    }
+
+    /**
+     * 将快照恢复到当前线程
+     * @return 当前线程原有的上下文，用于还原
+     */
+    public ContextSnapshot restore() {
+        ContextSnapshot previous = new ContextSnapshot(LemonContext.getCurrentContext(), LemonDataHolder.getLemonData(),
+                MDC.getCopyOfContextMap(), LocaleContextHolder.getLocaleContext(), false);
+        LemonContext.setCurrentContext(this.copyOnRestore ? this.lemonContext.copy() : this.lemonContext);
+        LemonDataHolder.setLemonData(this.lemonData);
+        if (null == this.mdcContextMap) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(this.mdcContextMap);
+        }
+        LocaleContextHolder.setLocaleContext(this.localeContext);
+        return previous;
+    }
+
+    public Runnable wrap(Runnable runnable) {
+        return () -> {
+            ContextSnapshot previous = restore();
+            try {
+                runnable.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public <V> Callable<V> wrap(Callable<V> callable) {
+        return () -> {
+            ContextSnapshot previous = restore();
+            try {
+                return callable.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public <V> Supplier<V> wrap(Supplier<V> supplier) {
+        return () -> {
+            ContextSnapshot previous = restore();
+            try {
+                return supplier.get();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public <T, R> Function<T, R> wrap(Function<T, R> function) {
+        return t -> {
+            ContextSnapshot previous = restore();
+            try {
+                return function.apply(t);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public <T, U, R> BiFunction<T, U, R> wrap(BiFunction<T, U, R> function) {
+        return (t, u) -> {
+            ContextSnapshot previous = restore();
+            try {
+                return function.apply(t, u);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 捕获当前线程上下文并包装任务
+     * @param runnable
+     * @return
+     */
+    public static Runnable wrapCurrent(Runnable runnable) {
+        return capture().wrap(runnable);
+    }
+
+    public static <V> Callable<V> wrapCurrent(Callable<V> callable) {
+        return capture().wrap(callable);
+    }
+}
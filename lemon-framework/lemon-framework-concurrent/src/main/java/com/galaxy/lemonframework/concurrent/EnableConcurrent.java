@@ -77,4 +77,15 @@ public @interface EnableConcurrent {
      * existing proxies rather than double-proxy.
      */
     int order() default Ordered.LOWEST_PRECEDENCE;
+
+    /**
+     * {@link EnableThreadPool} 声明的执行器类型，默认{@link ExecutorMode#THREAD_POOL}
+     */
+    ExecutorMode executorMode() default ExecutorMode.THREAD_POOL;
+
+    /**
+     * {@link EnableThreadPool} 声明的执行器是否向任务传递提交线程的上下文，见{@link ContextPropagatingExecutorService}
+     * <p>默认{@code false}，执行器行为与原线程池一致
+     */
+    boolean propagateContext() default false;
 }
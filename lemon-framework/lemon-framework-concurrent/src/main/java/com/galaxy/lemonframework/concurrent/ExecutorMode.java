@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemonframework.concurrent;
+
+/**
+ * {@link AsyncConcurrent} 的执行器类型
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see EnableConcurrent#executorMode()
+ * @since 1.0.0
+ */
+
+public enum ExecutorMode {
+    /**
+     * 固定大小线程池，见{@link LemonThreadPool}
+     */
+    THREAD_POOL,
+    /**
+     * 每个任务一个虚拟线程，JDK不支持时退化为{@link #WORK_STEALING}
+     */
+    VIRTUAL_THREAD,
+    /**
+     * work-stealing ForkJoinPool
+     */
+    WORK_STEALING
+}
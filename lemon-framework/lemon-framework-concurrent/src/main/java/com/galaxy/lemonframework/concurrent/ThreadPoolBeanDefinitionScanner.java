@@ -22,6 +22,7 @@ import com.galaxy.lemon.common.utils.ClassUtils;
 import com.galaxy.lemon.common.utils.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.env.Environment;
@@ -31,10 +32,12 @@ import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.util.StringValueResolver;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  *
@@ -51,11 +54,20 @@ public class ThreadPoolBeanDefinitionScanner extends ClassPathClassFileScanner {
     private static String annotationClassNames = annotationClass.getName();
     private BeanDefinitionRegistry registry;
     private Environment environment;
+    private ExecutorMode executorMode;
+    private boolean propagateContext;
 
     public ThreadPoolBeanDefinitionScanner(ResourceLoader resourceLoader, BeanDefinitionRegistry registry, Environment environment) {
+        this(resourceLoader, registry, environment, ExecutorMode.THREAD_POOL, false);
+    }
+
+    public ThreadPoolBeanDefinitionScanner(ResourceLoader resourceLoader, BeanDefinitionRegistry registry, Environment environment,
+                                           ExecutorMode executorMode, boolean propagateContext) {
         super(resourceLoader);
         this.registry = registry;
         this.environment = environment;
+        this.executorMode = executorMode;
+        this.propagateContext = propagateContext;
     }
 
     public void scan(String... basePackages) {
@@ -69,20 +81,15 @@ public class ThreadPoolBeanDefinitionScanner extends ClassPathClassFileScanner {
             methodMetadataSet.stream().forEach(m -> {
                 ThreadPoolMetadata threadPoolMetadata = new ThreadPoolMetadata(m.getAnnotationAttributes(annotationClassNames), str -> this.resolveStringValue(str));
                 if (!this.registry.containsBeanDefinition(threadPoolMetadata.getName())) {
-                    //(String name, int min, int max, long keepAliveTime, int queue)
-                    RootBeanDefinition rootBeanDefinition = new RootBeanDefinition(LemonThreadPool.class);
-                    rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, threadPoolMetadata.getName());
-                    rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(1, threadPoolMetadata.getCorePoolSize());
-                    rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(2, threadPoolMetadata.getMaximumPoolSize());
-                    rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(3, threadPoolMetadata.getKeepAliveTime());
-                    rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(4, threadPoolMetadata.getQueueSize());
+                    RootBeanDefinition rootBeanDefinition = ExecutorMode.THREAD_POOL == this.executorMode && !this.propagateContext ?
+                            threadPoolBeanDefinition(threadPoolMetadata) : executorBeanDefinition(threadPoolMetadata);
                     this.registry.registerBeanDefinition(threadPoolMetadata.getName(), rootBeanDefinition);
                     logger.info("Registered ThreadPool {} with name {}.", rootBeanDefinition, threadPoolMetadata.getName());
                 } else {
                     try {
-                        Class<?> threadPoolClass = ClassUtils.forName(this.registry.getBeanDefinition(threadPoolMetadata.getName()).getBeanClassName(), ThreadPoolBeanDefinitionScanner.class.getClassLoader());
-                        if (! ThreadPoolExecutor.class.isAssignableFrom(threadPoolClass)) {
-                            throw new IllegalStateException("The existing bean with name \""+threadPoolMetadata.getName()+"\" is not assignable from \"ThreadPoolExecutor\". ");
+                        Class<?> threadPoolClass = resolveBeanType(this.registry.getBeanDefinition(threadPoolMetadata.getName()));
+                        if (! Executor.class.isAssignableFrom(threadPoolClass)) {
+                            throw new IllegalStateException("The existing bean with name \""+threadPoolMetadata.getName()+"\" is not assignable from \"Executor\". ");
                         }
                     } catch (ClassNotFoundException e) {
                         throw new IllegalStateException(e);
@@ -93,6 +100,51 @@ public class ThreadPoolBeanDefinitionScanner extends ClassPathClassFileScanner {
         }
     }
 
+    private RootBeanDefinition threadPoolBeanDefinition(ThreadPoolMetadata threadPoolMetadata) {
+        //(String name, int min, int max, long keepAliveTime, int queue)
+        RootBeanDefinition rootBeanDefinition = new RootBeanDefinition(LemonThreadPool.class);
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, threadPoolMetadata.getName());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(1, threadPoolMetadata.getCorePoolSize());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(2, threadPoolMetadata.getMaximumPoolSize());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(3, threadPoolMetadata.getKeepAliveTime());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(4, threadPoolMetadata.getQueueSize());
+        return rootBeanDefinition;
+    }
+
+    /**
+     * 工厂方法声明的bean取工厂方法的返回类型
+     * @param beanDefinition
+     * @return
+     * @throws ClassNotFoundException
+     */
+    private Class<?> resolveBeanType(BeanDefinition beanDefinition) throws ClassNotFoundException {
+        Class<?> beanClass = ClassUtils.forName(beanDefinition.getBeanClassName(), ThreadPoolBeanDefinitionScanner.class.getClassLoader());
+        if (null == beanDefinition.getFactoryMethodName() || null != beanDefinition.getFactoryBeanName()) {
+            return beanClass;
+        }
+        return Stream.of(beanClass.getMethods()).filter(m -> m.getName().equals(beanDefinition.getFactoryMethodName()))
+                .map(Method::getReturnType).findFirst().orElse(beanClass);
+    }
+
+    /**
+     * @see ConcurrentExecutors#createExecutor(String, ExecutorMode, int, int, long, int, boolean)
+     * @param threadPoolMetadata
+     * @return
+     */
+    private RootBeanDefinition executorBeanDefinition(ThreadPoolMetadata threadPoolMetadata) {
+        RootBeanDefinition rootBeanDefinition = new RootBeanDefinition(ConcurrentExecutors.class);
+        rootBeanDefinition.setFactoryMethodName("createExecutor");
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, threadPoolMetadata.getName());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(1, this.executorMode);
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(2, threadPoolMetadata.getCorePoolSize());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(3, threadPoolMetadata.getMaximumPoolSize());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(4, threadPoolMetadata.getKeepAliveTime());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(5, threadPoolMetadata.getQueueSize());
+        rootBeanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(6, this.propagateContext);
+        rootBeanDefinition.setDestroyMethodName("shutdown");
+        return rootBeanDefinition;
+    }
+
     private String resolveStringValue(String value) {
         if (StringUtils.isBlank(value)) {
             throw new NullPointerException("LemonThreadPool param can't be blank.");
@@ -71,7 +71,8 @@ public class ThreadPoolRegistrar implements ImportBeanDefinitionRegistrar, Resou
      */
     private void registerAnnotationThreadPool(AnnotationMetadata importingClassMetadata, AnnotationAttributes annotationAttributes, BeanDefinitionRegistry registry) {
         String defaultBasePackage = ClassUtils.getPackageName(importingClassMetadata.getClassName());
-        ThreadPoolBeanDefinitionScanner threadPoolBeanDefinitionScanner = new ThreadPoolBeanDefinitionScanner(this.resourceLoader, registry, this.environment);
+        ThreadPoolBeanDefinitionScanner threadPoolBeanDefinitionScanner = new ThreadPoolBeanDefinitionScanner(this.resourceLoader, registry, this.environment,
+                annotationAttributes.getEnum("executorMode"), annotationAttributes.getBoolean("propagateContext"));
         threadPoolBeanDefinitionScanner.scan(CommonUtils.isEmpty(annotationAttributes.getStringArray("basePackages")) ? new String[]{defaultBasePackage} : annotationAttributes.getStringArray("basePackages"));
     }
 
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemonframework.concurrent;
+
+import com.galaxy.lemon.common.context.LemonContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上下文传递只在{@link ContextPropagatingExecutorService}中生效
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ContextPropagatingExecutorService
+ * @see ConcurrentExecutors
+ * @since 1.0.0
+ */
+
+public class ContextPropagatingExecutorServiceTest {
+    private static final String KEY = "propagation-test";
+
+    @After
+    public void clearContext() {
+        LemonContext.clearCurrentContext();
+    }
+
+    @Test(timeout = 5000L)
+    public void propagatesSubmitterContextAndRestoresWorker() throws Exception {
+        LemonThreadPool threadPool = LemonThreadPool.createThreadPool("propagating", 1, 1, 60L, 10);
+        ExecutorService executorService = new ContextPropagatingExecutorService(threadPool);
+        try {
+            threadPool.submit(() -> LemonContext.putToCurrentContext(KEY, "worker")).get();
+            LemonContext.putToCurrentContext(KEY, "caller");
+            Assert.assertEquals("caller", executorService.submit(() -> LemonContext.getFromCurrentContext(KEY)).get());
+            Assert.assertEquals("worker", threadPool.submit(() -> LemonContext.getFromCurrentContext(KEY)).get());
+        } finally {
+            shutdown(executorService);
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void changesInTaskDoNotLeakToSubmitter() throws Exception {
+        ExecutorService executorService = new ContextPropagatingExecutorService(LemonThreadPool.createThreadPool("isolated", 1, 1, 60L, 10));
+        try {
+            LemonContext.putToCurrentContext(KEY, "caller");
+            executorService.submit(() -> LemonContext.putToCurrentContext(KEY, "task")).get();
+            Assert.assertEquals("caller", LemonContext.getFromCurrentContext(KEY));
+            Assert.assertEquals("caller", executorService.submit(() -> LemonContext.getFromCurrentContext(KEY)).get());
+        } finally {
+            shutdown(executorService);
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void plainThreadPoolDoesNotPropagate() throws Exception {
+        ExecutorService executorService = LemonThreadPool.createThreadPool("plain", 1, 1, 60L, 10);
+        try {
+            LemonContext.putToCurrentContext(KEY, "caller");
+            Assert.assertNull(executorService.submit(() -> LemonContext.getFromCurrentContext(KEY)).get());
+        } finally {
+            shutdown(executorService);
+        }
+    }
+
+    @Test
+    public void createExecutorPropagatesOnlyWhenRequested() {
+        ExecutorService plain = ConcurrentExecutors.createExecutor("plain-mode", ExecutorMode.THREAD_POOL, 1, 1, 60L, 0);
+        ExecutorService propagating = ConcurrentExecutors.createExecutor("propagating-mode", ExecutorMode.WORK_STEALING, 1, 1, 60L, 0, true);
+        try {
+            Assert.assertTrue(plain instanceof LemonThreadPool);
+            Assert.assertTrue(propagating instanceof ContextPropagatingExecutorService);
+            Assert.assertTrue(((ContextPropagatingExecutorService) propagating).getDelegate() instanceof ForkJoinPool);
+        } finally {
+            shutdown(plain);
+            shutdown(propagating);
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void virtualThreadModeFallsBackWhenUnsupported() throws Exception {
+        ExecutorService executorService = ConcurrentExecutors.createExecutor("virtual", ExecutorMode.VIRTUAL_THREAD, 1, 2, 60L, 0, true);
+        try {
+            if (!ConcurrentExecutors.isVirtualThreadSupported()) {
+                Assert.assertTrue(((ContextPropagatingExecutorService) executorService).getDelegate() instanceof ForkJoinPool);
+            }
+            LemonContext.putToCurrentContext(KEY, "caller");
+            Assert.assertEquals("caller", executorService.submit(() -> LemonContext.getFromCurrentContext(KEY)).get());
+        } finally {
+            shutdown(executorService);
+        }
+    }
+
+    private static void shutdown(ExecutorService executorService) {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(1L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.context;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LemonContext 预分配槽位的key
+ * <p>
+ * 同名key共享同一槽位，以字符串名称存取时同样落在该槽位；应声明为静态常量
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public final class ContextKey<T> {
+    /**
+     * 最大槽位数，超出后按普通key存储
+     */
+    static final int MAX_SLOTS = 32;
+
+    private static final ConcurrentMap<String, ContextKey<?>> REGISTRY = new ConcurrentHashMap<>(MAX_SLOTS);
+    private static final AtomicInteger SLOT_SEQUENCE = new AtomicInteger();
+    private static final AtomicReferenceArray<ContextKey<?>> SLOT_KEYS = new AtomicReferenceArray<>(MAX_SLOTS);
+
+    private final String name;
+    private final int index;
+
+    private ContextKey(String name, int index) {
+        this.name = name;
+        this.index = index;
+    }
+
+    /**
+     * 获取或注册key
+     * @param name
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ContextKey<T> of(String name) {
+        ContextKey<?> contextKey = REGISTRY.get(name);
+        if (null == contextKey) {
+            contextKey = REGISTRY.computeIfAbsent(name, n -> {
+                int index = SLOT_SEQUENCE.getAndIncrement();
+                ContextKey<?> newContextKey = new ContextKey<>(n, index < MAX_SLOTS ? index : -1);
+                if (index < MAX_SLOTS) {
+                    SLOT_KEYS.set(index, newContextKey);
+                }
+                return newContextKey;
+            });
+        }
+        return (ContextKey<T>) contextKey;
+    }
+
+    /**
+     * 已注册的key
+     * @param key
+     * @return 未注册返回null
+     */
+    static ContextKey<?> lookup(Object key) {
+        return key instanceof String ? REGISTRY.get(key) : null;
+    }
+
+    static ContextKey<?> slotKey(int index) {
+        return SLOT_KEYS.get(index);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    int getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
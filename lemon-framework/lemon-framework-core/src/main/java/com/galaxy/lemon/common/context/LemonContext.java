@@ -21,20 +21,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * lemon context
+ * <p>
+ * 仅由所属线程访问，非线程安全；{@link ContextKey}注册的key存放在定长槽位，其他key存放在开放寻址表中。
+ * 跨线程传递时使用{@link #copy()}或{@link #snapshotCurrentContext()}
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
  * @see
  * @since 1.0.0
  */
 
-public class LemonContext extends ConcurrentHashMap<Object, Object>{
-    private static final long serialVersionUID = 2729826264846708794L;
+public class LemonContext {
     private static final Logger logger = LoggerFactory.getLogger(LemonContext.class);
-    
+    private static final int INITIAL_TABLE_CAPACITY = 8;
+
     private static final ThreadLocal<LemonContext> currentContextHolder = new ThreadLocal<LemonContext>(){
         protected LemonContext initialValue() {
             if (logger.isDebugEnabled()) {
@@ -43,7 +45,32 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
             return new LemonContext();
         }
     };
-    
+
+    /**
+     * 槽位值，下标为{@link ContextKey#getIndex()}
+     */
+    private Object[] slots;
+    private int slotSize;
+    /**
+     * 开放寻址表，key 和 value 交替存放
+     */
+    private Object[] table;
+    private int tableSize;
+
+    public LemonContext() {
+    }
+
+    private LemonContext(LemonContext source) {
+        if (null != source.slots) {
+            this.slots = source.slots.clone();
+            this.slotSize = source.slotSize;
+        }
+        if (null != source.table) {
+            this.table = source.table.clone();
+            this.tableSize = source.tableSize;
+        }
+    }
+
     public static LemonContext getCurrentContext() {
         return currentContextHolder.get();
     }
@@ -55,6 +82,14 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
         currentContextHolder.set(lemonContext);
     }
 
+    /**
+     * 当前线程上下文的副本，用于传递到异步线程
+     * @return
+     */
+    public static LemonContext snapshotCurrentContext() {
+        return getCurrentContext().copy();
+    }
+
     public static void putToCurrentContext(Object key, Object value) {
         getCurrentContext().put(key, value);
     }
@@ -63,6 +98,10 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
         return getCurrentContext().get(key);
     }
 
+    public static <T> T getFromCurrentContext(ContextKey<T> key) {
+        return getCurrentContext().get(key);
+    }
+
     public static void removeFromCurrentContext(Object key) {
         getCurrentContext().remove(key);
     }
@@ -84,6 +123,87 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
         }
     }
 
+    /**
+     * 复制上下文，副本与原上下文互不影响
+     * @return
+     */
+    public LemonContext copy() {
+        return new LemonContext(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(ContextKey<T> key) {
+        return (T) getValue(key);
+    }
+
+    public Object get(Object key) {
+        if (key instanceof ContextKey) {
+            return getValue((ContextKey<?>) key);
+        }
+        ContextKey<?> contextKey = ContextKey.lookup(key);
+        return null == contextKey ? tableGet(key) : getValue(contextKey);
+    }
+
+    public <T> T put(ContextKey<T> key, T value) {
+        return cast(putValue(key, value));
+    }
+
+    /**
+     *
+     * @param key
+     * @param value 为null时移除
+     * @return 原值
+     */
+    public Object put(Object key, Object value) {
+        if (key instanceof ContextKey) {
+            return putValue((ContextKey<?>) key, value);
+        }
+        ContextKey<?> contextKey = ContextKey.lookup(key);
+        if (null != contextKey) {
+            return putValue(contextKey, value);
+        }
+        return null == value ? tableRemove(key) : tablePut(key, value);
+    }
+
+    public Object remove(Object key) {
+        return put(key, null);
+    }
+
+    public boolean containsKey(Object key) {
+        return null != get(key);
+    }
+
+    public int size() {
+        return this.slotSize + this.tableSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 遍历，槽位key以名称给出
+     * @param action
+     */
+    public void forEach(BiConsumer<Object, Object> action) {
+        Object[] s = this.slots;
+        if (null != s) {
+            for (int i = 0; i < s.length; i++) {
+                if (null != s[i]) {
+                    action.accept(ContextKey.slotKey(i).getName(), s[i]);
+                }
+            }
+        }
+        Object[] tab = this.table;
+        if (null != tab) {
+            for (int i = 0; i < tab.length; i += 2) {
+                if (null != tab[i]) {
+                    action.accept(tab[i], tab[i + 1]);
+                }
+            }
+        }
+    }
+
     /**
      *
      * @param key
@@ -93,7 +213,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      */
     @Deprecated
     public boolean getBooleanOrDefault(Object key, boolean defaultVal) {
-        return Optional.ofNullable(get(key)).map(Boolean.class::cast).orElse(defaultVal);
+        Object value = get(key);
+        return null == value ? defaultVal : (Boolean) value;
     }
 
     /**
@@ -103,7 +224,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Boolean getBoolean(Object key, Boolean defaultValue) {
-        return Optional.ofNullable(get(key)).map(Boolean.class::cast).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : (Boolean) value;
     }
 
     /**
@@ -112,7 +234,7 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Boolean getBoolean(Object key) {
-        return Optional.ofNullable(get(key)).map(Boolean.class::cast).orElse(null);
+        return (Boolean) get(key);
     }
 
     /**
@@ -122,7 +244,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public String getString(Object key, String defaultValue) {
-        return Optional.ofNullable(get(key)).map(String::valueOf).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : String.valueOf(value);
     }
 
     /**
@@ -131,7 +254,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public String getString(Object key) {
-        return Optional.ofNullable(get(key)).map(String::valueOf).orElse(null);
+        Object value = get(key);
+        return null == value ? null : String.valueOf(value);
     }
 
     /**
@@ -141,7 +265,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Integer getInteger(Object key, Integer defaultValue) {
-        return Optional.ofNullable(get(key)).map(Integer.class::cast).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : (Integer) value;
     }
 
     /**
@@ -150,7 +275,7 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Integer getInteger(Object key) {
-        return Optional.ofNullable(get(key)).map(Integer.class::cast).orElse(null);
+        return (Integer) get(key);
     }
 
     /**
@@ -159,7 +284,7 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Long getLong(Object key) {
-        return Optional.ofNullable(get(key)).map(Long.class::cast).orElse(null);
+        return (Long) get(key);
     }
 
     /**
@@ -169,7 +294,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Long getLong(Object key, Long defaultValue) {
-        return Optional.ofNullable(get(key)).map(Long.class::cast).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : (Long) value;
     }
 
     /**
@@ -178,7 +304,7 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Double getDouble(Object key) {
-        return Optional.ofNullable(get(key)).map(Double.class::cast).orElse(null);
+        return (Double) get(key);
     }
 
     /**
@@ -188,7 +314,8 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public Double getDouble(Object key, Double defaultValue) {
-        return Optional.ofNullable(get(key)).map(Double.class::cast).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : (Double) value;
     }
 
     /**
@@ -197,7 +324,7 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public LocalDateTime getLocalDataTime(Object key) {
-        return Optional.ofNullable(get(key)).map(LocalDateTime.class::cast).orElse(null);
+        return (LocalDateTime) get(key);
     }
 
     /**
@@ -207,7 +334,153 @@ public class LemonContext extends ConcurrentHashMap<Object, Object>{
      * @return
      */
     public LocalDateTime getLocalDataTime(Object key, LocalDateTime defaultValue) {
-        return Optional.ofNullable(get(key)).map(LocalDateTime.class::cast).orElse(defaultValue);
+        Object value = get(key);
+        return null == value ? defaultValue : (LocalDateTime) value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v == this ? "(this LemonContext)" : v);
+        });
+        return sb.append('}').toString();
+    }
+
+    private Object getValue(ContextKey<?> key) {
+        int index = key.getIndex();
+        if (index < 0) {
+            return tableGet(key.getName());
+        }
+        Object value = null == this.slots ? null : this.slots[index];
+        //key注册前以名称写入的值
+        if (null == value && this.tableSize != 0) {
+            value = tableGet(key.getName());
+        }
+        return value;
+    }
+
+    private Object putValue(ContextKey<?> key, Object value) {
+        int index = key.getIndex();
+        if (index < 0) {
+            return null == value ? tableRemove(key.getName()) : tablePut(key.getName(), value);
+        }
+        Object previous = this.tableSize != 0 ? tableRemove(key.getName()) : null;
+        if (null == this.slots) {
+            if (null == value) {
+                return previous;
+            }
+            this.slots = new Object[ContextKey.MAX_SLOTS];
+        }
+        Object old = this.slots[index];
+        this.slots[index] = value;
+        if (null == old && null != value) {
+            this.slotSize++;
+        } else if (null != old && null == value) {
+            this.slotSize--;
+        }
+        return null == old ? previous : old;
+    }
+
+    private static int probeIndex(Object key, int mask) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private Object tableGet(Object key) {
+        Object[] tab = this.table;
+        if (null == tab) {
+            return null;
+        }
+        int mask = (tab.length >> 1) - 1;
+        for (int i = probeIndex(key, mask); ; i = (i + 1) & mask) {
+            Object k = tab[i << 1];
+            if (null == k) {
+                return null;
+            }
+            if (k == key || k.equals(key)) {
+                return tab[(i << 1) + 1];
+            }
+        }
+    }
+
+    private Object tablePut(Object key, Object value) {
+        if (null == this.table) {
+            this.table = new Object[INITIAL_TABLE_CAPACITY << 1];
+        } else if ((this.tableSize + 1) << 2 > this.table.length) {
+            //负载因子 0.5
+            resize();
+        }
+        Object[] tab = this.table;
+        int mask = (tab.length >> 1) - 1;
+        for (int i = probeIndex(key, mask); ; i = (i + 1) & mask) {
+            Object k = tab[i << 1];
+            if (null == k) {
+                tab[i << 1] = key;
+                tab[(i << 1) + 1] = value;
+                this.tableSize++;
+                return null;
+            }
+            if (k == key || k.equals(key)) {
+                Object old = tab[(i << 1) + 1];
+                tab[(i << 1) + 1] = value;
+                return old;
+            }
+        }
+    }
+
+    private Object tableRemove(Object key) {
+        Object[] tab = this.table;
+        if (null == tab) {
+            return null;
+        }
+        int mask = (tab.length >> 1) - 1;
+        int i = probeIndex(key, mask);
+        for (; ; i = (i + 1) & mask) {
+            Object k = tab[i << 1];
+            if (null == k) {
+                return null;
+            }
+            if (k == key || k.equals(key)) {
+                break;
+            }
+        }
+        Object old = tab[(i << 1) + 1];
+        tab[i << 1] = null;
+        tab[(i << 1) + 1] = null;
+        this.tableSize--;
+        //后移删除，保持探测链连续
+        for (int j = (i + 1) & mask; null != tab[j << 1]; j = (j + 1) & mask) {
+            int h = probeIndex(tab[j << 1], mask);
+            boolean inPlace = i <= j ? (i < h && h <= j) : (i < h || h <= j);
+            if (!inPlace) {
+                tab[i << 1] = tab[j << 1];
+                tab[(i << 1) + 1] = tab[(j << 1) + 1];
+                tab[j << 1] = null;
+                tab[(j << 1) + 1] = null;
+                i = j;
+            }
+        }
+        return old;
+    }
+
+    private void resize() {
+        Object[] oldTable = this.table;
+        this.table = new Object[oldTable.length << 1];
+        this.tableSize = 0;
+        for (int i = 0; i < oldTable.length; i += 2) {
+            if (null != oldTable[i]) {
+                tablePut(oldTable[i], oldTable[i + 1]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
     }
 
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形缓冲，多生产者单消费者
+ * 每个槽位带序号，生产者CAS抢占写入位置，消费者按序号判断槽位是否已发布
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see AsyncAccessLogger
+ * @since 1.0.0
+ */
+
+class AccessLogRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 只由消费者线程写
+     */
+    private volatile long head;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be greater than 1, but was " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素，缓冲已满返回false
+     *
+     * @param element
+     * @return
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+        for (; ; ) {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.buffer[index] = element;
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出元素，只允许消费者线程调用，没有已发布的元素时返回null
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = this.head;
+        int index = (int) (position & this.mask);
+        if (this.sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) this.buffer[index];
+        this.buffer[index] = null;
+        this.sequences.set(index, position + this.capacity);
+        this.head = position + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+/**
+ * 访问日志快照
+ * 在调用线程创建，复制请求/响应信息并保存已解析的关键字和依赖线程上下文的日志前缀；创建后不再修改，可以交给其他线程格式化
+ * 请求参数及响应结果按引用保存，不做深拷贝
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see FormattableAccessLogger
+ * @since 1.0.0
+ */
+
+public final class AccessLogSnapshot {
+    private final RequestInfo<?> requestInfo;
+    private final ResponseInfo<?> responseInfo;
+    private final String prefix;
+
+    private AccessLogSnapshot(RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo, String prefix) {
+        this.requestInfo = requestInfo;
+        this.responseInfo = responseInfo;
+        this.prefix = prefix;
+    }
+
+    /**
+     * 请求日志快照
+     * @param requestInfo
+     * @param keywords    已解析的关键字
+     * @param prefix      日志前缀，可以为null
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static AccessLogSnapshot ofRequest(RequestInfo<?> requestInfo, Keywords keywords, String prefix) {
+        RequestInfo<?> copy = RequestInfo.builder()
+                .action(requestInfo.getAction())
+                .requestId(requestInfo.getRequestId())
+                .msgId(requestInfo.getMsgId())
+                .keywords(keywords)
+                .reqeustTime(requestInfo.getRequestTime())
+                .method(requestInfo.getMethod())
+                .uri(requestInfo.getUri())
+                .clientIp(requestInfo.getClientIp())
+                .target(requestInfo.getTarget())
+                .build();
+        return new AccessLogSnapshot(copy, null, prefix);
+    }
+
+    /**
+     * 响应日志快照
+     * @param responseInfo
+     * @param keywords     已解析的关键字
+     * @param prefix       日志前缀，可以为null
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static AccessLogSnapshot ofResponse(ResponseInfo<?> responseInfo, Keywords keywords, String prefix) {
+        ResponseInfo<?> copy = ResponseInfo.builder()
+                .action(responseInfo.getAction())
+                .requestId(responseInfo.getRequestId())
+                .msgId(responseInfo.getMsgId())
+                .keywords(keywords)
+                .duration(responseInfo.getDuration())
+                .status(responseInfo.getStatus())
+                .result(responseInfo.getResult())
+                .build();
+        return new AccessLogSnapshot(null, copy, prefix);
+    }
+
+    public boolean isRequest() {
+        return null != this.requestInfo;
+    }
+
+    /**
+     * @return 请求或响应信息，格式化时只读
+     */
+    public Object getInfo() {
+        return isRequest() ? this.requestInfo : this.responseInfo;
+    }
+
+    public String getRequestId() {
+        return isRequest() ? this.requestInfo.getRequestId() : this.responseInfo.getRequestId();
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+}
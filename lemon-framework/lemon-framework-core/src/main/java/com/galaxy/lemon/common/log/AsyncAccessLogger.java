@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志
+ * 请求线程只解析关键字并创建{@link AccessLogSnapshot}，与MDC副本一起写入环形缓冲；消费线程完成脱敏序列化和输出
+ * 快照复制请求/响应信息，请求参数及响应结果按引用保存，调用方在记录日志后不应再修改这些对象
+ * 被包装的AccessLogger不是{@link FormattableAccessLogger}时无法分离快照与格式化，在调用线程同步输出
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see AccessLogRingBuffer
+ * @since 1.0.0
+ */
+
+public class AsyncAccessLogger implements AccessLogger {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAccessLogger.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final AccessLogger delegate;
+    private final FormattableAccessLogger formattableDelegate;
+    private final OncePerRequestAccessLogger oncePerRequestDelegate;
+    private final AccessLogRingBuffer<AccessLogEntry> ringBuffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Thread consumer;
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean consumerWaiting;
+
+    public AsyncAccessLogger(AccessLogger delegate, String name) {
+        this(delegate, name, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP, 0);
+    }
+
+    /**
+     *
+     * @param delegate           实际输出日志的AccessLogger，非{@link FormattableAccessLogger}时在调用线程同步输出
+     * @param name               消费线程名称
+     * @param bufferSize         缓冲大小，向上取2的幂
+     * @param overflowPolicy     缓冲满时的处理策略
+     * @param blockTimeoutMillis BLOCK 策略下的最长等待时间，小于等于0时一直等待
+     */
+    public AsyncAccessLogger(AccessLogger delegate, String name, int bufferSize, OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        this.delegate = delegate;
+        this.formattableDelegate = delegate instanceof FormattableAccessLogger ? (FormattableAccessLogger) delegate : null;
+        this.oncePerRequestDelegate = delegate instanceof OncePerRequestAccessLogger ? (OncePerRequestAccessLogger) delegate : null;
+        this.ringBuffer = new AccessLogRingBuffer<>(bufferSize);
+        this.overflowPolicy = null == overflowPolicy ? OverflowPolicy.DROP : overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.consumer = new Thread(this::consume, name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public <T, REQ extends RequestInfo<T>> void request(REQ requestInfo) {
+        if (null == this.formattableDelegate) {
+            this.delegate.request(requestInfo);
+            return;
+        }
+        if (null != this.oncePerRequestDelegate) {
+            if (this.oncePerRequestDelegate.alreadyPrintRequestLog()) {
+                return;
+            }
+            publish(this.formattableDelegate.snapshotRequest(requestInfo));
+            this.oncePerRequestDelegate.setAlreadyPrintRequestLog();
+            return;
+        }
+        publish(this.formattableDelegate.snapshotRequest(requestInfo));
+    }
+
+    @Override
+    public <T, RSP extends ResponseInfo<T>> void response(RSP responseInfo) {
+        if (null == this.formattableDelegate) {
+            this.delegate.response(responseInfo);
+            return;
+        }
+        if (null != this.oncePerRequestDelegate) {
+            if (this.oncePerRequestDelegate.alreadyPrintResponseLog()) {
+                return;
+            }
+            publish(this.formattableDelegate.snapshotResponse(responseInfo));
+            this.oncePerRequestDelegate.setAlreadyPrintResponseLog();
+            return;
+        }
+        publish(this.formattableDelegate.snapshotResponse(responseInfo));
+    }
+
+    /**
+     * 停止消费线程，缓冲中剩余的日志输出后返回；之后的日志在调用线程同步输出
+     */
+    public void shutdown() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getPublishedCount() {
+        return this.publishedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return this.ringBuffer.size();
+    }
+
+    public int getBufferSize() {
+        return this.ringBuffer.capacity();
+    }
+
+    public AccessLogger getDelegate() {
+        return delegate;
+    }
+
+    private void publish(AccessLogSnapshot snapshot) {
+        if (null == snapshot) {
+            return;
+        }
+        AccessLogEntry entry = new AccessLogEntry(snapshot);
+        if (!this.running) {
+            write(entry);
+            return;
+        }
+        if (this.ringBuffer.offer(entry) || (this.overflowPolicy == OverflowPolicy.BLOCK && offerBlocking(entry))) {
+            this.publishedCount.increment();
+            if (this.consumerWaiting) {
+                LockSupport.unpark(this.consumer);
+            }
+            return;
+        }
+        this.droppedCount.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Access log buffer is full, dropped access log of request {}.", snapshot.getRequestId());
+        }
+    }
+
+    private boolean offerBlocking(AccessLogEntry entry) {
+        long deadline = System.nanoTime() + this.blockTimeoutNanos;
+        do {
+            LockSupport.unpark(this.consumer);
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            if (this.ringBuffer.offer(entry)) {
+                return true;
+            }
+        } while (this.running && (this.blockTimeoutNanos <= 0 || System.nanoTime() - deadline < 0));
+        return false;
+    }
+
+    private void consume() {
+        for (; ; ) {
+            AccessLogEntry entry = this.ringBuffer.poll();
+            if (null != entry) {
+                write(entry);
+                continue;
+            }
+            if (!this.running && this.ringBuffer.isEmpty()) {
+                return;
+            }
+            this.consumerWaiting = true;
+            if (this.ringBuffer.isEmpty() && this.running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            } else {
+                Thread.yield();
+            }
+            this.consumerWaiting = false;
+        }
+    }
+
+    private void write(AccessLogEntry entry) {
+        boolean consumerThread = Thread.currentThread() == this.consumer;
+        if (consumerThread) {
+            entry.restore();
+        }
+        try {
+            this.formattableDelegate.write(this.formattableDelegate.format(entry.snapshot));
+        } catch (Throwable t) {
+            this.failedCount.increment();
+            if (logger.isErrorEnabled()) {
+                logger.error("Failed to write access log of request " + entry.snapshot.getRequestId() + ".", t);
+            }
+        } finally {
+            if (consumerThread) {
+                MDC.clear();
+            }
+        }
+    }
+
+    /**
+     * 缓冲满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃当前日志并计数
+         */
+        DROP,
+        /**
+         * 等待缓冲有空位，超时后丢弃
+         */
+        BLOCK
+    }
+
+    /**
+     * 请求线程上采集的日志快照及MDC副本
+     */
+    private static class AccessLogEntry {
+        private final AccessLogSnapshot snapshot;
+        private final Map<String, String> mdcContextMap;
+
+        AccessLogEntry(AccessLogSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.mdcContextMap = MDC.getCopyOfContextMap();
+        }
+
+        void restore() {
+            if (null != this.mdcContextMap) {
+                MDC.setContextMap(this.mdcContextMap);
+            }
+        }
+    }
+}
@@ -55,27 +55,17 @@ public class DefaultAccessLogger extends FormattingAccessLogger {
     }
 
     @Override
-    public void logRequest(RequestInfo<?> requestInfo) {
-        resolveKeywords(requestInfo);
-        super.logRequest(requestInfo);
+    protected Keywords resolveKeywords(RequestInfo<?> requestInfo) {
+        DefaultKeywordsResolver.KeywordsResolverInfo keywordsResolverInfo =
+                new DefaultKeywordsResolver.KeywordsResolverInfo(requestInfo.getTarget(), extractExpressionsKey(requestInfo.getKeywords()), DefaultKeywordsResolver.Type.REQUEST);
+        return this.keywordsResolver.resolve(keywordsResolverInfo);
     }
 
     @Override
-    public void logResponse(ResponseInfo<?> responseInfo) {
-        resolveKeywords(responseInfo);
-        super.logResponse(responseInfo);
-    }
-
-    private void resolveKeywords(ResponseInfo<?> responseInfo) {
+    protected Keywords resolveKeywords(ResponseInfo<?> responseInfo) {
         DefaultKeywordsResolver.KeywordsResolverInfo keywordsResolverInfo =
                 new DefaultKeywordsResolver.KeywordsResolverInfo(responseInfo.getResult(), extractExpressionsKey(responseInfo.getKeywords()), DefaultKeywordsResolver.Type.RESPONSE);
-        responseInfo.setKeywords(this.keywordsResolver.resolve(keywordsResolverInfo));
-    }
-
-    private void resolveKeywords(RequestInfo<?> requestInfo) {
-        DefaultKeywordsResolver.KeywordsResolverInfo keywordsResolverInfo =
-                new DefaultKeywordsResolver.KeywordsResolverInfo(requestInfo.getTarget(), extractExpressionsKey(requestInfo.getKeywords()), DefaultKeywordsResolver.Type.REQUEST);
-        requestInfo.setKeywords(this.keywordsResolver.resolve(keywordsResolverInfo));
+        return this.keywordsResolver.resolve(keywordsResolverInfo);
     }
 
     private KeywordsExpressionSource.ExpressionKey extractExpressionsKey(Keywords keywords) {
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+
+/**
+ * 快照、格式化与输出分离的日志打印
+ * 调用线程只创建{@link AccessLogSnapshot}，格式化和输出可以交给其他线程
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see AsyncAccessLogger
+ * @since 1.0.0
+ */
+
+public interface FormattableAccessLogger extends AccessLogger {
+
+    /**
+     * 在调用线程创建请求日志快照
+     * @param requestInfo
+     * @return 日志快照，为null时不输出
+     */
+    AccessLogSnapshot snapshotRequest(RequestInfo<?> requestInfo);
+
+    /**
+     * 在调用线程创建响应日志快照
+     * @param responseInfo
+     * @return 日志快照，为null时不输出
+     */
+    AccessLogSnapshot snapshotResponse(ResponseInfo<?> responseInfo);
+
+    /**
+     * 格式化日志快照，可以在任意线程执行
+     * @param snapshot
+     * @return 格式化后的日志，为null时不输出
+     */
+    String format(AccessLogSnapshot snapshot);
+
+    /**
+     * 输出格式化后的日志
+     * @param formattedLog
+     */
+    void write(String formattedLog);
+}
@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
  * @since 1.0.0
  */
 
-public class FormattingAccessLogger extends OncePerRequestAccessLogger {
+public class FormattingAccessLogger extends OncePerRequestAccessLogger implements FormattableAccessLogger {
     private static final Logger LOGGER = LoggerFactory.getLogger(FormattingAccessLogger.class);
 
     private ObjectEncoder objectEncoder;
@@ -46,25 +46,69 @@ public class FormattingAccessLogger extends OncePerRequestAccessLogger {
 
     @Override
     public void logRequest(RequestInfo<?> requestInfo) {
+        write(format(snapshotRequest(requestInfo)));
+    }
 
-        try {
-            logger.info("[{}] - {}", LemonContextUtils.getAccessConcurrent(), encodeObject(requestInfo));
-        } catch (Exception e) {
-            if (LOGGER.isErrorEnabled()) {
-                LOGGER.error("Failed to formatting \"RequestInfo\".", e);
-            }
+    @Override
+    public void logResponse(ResponseInfo<?> responseInfo) {
+        write(format(snapshotResponse(responseInfo)));
+    }
+
+    @Override
+    public AccessLogSnapshot snapshotRequest(RequestInfo<?> requestInfo) {
+        if (!logger.isInfoEnabled()) {
+            return null;
         }
+        return AccessLogSnapshot.ofRequest(requestInfo, resolveKeywords(requestInfo), "[" + LemonContextUtils.getAccessConcurrent() + "] - ");
     }
 
     @Override
-    public void logResponse(ResponseInfo<?> responseInfo) {
+    public AccessLogSnapshot snapshotResponse(ResponseInfo<?> responseInfo) {
+        if (!logger.isInfoEnabled()) {
+            return null;
+        }
+        return AccessLogSnapshot.ofResponse(responseInfo, resolveKeywords(responseInfo), null);
+    }
+
+    @Override
+    public String format(AccessLogSnapshot snapshot) {
+        if (null == snapshot) {
+            return null;
+        }
         try {
-            logger.info(encodeObject(responseInfo));
+            String encoded = encodeObject(snapshot.getInfo());
+            return null == snapshot.getPrefix() ? encoded : snapshot.getPrefix() + encoded;
         } catch (Exception e) {
             if (LOGGER.isErrorEnabled()) {
-                LOGGER.error("Failed to formatting \"ResponseInfo\".", e);
+                LOGGER.error("Failed to formatting \"" + (snapshot.isRequest() ? "RequestInfo" : "ResponseInfo") + "\".", e);
             }
         }
+        return null;
+    }
+
+    /**
+     * 解析请求日志关键字，在调用线程执行
+     * @param requestInfo
+     * @return
+     */
+    protected Keywords resolveKeywords(RequestInfo<?> requestInfo) {
+        return requestInfo.getKeywords();
+    }
+
+    /**
+     * 解析响应日志关键字，在调用线程执行
+     * @param responseInfo
+     * @return
+     */
+    protected Keywords resolveKeywords(ResponseInfo<?> responseInfo) {
+        return responseInfo.getKeywords();
+    }
+
+    @Override
+    public void write(String formattedLog) {
+        if (null != formattedLog) {
+            logger.info(formattedLog);
+        }
     }
 
     protected String encodeObject(Object object) {
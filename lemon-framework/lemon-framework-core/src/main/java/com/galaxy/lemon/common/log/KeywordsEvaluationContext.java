@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关键字表达式的轻量计算上下文
+ * 函数、属性访问器等只读部分共享同一个已初始化的{@link StandardEvaluationContext}，每次计算只持有变量名和目标对象
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see KeywordsExpressionEvaluator
+ * @since 1.0.0
+ */
+
+class KeywordsEvaluationContext implements EvaluationContext {
+    private final StandardEvaluationContext sharedContext;
+    private final String variableKey;
+    private final Object target;
+    private Map<String, Object> variables;
+
+    KeywordsEvaluationContext(StandardEvaluationContext sharedContext, String variableKey, Object target) {
+        this.sharedContext = sharedContext;
+        this.variableKey = variableKey;
+        this.target = target;
+    }
+
+    /**
+     * 初始化共享上下文中延迟创建的部分，之后可以被多个线程只读使用
+     *
+     * @param sharedContext
+     * @return
+     */
+    static StandardEvaluationContext initialize(StandardEvaluationContext sharedContext) {
+        sharedContext.getPropertyAccessors();
+        sharedContext.getConstructorResolvers();
+        sharedContext.getMethodResolvers();
+        sharedContext.getTypeLocator();
+        return sharedContext;
+    }
+
+    @Override
+    public TypedValue getRootObject() {
+        return TypedValue.NULL;
+    }
+
+    @Override
+    public List<PropertyAccessor> getPropertyAccessors() {
+        return this.sharedContext.getPropertyAccessors();
+    }
+
+    @Override
+    public List<ConstructorResolver> getConstructorResolvers() {
+        return this.sharedContext.getConstructorResolvers();
+    }
+
+    @Override
+    public List<MethodResolver> getMethodResolvers() {
+        return this.sharedContext.getMethodResolvers();
+    }
+
+    @Override
+    public BeanResolver getBeanResolver() {
+        return this.sharedContext.getBeanResolver();
+    }
+
+    @Override
+    public TypeLocator getTypeLocator() {
+        return this.sharedContext.getTypeLocator();
+    }
+
+    @Override
+    public TypeConverter getTypeConverter() {
+        return this.sharedContext.getTypeConverter();
+    }
+
+    @Override
+    public TypeComparator getTypeComparator() {
+        return this.sharedContext.getTypeComparator();
+    }
+
+    @Override
+    public OperatorOverloader getOperatorOverloader() {
+        return this.sharedContext.getOperatorOverloader();
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+        if (null == this.variables) {
+            this.variables = new HashMap<>(4);
+        }
+        this.variables.put(name, value);
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        if (null != this.variables && this.variables.containsKey(name)) {
+            return this.variables.get(name);
+        }
+        if (name.equals(this.variableKey)) {
+            return this.target;
+        }
+        return this.sharedContext.lookupVariable(name);
+    }
+}
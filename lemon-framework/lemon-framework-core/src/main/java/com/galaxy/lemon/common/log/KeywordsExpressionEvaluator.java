@@ -17,6 +17,7 @@
 
 package com.galaxy.lemon.common.log;
 
+import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.common.utils.StringUtils;
 import com.galaxy.lemon.framework.spring.spel.SpelFunctionConfigurer;
@@ -24,9 +25,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.context.expression.CachedExpressionEvaluator;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
@@ -42,6 +47,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class KeywordsExpressionEvaluator extends CachedExpressionEvaluator {
     public static final Logger logger = LoggerFactory.getLogger(KeywordsExpressionEvaluator.class);
+    private static final TypeDescriptor STRING_TYPE_DESCRIPTOR = TypeDescriptor.valueOf(String.class);
 
     private SpelFunctionConfigurer spelFunctionConfigurer = new SpelFunctionConfigurer.DefaultSpelFunctionConfigurer();
     /**
@@ -55,8 +61,15 @@ public class KeywordsExpressionEvaluator extends CachedExpressionEvaluator {
 
     private boolean ignoreError = true;
 
+    /**
+     * 函数等只读部分，所有计算共享
+     */
+    private final StandardEvaluationContext sharedEvaluationContext;
+
+    private final Map<String, KeywordsExpression> keywordsExpressions = new ConcurrentHashMap<>(16);
+
     public KeywordsExpressionEvaluator() {
-        this(new SpelExpressionParser());
+        this(createCompilingParser());
     }
 
     public KeywordsExpressionEvaluator(ExpressionParser expressionParser) {
@@ -64,11 +77,14 @@ public class KeywordsExpressionEvaluator extends CachedExpressionEvaluator {
     }
 
     public KeywordsExpressionEvaluator(String[] expressions) {
-        this(new SpelExpressionParser(), expressions);
+        this(createCompilingParser(), expressions);
     }
 
     public KeywordsExpressionEvaluator(ExpressionParser expressionParser, String[] expressions) {
         super((SpelExpressionParser) expressionParser);
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        this.spelFunctionConfigurer.configure(evaluationContext);
+        this.sharedEvaluationContext = KeywordsEvaluationContext.initialize(evaluationContext);
         if (JudgeUtils.isNotEmpty(expressions)) {
             this.expressions = new Expression[expressions.length];
             for (int i = 0; i < expressions.length; i++) {
@@ -155,10 +171,7 @@ public class KeywordsExpressionEvaluator extends CachedExpressionEvaluator {
     }
 
     public EvaluationContext createEvaluationContext(String key, Object target) {
-        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
-        evaluationContext.setVariable(key, target);
-        this.spelFunctionConfigurer.configure(evaluationContext);
-        return evaluationContext;
+        return new KeywordsEvaluationContext(this.sharedEvaluationContext, key, target);
     }
 
     public void setIgnoreError(boolean ignoreError) {
@@ -169,12 +182,95 @@ public class KeywordsExpressionEvaluator extends CachedExpressionEvaluator {
         if (null == target || target instanceof String) {
             return null;
         }
-        String key = variableKey == null ? extractVariableKey(expression) : variableKey;
-        return expression.getValue(createEvaluationContext(key, target), String.class);
+        KeywordsExpression keywordsExpression = getKeywordsExpression(expression);
+        String key = variableKey == null ? keywordsExpression.getVariableKey(expression) : variableKey;
+        if (null != keywordsExpression.propertyPathAccessor) {
+            Object value = keywordsExpression.propertyPathAccessor.getValue(key, target);
+            if (value != PropertyPathKeywordsAccessor.UNRESOLVABLE) {
+                return convertToString(value);
+            }
+        }
+        return keywordsExpression.getExpression(expression, target.getClass()).getValue(createEvaluationContext(key, target), String.class);
     }
 
-    private String extractVariableKey(Expression expression) {
-        return KeywordsHelper.extractVariableKey(expression);
+    /**
+     * SpEL 编译模式为 MIXED 的解析器，表达式解释执行若干次后编译为字节码，编译失败时退回解释执行
+     * @return
+     */
+    protected static SpelExpressionParser createCompilingParser() {
+        return new SpelExpressionParser(createCompilingParserConfiguration());
+    }
+
+    protected static SpelParserConfiguration createCompilingParserConfiguration() {
+        return new SpelParserConfiguration(SpelCompilerMode.MIXED, KeywordsExpressionEvaluator.class.getClassLoader());
+    }
+
+    private KeywordsExpression getKeywordsExpression(Expression expression) {
+        String expressionString = expression.getExpressionString();
+        KeywordsExpression keywordsExpression = this.keywordsExpressions.get(expressionString);
+        if (null == keywordsExpression) {
+            keywordsExpression = this.keywordsExpressions.computeIfAbsent(expressionString, e -> new KeywordsExpression(expression, this.getParser()));
+        }
+        return keywordsExpression;
+    }
+
+    private String convertToString(Object value) {
+        if (null == value || value instanceof String) {
+            return (String) value;
+        }
+        return (String) this.sharedEvaluationContext.getTypeConverter().convertValue(value, TypeDescriptor.forObject(value), STRING_TYPE_DESCRIPTOR);
+    }
+
+    /**
+     * 按表达式字符串缓存的解析结果
+     * 编译后的SpEL与目标类型绑定，默认关键字表达式会作用在不同类型的对象上，因此按目标类型分别解析，避免类型切换导致反复编译
+     */
+    private static class KeywordsExpression {
+        private static final int MAX_TYPED_EXPRESSIONS = 64;
+
+        private final String variableKey;
+        private final boolean illegalVariableKey;
+        private final PropertyPathKeywordsAccessor propertyPathAccessor;
+        private final ExpressionParser expressionParser;
+        private final boolean compilable;
+        private final Map<Class<?>, Expression> typedExpressions;
+
+        KeywordsExpression(Expression expression, ExpressionParser expressionParser) {
+            String variableKey = null;
+            boolean illegalVariableKey = false;
+            try {
+                variableKey = KeywordsHelper.extractVariableKey(expression);
+            } catch (LemonException e) {
+                illegalVariableKey = true;
+            }
+            this.variableKey = variableKey;
+            this.illegalVariableKey = illegalVariableKey;
+            this.propertyPathAccessor = PropertyPathKeywordsAccessor.forExpression(expression.getExpressionString());
+            this.expressionParser = expressionParser;
+            this.compilable = expression instanceof SpelExpression;
+            this.typedExpressions = this.compilable ? new ConcurrentHashMap<>(8) : null;
+        }
+
+        /**
+         * 表达式中的变量名，表达式非法时重新解析以抛出原有异常
+         */
+        String getVariableKey(Expression expression) {
+            return this.illegalVariableKey ? KeywordsHelper.extractVariableKey(expression) : this.variableKey;
+        }
+
+        Expression getExpression(Expression expression, Class<?> targetClass) {
+            if (!this.compilable) {
+                return expression;
+            }
+            Expression typedExpression = this.typedExpressions.get(targetClass);
+            if (null != typedExpression) {
+                return typedExpression;
+            }
+            if (this.typedExpressions.size() >= MAX_TYPED_EXPRESSIONS) {
+                return expression;
+            }
+            return this.typedExpressions.computeIfAbsent(targetClass, c -> this.expressionParser.parseExpression(expression.getExpressionString()));
+        }
     }
 
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 简单属性路径表达式(如 #request.body.orderNo)的直接访问，绕过SpEL解析
+ * 每一级缓存最近一次目标类型对应的getter；遇到无法直接处理的情况返回{@link #UNRESOLVABLE}，由SpEL计算
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see KeywordsExpressionEvaluator
+ * @since 1.0.0
+ */
+
+class PropertyPathKeywordsAccessor {
+    static final Object UNRESOLVABLE = new Object();
+
+    private static final Pattern PROPERTY_PATH_PATTERN = Pattern.compile("#[A-Za-z_$][A-Za-z0-9_$]*(\\.[A-Za-z_$][A-Za-z0-9_$]*)+");
+
+    private final String variableKey;
+    private final String[] propertyNames;
+    private final CachedGetter[] getters;
+
+    private PropertyPathKeywordsAccessor(String variableKey, String[] propertyNames) {
+        this.variableKey = variableKey;
+        this.propertyNames = propertyNames;
+        this.getters = new CachedGetter[propertyNames.length];
+    }
+
+    /**
+     * 表达式是简单属性路径时创建，否则返回null
+     *
+     * @param expressionString
+     * @return
+     */
+    static PropertyPathKeywordsAccessor forExpression(String expressionString) {
+        if (null == expressionString) {
+            return null;
+        }
+        String expression = expressionString.trim();
+        if (!PROPERTY_PATH_PATTERN.matcher(expression).matches()) {
+            return null;
+        }
+        String[] parts = StringUtils.tokenizeToStringArray(expression.substring(1), ".");
+        String[] propertyNames = new String[parts.length - 1];
+        System.arraycopy(parts, 1, propertyNames, 0, propertyNames.length);
+        return new PropertyPathKeywordsAccessor(parts[0], propertyNames);
+    }
+
+    /**
+     *
+     * @param variableKey 当前绑定的变量名，与表达式中的变量名不一致时交给SpEL处理
+     * @param target
+     * @return 属性值；无法直接访问时返回{@link #UNRESOLVABLE}
+     */
+    Object getValue(String variableKey, Object target) {
+        if (!this.variableKey.equals(variableKey)) {
+            return UNRESOLVABLE;
+        }
+        Object value = target;
+        for (int i = 0; i < this.propertyNames.length; i++) {
+            if (null == value) {
+                return null;
+            }
+            if (value instanceof Map) {
+                return UNRESOLVABLE;
+            }
+            Method getter = resolveGetter(i, value.getClass());
+            if (null == getter) {
+                return UNRESOLVABLE;
+            }
+            try {
+                value = getter.invoke(value);
+            } catch (Exception e) {
+                return UNRESOLVABLE;
+            }
+        }
+        return value;
+    }
+
+    private Method resolveGetter(int index, Class<?> clazz) {
+        CachedGetter cachedGetter = this.getters[index];
+        if (null != cachedGetter && cachedGetter.clazz == clazz) {
+            return cachedGetter.method;
+        }
+        Method method = findGetter(clazz, this.propertyNames[index]);
+        this.getters[index] = new CachedGetter(clazz, method);
+        return method;
+    }
+
+    private static Method findGetter(Class<?> clazz, String propertyName) {
+        String suffix = StringUtils.capitalize(propertyName);
+        Method method = ReflectionUtils.findMethod(clazz, "get" + suffix);
+        if (null == method || method.getReturnType() == void.class) {
+            method = ReflectionUtils.findMethod(clazz, "is" + suffix);
+            if (null != method && method.getReturnType() != boolean.class && method.getReturnType() != Boolean.class) {
+                method = null;
+            }
+        }
+        if (null == method || !Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        ReflectionUtils.makeAccessible(method);
+        return method;
+    }
+
+    /**
+     * 不可变的类型-getter对，整体替换保证线程安全
+     */
+    private static class CachedGetter {
+        private final Class<?> clazz;
+        private final Method method;
+
+        CachedGetter(Class<?> clazz, Method method) {
+            this.clazz = clazz;
+            this.method = method;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache;
+
+/**
+ * 集群范围的缓存加载租约，同一key同一时刻仅一个节点回源加载
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public interface CacheLoadLease {
+
+    /**
+     * 尝试获取租约
+     * @param leaseKey 租约key
+     * @param leaseMillis 租约时长，到期自动释放
+     * @return true 获取成功
+     */
+    boolean tryAcquire(String leaseKey, long leaseMillis);
+
+    /**
+     * 释放本节点持有的租约
+     * @param leaseKey
+     */
+    void release(String leaseKey);
+
+    /**
+     * 等待租约被持有者释放，租约持有者释放时应通知等待者，避免轮询
+     * @param leaseKey
+     * @param timeoutMillis 最长等待时间
+     * @return true 租约已释放；false 等待超时
+     * @throws InterruptedException
+     */
+    boolean awaitRelease(String leaseKey, long timeoutMillis) throws InterruptedException;
+}
@@ -19,12 +19,16 @@ package com.galaxy.lemon.framework.cache;
 
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.framework.cache.CacheNameResolver;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.interceptor.AbstractCacheResolver;
 import org.springframework.cache.interceptor.CacheOperationInvocationContext;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +40,8 @@ import java.util.stream.Collectors;
 
 public class NameResolvedCacheResolver extends AbstractCacheResolver {
     private CacheNameResolver cacheNameResolver;
+    private Function<Cache, Cache> cacheDecorator;
+    private final ConcurrentMap<String, Cache> decoratedCaches = new ConcurrentHashMap<>(16);
 
     public NameResolvedCacheResolver(CacheManager cacheManager) {
         this(cacheManager, null);
@@ -52,6 +58,31 @@ public class NameResolvedCacheResolver extends AbstractCacheResolver {
         return JudgeUtils.isNotEmpty(cacheNames) ? cacheNames.stream().map(this::resolveCacheName).collect(Collectors.toList()) : cacheNames;
     }
 
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        Collection<? extends Cache> caches = super.resolveCaches(context);
+        if (null == this.cacheDecorator || JudgeUtils.isEmpty(caches)) {
+            return caches;
+        }
+        return caches.stream().map(this::decorateCache).collect(Collectors.toList());
+    }
+
+    private Cache decorateCache(Cache cache) {
+        Cache decoratedCache = this.decoratedCaches.get(cache.getName());
+        if (null == decoratedCache) {
+            decoratedCache = this.decoratedCaches.computeIfAbsent(cache.getName(), n -> this.cacheDecorator.apply(cache));
+        }
+        return decoratedCache;
+    }
+
+    /**
+     * 设置缓存装饰，如{@link SingleFlightCache}
+     * @param cacheDecorator
+     */
+    public void setCacheDecorator(Function<Cache, Cache> cacheDecorator) {
+        this.cacheDecorator = cacheDecorator;
+    }
+
     private String resolveCacheName(String originalCacheName) {
         return Optional.ofNullable(this.cacheNameResolver).map(r -> r.resolve(originalCacheName)).orElse(originalCacheName);
     }
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并并发回源加载的缓存
+ * <p>
+ * 同一JVM内同一key的并发未命中只回源加载一次，可选通过{@link CacheLoadLease}在集群内互斥加载；
+ * 设置提前刷新因子后，按加载耗时在过期前随机提前刷新(XFetch)，避免热点key集中过期。
+ * 过期时间与加载耗时记录在本节点内存中，缓存中存放的仍是原始值，只有本节点加载过的key会提前刷新
+ * <p>
+ * 合并加载作用于{@code get(key, Callable)}，即注解中{@code sync = true}的缓存
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class SingleFlightCache implements Cache {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightCache.class);
+    private static final String LEASE_KEY_SEPARATOR = ":";
+    private static final Object NO_VALUE = new Object();
+    /**
+     * 最多记录的提前刷新信息数，超出后新加载的key不再提前刷新
+     */
+    private static final int MAX_LOAD_STAMPS = 10000;
+
+    private final Cache cache;
+    private final ConcurrentMap<Object, Flight> inFlightLoads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, LoadStamp> loadStamps = new ConcurrentHashMap<>();
+    private CacheLoadLease cacheLoadLease;
+    private long leaseMillis;
+    private long ttlMillis;
+    private double earlyRefreshBeta;
+
+    /**
+     *
+     * @param cache 被代理的缓存
+     * @param cacheLoadLease 集群加载租约，为null时仅JVM内合并
+     * @param leaseMillis 租约时长
+     * @param ttlMillis 缓存过期时长，小于等于0时不提前刷新
+     * @param earlyRefreshBeta 提前刷新因子，小于等于0时不提前刷新
+     */
+    public SingleFlightCache(Cache cache, CacheLoadLease cacheLoadLease, long leaseMillis, long ttlMillis, double earlyRefreshBeta) {
+        this.cache = cache;
+        this.cacheLoadLease = cacheLoadLease;
+        this.leaseMillis = leaseMillis;
+        this.ttlMillis = ttlMillis;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    @Override
+    public String getName() {
+        return this.cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return this.cache.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return this.cache.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = this.cache.get(key);
+        if (null == valueWrapper) {
+            return (T) singleFlightLoad(key, valueLoader, false);
+        }
+        if (requiredEarlyRefresh(key)) {
+            Object refreshed = singleFlightLoad(key, valueLoader, true);
+            if (NO_VALUE != refreshed) {
+                return (T) refreshed;
+            }
+        }
+        return (T) valueWrapper.get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        this.cache.put(key, value);
+        this.loadStamps.remove(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return this.cache.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.cache.evict(key);
+        this.loadStamps.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        this.cache.clear();
+        this.loadStamps.clear();
+    }
+
+    /**
+     * XFetch: now - loadMillis * beta * ln(rand) >= expireAt
+     */
+    private boolean requiredEarlyRefresh(Object key) {
+        if (!isEarlyRefreshEnabled()) {
+            return false;
+        }
+        LoadStamp loadStamp = this.loadStamps.get(key);
+        if (null == loadStamp) {
+            return false;
+        }
+        double gap = - loadStamp.loadMillis * this.earlyRefreshBeta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= loadStamp.expireAt;
+    }
+
+    /**
+     * 同一key仅一个线程加载，其他线程等待加载结果；提前刷新时其他线程直接返回旧值
+     * @return 提前刷新未获得加载权时返回{@link #NO_VALUE}
+     */
+    private Object singleFlightLoad(Object key, Callable<?> valueLoader, boolean earlyRefresh) {
+        Flight flight = new Flight();
+        Flight inFlight = this.inFlightLoads.putIfAbsent(key, flight);
+        if (null != inFlight) {
+            if (earlyRefresh) {
+                return NO_VALUE;
+            }
+            //加载过程中同一线程递归加载同一key，直接加载，避免等待自身
+            return inFlight.owner == Thread.currentThread() ? loadAndPut(key, valueLoader) : await(key, valueLoader, inFlight);
+        }
+        try {
+            Object value = earlyRefresh ? refreshWithLease(key, valueLoader) : loadWithLease(key, valueLoader);
+            flight.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightLoads.remove(key, flight);
+        }
+    }
+
+    private Object loadWithLease(Object key, Callable<?> valueLoader) {
+        ValueWrapper valueWrapper = this.cache.get(key);
+        if (null != valueWrapper) {
+            return valueWrapper.get();
+        }
+        if (null == this.cacheLoadLease) {
+            return loadAndPut(key, valueLoader);
+        }
+        String leaseKey = toLeaseKey(key);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.leaseMillis);
+        for (;;) {
+            if (this.cacheLoadLease.tryAcquire(leaseKey, this.leaseMillis)) {
+                try {
+                    return loadAndPut(key, valueLoader);
+                } finally {
+                    this.cacheLoadLease.release(leaseKey);
+                }
+            }
+            //其他节点加载中，等待其释放租约
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            try {
+                this.cacheLoadLease.awaitRelease(leaseKey, remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            valueWrapper = this.cache.get(key);
+            if (null != valueWrapper) {
+                return valueWrapper.get();
+            }
+        }
+        if (logger.isWarnEnabled()) {
+            logger.warn("Timeout waiting for lease holder to load cache {}, key {}, loading by self.", getName(), key);
+        }
+        return loadAndPut(key, valueLoader);
+    }
+
+    private Object refreshWithLease(Object key, Callable<?> valueLoader) {
+        if (null == this.cacheLoadLease) {
+            return loadAndPut(key, valueLoader);
+        }
+        String leaseKey = toLeaseKey(key);
+        if (!this.cacheLoadLease.tryAcquire(leaseKey, this.leaseMillis)) {
+            return NO_VALUE;
+        }
+        try {
+            return loadAndPut(key, valueLoader);
+        } finally {
+            this.cacheLoadLease.release(leaseKey);
+        }
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        long start = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Throwable e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long now = System.currentTimeMillis();
+        this.cache.put(key, value);
+        recordLoadStamp(key, value, now + this.ttlMillis, now - start);
+        return value;
+    }
+
+    private void recordLoadStamp(Object key, Object value, long expireAt, long loadMillis) {
+        if (!isEarlyRefreshEnabled() || null == value) {
+            this.loadStamps.remove(key);
+            return;
+        }
+        if (this.loadStamps.size() < MAX_LOAD_STAMPS || this.loadStamps.containsKey(key)) {
+            this.loadStamps.put(key, new LoadStamp(expireAt, loadMillis));
+        }
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, Flight inFlight) {
+        try {
+            return inFlight.future.join();
+        } catch (CompletionException e) {
+            Throwable cause = null == e.getCause() ? e : e.getCause();
+            if (cause instanceof ValueRetrievalException) {
+                throw (ValueRetrievalException) cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    private boolean isEarlyRefreshEnabled() {
+        return this.earlyRefreshBeta > 0 && this.ttlMillis > 0;
+    }
+
+    private String toLeaseKey(Object key) {
+        return getName() + LEASE_KEY_SEPARATOR + key;
+    }
+
+    public Cache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * 进行中的加载
+     */
+    private static final class Flight {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private final Thread owner = Thread.currentThread();
+    }
+
+    /**
+     * 本节点加载时记录的过期时间点和加载耗时（毫秒）
+     */
+    private static final class LoadStamp {
+        private final long expireAt;
+        private final long loadMillis;
+
+        LoadStamp(long expireAt, long loadMillis) {
+            this.expireAt = expireAt;
+            this.loadMillis = loadMillis;
+        }
+    }
+
+}
@@ -107,6 +107,10 @@ public class CoreProperties {
 
     public static class LemonDataProperties {
         private String className;
+        /**
+         * 服务间以紧凑二进制格式传递LemonData，需调用链上的服务均已支持解析紧凑格式
+         */
+        private boolean compactTransport = false;
 
         public String getClassName() {
             return className;
@@ -115,5 +119,13 @@ public class CoreProperties {
         public void setClassName(String className) {
             this.className = className;
         }
+
+        public boolean isCompactTransport() {
+            return compactTransport;
+        }
+
+        public void setCompactTransport(boolean compactTransport) {
+            this.compactTransport = compactTransport;
+        }
     }
 }
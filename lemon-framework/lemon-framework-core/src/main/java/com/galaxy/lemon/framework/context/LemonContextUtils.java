@@ -17,12 +17,12 @@
 
 package com.galaxy.lemon.framework.context;
 
+import com.galaxy.lemon.common.context.ContextKey;
 import com.galaxy.lemon.common.context.LemonContext;
 import com.galaxy.lemon.common.log.Keywords;
 import com.galaxy.lemon.common.utils.DateTimeUtils;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 /**
  *
@@ -33,16 +33,16 @@ import java.util.Optional;
 
 public class LemonContextUtils {
 
-    private static final String LEMON_CONTEXT_TX_NAME = "LC_TX_NAME";
-    private static final String LEMON_CONTEXT_REQUIRED_PROCESS_ALERTING = "LC_REQUIRED_PROCESS_ALERTING";
-    private static final String LEMON_CONTEXT_TRADE_STARTING_TIME = "LC_TRADE_STARTING_TIME";
-    private static final String LEMON_CONTEXT_REMOTE_INVOCATION_START_TIME = "LC_REMOTE_INVOCATION_START_TIME";
-    private static final String LEMON_CONTEXT_ALERT_PARAMETERS = "LC_ALERT_PARAMETERS";
-    private static final String LEMON_CONTEXT_RESPONSE_DTO_TYPE = "LC_RESPONSE_DTO_TYPE";
-    private static final String LEMON_CONTEXT_LOGGING_KEYWORDS = "LC_LOGGING_KEYWORDS";
-    private static final String LEMON_CONTEXT_REQUIRED_LOGGING_KEYWORDS = "LC_REQUIRED_LOGGING_KEYWORDS";
-    private static final String LEMON_CONTEXT_ACCESS_CONCURRENT = "LC_ACCESS_CONCURRENT";
-    private static final String LEMON_CONTEXT_REMOTE_INVOCATION_CONCURRENT = "LC_REMOTE_INVOCATION_CONCURRENT";
+    private static final ContextKey<String> LEMON_CONTEXT_TX_NAME = ContextKey.of("LC_TX_NAME");
+    private static final ContextKey<Boolean> LEMON_CONTEXT_REQUIRED_PROCESS_ALERTING = ContextKey.of("LC_REQUIRED_PROCESS_ALERTING");
+    private static final ContextKey<LocalDateTime> LEMON_CONTEXT_TRADE_STARTING_TIME = ContextKey.of("LC_TRADE_STARTING_TIME");
+    private static final ContextKey<LocalDateTime> LEMON_CONTEXT_REMOTE_INVOCATION_START_TIME = ContextKey.of("LC_REMOTE_INVOCATION_START_TIME");
+    private static final ContextKey<String[]> LEMON_CONTEXT_ALERT_PARAMETERS = ContextKey.of("LC_ALERT_PARAMETERS");
+    private static final ContextKey<Class<?>> LEMON_CONTEXT_RESPONSE_DTO_TYPE = ContextKey.of("LC_RESPONSE_DTO_TYPE");
+    private static final ContextKey<Keywords> LEMON_CONTEXT_LOGGING_KEYWORDS = ContextKey.of("LC_LOGGING_KEYWORDS");
+    private static final ContextKey<Boolean> LEMON_CONTEXT_REQUIRED_LOGGING_KEYWORDS = ContextKey.of("LC_REQUIRED_LOGGING_KEYWORDS");
+    private static final ContextKey<Integer> LEMON_CONTEXT_ACCESS_CONCURRENT = ContextKey.of("LC_ACCESS_CONCURRENT");
+    private static final ContextKey<Integer> LEMON_CONTEXT_REMOTE_INVOCATION_CONCURRENT = ContextKey.of("LC_REMOTE_INVOCATION_CONCURRENT");
 
     /**
      * 设置交易名称到上下文
@@ -127,8 +127,7 @@ public class LemonContextUtils {
      * @return
      */
     public static String[] getAlertParameters() {
-        Object alertParameters =  LemonContext.getCurrentContext().get(LEMON_CONTEXT_ALERT_PARAMETERS);
-        return Optional.ofNullable(alertParameters).map(a -> (String[]) a).orElse(null);
+        return LemonContext.getCurrentContext().get(LEMON_CONTEXT_ALERT_PARAMETERS);
     }
 
     /**
@@ -144,7 +143,7 @@ public class LemonContextUtils {
      * @return
      */
     public static Class<?> getResponseDTOType() {
-        return Optional.ofNullable(LemonContext.getCurrentContext().get(LEMON_CONTEXT_RESPONSE_DTO_TYPE)).map(t -> (Class) t).orElse(null);
+        return LemonContext.getCurrentContext().get(LEMON_CONTEXT_RESPONSE_DTO_TYPE);
     }
 
     /**
@@ -152,13 +151,10 @@ public class LemonContextUtils {
      * @param strs
      */
     public static void addKeywords(String... strs) {
-        Keywords keywords;
-        Object keywordsObject = LemonContext.getCurrentContext().get(LEMON_CONTEXT_LOGGING_KEYWORDS);
-        if (null == keywordsObject) {
+        Keywords keywords = LemonContext.getCurrentContext().get(LEMON_CONTEXT_LOGGING_KEYWORDS);
+        if (null == keywords) {
             keywords = new Keywords();
             LemonContext.getCurrentContext().put(LEMON_CONTEXT_LOGGING_KEYWORDS, keywords);
-        } else {
-            keywords = (Keywords) keywordsObject;
         }
         keywords.append(strs);
     }
@@ -168,7 +164,7 @@ public class LemonContextUtils {
      * @return
      */
     public static Keywords getKeywords() {
-        return Optional.ofNullable(LemonContext.getCurrentContext().get(LEMON_CONTEXT_LOGGING_KEYWORDS)).map(Keywords.class::cast).orElse(null);
+        return LemonContext.getCurrentContext().get(LEMON_CONTEXT_LOGGING_KEYWORDS);
     }
 
     /**
@@ -23,11 +23,13 @@ import com.galaxy.lemon.common.Holder;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.framework.data.instantiator.AggregatedDataInstantiator;
+import com.galaxy.lemon.framework.data.support.PropertyAccessor;
 import com.galaxy.lemon.framework.data.support.RelaxedPropertyWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -46,6 +48,7 @@ public final class InternalDataHelper {
     private Holder<PropertyWrapper> genericDTOPropertyWrapper = new Holder<>();
     private Holder<PropertyWrapper> lemonDataPropertyWrapper = new Holder<>();
     private Set<CopyPropertyValueWrapper> copyPropertyValueWrapperSet = new HashSet<>();
+    private Map<Class<?>, CopyPropertyValueWrapper[]> copyPlans = new ConcurrentHashMap<>();
     private Holder<LemonDataCopier> lemonDataCopier = new Holder<>();
 
     public InternalDataHelper(AggregatedDataInstantiator aggregatedDataInstantiator) {
@@ -58,35 +61,37 @@ public final class InternalDataHelper {
     }
 
     private void parseClass(AggregatedDataInstantiator aggregatedDataInstantiator) {
-        this.lemonDataPropertyWrapper.set(new RelaxedPropertyWrapper(aggregatedDataInstantiator.newInstanceLemonData().getClass()));
-        List<String> lemonDataPropertyNameList = Arrays.asList(this.getLemonDataPropertyWrapper().getProperties());
+        RelaxedPropertyWrapper lemonDataPropertyWrapper = new RelaxedPropertyWrapper(aggregatedDataInstantiator.newInstanceLemonData().getClass());
+        this.lemonDataPropertyWrapper.set(lemonDataPropertyWrapper);
+        List<String> lemonDataPropertyNameList = Arrays.asList(lemonDataPropertyWrapper.getProperties());
         List<String> baseDtoPropertyNameList = Arrays.asList(new RelaxedPropertyWrapper(BaseDTO.class).getProperties());
-        CopyPropertyValueWrapper genericDTOCopyPropertyValueWrapper = parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceGenericDTO().getClass(), lemonDataPropertyNameList, baseDtoPropertyNameList);
+        CopyPropertyValueWrapper genericDTOCopyPropertyValueWrapper = parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceGenericDTO().getClass(), lemonDataPropertyWrapper, lemonDataPropertyNameList, baseDtoPropertyNameList);
         this.copyPropertyValueWrapperSet.add(genericDTOCopyPropertyValueWrapper);
-        this.copyPropertyValueWrapperSet.add(parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceResponseDTO().getClass(), lemonDataPropertyNameList, baseDtoPropertyNameList));
-        this.copyPropertyValueWrapperSet.add(parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceCommandDTO().getClass(), lemonDataPropertyNameList, baseDtoPropertyNameList));
+        this.copyPropertyValueWrapperSet.add(parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceResponseDTO().getClass(), lemonDataPropertyWrapper, lemonDataPropertyNameList, baseDtoPropertyNameList));
+        this.copyPropertyValueWrapperSet.add(parseCopyPropertyValueWrapper(aggregatedDataInstantiator.newInstanceCommandDTO().getClass(), lemonDataPropertyWrapper, lemonDataPropertyNameList, baseDtoPropertyNameList));
         this.genericDTOPropertyWrapper.set(genericDTOCopyPropertyValueWrapper.getPropertyWrapper());
-        this.lemonDataCopier.set(parseLemonDataCopier(this.lemonDataPropertyWrapper.get(), lemonDataPropertyNameList, baseDtoPropertyNameList));
+        this.lemonDataCopier.set(parseLemonDataCopier(lemonDataPropertyWrapper, lemonDataPropertyNameList, baseDtoPropertyNameList));
     }
 
     /**
      * parse the class ${@code type} to data processing
      * @param type
+     * @param lemonDataPropertyWrapper
      * @param requiredPropertyNames
      * @param nonRequiredPropertyNames
      * @return
      */
-    private CopyPropertyValueWrapper parseCopyPropertyValueWrapper(Class<? extends BaseDTO> type, List<String> requiredPropertyNames, List<String> nonRequiredPropertyNames) {
-        PropertyWrapper propertyWrapper = new RelaxedPropertyWrapper(type);
+    private CopyPropertyValueWrapper parseCopyPropertyValueWrapper(Class<? extends BaseDTO> type, RelaxedPropertyWrapper lemonDataPropertyWrapper, List<String> requiredPropertyNames, List<String> nonRequiredPropertyNames) {
+        RelaxedPropertyWrapper propertyWrapper = new RelaxedPropertyWrapper(type);
         List<String> requiredCopyPropertyNameList = Stream.of(propertyWrapper.getProperties()).filter(p -> !nonRequiredPropertyNames.contains(p)).filter(p -> requiredPropertyNames.contains(p)).collect(Collectors.toList());
         String[] requiredCopyPropertyNames = requiredCopyPropertyNameList.toArray(new String[requiredCopyPropertyNameList.size()]);
         if (logger.isInfoEnabled()) {
             logger.info("Founding the DTO properties [{}] for DTO \"{}\", which required synchronize with \"LemonData\" context.", Stream.of(requiredCopyPropertyNames).collect(Collectors.joining(",")), type);
         }
-        return new CopyPropertyValueWrapper(propertyWrapper, requiredCopyPropertyNames);
+        return new CopyPropertyValueWrapper(propertyWrapper, lemonDataPropertyWrapper, requiredCopyPropertyNames);
     }
 
-    private LemonDataCopier parseLemonDataCopier(PropertyWrapper propertyWrapper, List<String> requiredPropertyNames, List<String> nonRequiredPropertyNames) {
+    private LemonDataCopier parseLemonDataCopier(RelaxedPropertyWrapper propertyWrapper, List<String> requiredPropertyNames, List<String> nonRequiredPropertyNames) {
         List<String> requiredCopyPropertyNameList = Stream.of(propertyWrapper.getProperties()).filter(p -> !nonRequiredPropertyNames.contains(p)).filter(p -> requiredPropertyNames.contains(p)).collect(Collectors.toList());
         String[] requiredCopyPropertyNames = requiredCopyPropertyNameList.toArray(new String[requiredCopyPropertyNameList.size()]);
         if (logger.isInfoEnabled()) {
@@ -117,7 +122,9 @@ public final class InternalDataHelper {
     }
 
     private void copyLemonDataToDTOExtension(BaseLemonData lemonData, BaseDTO<?> baseDTO) {
-        this.copyPropertyValueWrapperSet.stream().filter(c -> c.match(baseDTO.getClass())).forEach(c -> c.copyLemonDataToDTO(lemonData, baseDTO));
+        for (CopyPropertyValueWrapper copyPropertyValueWrapper : getCopyPlan(baseDTO.getClass())) {
+            copyPropertyValueWrapper.copyLemonDataToDTO(lemonData, baseDTO);
+        }
     }
 
     /**
@@ -142,7 +149,22 @@ public final class InternalDataHelper {
     }
 
     private void copyDTOToLemonDataExtension(BaseDTO<?> baseDTO, BaseLemonData lemonData) {
-        this.copyPropertyValueWrapperSet.stream().filter(c -> c.match(baseDTO.getClass())).forEach(c -> c.copyDTOToLemonData(baseDTO, lemonData));
+        for (CopyPropertyValueWrapper copyPropertyValueWrapper : getCopyPlan(baseDTO.getClass())) {
+            copyPropertyValueWrapper.copyDTOToLemonData(baseDTO, lemonData);
+        }
+    }
+
+    /**
+     * DTO 类型对应的拷贝计划，按具体类型缓存，避免每次拷贝时重复匹配
+     * @param dtoClass
+     * @return
+     */
+    private CopyPropertyValueWrapper[] getCopyPlan(Class<?> dtoClass) {
+        CopyPropertyValueWrapper[] copyPlan = this.copyPlans.get(dtoClass);
+        if (null == copyPlan) {
+            copyPlan = this.copyPlans.computeIfAbsent(dtoClass, c -> this.copyPropertyValueWrapperSet.stream().filter(w -> w.match(c)).toArray(CopyPropertyValueWrapper[]::new));
+        }
+        return copyPlan;
     }
 
     /**
@@ -208,23 +230,27 @@ public final class InternalDataHelper {
         return this.genericDTOPropertyWrapper.get();
     }
 
-    private class CopyPropertyValueWrapper {
+    private static class CopyPropertyValueWrapper {
         private Class<?> type;
         private PropertyWrapper propertyWrapper;
         private String[] requiredCopyPropertyNames;
+        private PropertyAccessor[] dtoPropertyAccessors;
+        private PropertyAccessor[] lemonDataPropertyAccessors;
 
-        CopyPropertyValueWrapper(PropertyWrapper propertyWrapper, String[] requiredCopyPropertyNames) {
+        CopyPropertyValueWrapper(RelaxedPropertyWrapper propertyWrapper, RelaxedPropertyWrapper lemonDataPropertyWrapper, String[] requiredCopyPropertyNames) {
             this.type = propertyWrapper.getWrappedClass();
             this.propertyWrapper = propertyWrapper;
             this.requiredCopyPropertyNames = requiredCopyPropertyNames;
+            this.dtoPropertyAccessors = resolvePropertyAccessors(propertyWrapper, requiredCopyPropertyNames);
+            this.lemonDataPropertyAccessors = resolvePropertyAccessors(lemonDataPropertyWrapper, requiredCopyPropertyNames);
         }
 
         public void copyDTOToLemonData(BaseDTO<?> baseDTO, BaseLemonData lemonData) {
-            Stream.of(requiredCopyPropertyNames).forEach(p -> Optional.ofNullable(propertyWrapper.getValue(baseDTO, p)).ifPresent(v -> getLemonDataPropertyWrapper().setValue(lemonData, v, p)));
+            copyPropertyValues(this.dtoPropertyAccessors, baseDTO, this.lemonDataPropertyAccessors, lemonData);
         }
 
         public void copyLemonDataToDTO(BaseLemonData lemonData, BaseDTO<?> baseDTO) {
-            Stream.of(requiredCopyPropertyNames).forEach(p -> Optional.ofNullable(getLemonDataPropertyWrapper().getValue(lemonData, p)).ifPresent(v -> this.getPropertyWrapper().setValue(baseDTO, v, p)));
+            copyPropertyValues(this.lemonDataPropertyAccessors, lemonData, this.dtoPropertyAccessors, baseDTO);
         }
 
         public boolean match(Class<?> dtoClass) {
@@ -248,16 +274,17 @@ public final class InternalDataHelper {
     private static class LemonDataCopier {
         private PropertyWrapper propertyWrapper;
         private String[] requiredCopyPropertyNames;
+        private PropertyAccessor[] propertyAccessors;
 
-        public LemonDataCopier(PropertyWrapper propertyWrapper,
+        public LemonDataCopier(RelaxedPropertyWrapper propertyWrapper,
                                String[] requiredCopyPropertyNames) {
             this.propertyWrapper = propertyWrapper;
             this.requiredCopyPropertyNames = requiredCopyPropertyNames;
+            this.propertyAccessors = resolvePropertyAccessors(propertyWrapper, requiredCopyPropertyNames);
         }
 
         public void copyLemonData(BaseLemonData sourceLemonData, BaseLemonData destLemonData) {
-            Stream.of(this.getRequiredCopyPropertyNames()).forEach(p ->
-                    Optional.ofNullable(this.getPropertyWrapper().getValue(sourceLemonData, p)).ifPresent(v -> this.getPropertyWrapper().setValue(destLemonData, v, p)));
+            copyPropertyValues(this.propertyAccessors, sourceLemonData, this.propertyAccessors, destLemonData);
         }
 
         public PropertyWrapper getPropertyWrapper() {
@@ -269,4 +296,25 @@ public final class InternalDataHelper {
         }
     }
 
+    private static PropertyAccessor[] resolvePropertyAccessors(RelaxedPropertyWrapper propertyWrapper, String[] propertyNames) {
+        PropertyAccessor[] propertyAccessors = new PropertyAccessor[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; i++) {
+            PropertyAccessor propertyAccessor = propertyWrapper.getPropertyAccessor(propertyNames[i]);
+            propertyAccessors[i] = null != propertyAccessor ? propertyAccessor : new PropertyAccessor(propertyWrapper.getWrappedClass(), propertyNames[i], null, null);
+        }
+        return propertyAccessors;
+    }
+
+    /**
+     * 按下标拷贝非空属性值
+     */
+    private static void copyPropertyValues(PropertyAccessor[] sourceAccessors, Object source, PropertyAccessor[] destAccessors, Object dest) {
+        for (int i = 0; i < sourceAccessors.length; i++) {
+            Object value = sourceAccessors[i].getValue(source);
+            if (null != value) {
+                destAccessors[i].setValue(dest, value);
+            }
+        }
+    }
+
 }
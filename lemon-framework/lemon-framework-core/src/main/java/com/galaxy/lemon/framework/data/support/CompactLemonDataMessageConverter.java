@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.data.support;
+
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataMessageConverter;
+import com.galaxy.lemon.framework.data.instantiator.LemonDataInstantiator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * LemonData 紧凑二进制传输格式
+ * 报文格式为 "1." + base64url(字段序列)，每个字段为 varint(tag << 1 | null标识) [+ 扩展属性名] + varint(长度) + 值，
+ * BaseLemonData 的属性使用固定tag，扩展属性使用tag 0 加属性名，只传输与默认值不同的属性，无法识别的字段及枚举常量直接跳过；
+ * 非紧凑格式的报文（如JSON）交由 {@code fallbackConverter} 处理，便于新老版本服务混合部署
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see DefaultLemonDataMessageConverter
+ * @since 1.0.0
+ */
+
+public class CompactLemonDataMessageConverter<L extends BaseLemonData> implements LemonDataMessageConverter<L> {
+    private static final Logger logger = LoggerFactory.getLogger(CompactLemonDataMessageConverter.class);
+
+    public static final String MESSAGE_PREFIX = "1.";
+    private static final int EXTENSION_TAG = 0;
+    private static final String[] BASE_PROPERTY_NAMES = new String[] {"requestId", "msgId", "startDateTime", "locale", "clientIp",
+            "business", "entryTx", "uri", "userId", "token", "loginName", "versionId"};
+
+    private LemonDataInstantiator<L> lemonDataInstantiator;
+    private LemonDataMessageConverter<L> fallbackConverter;
+    private boolean compactEncoding;
+    private CompactField[] baseFields;
+    private Map<String, CompactField> extensionFields;
+    private CompactField[] fields;
+
+    /**
+     * @param lemonDataInstantiator
+     * @param fallbackConverter 非紧凑格式报文的转换器
+     * @param compactEncoding 是否以紧凑格式输出，关闭时只解析紧凑格式报文
+     */
+    public CompactLemonDataMessageConverter(LemonDataInstantiator<L> lemonDataInstantiator,
+                                            LemonDataMessageConverter<L> fallbackConverter,
+                                            boolean compactEncoding) {
+        this.lemonDataInstantiator = lemonDataInstantiator;
+        this.fallbackConverter = fallbackConverter;
+        L prototype = lemonDataInstantiator.newInstanceLemonData();
+        RelaxedPropertyWrapper propertyWrapper = new RelaxedPropertyWrapper(prototype.getClass());
+        List<String> basePropertyNames = Arrays.asList(BASE_PROPERTY_NAMES);
+        this.baseFields = new CompactField[BASE_PROPERTY_NAMES.length];
+        this.extensionFields = new HashMap<>();
+        List<CompactField> fieldList = new ArrayList<>();
+        List<String> unsupportedPropertyNames = new ArrayList<>();
+        for (PropertyDescriptor propertyDescriptor : propertyWrapper.getPropertyDescriptors()) {
+            String propertyName = propertyDescriptor.getName();
+            PropertyAccessor propertyAccessor = propertyWrapper.getPropertyAccessor(propertyName);
+            if (null == propertyAccessor || !propertyAccessor.isReadable() || !propertyAccessor.isWritable()) {
+                continue;
+            }
+            ValueCodec valueCodec = ValueCodec.forType(propertyDescriptor.getPropertyType());
+            if (null == valueCodec) {
+                unsupportedPropertyNames.add(propertyName);
+                continue;
+            }
+            int tag = basePropertyNames.indexOf(propertyName) + 1;
+            CompactField field = new CompactField(tag, propertyName, propertyAccessor, valueCodec, propertyAccessor.getValue(prototype));
+            if (EXTENSION_TAG == tag) {
+                this.extensionFields.put(propertyName, field);
+            } else {
+                this.baseFields[tag - 1] = field;
+            }
+            fieldList.add(field);
+        }
+        this.fields = fieldList.toArray(new CompactField[fieldList.size()]);
+        this.compactEncoding = compactEncoding && unsupportedPropertyNames.isEmpty();
+        if (compactEncoding && !unsupportedPropertyNames.isEmpty() && logger.isWarnEnabled()) {
+            logger.warn("Compact encoding disabled for LemonData \"{}\", unsupported property types of [{}].", prototype.getClass(), String.join(",", unsupportedPropertyNames));
+        }
+    }
+
+    @Override
+    public L fromMessage(String message) {
+        if (!isCompactMessage(message)) {
+            return this.fallbackConverter.fromMessage(message);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(message.substring(MESSAGE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw LemonException.create(e);
+        }
+        L lemonData = this.lemonDataInstantiator.newInstanceLemonData();
+        CompactInput input = new CompactInput(bytes);
+        while (input.hasRemaining()) {
+            int key = input.readVarint();
+            int tag = key >>> 1;
+            CompactField field;
+            if (EXTENSION_TAG == tag) {
+                int length = input.readVarint();
+                field = this.extensionFields.get(new String(bytes, input.skip(length), length, StandardCharsets.UTF_8));
+            } else {
+                field = tag <= this.baseFields.length ? this.baseFields[tag - 1] : null;
+            }
+            if ((key & 1) == 1) {
+                if (null != field) {
+                    field.propertyAccessor.setValue(lemonData, null);
+                }
+                continue;
+            }
+            int length = input.readVarint();
+            int offset = input.skip(length);
+            if (null == field) {
+                continue;
+            }
+            Object value = field.valueCodec.read(bytes, offset, length);
+            if (ValueCodec.UNKNOWN_VALUE != value) {
+                field.propertyAccessor.setValue(lemonData, value);
+            }
+        }
+        return lemonData;
+    }
+
+    @Override
+    public String toMessage(L lemonData) {
+        if (!this.compactEncoding || null == lemonData) {
+            return this.fallbackConverter.toMessage(lemonData);
+        }
+        CompactOutput output = new CompactOutput();
+        for (CompactField field : this.fields) {
+            Object value = field.propertyAccessor.getValue(lemonData);
+            if (Objects.equals(value, field.defaultValue)) {
+                continue;
+            }
+            if (EXTENSION_TAG == field.tag) {
+                output.writeVarint(null == value ? 1 : 0);
+                output.writeBytes(field.nameBytes);
+            } else {
+                output.writeVarint(null == value ? field.tag << 1 | 1 : field.tag << 1);
+            }
+            if (null != value) {
+                int mark = output.beginLength();
+                field.valueCodec.write(value, output);
+                output.endLength(mark);
+            }
+        }
+        return MESSAGE_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(output.toByteArray());
+    }
+
+    /**
+     * 是否紧凑格式报文，紧凑格式报文只包含URL安全字符，无需URL编码
+     * @param message
+     * @return
+     */
+    public static boolean isCompactMessage(String message) {
+        return null != message && message.startsWith(MESSAGE_PREFIX);
+    }
+
+    private static class CompactField {
+        private final int tag;
+        private final byte[] nameBytes;
+        private final PropertyAccessor propertyAccessor;
+        private final ValueCodec valueCodec;
+        private final Object defaultValue;
+
+        CompactField(int tag, String name, PropertyAccessor propertyAccessor, ValueCodec valueCodec, Object defaultValue) {
+            this.tag = tag;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.propertyAccessor = propertyAccessor;
+            this.valueCodec = valueCodec;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    /**
+     * 属性值编解码
+     */
+    private static abstract class ValueCodec {
+        /**
+         * 无法识别的值，如新版本服务增加的枚举常量，保留属性默认值
+         */
+        private static final Object UNKNOWN_VALUE = new Object();
+
+        private static final ValueCodec STRING = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeUtf8(value.toString());
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return new String(bytes, offset, length, StandardCharsets.UTF_8);
+            }
+        };
+        private static final ValueCodec INTEGER = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeZigZag((Integer) value);
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return (int) new CompactInput(bytes, offset).readZigZag();
+            }
+        };
+        private static final ValueCodec LONG = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeZigZag((Long) value);
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return new CompactInput(bytes, offset).readZigZag();
+            }
+        };
+        private static final ValueCodec BOOLEAN = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeByte((Boolean) value ? 1 : 0);
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return bytes[offset] != 0;
+            }
+        };
+        private static final ValueCodec BIG_DECIMAL = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeUtf8(((BigDecimal) value).toString());
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return new BigDecimal(new String(bytes, offset, length, StandardCharsets.US_ASCII));
+            }
+        };
+        private static final ValueCodec LOCAL_DATE = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeZigZag(((LocalDate) value).toEpochDay());
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return LocalDate.ofEpochDay(new CompactInput(bytes, offset).readZigZag());
+            }
+        };
+        private static final ValueCodec LOCAL_DATE_TIME = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                LocalDateTime localDateTime = (LocalDateTime) value;
+                output.writeZigZag(localDateTime.toEpochSecond(ZoneOffset.UTC));
+                output.writeVarint(localDateTime.getNano());
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                CompactInput input = new CompactInput(bytes, offset);
+                long epochSecond = input.readZigZag();
+                return LocalDateTime.ofEpochSecond(epochSecond, input.readVarint(), ZoneOffset.UTC);
+            }
+        };
+        private static final ValueCodec LOCALE = new ValueCodec() {
+            @Override
+            void write(Object value, CompactOutput output) {
+                output.writeUtf8(((Locale) value).toLanguageTag());
+            }
+
+            @Override
+            Object read(byte[] bytes, int offset, int length) {
+                return Locale.forLanguageTag(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            }
+        };
+
+        abstract void write(Object value, CompactOutput output);
+
+        abstract Object read(byte[] bytes, int offset, int length);
+
+        /**
+         * 属性类型对应的编解码，不支持的类型返回null
+         * @param type
+         * @return
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static ValueCodec forType(Class<?> type) {
+            if (String.class == type) {
+                return STRING;
+            }
+            if (Integer.class == type || int.class == type) {
+                return INTEGER;
+            }
+            if (Long.class == type || long.class == type) {
+                return LONG;
+            }
+            if (Boolean.class == type || boolean.class == type) {
+                return BOOLEAN;
+            }
+            if (BigDecimal.class == type) {
+                return BIG_DECIMAL;
+            }
+            if (LocalDate.class == type) {
+                return LOCAL_DATE;
+            }
+            if (LocalDateTime.class == type) {
+                return LOCAL_DATE_TIME;
+            }
+            if (Locale.class == type) {
+                return LOCALE;
+            }
+            if (type.isEnum()) {
+                Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+                return new ValueCodec() {
+                    @Override
+                    void write(Object value, CompactOutput output) {
+                        output.writeUtf8(((Enum<?>) value).name());
+                    }
+
+                    @Override
+                    Object read(byte[] bytes, int offset, int length) {
+                        String name = new String(bytes, offset, length, StandardCharsets.UTF_8);
+                        for (Enum<?> constant : enumType.getEnumConstants()) {
+                            if (constant.name().equals(name)) {
+                                return constant;
+                            }
+                        }
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Ignore unknown constant \"{}\" of enum {}.", name, enumType.getName());
+                        }
+                        return UNKNOWN_VALUE;
+                    }
+                };
+            }
+            return null;
+        }
+    }
+
+    private static class CompactOutput {
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        /**
+         * 预留一个字节的长度位，返回值起始位置
+         */
+        int beginLength() {
+            writeByte(0);
+            return this.position;
+        }
+
+        /**
+         * 回填长度，长度超过一个字节时后移值
+         */
+        void endLength(int mark) {
+            int length = this.position - mark;
+            if (length < 0x80) {
+                this.buffer[mark - 1] = (byte) length;
+                return;
+            }
+            int lengthSize = 1;
+            for (int l = length >>> 7; l != 0; l >>>= 7) {
+                lengthSize++;
+            }
+            ensureCapacity(lengthSize - 1);
+            System.arraycopy(this.buffer, mark, this.buffer, mark + lengthSize - 1, length);
+            int index = mark - 1;
+            int value = length;
+            while ((value & ~0x7F) != 0) {
+                this.buffer[index++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[index] = (byte) value;
+            this.position += lengthSize - 1;
+        }
+
+        private void ensureCapacity(int size) {
+            if (this.position + size > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.position + size));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+    }
+
+    private static class CompactInput {
+        private final byte[] buffer;
+        private int position;
+
+        CompactInput(byte[] buffer) {
+            this(buffer, 0);
+        }
+
+        CompactInput(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        boolean hasRemaining() {
+            return this.position < this.buffer.length;
+        }
+
+        long readVarint64() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (this.position >= this.buffer.length) {
+                    break;
+                }
+                byte b = this.buffer[this.position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw LemonException.create(ErrorMsgCode.SYS_ERROR.getMsgCd(), "Malformed compact LemonData message.");
+        }
+
+        int readVarint() {
+            return (int) readVarint64();
+        }
+
+        long readZigZag() {
+            long value = readVarint64();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * 跳过 {@code length} 个字节，返回跳过前的位置
+         */
+        int skip(int length) {
+            if (length < 0 || this.position + length > this.buffer.length) {
+                throw LemonException.create(ErrorMsgCode.SYS_ERROR.getMsgCd(), "Malformed compact LemonData message.");
+            }
+            int offset = this.position;
+            this.position += length;
+            return offset;
+        }
+    }
+}
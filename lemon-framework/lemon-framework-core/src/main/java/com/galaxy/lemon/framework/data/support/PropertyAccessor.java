@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.data.support;
+
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 基于MethodHandle的属性读写器
+ * 读写方法在构造时转换为 (Object)Object / (Object,Object)void 的MethodHandle，避免每次调用Method.invoke
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see RelaxedPropertyWrapper
+ * @since 1.0.0
+ */
+
+public final class PropertyAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> wrappedClass;
+    private final String propertyName;
+    private final MethodHandle readHandle;
+    private final MethodHandle writeHandle;
+
+    public PropertyAccessor(Class<?> wrappedClass, String propertyName, Method readMethod, Method writeMethod) {
+        this.wrappedClass = wrappedClass;
+        this.propertyName = propertyName;
+        this.readHandle = null == readMethod ? null : unreflect(readMethod, GETTER_TYPE);
+        this.writeHandle = null == writeMethod ? null : unreflect(writeMethod, SETTER_TYPE);
+    }
+
+    private static MethodHandle unreflect(Method method, MethodType methodType) {
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(methodType);
+        } catch (IllegalAccessException e) {
+            throw LemonException.create(e);
+        }
+    }
+
+    /**
+     * 获取属性值
+     * @param target
+     * @return
+     */
+    public Object getValue(Object target) {
+        if (null == this.readHandle) {
+            LemonException.throwLemonException(ErrorMsgCode.SYS_ERROR.getMsgCd(), "Cloud not found read method for property \"" + this.propertyName + "\" at class \"" + this.wrappedClass + "\".");
+        }
+        try {
+            return this.readHandle.invokeExact(target);
+        } catch (Throwable t) {
+            throw LemonException.create(t);
+        }
+    }
+
+    /**
+     * 设置属性值，无写方法时忽略
+     * @param target
+     * @param value
+     */
+    public void setValue(Object target, Object value) {
+        if (null == this.writeHandle) {
+            return;
+        }
+        try {
+            this.writeHandle.invokeExact(target, value);
+        } catch (Throwable t) {
+            throw LemonException.create(t);
+        }
+    }
+
+    public boolean isReadable() {
+        return null != this.readHandle;
+    }
+
+    public boolean isWritable() {
+        return null != this.writeHandle;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+}
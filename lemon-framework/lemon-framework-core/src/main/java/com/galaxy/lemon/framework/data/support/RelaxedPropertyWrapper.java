@@ -25,11 +25,10 @@ import com.galaxy.lemon.framework.data.PropertyWrapper;
 import org.springframework.core.convert.TypeDescriptor;
 
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,8 +41,7 @@ import java.util.stream.Stream;
 
 public class RelaxedPropertyWrapper implements PropertyWrapper {
 
-    private Map<String, Method> propertyNameSetMethods;
-    private Map<String, Method> propertyNameGetMethods;
+    private Map<String, PropertyAccessor> propertyNameAccessors;
     private String [] excludeProperties = new String[] {"class"};
     private PropertyDescriptor[] propertyDescriptors;
     private String[] properties;
@@ -52,13 +50,16 @@ public class RelaxedPropertyWrapper implements PropertyWrapper {
 
     public RelaxedPropertyWrapper(Class<?> clazz) {
         this.clazz = clazz;
-        this.propertyNameSetMethods = ReflectionUtils.getAllDeclareWriteMethods(clazz);
-        this.propertyNameGetMethods = ReflectionUtils.getAllDeclareReadMethods(clazz);
+        Map<String, Method> propertyNameSetMethods = ReflectionUtils.getAllDeclareWriteMethods(clazz);
+        Map<String, Method> propertyNameGetMethods = ReflectionUtils.getAllDeclareReadMethods(clazz);
         List<PropertyDescriptor> propertyDescriptorList = Stream.of(ReflectionUtils.getPropertyDescriptors(clazz)).filter(p -> ! isExcludeProperty(p.getName())).collect(Collectors.toList());
         int propertiesSize = propertyDescriptorList.size();
         this.propertyDescriptors = propertyDescriptorList.toArray(new PropertyDescriptor[propertiesSize]);
         this.properties = propertyDescriptorList.stream().map(PropertyDescriptor::getName).collect(Collectors.toList()).toArray(new String[propertiesSize]);
         this.propertyNameTypeDescriptorMapper = propertyDescriptorList.stream().map(p -> KVPair.instance(p.getName(), TypeDescriptor.valueOf(p.getPropertyType()) )).collect(Collectors.toMap(KVPair::getK, KVPair::getV));
+        this.propertyNameAccessors = new HashMap<>();
+        Stream.concat(propertyNameGetMethods.keySet().stream(), propertyNameSetMethods.keySet().stream()).distinct().forEach(p ->
+                this.propertyNameAccessors.put(p, new PropertyAccessor(clazz, p, propertyNameGetMethods.get(p), propertyNameSetMethods.get(p))));
     }
 
     private boolean isExcludeProperty(String propertyName) {
@@ -90,26 +91,29 @@ public class RelaxedPropertyWrapper implements PropertyWrapper {
         return this.propertyDescriptors;
     }
 
+    /**
+     * 获取属性读写器，属性无读写方法时返回null
+     * @param propertyName
+     * @return
+     */
+    public PropertyAccessor getPropertyAccessor(String propertyName) {
+        return this.propertyNameAccessors.get(propertyName);
+    }
+
     @Override
     public void setValue(Object target, Object value, String propertyName) {
-        Optional.ofNullable(propertyNameSetMethods.get(propertyName)).ifPresent(m -> {
-            try {
-                m.invoke(target, value);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                LemonException.throwLemonException(e);
-            }
-        });
+        PropertyAccessor propertyAccessor = this.propertyNameAccessors.get(propertyName);
+        if (null != propertyAccessor) {
+            propertyAccessor.setValue(target, value);
+        }
     }
 
     @Override
     public Object getValue(Object target, String propertyName) {
-        LemonException.throwLemonExceptionIfNecessary(!propertyNameGetMethods.containsKey(propertyName), ErrorMsgCode.SYS_ERROR.getMsgCd(), "Cloud not found read method for property \"" + propertyName + "\" at class \"" + this.clazz + "\".");
-        return Optional.ofNullable(propertyNameGetMethods.get(propertyName)).map(m -> {
-            try {
-                return m.invoke(target);
-            } catch (IllegalAccessException |InvocationTargetException e) {
-                throw LemonException.create(e);
-            }
-        }).orElse(null);
+        PropertyAccessor propertyAccessor = this.propertyNameAccessors.get(propertyName);
+        if (null == propertyAccessor || !propertyAccessor.isReadable()) {
+            LemonException.throwLemonException(ErrorMsgCode.SYS_ERROR.getMsgCd(), "Cloud not found read method for property \"" + propertyName + "\" at class \"" + this.clazz + "\".");
+        }
+        return propertyAccessor.getValue(target);
     }
 }
@@ -30,6 +30,7 @@ import org.apache.commons.lang3.StringUtils;
 public class DesensitizationUtils {
 
     public static final String PAD_STR = "*";
+    public static final char PAD_CHAR = '*';
     public static final String AT_STR = "@";
     public static final String EMPTY_STR = LemonConstants.EMPTY_STRING;
 
@@ -180,4 +181,33 @@ public class DesensitizationUtils {
         return StringUtils.leftPad(EMPTY_STR,sensitiveStr.length(),PAD_STR);
     }
 
+    /**
+     * 保留左右两端，中间替换为{@link #PAD_STR}，结果写入target
+     * @param source
+     * @param keepLeft 左边保留长度
+     * @param keepRight 右边保留长度
+     * @param target 长度不小于source的长度
+     * @return 写入的字符数，source为空白时为0；左右保留长度之和超过source长度时返回-1
+     */
+    public static int mask(final CharSequence source, final int keepLeft, final int keepRight, final char[] target) {
+        if (StringUtils.isBlank(source)) {
+            return 0;
+        }
+        final int length = source.length();
+        if (keepLeft < 0 || keepRight < 0 || keepLeft + keepRight > length) {
+            return -1;
+        }
+        final int maskEnd = length - keepRight;
+        for (int i = 0; i < keepLeft; i++) {
+            target[i] = source.charAt(i);
+        }
+        for (int i = keepLeft; i < maskEnd; i++) {
+            target[i] = PAD_CHAR;
+        }
+        for (int i = maskEnd; i < length; i++) {
+            target[i] = source.charAt(i);
+        }
+        return length;
+    }
+
 }
@@ -27,88 +27,157 @@ package com.galaxy.lemon.framework.desensitization;
 public interface Desensitizer<O, D> {
     D desensitize(O object);
 
-    class ChineseNameDesensitizer implements Desensitizer<Object, String> {
+    class ChineseNameDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
 
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.chineseName(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 1, 0, target);
+        }
     }
 
-    class IdCardDesensitizer implements Desensitizer<Object, String> {
+    class IdCardDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.idCardNum(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 3, 4, target);
+        }
     }
 
-    class PhoneNoDesensitizer implements Desensitizer<Object, String> {
+    class PhoneNoDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.phoneNo(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 0, Math.min(4, source.length()), target);
+        }
     }
 
-    class MobileNoDesensitizer implements Desensitizer<Object, String> {
+    class MobileNoDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.mobileNo(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 3, 4, target);
+        }
     }
 
-    class AddressDesensitizer implements Desensitizer<Object, String> {
+    class AddressDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.address(String.valueOf(object), 6);
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, Math.max(0, source.length() - 6), 0, target);
+        }
     }
 
-    class EmailDesensitizer implements Desensitizer<Object, String> {
+    class EmailDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.email(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            int index = -1;
+            for (int i = 0, length = source.length(); i < length; i++) {
+                if (source.charAt(i) == '@') {
+                    index = i;
+                    break;
+                }
+            }
+            return index <= 1 ? DesensitizationUtils.mask(source, source.length(), 0, target)
+                    : DesensitizationUtils.mask(source, 1, source.length() - index, target);
+        }
     }
 
-    class BankCardDesensitizer implements Desensitizer<Object, String> {
+    class BankCardDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.bankCard(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 6, 4, target);
+        }
     }
 
-    class CNAPSCodeDesensitizer implements Desensitizer<Object, String> {
+    class CNAPSCodeDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.cnapsCode(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, Math.min(2, source.length()), 0, target);
+        }
     }
 
-    class LeftDesensitizer implements Desensitizer<Object, String> {
+    class LeftDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.left(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 0, source.length() / 2, target);
+        }
     }
 
-    class RightDesensitizer implements Desensitizer<Object, String> {
+    class RightDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.right(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, source.length() / 2, 0, target);
+        }
     }
 
-    class MiddleDesensitizer implements Desensitizer<Object, String> {
+    class MiddleDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.middle(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            int keep = source.length() < 3 ? 0 : 1;
+            return DesensitizationUtils.mask(source, keep, keep, target);
+        }
     }
 
-    class AllDesensitizer implements Desensitizer<Object, String> {
+    class AllDesensitizer implements Desensitizer<Object, String>, StreamingDesensitizer {
         @Override
         public String desensitize(Object object) {
             return DesensitizationUtils.all(String.valueOf(object));
         }
+
+        @Override
+        public int desensitizeTo(CharSequence source, char[] target) {
+            return DesensitizationUtils.mask(source, 0, 0, target);
+        }
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.desensitization;
+
+/**
+ * 不产生中间字符串的脱敏，脱敏结果直接写入调用方提供的字符数组
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see DesensitizationUtils#mask(CharSequence, int, int, char[])
+ * @since 1.0.0
+ */
+
+public interface StreamingDesensitizer {
+
+    /**
+     * 脱敏后写入target
+     * @param source 原值
+     * @param target 长度不小于source的长度
+     * @return 写入的字符数；返回-1表示无法保持原长度，调用方应使用{@link Desensitizer#desensitize(Object)}
+     */
+    int desensitizeTo(CharSequence source, char[] target);
+}
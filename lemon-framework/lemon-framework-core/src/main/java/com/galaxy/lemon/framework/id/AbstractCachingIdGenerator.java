@@ -17,6 +17,7 @@
 
 package com.galaxy.lemon.framework.id;
 
+import com.galaxy.lemon.common.NamedThreadFactory;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.utils.JudgeUtils;
@@ -26,16 +27,24 @@ import org.slf4j.LoggerFactory;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.galaxy.lemon.common.exception.LemonException.throwLemonExceptionIfNecessary;
 
 /**
- *
+ * 本地缓存号段的ID生成器
+ * 每个ID名称维护当前号段与预取号段，当前号段剩余比例低于阈值时异步预取下一号段，
+ * 号段耗尽时直接切换，请求线程在稳定负载下不会阻塞在远程存储上；
+ * 号段大小根据号段的消耗速度在配置的delta与其倍数之间自适应调整
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
- * @see
+ * @see IdGenProperties.Prefetch
  * @since 1.0.0
  */
 
@@ -44,9 +53,11 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
 
     private static final int DEFAULT_DELTA = 500;
     private static final String DEFAULT_DELTA_KEY = "default";
-    private static final Map<String, IdStore> ID_STORE_MAP = new ConcurrentHashMap<>();
+    private static final int MAX_PREFETCH_THREADS = 4;
+    private static final Map<String, IdSegmentBuffer> ID_SEGMENT_BUFFER_MAP = new ConcurrentHashMap<>();
 
-    private Lock lock = new ReentrantLock();
+    private final ExecutorService prefetchExecutor = new ThreadPoolExecutor(0, MAX_PREFETCH_THREADS, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new NamedThreadFactory("lemon-idgen-prefetch", true));
 
     public AbstractCachingIdGenerator(IdGenProperties idGenProperties) {
         super(idGenProperties);
@@ -62,7 +73,7 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
      */
     @Override
     public String generateId(String idName) {
-        return this.generateId(idName, false).toString();
+        return String.valueOf(this.generateId(idName, false));
     }
 
     /**
@@ -72,7 +83,17 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
      */
     @Override
     public String generateGlobalId(String idName) {
-        return this.generateId(idName, true).toString();
+        return String.valueOf(this.generateId(idName, true));
+    }
+
+    @Override
+    public long generateSequence(String idName) {
+        return this.generateId(idName, false);
+    }
+
+    @Override
+    public long generateGlobalSequence(String idName) {
+        return this.generateId(idName, true);
     }
 
     /**
@@ -82,50 +103,86 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
      * @param global 是否全局的 true ：全局 false : 钟对application
      * @return ID
      */
-    protected Long generateId(String idName, boolean global) {
+    protected long generateId(String idName, boolean global) {
         LemonException.throwLemonExceptionIfNecessary(JudgeUtils.isBlank(idName), LemonException.SYS_ERROR_MSGCD, "Id name cloud not be blank on IdGenerator.");
-        IdStore idStore = this.getIdStoreFromCache(idName);
-        if(null == idStore) {
-            lock.lock();
-            try {
-                idStore = this.getIdStoreFromCache(idName);
-                if(null == idStore) {
-                    idStore = this.createIdStore(idName, global);
-                    this.putIdStoreToCache(idName, idStore);
+        IdSegmentBuffer buffer = this.getIdSegmentBuffer(idName);
+        while(true) {
+            IdStore idStore = buffer.current;
+            long value = null == idStore ? -1L : idStore.nextValue();
+            if(value >= 0) {
+                if (idStore.requiredPrefetch(value)) {
+                    this.prefetch(buffer, idName, global);
+                }
+                if(logger.isDebugEnabled()) {
+                    logger.debug("Acquired id \"{}\" with name \"{}\".", value, idName);
                 }
-            } finally {
-                lock.unlock();
+                return value;
+            }
+            //这个判断应该不会进去，除非脚本没有对maxValue进行控制，防御性代码
+            if(value < -1 && logger.isWarnEnabled()) {
+                logger.warn("IdGenerator script may be have a bug, generate id value is {}, defensive programming.", value);
             }
+            this.switchIdStore(buffer, idStore, idName, global);
         }
-        while(true) {
-            Long value = idStore.nextValue();
-            if(value < 0) {
-                lock.lock();
-                try{
-                    idStore = this.getIdStoreFromCache(idName);
-                    value = idStore.nextValue();
-                    if(value < 0) {
-                        idStore = this.createIdStore(idName, global);
-                        value = idStore.nextValue();
-                        this.putIdStoreToCache(idName, idStore);
+    }
+
+    /**
+     * 当前号段耗尽时切换到预取号段，没有可用的预取号段则同步获取
+     */
+    private void switchIdStore(IdSegmentBuffer buffer, IdStore exhaustedIdStore, String idName, boolean global) {
+        buffer.lock.lock();
+        try {
+            if (buffer.current != exhaustedIdStore) {
+                return;
+            }
+            IdStore next = buffer.next;
+            if (null != next) {
+                buffer.next = null;
+                buffer.current = next;
+                return;
+            }
+            buffer.current = this.createIdStore(buffer, idName, global);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * 异步预取下一号段
+     */
+    private void prefetch(IdSegmentBuffer buffer, String idName, boolean global) {
+        if (!this.getIdGenProperties().getPrefetch().isEnabled() || null != buffer.next || !buffer.loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.prefetchExecutor.execute(() -> {
+                try {
+                    IdStore next = this.createIdStore(buffer, idName, global);
+                    buffer.lock.lock();
+                    try {
+                        buffer.next = next;
+                    } finally {
+                        buffer.lock.unlock();
                     }
-                } finally {
-                    lock.unlock();
-                }
-                //这个判断应该不会进去，除非脚本没有对maxValue进行控制，防御性代码
-                if(value < 0) {
+                } catch (Throwable t) {
                     if (logger.isWarnEnabled()) {
-                        logger.warn("IdGenerator script may be have a bug, generate id value is {}, defensive programming.", value);
+                        logger.warn("Failed to prefetch id segment with name \"{}\", it will be acquired when the current segment is exhausted.", idName, t);
                     }
-                    idStore = this.getIdStoreFromCache(idName);
-                    continue;
+                } finally {
+                    buffer.loading.set(false);
                 }
-            }
-            if(logger.isDebugEnabled()) {
-                logger.debug("Acquired id \"{}\" with name \"{}\".", value, idName);
-            }
-            return value;
+            });
+        } catch (RejectedExecutionException e) {
+            buffer.loading.set(false);
+        }
+    }
+
+    private IdSegmentBuffer getIdSegmentBuffer(String idName) {
+        IdSegmentBuffer buffer = ID_SEGMENT_BUFFER_MAP.get(idName);
+        if (null == buffer) {
+            buffer = ID_SEGMENT_BUFFER_MAP.computeIfAbsent(idName, k -> new IdSegmentBuffer());
         }
+        return buffer;
     }
 
     /**
@@ -135,16 +192,20 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
      * @return
      */
     protected IdStore createIdStore(String idName, boolean global) {
-        IdStore oldIdStore = this.getIdStoreFromCache(idName);
-        Long maxValue = null != oldIdStore ? oldIdStore.maxValue : this.getMaxValue(idName);
+        return this.createIdStore(this.getIdSegmentBuffer(idName), idName, global);
+    }
+
+    private IdStore createIdStore(IdSegmentBuffer buffer, String idName, boolean global) {
+        Long maxValue = null != buffer.maxValue ? buffer.maxValue : this.getMaxValue(idName);
         if(null == maxValue) {
             maxValue = -1L;
         }
+        buffer.maxValue = maxValue;
         Long minValue = this.getMinValue(idName);
-        Integer delta = this.getDelta(idName);
         throwLemonExceptionIfNecessary((maxValue != -1 && minValue >= maxValue), ErrorMsgCode.SYS_ERROR,
                 "The \"IdGen\" with name \"{1}\" min value must be less than the max value.",
                 new String[]{idName});
+        Integer delta = this.resolveDelta(buffer, idName, maxValue, minValue);
         Long localMaxValue = this.acquireLocalMaxValue(idName, global, maxValue, minValue, delta);
         Long currentValue = localMaxValue - delta + 1;
         if(-1 != maxValue) {
@@ -154,15 +215,36 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
             logger.debug("New Id store with key \"{}\", currentId \"{}\", localMaxId \"{}\", maxValue \"{}\", delta \"{}\", minValue \"{}\".",
                     idName, currentValue, localMaxValue, maxValue, delta, minValue);
         }
-        return IdStore.newInstance(currentValue, localMaxValue, maxValue);
-    }
-
-    protected IdStore getIdStoreFromCache(String idName) {
-        return ID_STORE_MAP.get(idName);
+        long prefetchValue = localMaxValue - (long) ((localMaxValue - currentValue + 1) * this.getIdGenProperties().getPrefetch().getThreshold());
+        return IdStore.newInstance(currentValue, localMaxValue, maxValue, prefetchValue);
     }
 
-    protected void putIdStoreToCache(String idName, IdStore idStore) {
-        ID_STORE_MAP.put(idName, idStore);
+    /**
+     * 根据上一号段的消耗时间调整号段大小，消耗过快时加倍，过慢时减半，范围为[delta, delta * maxDeltaMultiple]
+     */
+    private Integer resolveDelta(IdSegmentBuffer buffer, String idName, long maxValue, long minValue) {
+        int baseDelta = this.getDelta(idName);
+        IdGenProperties.Prefetch prefetch = this.getIdGenProperties().getPrefetch();
+        long now = System.currentTimeMillis();
+        long lastFetchTime = buffer.lastFetchTime.getAndSet(now);
+        int delta = buffer.delta;
+        if (delta < baseDelta || 0 == lastFetchTime || prefetch.getMaxDeltaMultiple() <= 1) {
+            delta = baseDelta;
+        } else {
+            long segmentDuration = TimeUnit.SECONDS.toMillis(prefetch.getSegmentDuration());
+            long elapsed = now - lastFetchTime;
+            long maxDelta = (long) baseDelta * prefetch.getMaxDeltaMultiple();
+            if (-1 != maxValue) {
+                maxDelta = Math.min(maxDelta, (maxValue - minValue) / 4);
+            }
+            if (elapsed < segmentDuration) {
+                delta = (int) Math.max(baseDelta, Math.min((long) delta * 2, maxDelta));
+            } else if (elapsed >= segmentDuration * 2) {
+                delta = Math.max(baseDelta, delta / 2);
+            }
+        }
+        buffer.delta = delta;
+        return delta;
     }
 
     /**
@@ -186,23 +268,39 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
      */
     protected abstract Long acquireLocalMaxValue(String idName, boolean global, Long maxValue, Long minValue, Integer delta);
 
+    /**
+     * 单个ID名称的当前号段与预取号段
+     */
+    private static class IdSegmentBuffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private final AtomicLong lastFetchTime = new AtomicLong();
+        private volatile IdStore current;
+        private volatile IdStore next;
+        private volatile Long maxValue;
+        private volatile int delta;
+    }
+
     /**
      * id store
      */
     protected static class IdStore {
         private AtomicLong localIdGen;
-        private Long localMaxValue;
-        //全局最大值，超过该值继续从minValue开始;该值为null则无穷自增，达到long最大值
-        private Long maxValue;
+        private long localMaxValue;
+        //全局最大值，超过该值继续从minValue开始;该值为-1则无穷自增，达到long最大值
+        private long maxValue;
+        //达到该值时预取下一号段
+        private long prefetchValue;
 
-        public IdStore(AtomicLong localIdGen, Long localMaxValue, Long maxValue) {
+        public IdStore(AtomicLong localIdGen, long localMaxValue, long maxValue, long prefetchValue) {
             this.localIdGen = localIdGen;
             this.localMaxValue = localMaxValue;
             this.maxValue = maxValue;
+            this.prefetchValue = prefetchValue;
         }
 
-        public static IdStore newInstance(Long currentValue, Long localMaxValue, Long maxValue) {
-            return new IdStore(new AtomicLong(currentValue), localMaxValue, maxValue);
+        public static IdStore newInstance(long currentValue, long localMaxValue, long maxValue, long prefetchValue) {
+            return new IdStore(new AtomicLong(currentValue), localMaxValue, maxValue, prefetchValue);
         }
 
         /**
@@ -210,8 +308,8 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
          * 超出maxValue返回-2
          * @return
          */
-        public Long nextValue() {
-            Long value = localIdGen.getAndIncrement();
+        public long nextValue() {
+            long value = localIdGen.getAndIncrement();
             if(value > localMaxValue) {
                 return -1L;
             }
@@ -220,5 +318,14 @@ public abstract class AbstractCachingIdGenerator extends AbstractIdGenerator imp
             }
             return value;
         }
+
+        /**
+         * 是否需要预取下一号段
+         * @param value
+         * @return
+         */
+        public boolean requiredPrefetch(long value) {
+            return value >= this.prefetchValue;
+        }
     }
 }
@@ -40,6 +40,7 @@ public class IdGenProperties {
     private Map<String, Long> minValue = new LinkedHashMap<>();
     private Auto auto;
     private Mode mode;
+    private Prefetch prefetch = new Prefetch();
 
     
     public String getPrefix() {
@@ -96,6 +97,66 @@ public class IdGenProperties {
         this.mode = mode;
     }
 
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(Prefetch prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * 号段预取
+     */
+    public static class Prefetch {
+        private boolean enabled = true;
+        /**
+         * 当前号段剩余比例低于该值时预取下一号段
+         */
+        private double threshold = 0.2;
+        /**
+         * 自适应号段大小的上限，为delta的倍数，小于等于1时不调整(默认)
+         * 如需开启，配置lemon.idgen.prefetch.max-delta-multiple大于1，注意重启时最多丢失delta * maxDeltaMultiple个ID
+         */
+        private int maxDeltaMultiple = 1;
+        /**
+         * 期望单个号段的消耗时间(秒)，消耗快于该值时号段加倍，慢于两倍该值时号段减半
+         */
+        private long segmentDuration = 15 * 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(double threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getMaxDeltaMultiple() {
+            return maxDeltaMultiple;
+        }
+
+        public void setMaxDeltaMultiple(int maxDeltaMultiple) {
+            this.maxDeltaMultiple = maxDeltaMultiple;
+        }
+
+        public long getSegmentDuration() {
+            return segmentDuration;
+        }
+
+        public void setSegmentDuration(long segmentDuration) {
+            this.segmentDuration = segmentDuration;
+        }
+    }
+
     public static class Auto {
         /**
          * @deprecated as of lemon framework 2.0.0, in favor of using {@link #basePackages}
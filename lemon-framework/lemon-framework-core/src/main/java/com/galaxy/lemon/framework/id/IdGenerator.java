@@ -42,4 +42,22 @@ public interface IdGenerator {
      * @return ID
      */
     String generateGlobalId(String idName);
+
+    /**
+     * 生成ID序列号，不做字符串转换
+     * @param idName ID name
+     * @return ID
+     */
+    default long generateSequence(String idName) {
+        return Long.parseLong(generateId(idName));
+    }
+
+    /**
+     * 在全局范围内唯一的ID序列号，不做字符串转换
+     * @param idName ID name
+     * @return ID
+     */
+    default long generateGlobalSequence(String idName) {
+        return Long.parseLong(generateGlobalId(idName));
+    }
 }
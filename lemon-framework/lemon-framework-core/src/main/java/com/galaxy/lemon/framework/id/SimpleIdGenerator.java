@@ -46,7 +46,17 @@ public class SimpleIdGenerator extends AbstractIdGenerator {
         return String.valueOf(this.incrementAndGet(idName));
     }
 
-    private Long incrementAndGet(String idName) {
+    @Override
+    public long generateSequence(String idName) {
+        return this.incrementAndGet(idName);
+    }
+
+    @Override
+    public long generateGlobalSequence(String idName) {
+        return this.incrementAndGet(idName);
+    }
+
+    private long incrementAndGet(String idName) {
         AtomicLong idCount = this.idCountMap.get(idName);
         if (null == idCount) {
             synchronized (this.idCountMap) {
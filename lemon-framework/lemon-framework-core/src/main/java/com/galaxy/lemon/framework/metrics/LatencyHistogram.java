@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.metrics;
+
+/**
+ * 对数线性(HDR风格)直方图的快照
+ * 每个2的幂区间线性划分为{@link #SUB_BUCKET_COUNT}个子桶，相对误差不超过 1/{@link #SUB_BUCKET_COUNT}
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see PerformanceMetricsCollector
+ * @since 1.0.0
+ */
+
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 最大可精确统计的值为 2^HIGHEST_TRACKABLE_BITS - 1，超出的值计入最后一个桶
+     */
+    static final int HIGHEST_TRACKABLE_BITS = 32;
+    static final int BUCKET_COUNT = (HIGHEST_TRACKABLE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final long[] counts;
+    private final long totalCount;
+    private final long min;
+    private final long max;
+    private final long sum;
+
+    LatencyHistogram(long[] counts, long totalCount, long min, long max, long sum) {
+        this.counts = counts;
+        this.totalCount = totalCount;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+    }
+
+    /**
+     * 值对应的桶下标
+     * @param value
+     * @return
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift + SUB_BUCKET_BITS >= HIGHEST_TRACKABLE_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶内可表示的最大值
+     * @param index
+     * @return
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * 百分位值
+     * @param percentile 0~100
+     * @return
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0L;
+        }
+        long countAtPercentile = (long) Math.ceil(Math.min(percentile, 100D) / 100D * this.totalCount);
+        if (countAtPercentile < 1) {
+            countAtPercentile = 1;
+        }
+        long cumulative = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            cumulative += this.counts[i];
+            if (cumulative >= countAtPercentile) {
+                return Math.min(Math.max(highestEquivalentValue(i), this.min), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0L : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0D : (double) sum / totalCount;
+    }
+}
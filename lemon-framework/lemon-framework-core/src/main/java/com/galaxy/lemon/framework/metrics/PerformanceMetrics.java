@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.metrics;
+
+import com.galaxy.lemon.common.LemonConstants;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * 一个统计周期内的性能指标
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see PerformanceMetricsCollector#copyAndRestart()
+ * @since 1.0.0
+ */
+
+@Data
+public class PerformanceMetrics {
+    private MetricName metricName;
+    /**
+     * 统计总次数
+     */
+    private long count;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private long min;
+    private long max;
+    private double mean;
+    private long p50;
+    private long p90;
+    private long p99;
+    private long p999;
+    private List<Metrics> metrics;
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PerformanceMetrics{");
+        sb.append("metricName=").append(metricName);
+        sb.append(", count=").append(count);
+        sb.append(", startTime=").append(startTime);
+        sb.append(", endTime=").append(endTime);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append(", mean=").append(mean);
+        sb.append(", p50=").append(p50);
+        sb.append(", p90=").append(p90);
+        sb.append(", p99=").append(p99);
+        sb.append(", p999=").append(p999);
+        sb.append(", metrics=").append(this.metrics.stream().map(Metrics::toString).collect(joining(LemonConstants.COMMA)));
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Metrics {
+        private long metrics;
+        private long count;
+    }
+}
@@ -15,44 +15,48 @@
  * limitations under the License.
  */
 
+
 package com.galaxy.lemon.framework.metrics;
 
-import com.galaxy.lemon.common.LemonConstants;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.utils.CommonUtils;
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.AllArgsConstructor;
-import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  * 性能指标统计
+ * 每个统计周期使用按线程分段的对数线性直方图记录，写入无锁且不分配对象；
+ * 周期切换时原子替换当前周期并等待在途写入完成，不会丢失统计
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
- * @see
+ * @see LatencyHistogram
  * @since 1.0.0
  */
 
-@Data
 public class PerformanceMetricsCollector implements MetricsCollector<Long> {
-    private MetricName metricName;
-    @JsonIgnore
-    private Long[] dimensions;
+    private static final int MAX_STRIPES = 8;
     /**
-     * 统计总次数
+     * 在途写入计数按缓存行间隔存放，避免伪共享
      */
-    private LongAdder count;
-    private LocalDateTime startTime;
-    private LocalDateTime endTime;
-    private List<Metrics> metrics;
+    private static final int WRITER_PADDING = 16;
 
+    private static final AtomicReferenceFieldUpdater<PerformanceMetricsCollector, Interval> ACTIVE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(PerformanceMetricsCollector.class, Interval.class, "active");
+
+    private final MetricName metricName;
+    private final Long[] dimensions;
+    /**
+     * 降序排列的统计维度
+     */
+    private final long[] sortedDimensions;
+    private final int stripeMask;
+    private volatile Interval active;
+    private Interval spare;
 
     protected PerformanceMetricsCollector(MetricName metricName, Long... dimensions){
         if (CommonUtils.isEmpty(dimensions)) {
@@ -60,15 +64,10 @@ public class PerformanceMetricsCollector implements MetricsCollector<Long> {
         }
         this.metricName = metricName;
         this.dimensions = dimensions;
-        this.count = new LongAdder();
-        resolveDimensions(dimensions);
-    }
-
-    private PerformanceMetricsCollector(){}
-
-    private void resolveDimensions(Long[] dimensions) {
-        this.metrics = new ArrayList<>(16);
-        Stream.of(dimensions).sorted((o1, o2) -> Long.compare(o2, o1)).forEachOrdered(d -> this.metrics.add(new Metrics(d, new LongAdder())));
+        this.sortedDimensions = Stream.of(dimensions).sorted((o1, o2) -> Long.compare(o2, o1)).mapToLong(Long::longValue).toArray();
+        int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES));
+        this.stripeMask = stripes - 1;
+        this.active = new Interval(stripes, this.sortedDimensions.length);
     }
 
     /**
@@ -77,58 +76,192 @@ public class PerformanceMetricsCollector implements MetricsCollector<Long> {
      */
     @Override
     public void collect(Long duration) {
-        if (null == this.startTime) {
-            this.startTime = LocalDateTime.now();
+        collect(duration.longValue());
+    }
+
+    /**
+     * 收集指标
+     * @param duration
+     */
+    public void collect(long duration) {
+        int stripe = stripeIndex();
+        Interval interval;
+        for (;;) {
+            interval = this.active;
+            interval.enter(stripe);
+            if (interval == this.active) {
+                break;
+            }
+            interval.exit(stripe);
+        }
+        try {
+            interval.record(stripe, duration, dimensionIndex(duration));
+        } finally {
+            interval.exit(stripe);
         }
-        this.count.increment();
-        this.metrics.stream().filter(d -> d.getMetrics() <= duration).findFirst().ifPresent(Metrics::increase);
+    }
+
+    /**
+     * 结束当前统计周期并开始新周期
+     * @return 当前周期的统计结果
+     */
+    public synchronized PerformanceMetrics copyAndRestart() {
+        Interval next = null != this.spare ? this.spare : new Interval(this.stripeMask + 1, this.sortedDimensions.length);
+        next.startTime = LocalDateTime.now();
+        Interval previous = ACTIVE_UPDATER.getAndSet(this, next);
+        previous.awaitQuiescence();
+        PerformanceMetrics performanceMetrics = previous.toPerformanceMetrics(this.metricName, this.sortedDimensions, next.startTime);
+        previous.reset();
+        this.spare = previous;
+        return performanceMetrics;
+    }
+
+    /**
+     * 清理指标
+     */
+    public void clear() {
+        copyAndRestart();
+    }
+
+    public MetricName getMetricName() {
+        return metricName;
+    }
+
+    public Long[] getDimensions() {
+        return dimensions;
+    }
+
+    private int dimensionIndex(long duration) {
+        for (int i = 0; i < this.sortedDimensions.length; i++) {
+            if (this.sortedDimensions[i] <= duration) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        id ^= id >>> 16;
+        id *= 0x45d9f3bL;
+        return (int) (id ^ (id >>> 16)) & this.stripeMask;
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("PerformanceMetricsCollector{");
         sb.append("metricName=").append(metricName);
-        sb.append(", count=").append(count);
-        sb.append(", startTime=").append(startTime);
-        sb.append(", endTime=").append(endTime == null ? LocalDateTime.now() : endTime);
-        sb.append(", metrics=").append(this.metrics.stream().map(Metrics::toString).collect(joining(LemonConstants.COMMA)));
+        sb.append(", startTime=").append(active.startTime);
         sb.append('}');
         return sb.toString();
     }
 
     /**
-     * 重新开始统计,高并发时不数据不精确
+     * 一个统计周期，每个分段的计数布局为：直方图桶 | 维度计数 | count | sum | max | min
      */
-    public PerformanceMetricsCollector copyAndRestart() {
-        PerformanceMetricsCollector collector = new PerformanceMetricsCollector();
-        collector.setStartTime(collector.getStartTime());
-        collector.setCount(this.getCount());
-        collector.setMetricName(this.getMetricName());
-        collector.setMetrics(this.getMetrics());
-        clear();
-        collector.setEndTime(LocalDateTime.now());
-        return collector;
-    }
+    private static class Interval {
+        private final AtomicLongArray[] stripes;
+        private final AtomicLongArray writers;
+        private final int dimensionOffset;
+        private final int countOffset;
+        private final int sumOffset;
+        private final int maxOffset;
+        private final int minOffset;
+        private volatile LocalDateTime startTime = LocalDateTime.now();
 
-    /**
-     * 清理指标
-     */
-    public void clear() {
-        this.count = new LongAdder();
-        this.startTime = null;
-        this.endTime = null;
-        resolveDimensions(this.dimensions);
-    }
+        Interval(int stripes, int dimensions) {
+            this.dimensionOffset = LatencyHistogram.BUCKET_COUNT;
+            this.countOffset = this.dimensionOffset + dimensions;
+            this.sumOffset = this.countOffset + 1;
+            this.maxOffset = this.sumOffset + 1;
+            this.minOffset = this.maxOffset + 1;
+            this.stripes = new AtomicLongArray[stripes];
+            for (int i = 0; i < stripes; i++) {
+                this.stripes[i] = new AtomicLongArray(this.minOffset + 1);
+                this.stripes[i].set(this.minOffset, Long.MAX_VALUE);
+            }
+            this.writers = new AtomicLongArray(stripes * WRITER_PADDING);
+        }
+
+        void enter(int stripe) {
+            this.writers.incrementAndGet(stripe * WRITER_PADDING);
+        }
 
-    @Data
-    @AllArgsConstructor
-    static class Metrics {
-        private Long metrics;
-        private LongAdder count;
+        void exit(int stripe) {
+            this.writers.decrementAndGet(stripe * WRITER_PADDING);
+        }
+
+        void record(int stripe, long value, int dimensionIndex) {
+            AtomicLongArray counts = this.stripes[stripe];
+            counts.incrementAndGet(LatencyHistogram.bucketIndex(value));
+            if (dimensionIndex >= 0) {
+                counts.incrementAndGet(this.dimensionOffset + dimensionIndex);
+            }
+            counts.incrementAndGet(this.countOffset);
+            counts.addAndGet(this.sumOffset, value);
+            long max;
+            while (value > (max = counts.get(this.maxOffset)) && !counts.compareAndSet(this.maxOffset, max, value)) {
+            }
+            long min;
+            while (value < (min = counts.get(this.minOffset)) && !counts.compareAndSet(this.minOffset, min, value)) {
+            }
+        }
 
+        /**
+         * 等待已进入本周期的写入全部完成
+         */
+        void awaitQuiescence() {
+            for (int i = 0; i < this.stripes.length; i++) {
+                while (this.writers.get(i * WRITER_PADDING) != 0) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        void reset() {
+            for (AtomicLongArray counts : this.stripes) {
+                for (int i = 0; i < this.minOffset; i++) {
+                    counts.lazySet(i, 0L);
+                }
+                counts.set(this.minOffset, Long.MAX_VALUE);
+            }
+        }
 
-        public void increase() {
-            this.count.increment();
+        PerformanceMetrics toPerformanceMetrics(MetricName metricName, long[] sortedDimensions, LocalDateTime endTime) {
+            long[] buckets = new long[LatencyHistogram.BUCKET_COUNT];
+            long[] dimensionCounts = new long[sortedDimensions.length];
+            long count = 0, sum = 0, max = 0, min = Long.MAX_VALUE;
+            for (AtomicLongArray counts : this.stripes) {
+                for (int i = 0; i < buckets.length; i++) {
+                    buckets[i] += counts.get(i);
+                }
+                for (int i = 0; i < dimensionCounts.length; i++) {
+                    dimensionCounts[i] += counts.get(this.dimensionOffset + i);
+                }
+                count += counts.get(this.countOffset);
+                sum += counts.get(this.sumOffset);
+                max = Math.max(max, counts.get(this.maxOffset));
+                min = Math.min(min, counts.get(this.minOffset));
+            }
+            LatencyHistogram histogram = new LatencyHistogram(buckets, count, min, max, sum);
+            List<PerformanceMetrics.Metrics> metrics = new ArrayList<>(sortedDimensions.length);
+            for (int i = 0; i < sortedDimensions.length; i++) {
+                metrics.add(new PerformanceMetrics.Metrics(sortedDimensions[i], dimensionCounts[i]));
+            }
+            PerformanceMetrics performanceMetrics = new PerformanceMetrics();
+            performanceMetrics.setMetricName(metricName);
+            performanceMetrics.setCount(count);
+            performanceMetrics.setStartTime(this.startTime);
+            performanceMetrics.setEndTime(endTime);
+            performanceMetrics.setMin(histogram.getMin());
+            performanceMetrics.setMax(histogram.getMax());
+            performanceMetrics.setMean(histogram.getMean());
+            performanceMetrics.setP50(histogram.getValueAtPercentile(50D));
+            performanceMetrics.setP90(histogram.getValueAtPercentile(90D));
+            performanceMetrics.setP99(histogram.getValueAtPercentile(99D));
+            performanceMetrics.setP999(histogram.getValueAtPercentile(99.9D));
+            performanceMetrics.setMetrics(metrics);
+            return performanceMetrics;
         }
     }
 
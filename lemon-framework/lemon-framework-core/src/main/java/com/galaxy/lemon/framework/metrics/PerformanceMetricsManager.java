@@ -27,11 +27,12 @@ import com.galaxy.lemon.framework.metrics.PerformanceMetricsCollector;
 import com.galaxy.lemon.framework.metrics.PerformanceMetricsConfigurer;
 
 import java.io.Writer;
-import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.stream.Collectors.joining;
+
 /**
  *
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
@@ -67,15 +68,11 @@ public class PerformanceMetricsManager {
      * @return
      */
     public PerformanceMetricsCollector registerMetricsCollector(String metricGroup ,String metricName, Long... dimensions) {
-        return this.registerMetricsCollector(metricGroup, metricName, true, dimensions);
-    }
-
-    protected PerformanceMetricsCollector registerMetricsCollector(String metricGroup ,String metricName, boolean checked, Long... dimensions) {
-        String registerKey = toRegisterKey(metricGroup, metricName);
-        if (checked && this.performanceMetricsCollectorMap.containsKey(registerKey)) {
+        PerformanceMetricsCollector performanceMetricsCollector = new PerformanceMetricsCollector(new MetricName(metricGroup, metricName), dimensions);
+        if (null != this.performanceMetricsCollectorMap.putIfAbsent(toRegisterKey(metricGroup, metricName), performanceMetricsCollector)) {
             LemonException.throwLemonException(ErrorMsgCode.SYS_ERROR, "Found exists metrics collector with group {1} and name {2}.", new String[]{metricGroup, metricName});
         }
-        return this.performanceMetricsCollectorMap.put(registerKey, new PerformanceMetricsCollector(new MetricName(metricGroup, metricName), dimensions));
+        return performanceMetricsCollector;
     }
 
     /**
@@ -144,13 +141,13 @@ public class PerformanceMetricsManager {
         return this.objectEncoder;
     }
 
-    private String encodeMetricCollector(PerformanceMetricsCollector performanceMetricsCollector) throws CodecException {
-        return this.getObjectEncoder().writeValueAsString(performanceMetricsCollector);
+    private String encodePerformanceMetrics(PerformanceMetrics performanceMetrics) throws CodecException {
+        return this.getObjectEncoder().writeValueAsString(performanceMetrics);
     }
 
-    private String safetyEncodeMetricCollector(PerformanceMetricsCollector performanceMetricsCollector) {
+    private String safetyEncodePerformanceMetrics(PerformanceMetrics performanceMetrics) {
         try {
-            return this.encodeMetricCollector(performanceMetricsCollector);
+            return this.encodePerformanceMetrics(performanceMetrics);
         } catch (CodecException e) {
             return LemonConstants.EMPTY_STRING;
         }
@@ -158,24 +155,14 @@ public class PerformanceMetricsManager {
 
     public String encodeAndRestartMetricsCollector(String metricGroup ,String metricName) throws CodecException {
         PerformanceMetricsCollector metricsCollector = this.getMetricsCollector(metricGroup, metricName);
-        metricsCollector.setEndTime(LocalDateTime.now());
-        this.registerMetricsCollector(metricGroup, metricName, false, metricsCollector.getDimensions());
-        return this.encodeMetricCollector(metricsCollector);
+        return this.encodePerformanceMetrics(metricsCollector.copyAndRestart());
     }
 
     public String encodeStringAndRestartAllMetricsCollectors() {
-        StringBuilder encodeString = new StringBuilder();
-        this.performanceMetricsCollectorMap.values().parallelStream().map(this::restartPerformanceMetricsCollector)
-                .filter(p -> p.getCount().longValue() > 0)
-                .map(this::safetyEncodeMetricCollector)
-                .forEach(encodeString::append);
-        return encodeString.toString();
-    }
-
-    private PerformanceMetricsCollector restartPerformanceMetricsCollector(PerformanceMetricsCollector performanceMetricsCollector) {
-        performanceMetricsCollector.setEndTime(LocalDateTime.now());
-        this.registerMetricsCollector(performanceMetricsCollector.getMetricName().getGroup(), performanceMetricsCollector.getMetricName().getName(), false, performanceMetricsCollector.getDimensions());
-        return performanceMetricsCollector;
+        return this.performanceMetricsCollectorMap.values().stream().map(PerformanceMetricsCollector::copyAndRestart)
+                .filter(p -> p.getCount() > 0)
+                .map(this::safetyEncodePerformanceMetrics)
+                .collect(joining());
     }
 
     private String toRegisterKey(String group, String name) {
@@ -21,11 +21,13 @@ import com.galaxy.lemon.common.Holder;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.extension.SpringExtensionLoader;
-import com.galaxy.lemon.common.utils.DateTimeUtils;
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.common.utils.StringUtils;
 import com.galaxy.lemon.framework.id.IdGenerator;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
@@ -54,6 +56,16 @@ public class IdGenUtils {
     private static final Holder<Integer> msgIdSeqLengthHolder = new Holder<>();
     private static final Holder<Integer> requestIdSeqLengthHolder = new Holder<>();
 
+    /**
+     * 缓存的日期时间为 yyyyMMddHHmmss，各格式在其中的起止下标
+     */
+    private static final int DATE_TIME_LENGTH = 14;
+    private static final int DATE_LENGTH = 8;
+    private static final int SHORT_DATE_TIME_OFFSET = 2;
+    private static final int REQUEST_ID_DATE_TIME_OFFSET = 3;
+    private static final ThreadLocal<char[]> ID_BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+    private static volatile DateTimeChars currentDateTimeChars = new DateTimeChars(System.currentTimeMillis() / 1000);
+
     /**
      * 生成Id
      * @param idName
@@ -79,7 +91,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateId(String idName, int length) {
-        return StringUtils.leftPad(generateId(idName), length, getPaddingChar());
+        return composeId(null, 0, 0, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -89,7 +101,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateId(String idName, String prefix, int length) {
-        return prefix + generateId(idName, length);
+        return composeId(prefix, 0, 0, getGenerator().generateSequence(idName), length);
     }
 
     /**
@@ -120,7 +132,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithDate(String idName, String prefix, int length) {
-        return prefix + DateTimeUtils.getCurrentDateStr() + generateId(idName, length);
+        return composeId(prefix, 0, DATE_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -132,7 +144,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithShortDate(String idName, String prefix, int length) {
-        return prefix + DateTimeUtils.getCurrentShortDateStr() + generateId(idName, length);
+        return composeId(prefix, SHORT_DATE_TIME_OFFSET, DATE_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -143,7 +155,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithDate(String idName, int length) {
-        return DateTimeUtils.getCurrentDateStr() + generateId(idName, length);
+        return composeId(null, 0, DATE_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -154,7 +166,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithShortDate(String idName, int length) {
-        return DateTimeUtils.getCurrentShortDateTimeStr() + generateId(idName, length);
+        return composeId(null, SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -166,7 +178,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithDateTime(String idName, String prefix, int length) {
-        return prefix + DateTimeUtils.getCurrentDateTimeStr() + generateId(idName, length);
+        return composeId(prefix, 0, DATE_TIME_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -178,7 +190,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithShortDateTime(String idName, String prefix, int length) {
-        return prefix + DateTimeUtils.getCurrentShortDateTimeStr() + generateId(idName, length);
+        return composeId(prefix, SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -189,7 +201,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithDateTime(String idName, int length) {
-        return DateTimeUtils.getCurrentDateTimeStr() + generateId(idName, length);
+        return composeId(null, 0, DATE_TIME_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -200,7 +212,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateIdWithShortDateTime(String idName, int length) {
-        return DateTimeUtils.getCurrentShortDateTimeStr() + generateId(idName, length);
+        return composeId(null, SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateSequence(idName), length);
     }
     
     /**
@@ -218,7 +230,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateMsgId() {
-        return LemonUtils.getApplicationName() + generateIdWithShortDateTime(MSG_ID_PREFIX_KEY, getMsgIdSeqLength());
+        return composeId(LemonUtils.getApplicationName(), SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateSequence(MSG_ID_PREFIX_KEY), getMsgIdSeqLength());
     }
     
     /**
@@ -226,11 +238,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateRequestId() {
-        StringBuilder requestIdBuilder = new StringBuilder(LemonUtils.getApplicationName())
-                //.append(LemonUtils.getNodeName())
-                .append(DateTimeUtils.getCurrentLocalDateTime().format(REQUEST_ID_DATETIME_FORMATTER).substring(1))
-                .append(generateId(REQUEST_ID_PREFIX_KEY, getRequestIdSeqLength()));
-        return requestIdBuilder.toString();
+        return composeId(LemonUtils.getApplicationName(), REQUEST_ID_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateSequence(REQUEST_ID_PREFIX_KEY), getRequestIdSeqLength());
     }
     
     /**
@@ -262,7 +270,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateGlobalId(String idName, int length) {
-        return StringUtils.leftPad(generateGlobalId(idName), length, getPaddingChar());
+        return composeId(null, 0, 0, getGenerator().generateGlobalSequence(idName), length);
     }
 
     /**
@@ -272,7 +280,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateGlobalIdWithShortDateTime(String idName, int length) {
-        return DateTimeUtils.getCurrentShortDateTimeStr() + generateGlobalId(idName, length);
+        return composeId(null, SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateGlobalSequence(idName), length);
     }
 
     /**
@@ -283,7 +291,7 @@ public class IdGenUtils {
      * @return
      */
     public static String generateGlobalIdWithShortDateTime(String idName, String prefix, int length) {
-        return prefix + generateGlobalIdWithShortDateTime(idName, length);
+        return composeId(prefix, SHORT_DATE_TIME_OFFSET, DATE_TIME_LENGTH, getGenerator().generateGlobalSequence(idName), length);
     }
 
     /**
@@ -307,6 +315,83 @@ public class IdGenUtils {
         return StringUtils.leftPad(generateReversedGlobalId(idName), length, getPaddingChar());
     }
 
+    /**
+     * prefix + 日期时间[dateTimeFrom, dateTimeTo) + 左补0至length位的sequence
+     * 日期时间按秒缓存，与序列号一起直接写入线程复用的字符缓冲区，不经过DateTimeFormatter及中间字符串
+     */
+    static String composeId(String prefix, int dateTimeFrom, int dateTimeTo, long sequence, int length) {
+        int prefixLength = null == prefix ? 0 : prefix.length();
+        int dateTimeLength = dateTimeTo - dateTimeFrom;
+        int sequenceLength = Math.max(sequenceDigits(sequence), length);
+        int idLength = prefixLength + dateTimeLength + sequenceLength;
+        char[] buffer = ID_BUFFER.get();
+        if (buffer.length < idLength) {
+            buffer = new char[idLength];
+            ID_BUFFER.set(buffer);
+        }
+        if (prefixLength > 0) {
+            prefix.getChars(0, prefixLength, buffer, 0);
+        }
+        if (dateTimeLength > 0) {
+            System.arraycopy(currentDateTimeChars(), dateTimeFrom, buffer, prefixLength, dateTimeLength);
+        }
+        int pos = idLength;
+        long value = sequence;
+        do {
+            buffer[--pos] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int i = prefixLength + dateTimeLength; i < pos; i++) {
+            buffer[i] = DEFAULT_SEQUENCE_PAD_CHAR;
+        }
+        return new String(buffer, 0, idLength);
+    }
+
+    private static int sequenceDigits(long sequence) {
+        int digits = 1;
+        for (long value = sequence / 10; value > 0; value /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * 当前秒的 yyyyMMddHHmmss
+     * @return
+     */
+    private static char[] currentDateTimeChars() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        DateTimeChars dateTimeChars = currentDateTimeChars;
+        if (dateTimeChars.epochSecond != epochSecond) {
+            dateTimeChars = new DateTimeChars(epochSecond);
+            currentDateTimeChars = dateTimeChars;
+        }
+        return dateTimeChars.chars;
+    }
+
+    private static class DateTimeChars {
+        private final long epochSecond;
+        private final char[] chars = new char[DATE_TIME_LENGTH];
+
+        DateTimeChars(long epochSecond) {
+            this.epochSecond = epochSecond;
+            LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+            writeDigits(dateTime.getYear(), 0, 4);
+            writeDigits(dateTime.getMonthValue(), 4, 2);
+            writeDigits(dateTime.getDayOfMonth(), 6, 2);
+            writeDigits(dateTime.getHour(), 8, 2);
+            writeDigits(dateTime.getMinute(), 10, 2);
+            writeDigits(dateTime.getSecond(), 12, 2);
+        }
+
+        private void writeDigits(int value, int offset, int length) {
+            for (int i = offset + length - 1; i >= offset; i--) {
+                this.chars[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+
     private static IdGenerator getGenerator() {
         if (! idGeneratorHolder.isEmpty()) {
             return idGeneratorHolder.get();
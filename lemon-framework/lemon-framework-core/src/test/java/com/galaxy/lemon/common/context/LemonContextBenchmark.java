@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次请求内上下文的典型使用：新建、写入若干值、多次读取
+ * 对比原 ConcurrentHashMap + Optional 实现与 {@link LemonContext}
+ * 通过 {@link #main(String[])} 运行
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LemonContextBenchmark {
+    private static final String TX_NAME = "LC_TX_NAME";
+    private static final String TRADE_STARTING_TIME = "LC_TRADE_STARTING_TIME";
+    private static final String REQUIRED_LOGGING_KEYWORDS = "LC_REQUIRED_LOGGING_KEYWORDS";
+    private static final String ADHOC_KEY = "CONTEXT_KEY_ALREADY_PRINT_REQUEST.";
+    private static final ContextKey<String> TX_NAME_KEY = ContextKey.of(TX_NAME);
+    private static final ContextKey<LocalDateTime> TRADE_STARTING_TIME_KEY = ContextKey.of(TRADE_STARTING_TIME);
+    private static final ContextKey<Boolean> REQUIRED_LOGGING_KEYWORDS_KEY = ContextKey.of(REQUIRED_LOGGING_KEYWORDS);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Benchmark
+    public Object concurrentHashMapContext() {
+        LegacyLemonContext context = new LegacyLemonContext();
+        context.put(TX_NAME, "tx");
+        context.put(TRADE_STARTING_TIME, this.now);
+        context.put(ADHOC_KEY, Boolean.TRUE);
+        int n = 0;
+        for (int i = 0; i < 8; i++) {
+            n += context.getString(TX_NAME).length();
+            n += context.getBoolean(REQUIRED_LOGGING_KEYWORDS, Boolean.TRUE) ? 1 : 0;
+            n += context.getBoolean(ADHOC_KEY, Boolean.FALSE) ? 1 : 0;
+        }
+        return n + context.getLocalDataTime(TRADE_STARTING_TIME).getNano();
+    }
+
+    @Benchmark
+    public Object stringKeyLemonContext() {
+        LemonContext context = new LemonContext();
+        context.put(TX_NAME, "tx");
+        context.put(TRADE_STARTING_TIME, this.now);
+        context.put(ADHOC_KEY, Boolean.TRUE);
+        int n = 0;
+        for (int i = 0; i < 8; i++) {
+            n += context.getString(TX_NAME).length();
+            n += context.getBoolean(REQUIRED_LOGGING_KEYWORDS, Boolean.TRUE) ? 1 : 0;
+            n += context.getBoolean(ADHOC_KEY, Boolean.FALSE) ? 1 : 0;
+        }
+        return n + context.getLocalDataTime(TRADE_STARTING_TIME).getNano();
+    }
+
+    @Benchmark
+    public Object contextKeyLemonContext() {
+        LemonContext context = new LemonContext();
+        context.put(TX_NAME_KEY, "tx");
+        context.put(TRADE_STARTING_TIME_KEY, this.now);
+        context.put(ADHOC_KEY, Boolean.TRUE);
+        int n = 0;
+        for (int i = 0; i < 8; i++) {
+            n += context.get(TX_NAME_KEY).length();
+            n += context.getBoolean(REQUIRED_LOGGING_KEYWORDS_KEY, Boolean.TRUE) ? 1 : 0;
+            n += context.getBoolean(ADHOC_KEY, Boolean.FALSE) ? 1 : 0;
+        }
+        return n + context.get(TRADE_STARTING_TIME_KEY).getNano();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LemonContextBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * 原 LemonContext 的存取方式
+     */
+    static class LegacyLemonContext extends ConcurrentHashMap<Object, Object> {
+        private static final long serialVersionUID = 1L;
+
+        String getString(Object key) {
+            return Optional.ofNullable(get(key)).map(String::valueOf).orElse(null);
+        }
+
+        Boolean getBoolean(Object key, Boolean defaultValue) {
+            return Optional.ofNullable(get(key)).map(Boolean.class::cast).orElse(defaultValue);
+        }
+
+        LocalDateTime getLocalDataTime(Object key) {
+            return Optional.ofNullable(get(key)).map(LocalDateTime.class::cast).orElse(null);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.common.log;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link AsyncAccessLogger} 在调用线程创建快照，在消费线程格式化
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see AsyncAccessLogger
+ * @since 1.0.0
+ */
+
+public class AsyncAccessLoggerTest {
+
+    @Test(timeout = 5000L)
+    public void formatsSnapshotOnConsumerThread() {
+        RecordingAccessLogger delegate = new RecordingAccessLogger();
+        AsyncAccessLogger asyncAccessLogger = new AsyncAccessLogger(delegate, "access-log-consumer");
+        RequestInfo<String> requestInfo = RequestInfo.builder().requestId("r1").uri("/order").target("body").build();
+        asyncAccessLogger.request(requestInfo);
+        requestInfo.setUri("/changed");
+        ResponseInfo<String> responseInfo = ResponseInfo.builder().requestId("r1").status("OK").result("result").build();
+        asyncAccessLogger.response(responseInfo);
+        responseInfo.setStatus("CHANGED");
+        asyncAccessLogger.shutdown();
+
+        Assert.assertEquals(Arrays.asList("[1] - /order body", "OK result"), delegate.written);
+        Assert.assertEquals(Arrays.asList("access-log-consumer", "access-log-consumer"), delegate.formatThreads);
+        Assert.assertEquals(2, asyncAccessLogger.getPublishedCount());
+    }
+
+    @Test
+    public void formatsOnCallerThreadAfterShutdown() {
+        RecordingAccessLogger delegate = new RecordingAccessLogger();
+        AsyncAccessLogger asyncAccessLogger = new AsyncAccessLogger(delegate, "access-log-consumer");
+        asyncAccessLogger.shutdown();
+        asyncAccessLogger.response(ResponseInfo.builder().status("OK").result("result").build());
+
+        Assert.assertEquals(Collections.singletonList("OK result"), delegate.written);
+        Assert.assertEquals(Collections.singletonList(Thread.currentThread().getName()), delegate.formatThreads);
+    }
+
+    private static class RecordingAccessLogger implements FormattableAccessLogger {
+        private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> formatThreads = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public <T, REQ extends RequestInfo<T>> void request(REQ requestInfo) {
+            write(format(snapshotRequest(requestInfo)));
+        }
+
+        @Override
+        public <T, RSP extends ResponseInfo<T>> void response(RSP responseInfo) {
+            write(format(snapshotResponse(responseInfo)));
+        }
+
+        @Override
+        public AccessLogSnapshot snapshotRequest(RequestInfo<?> requestInfo) {
+            return AccessLogSnapshot.ofRequest(requestInfo, requestInfo.getKeywords(), "[1] - ");
+        }
+
+        @Override
+        public AccessLogSnapshot snapshotResponse(ResponseInfo<?> responseInfo) {
+            return AccessLogSnapshot.ofResponse(responseInfo, responseInfo.getKeywords(), null);
+        }
+
+        @Override
+        public String format(AccessLogSnapshot snapshot) {
+            this.formatThreads.add(Thread.currentThread().getName());
+            if (snapshot.isRequest()) {
+                RequestInfo<?> requestInfo = (RequestInfo<?>) snapshot.getInfo();
+                return snapshot.getPrefix() + requestInfo.getUri() + " " + requestInfo.getTarget();
+            }
+            ResponseInfo<?> responseInfo = (ResponseInfo<?>) snapshot.getInfo();
+            return responseInfo.getStatus() + " " + responseInfo.getResult();
+        }
+
+        @Override
+        public void write(String formattedLog) {
+            this.written.add(formattedLog);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.common.log;
+
+import com.galaxy.lemon.framework.spring.spel.SpelFunctionConfigurer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次请求日志关键字计算的基准测试
+ * legacy* 为原有方式：每次新建 StandardEvaluationContext 并注册函数，解释执行；其余为 {@link KeywordsExpressionEvaluator}
+ * 通过 {@link #main(String[])} 运行
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordsExpressionEvaluatorBenchmark {
+    private static final String PROPERTY_PATH_EXPRESSION = "#request.body.orderNo";
+    private static final String FUNCTION_EXPRESSION = "#STRCAT(#request.userNo, #request.body.orderNo)";
+
+    private SpelFunctionConfigurer spelFunctionConfigurer;
+    private Expression legacyPropertyPathExpression;
+    private Expression legacyFunctionExpression;
+    private KeywordsExpressionEvaluator keywordsExpressionEvaluator;
+    private String[] propertyPathExpressions;
+    private String[] functionExpressions;
+    private DemoRequest request;
+
+    @Setup
+    public void setup() {
+        SpelExpressionParser parser = new SpelExpressionParser();
+        this.spelFunctionConfigurer = new SpelFunctionConfigurer.DefaultSpelFunctionConfigurer();
+        this.legacyPropertyPathExpression = parser.parseExpression(PROPERTY_PATH_EXPRESSION);
+        this.legacyFunctionExpression = parser.parseExpression(FUNCTION_EXPRESSION);
+        this.keywordsExpressionEvaluator = new KeywordsExpressionEvaluator();
+        this.propertyPathExpressions = new String[]{PROPERTY_PATH_EXPRESSION};
+        this.functionExpressions = new String[]{FUNCTION_EXPRESSION};
+        this.request = new DemoRequest("U0001", new DemoBody("ORD20180101000001"));
+    }
+
+    @Benchmark
+    public String legacyPropertyPath() {
+        return this.legacyPropertyPathExpression.getValue(legacyEvaluationContext(), String.class);
+    }
+
+    @Benchmark
+    public Keywords propertyPath() {
+        return this.keywordsExpressionEvaluator.evaluate(this.propertyPathExpressions, this.request);
+    }
+
+    @Benchmark
+    public String legacyFunction() {
+        return this.legacyFunctionExpression.getValue(legacyEvaluationContext(), String.class);
+    }
+
+    @Benchmark
+    public Keywords function() {
+        return this.keywordsExpressionEvaluator.evaluate(this.functionExpressions, this.request);
+    }
+
+    private StandardEvaluationContext legacyEvaluationContext() {
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("request", this.request);
+        this.spelFunctionConfigurer.configure(evaluationContext);
+        return evaluationContext;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KeywordsExpressionEvaluatorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class DemoRequest {
+        private final String userNo;
+        private final DemoBody body;
+
+        public DemoRequest(String userNo, DemoBody body) {
+            this.userNo = userNo;
+            this.body = body;
+        }
+
+        public String getUserNo() {
+            return userNo;
+        }
+
+        public DemoBody getBody() {
+            return body;
+        }
+    }
+
+    public static class DemoBody {
+        private final String orderNo;
+
+        public DemoBody(String orderNo) {
+            this.orderNo = orderNo;
+        }
+
+        public String getOrderNo() {
+            return orderNo;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SingleFlightCache} 合并加载、递归加载、租约等待及存储格式
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see SingleFlightCache
+ * @since 1.0.0
+ */
+
+public class SingleFlightCacheTest {
+
+    @Test(timeout = 5000L)
+    public void concurrentMissesLoadOnce() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test"), null, 1000L, 0L, 0D);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("k", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "v";
+            }));
+            loading.await();
+            Future<String> second = executor.submit(() -> cache.get("k", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            release.countDown();
+            Assert.assertEquals("v", first.get());
+            Assert.assertEquals("v", second.get());
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void recursiveLoadOfSameKeyOnSameThreadDoesNotDeadlock() {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test"), null, 1000L, 0L, 0D);
+        AtomicInteger depth = new AtomicInteger();
+        String value = cache.get("k", () -> depth.incrementAndGet() == 1 ? cache.get("k", () -> "inner") + "-outer" : "inner");
+        Assert.assertEquals("inner-outer", value);
+        Assert.assertEquals("inner-outer", cache.get("k").get());
+    }
+
+    @Test
+    public void earlyRefreshKeepsStoredValueRaw() {
+        ConcurrentMapCache target = new ConcurrentMapCache("test");
+        SingleFlightCache cache = new SingleFlightCache(target, null, 1000L, 60000L, 1D);
+        Assert.assertEquals("v", cache.get("k", () -> "v"));
+        Assert.assertEquals("v", target.get("k").get());
+        Assert.assertEquals("v", cache.get("k").get());
+        Assert.assertEquals("v", cache.get("k", String.class));
+    }
+
+    @Test
+    public void earlyRefreshReloadsBeforeExpiry() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test"), null, 1000L, 1L, 1000D);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("k", () -> {
+            Thread.sleep(5L);
+            return "v" + loads.incrementAndGet();
+        });
+        Thread.sleep(5L);
+        Assert.assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test(timeout = 5000L)
+    public void waitsForLeaseReleaseInsteadOfPolling() {
+        ConcurrentMapCache target = new ConcurrentMapCache("test");
+        LeaseHeldByOtherNode lease = new LeaseHeldByOtherNode(target);
+        SingleFlightCache cache = new SingleFlightCache(target, lease, 3000L, 0L, 0D);
+        AtomicInteger loads = new AtomicInteger();
+        long start = System.nanoTime();
+        String value = cache.get("k", () -> "self" + loads.incrementAndGet());
+        Assert.assertEquals("remote", value);
+        Assert.assertEquals(0, loads.get());
+        Assert.assertEquals(1, lease.awaits.get());
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+    }
+
+    @Test(timeout = 5000L)
+    public void loadsBySelfWhenLeaseHolderDoesNotWriteValue() {
+        LeaseHeldByOtherNode lease = new LeaseHeldByOtherNode(null);
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test"), lease, 3000L, 0L, 0D);
+        Assert.assertEquals("self", cache.get("k", () -> "self"));
+        Assert.assertEquals(2, lease.acquires.get());
+    }
+
+    /**
+     * 首次获取租约失败，等待时模拟其他节点写入缓存并释放租约
+     */
+    private static class LeaseHeldByOtherNode implements CacheLoadLease {
+        private final Cache remoteWriter;
+        private final AtomicInteger acquires = new AtomicInteger();
+        private final AtomicInteger awaits = new AtomicInteger();
+
+        LeaseHeldByOtherNode(Cache remoteWriter) {
+            this.remoteWriter = remoteWriter;
+        }
+
+        @Override
+        public boolean tryAcquire(String leaseKey, long leaseMillis) {
+            return this.acquires.incrementAndGet() > 1;
+        }
+
+        @Override
+        public void release(String leaseKey) {
+        }
+
+        @Override
+        public boolean awaitRelease(String leaseKey, long timeoutMillis) {
+            this.awaits.incrementAndGet();
+            if (null != this.remoteWriter) {
+                this.remoteWriter.put("k", "remote");
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.data.support;
+
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataMessageConverter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * {@link CompactLemonDataMessageConverter} 编解码往返、null标识、扩展属性、未知字段、长值及截断报文
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see CompactLemonDataMessageConverter
+ * @since 1.0.0
+ */
+
+public class CompactLemonDataMessageConverterTest {
+    private static final String FALLBACK_MESSAGE = "{json}";
+
+    private final CompactLemonDataMessageConverter<TestLemonData> converter =
+            new CompactLemonDataMessageConverter<>(TestLemonData::new, new FallbackConverter(), true);
+
+    @Test
+    public void roundTripsBaseAndExtensionProperties() {
+        TestLemonData lemonData = new TestLemonData();
+        lemonData.setRequestId("REQ20181018123456789");
+        lemonData.setMsgId("M1");
+        lemonData.setStartDateTime(LocalDateTime.of(2018, 10, 18, 12, 1, 2, 345678900));
+        lemonData.setClientIp("10.0.0.1");
+        lemonData.setChannel(Channel.WEB);
+        lemonData.setCount(-5);
+        lemonData.setSequence(1L << 40);
+        lemonData.setRetry(true);
+        lemonData.setAmount(new BigDecimal("-12.340"));
+        lemonData.setAccountDate(LocalDate.of(1969, 1, 1));
+
+        String message = this.converter.toMessage(lemonData);
+        Assert.assertTrue(CompactLemonDataMessageConverter.isCompactMessage(message));
+        assertSame(lemonData, this.converter.fromMessage(message));
+    }
+
+    @Test
+    public void defaultValuesAreNotTransmitted() {
+        String message = this.converter.toMessage(new TestLemonData());
+        Assert.assertEquals(CompactLemonDataMessageConverter.MESSAGE_PREFIX, message);
+        assertSame(new TestLemonData(), this.converter.fromMessage(message));
+    }
+
+    @Test
+    public void nullFlagsOverrideDefaults() {
+        TestLemonData lemonData = new TestLemonData();
+        lemonData.setLocale(null);
+        lemonData.setChannel(null);
+        lemonData.setRemark(null);
+
+        TestLemonData decoded = this.converter.fromMessage(this.converter.toMessage(lemonData));
+        Assert.assertNull(decoded.getLocale());
+        Assert.assertNull(decoded.getChannel());
+        Assert.assertNull(decoded.getRemark());
+    }
+
+    @Test
+    public void valuesOfAtLeast128BytesShiftFollowingFields() {
+        for (int length : new int[] {127, 128, 129, 300, 16383, 16384, 70000}) {
+            TestLemonData lemonData = new TestLemonData();
+            lemonData.setRequestId("R" + length);
+            lemonData.setToken(repeat('t', length - 2) + "中");
+            lemonData.setRemark(repeat('r', length));
+            lemonData.setVersionId("V1");
+
+            TestLemonData decoded = this.converter.fromMessage(this.converter.toMessage(lemonData));
+            Assert.assertEquals(lemonData.getToken(), decoded.getToken());
+            Assert.assertEquals(lemonData.getRemark(), decoded.getRemark());
+            assertSame(lemonData, decoded);
+        }
+    }
+
+    @Test
+    public void unknownTagsAndExtensionNamesAreSkipped() {
+        TestLemonData lemonData = new TestLemonData();
+        lemonData.setRequestId("R1");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] encoded = decode(this.converter.toMessage(lemonData));
+        bytes.write(encoded, 0, encoded.length);
+        //未知的基础属性tag
+        writeField(bytes, 30 << 1, "future");
+        writeVarint(bytes, 31 << 1 | 1);
+        //未知的扩展属性
+        writeVarint(bytes, 0);
+        writeBytes(bytes, "futureProperty".getBytes(StandardCharsets.UTF_8));
+        writeBytes(bytes, "value".getBytes(StandardCharsets.UTF_8));
+        writeVarint(bytes, 1);
+        writeBytes(bytes, "futureNullProperty".getBytes(StandardCharsets.UTF_8));
+        //未知字段之后的已知字段
+        writeField(bytes, 2 << 1, "M1");
+
+        TestLemonData decoded = this.converter.fromMessage(encode(bytes.toByteArray()));
+        Assert.assertEquals("R1", decoded.getRequestId());
+        Assert.assertEquals("M1", decoded.getMsgId());
+        Assert.assertEquals("remark", decoded.getRemark());
+    }
+
+    @Test
+    public void unknownEnumConstantKeepsDefault() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeVarint(bytes, 0);
+        writeBytes(bytes, "channel".getBytes(StandardCharsets.UTF_8));
+        writeBytes(bytes, "MINI_PROGRAM".getBytes(StandardCharsets.UTF_8));
+        writeField(bytes, 1 << 1, "R1");
+
+        TestLemonData decoded = this.converter.fromMessage(encode(bytes.toByteArray()));
+        Assert.assertEquals(Channel.APP, decoded.getChannel());
+        Assert.assertEquals("R1", decoded.getRequestId());
+    }
+
+    @Test(expected = LemonException.class)
+    public void truncatedValueIsRejected() {
+        TestLemonData lemonData = new TestLemonData();
+        lemonData.setToken(repeat('t', 200));
+        byte[] encoded = decode(this.converter.toMessage(lemonData));
+        byte[] truncated = new byte[encoded.length - 10];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        this.converter.fromMessage(encode(truncated));
+    }
+
+    @Test(expected = LemonException.class)
+    public void truncatedVarintIsRejected() {
+        this.converter.fromMessage(encode(new byte[] {(byte) 0x80}));
+    }
+
+    @Test(expected = LemonException.class)
+    public void invalidBase64IsRejected() {
+        this.converter.fromMessage(CompactLemonDataMessageConverter.MESSAGE_PREFIX + "*");
+    }
+
+    @Test
+    public void nonCompactMessagesUseFallback() {
+        Assert.assertEquals("fallback", this.converter.fromMessage("{\"requestId\":\"R1\"}").getRequestId());
+        Assert.assertEquals(FALLBACK_MESSAGE, new CompactLemonDataMessageConverter<>(TestLemonData::new, new FallbackConverter(), false)
+                .toMessage(new TestLemonData()));
+    }
+
+    private static void assertSame(TestLemonData expected, TestLemonData actual) {
+        Assert.assertEquals(expected.getRequestId(), actual.getRequestId());
+        Assert.assertEquals(expected.getMsgId(), actual.getMsgId());
+        Assert.assertEquals(expected.getStartDateTime(), actual.getStartDateTime());
+        Assert.assertEquals(expected.getLocale(), actual.getLocale());
+        Assert.assertEquals(expected.getClientIp(), actual.getClientIp());
+        Assert.assertEquals(expected.getToken(), actual.getToken());
+        Assert.assertEquals(expected.getVersionId(), actual.getVersionId());
+        Assert.assertEquals(expected.getChannel(), actual.getChannel());
+        Assert.assertEquals(expected.getCount(), actual.getCount());
+        Assert.assertEquals(expected.getSequence(), actual.getSequence());
+        Assert.assertEquals(expected.isRetry(), actual.isRetry());
+        Assert.assertEquals(expected.getRemark(), actual.getRemark());
+        Assert.assertEquals(expected.getAmount(), actual.getAmount());
+        Assert.assertEquals(expected.getAccountDate(), actual.getAccountDate());
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] decode(String message) {
+        return Base64.getUrlDecoder().decode(message.substring(CompactLemonDataMessageConverter.MESSAGE_PREFIX.length()));
+    }
+
+    private static String encode(byte[] bytes) {
+        return CompactLemonDataMessageConverter.MESSAGE_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeField(ByteArrayOutputStream bytes, int key, String value) {
+        writeVarint(bytes, key);
+        writeBytes(bytes, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(ByteArrayOutputStream bytes, byte[] value) {
+        writeVarint(bytes, value.length);
+        bytes.write(value, 0, value.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream bytes, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes.write(value);
+    }
+
+    public enum Channel {
+        WEB, APP
+    }
+
+    public static class TestLemonData extends BaseLemonData {
+        private Channel channel = Channel.APP;
+        private int count;
+        private Long sequence;
+        private boolean retry;
+        private String remark = "remark";
+        private BigDecimal amount;
+        private LocalDate accountDate;
+
+        public TestLemonData() {
+            setLocale(Locale.SIMPLIFIED_CHINESE);
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+        public void setChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Long getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(Long sequence) {
+            this.sequence = sequence;
+        }
+
+        public boolean isRetry() {
+            return retry;
+        }
+
+        public void setRetry(boolean retry) {
+            this.retry = retry;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public LocalDate getAccountDate() {
+            return accountDate;
+        }
+
+        public void setAccountDate(LocalDate accountDate) {
+            this.accountDate = accountDate;
+        }
+    }
+
+    private static class FallbackConverter implements LemonDataMessageConverter<TestLemonData> {
+
+        @Override
+        public TestLemonData fromMessage(String message) {
+            TestLemonData lemonData = new TestLemonData();
+            lemonData.setRequestId("fallback");
+            return lemonData;
+        }
+
+        @Override
+        public String toMessage(TestLemonData lemonData) {
+            return FALLBACK_MESSAGE;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link LatencyHistogram} 分桶与百分位计算
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see LatencyHistogram
+ * @since 1.0.0
+ */
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesHaveExactBuckets() {
+        for (int i = 0; i < LatencyHistogram.SUB_BUCKET_COUNT; i++) {
+            Assert.assertEquals(i, LatencyHistogram.bucketIndex(i));
+            Assert.assertEquals(i, LatencyHistogram.highestEquivalentValue(i));
+        }
+        Assert.assertEquals(0, LatencyHistogram.bucketIndex(-1L));
+    }
+
+    @Test
+    public void bucketsCoverValuesWithBoundedRelativeError() {
+        int previousIndex = -1;
+        for (long value = 0; value < (1L << 20); value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue("bucket index must not decrease at " + value, index >= previousIndex);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            Assert.assertTrue("bucket of " + value + " ends at " + highest, highest >= value);
+            Assert.assertTrue("bucket of " + value + " ends at " + highest,
+                    highest - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+            if (index > 0) {
+                Assert.assertTrue("previous bucket of " + value + " must end before it",
+                        LatencyHistogram.highestEquivalentValue(index - 1) < value);
+            }
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void valuesBeyondTrackableRangeGoToLastBucket() {
+        long highestTrackable = (1L << LatencyHistogram.HIGHEST_TRACKABLE_BITS) - 1;
+        Assert.assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(highestTrackable));
+        Assert.assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(highestTrackable + 1));
+        Assert.assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesOfUniformDistribution() {
+        LatencyHistogram histogram = histogramOf(1, 1000);
+        Assert.assertEquals(1000, histogram.getTotalCount());
+        Assert.assertEquals(1, histogram.getMin());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(500.5D, histogram.getMean(), 0.0001D);
+        assertWithinError(500, histogram.getValueAtPercentile(50D));
+        assertWithinError(900, histogram.getValueAtPercentile(90D));
+        assertWithinError(990, histogram.getValueAtPercentile(99D));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(99.9D));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100D));
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0D));
+    }
+
+    @Test
+    public void percentilesAreClampedToMinAndMax() {
+        LatencyHistogram histogram = histogramOf(100, 100);
+        Assert.assertEquals(100, histogram.getValueAtPercentile(0D));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(50D));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(100D));
+    }
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram(new long[LatencyHistogram.BUCKET_COUNT], 0, Long.MAX_VALUE, 0, 0);
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getMin());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0D, histogram.getMean(), 0D);
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99D));
+    }
+
+    @Test
+    public void collectorReportsHistogramAndRestarts() {
+        PerformanceMetricsCollector collector = new PerformanceMetricsCollector(new MetricName("test", "latency"), 100L, 500L);
+        for (long value = 1; value <= 1000; value++) {
+            collector.collect(value);
+        }
+        PerformanceMetrics performanceMetrics = collector.copyAndRestart();
+        Assert.assertEquals(1000, performanceMetrics.getCount());
+        Assert.assertEquals(1, performanceMetrics.getMin());
+        Assert.assertEquals(1000, performanceMetrics.getMax());
+        assertWithinError(500, performanceMetrics.getP50());
+        assertWithinError(990, performanceMetrics.getP99());
+        Assert.assertEquals(500, performanceMetrics.getMetrics().get(0).getMetrics());
+        Assert.assertEquals(501, performanceMetrics.getMetrics().get(0).getCount());
+        Assert.assertEquals(100, performanceMetrics.getMetrics().get(1).getMetrics());
+        Assert.assertEquals(400, performanceMetrics.getMetrics().get(1).getCount());
+
+        PerformanceMetrics next = collector.copyAndRestart();
+        Assert.assertEquals(0, next.getCount());
+        Assert.assertEquals(0, next.getMax());
+    }
+
+    private static LatencyHistogram histogramOf(long from, long to) {
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        long sum = 0;
+        for (long value = from; value <= to; value++) {
+            counts[LatencyHistogram.bucketIndex(value)]++;
+            sum += value;
+        }
+        return new LatencyHistogram(counts, to - from + 1, from, to, sum);
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        Assert.assertTrue("expected " + expected + " but was " + actual,
+                actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+}
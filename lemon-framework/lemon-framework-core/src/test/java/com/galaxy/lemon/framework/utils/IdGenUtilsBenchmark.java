@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.utils;
+
+import com.galaxy.lemon.common.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求流水号拼接的基准测试，对比 DateTimeFormatter + substring + leftPad 与 {@link IdGenUtils#composeId}
+ * 通过 {@link #main(String[])} 运行
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenUtilsBenchmark {
+    private static final String APPLICATION_NAME = "LEMON";
+
+    private long sequence;
+
+    @Benchmark
+    public String formatterRequestId() {
+        Long id = ++sequence;
+        return new StringBuilder(APPLICATION_NAME)
+                .append(LocalDateTime.now().format(IdGenUtils.REQUEST_ID_DATETIME_FORMATTER).substring(1))
+                .append(StringUtils.leftPad(id.toString(), IdGenUtils.DEFAULT_REQUEST_ID_LENGTH_SEQ, IdGenUtils.DEFAULT_SEQUENCE_PAD_CHAR))
+                .toString();
+    }
+
+    @Benchmark
+    public String composedRequestId() {
+        return IdGenUtils.composeId(APPLICATION_NAME, 3, 14, ++sequence, IdGenUtils.DEFAULT_REQUEST_ID_LENGTH_SEQ);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGenUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.cumulative;
+
+import com.galaxy.lemon.common.NamedThreadFactory;
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.framework.redis.serializer.LongRedisSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地聚合的Redis累计
+ * 累计值先按(redis key, 维度key)在本地分段累加，达到数量阈值或时间间隔后，
+ * 以每个redis key一次EVALSHA的方式在一次pipeline中批量写入；
+ * 查询前会先刷新本地累计，需要写入后立即可见的调用方使用 {@link #countImmediately}
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see RedisCumulative
+ * @since 1.0.0
+ */
+
+public class BufferedRedisCumulative extends RedisCumulative implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(BufferedRedisCumulative.class);
+
+    private static final int MAX_STRIPES = 16;
+    private static final StringRedisSerializer STRING_REDIS_SERIALIZER = new StringRedisSerializer();
+    private static final LongRedisSerializer LONG_REDIS_SERIALIZER = new LongRedisSerializer();
+    private static final byte[] DAY_MODE = STRING_REDIS_SERIALIZER.serialize(CumulativeMode.DAY.getMode());
+    private static final byte[] EMPTY_KEY = new byte[0];
+
+    private final ConcurrentHashMap<BufferKey, long[]>[] stripes;
+    private final int stripeMask;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushMonitor = new Object();
+    private final ScheduledExecutorService flushExecutor;
+    private volatile boolean scriptLoaded;
+
+    @SuppressWarnings("unchecked")
+    public BufferedRedisCumulative(RedisTemplate<String, String> redisTemplate, int maxSize, long flushIntervalMillis) {
+        super(redisTemplate);
+        this.maxSize = maxSize;
+        int stripeCount = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES));
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new ConcurrentHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("lemon-cumulative-flush", true));
+        this.flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void countByDay(String key, Dimension... dimensions) {
+        checkArguments(key, dimensions);
+        accumulate(getKey(HASH_KEY_PREFIX, key, CumulativeMode.DAY), dimensions);
+    }
+
+    @Override
+    public void countByMonth(String key, Dimension... dimensions) {
+        checkArguments(key, dimensions);
+        accumulate(getKey(HASH_KEY_PREFIX, key, CumulativeMode.MONTH), dimensions);
+    }
+
+    @Override
+    public void countByDayAndMonth(String key, Dimension... dimensions) {
+        checkArguments(key, dimensions);
+        accumulate(getKey(HASH_KEY_PREFIX, key, CumulativeMode.DAY), dimensions);
+        accumulate(getKey(HASH_KEY_PREFIX, key, CumulativeMode.MONTH), dimensions);
+    }
+
+    @Override
+    public String queryByDay(String key, String dimensionKey) {
+        flush();
+        return super.queryByDay(key, dimensionKey);
+    }
+
+    @Override
+    public String queryByMonth(String key, String dimensionKey) {
+        flush();
+        return super.queryByMonth(key, dimensionKey);
+    }
+
+    private void accumulate(String hashKey, Dimension... dimensions) {
+        for (Dimension dimension : dimensions) {
+            long delta;
+            try {
+                delta = Long.parseLong(dimension.getValue());
+            } catch (NumberFormatException e) {
+                throw LemonException.create(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(),
+                        "cumulative value must be an integer, key " + hashKey + ", dimension " + dimension.getKey() + ", value " + dimension.getValue());
+            }
+            accumulate(hashKey, dimension.getKey(), delta);
+        }
+        if (this.size.get() >= this.maxSize) {
+            requestFlush();
+        }
+    }
+
+    private void accumulate(String hashKey, String dimensionKey, long delta) {
+        this.stripes[stripeIndex()].compute(new BufferKey(hashKey, dimensionKey), (k, v) -> {
+            if (null == v) {
+                v = new long[1];
+                this.size.incrementAndGet();
+            }
+            v[0] += delta;
+            return v;
+        });
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & this.stripeMask;
+    }
+
+    private void requestFlush() {
+        if (this.flushRequested.compareAndSet(false, true)) {
+            try {
+                this.flushExecutor.execute(() -> {
+                    this.flushRequested.set(false);
+                    flushSafely();
+                });
+            } catch (RejectedExecutionException e) {
+                this.flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            if (logger.isErrorEnabled()) {
+                logger.error("Failed to flush buffered cumulative, it will be retried on next flush.", t);
+            }
+        }
+    }
+
+    /**
+     * 将本地累计写入redis，写入失败的redis key会放回本地累计，等待下次刷新
+     */
+    public void flush() {
+        synchronized (this.flushMonitor) {
+            Map<String, Map<String, Long>> pending = drain();
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<String, Map<String, Long>> failed = write(pending);
+            if (!failed.isEmpty()) {
+                failed.forEach((hashKey, deltas) -> deltas.forEach((dimensionKey, delta) -> accumulate(hashKey, dimensionKey, delta)));
+                LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), "redis buffered cumulative occured error, failed keys " + failed.keySet());
+            }
+        }
+    }
+
+    private Map<String, Map<String, Long>> drain() {
+        Map<String, Map<String, Long>> pending = new LinkedHashMap<>();
+        for (ConcurrentHashMap<BufferKey, long[]> stripe : this.stripes) {
+            for (BufferKey bufferKey : stripe.keySet()) {
+                long[] value = stripe.remove(bufferKey);
+                if (null == value) {
+                    continue;
+                }
+                this.size.decrementAndGet();
+                if (0 != value[0]) {
+                    pending.computeIfAbsent(bufferKey.hashKey, k -> new HashMap<>()).merge(bufferKey.dimensionKey, value[0], Long::sum);
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 写入redis，返回确定未写入的累计
+     * pipeline开始执行后不会整体重放，只有结果不为0的redis key被放回本地累计，NOSCRIPT的redis key逐个重试
+     * @param pending
+     * @return
+     */
+    private Map<String, Map<String, Long>> write(Map<String, Map<String, Long>> pending) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("flush buffered cumulative {}", pending);
+        }
+        try {
+            loadScriptIfNecessary();
+        } catch (RuntimeException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to load cumulative script, fall back to execute one by one. {}", e.getMessage());
+            }
+            return writeOneByOne(pending);
+        }
+        byte[] scriptSha = STRING_REDIS_SERIALIZER.serialize(getRedisScript().getSha1());
+        AtomicBoolean pipelineStarted = new AtomicBoolean();
+        List<Object> results;
+        try {
+            results = getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                pipelineStarted.set(true);
+                pending.forEach((hashKey, deltas) -> connection.evalSha(scriptSha, ReturnType.INTEGER, 2, toKeysAndArgs(hashKey, deltas)));
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            results = e.getResults();
+        } catch (RuntimeException e) {
+            if (!pipelineStarted.get()) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Pipelined cumulative flush failed before execution, fall back to execute one by one. {}", e.getMessage());
+                }
+                return writeOneByOne(pending);
+            }
+            //无法确定哪些命令已执行，重放会导致重复累计
+            if (logger.isErrorEnabled()) {
+                logger.error("Pipelined cumulative flush failed with unknown outcome, cumulative {} will not be retried.", pending, e);
+            }
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, Long>> failed = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> noScript = new LinkedHashMap<>();
+        int i = 0;
+        for (Map.Entry<String, Map<String, Long>> entry : pending.entrySet()) {
+            Object result = null == results || i >= results.size() ? null : results.get(i);
+            i++;
+            if (result instanceof Long && 0 == (Long) result) {
+                continue;
+            }
+            if (isNoScriptError(result)) {
+                noScript.put(entry.getKey(), entry.getValue());
+            } else {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Pipelined cumulative of key {} failed, result {}", entry.getKey(), result);
+                }
+                failed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!noScript.isEmpty()) {
+            this.scriptLoaded = false;
+            failed.putAll(writeOneByOne(noScript));
+        }
+        return failed;
+    }
+
+    private void loadScriptIfNecessary() {
+        if (this.scriptLoaded) {
+            return;
+        }
+        byte[] scriptBytes = STRING_REDIS_SERIALIZER.serialize(getRedisScript().getScriptAsString());
+        getRedisTemplate().execute((RedisCallback<String>) connection -> connection.scriptLoad(scriptBytes));
+        this.scriptLoaded = true;
+    }
+
+    private boolean isNoScriptError(Object result) {
+        Throwable t = result instanceof Throwable ? (Throwable) result : null;
+        while (null != t) {
+            if (null != t.getMessage() && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+            t = t.getCause() == t ? null : t.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 逐个redis key写入，返回写入失败的累计
+     * @param pending
+     * @return
+     */
+    private Map<String, Map<String, Long>> writeOneByOne(Map<String, Map<String, Long>> pending) {
+        Map<String, Map<String, Long>> failed = new LinkedHashMap<>();
+        pending.forEach((hashKey, deltas) -> {
+            Object[] args = new Object[deltas.size() * 2 + 1];
+            args[0] = CumulativeMode.DAY.getMode();
+            int i = 1;
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                args[i++] = delta.getKey();
+                args[i++] = String.valueOf(delta.getValue());
+            }
+            try {
+                Long rst = getRedisTemplate().execute(getRedisScript(), STRING_REDIS_SERIALIZER, LONG_REDIS_SERIALIZER, Arrays.asList(hashKey, ""), args);
+                if (null == rst || rst != 0) {
+                    if (logger.isWarnEnabled()) {
+                        logger.warn("redis buffered cumulative occured error, key {}, args {}", hashKey, Arrays.toString(args));
+                    }
+                    failed.put(hashKey, deltas);
+                }
+            } catch (RuntimeException e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("redis buffered cumulative occured error, key {}, args {}, {}", hashKey, Arrays.toString(args), e.getMessage());
+                }
+                failed.put(hashKey, deltas);
+            }
+        });
+        return failed;
+    }
+
+    /**
+     * 以DAY模式调用累计脚本，KEYS[1]为待累加的hash key
+     */
+    private byte[][] toKeysAndArgs(String hashKey, Map<String, Long> deltas) {
+        byte[][] keysAndArgs = new byte[deltas.size() * 2 + 3][];
+        keysAndArgs[0] = STRING_REDIS_SERIALIZER.serialize(hashKey);
+        keysAndArgs[1] = EMPTY_KEY;
+        keysAndArgs[2] = DAY_MODE;
+        int i = 3;
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            keysAndArgs[i++] = STRING_REDIS_SERIALIZER.serialize(delta.getKey());
+            keysAndArgs[i++] = STRING_REDIS_SERIALIZER.serialize(String.valueOf(delta.getValue()));
+        }
+        return keysAndArgs;
+    }
+
+    @Override
+    public void destroy() {
+        this.flushExecutor.shutdown();
+        flushSafely();
+    }
+
+    private static class BufferKey {
+        private final String hashKey;
+        private final String dimensionKey;
+        private final int hash;
+
+        BufferKey(String hashKey, String dimensionKey) {
+            this.hashKey = hashKey;
+            this.dimensionKey = dimensionKey;
+            this.hash = 31 * hashKey.hashCode() + (null == dimensionKey ? 0 : dimensionKey.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BufferKey)) {
+                return false;
+            }
+            BufferKey that = (BufferKey) o;
+            return this.hashKey.equals(that.hashKey)
+                    && (null == this.dimensionKey ? null == that.dimensionKey : this.dimensionKey.equals(that.dimensionKey));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
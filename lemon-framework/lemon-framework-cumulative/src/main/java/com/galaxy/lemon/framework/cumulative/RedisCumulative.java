@@ -18,7 +18,7 @@
 package com.galaxy.lemon.framework.cumulative;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.galaxy.lemon.common.utils.DateTimeUtils;
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
@@ -50,7 +51,11 @@ public class RedisCumulative implements Cumulative {
     public static final String HASH_KEY_PREFIX = "CUMULATIVE.";
     public static final String REDIS_CUMULATIVE_LUA_FILE_PATH = "lua" + ResourceUtils.JAR_PACKAGE_PATH_SEPARATOR + "cumulative.lua";;
 
+    private static final StringRedisSerializer STRING_REDIS_SERIALIZER = new StringRedisSerializer();
+    private static final LongRedisSerializer LONG_REDIS_SERIALIZER = new LongRedisSerializer();
+
     private String script;
+    private RedisScript<Long> redisScript;
     private RedisTemplate<String ,String> redisTemplate;
 
     @Value("${lemon.cumulative.redis.mode:SINGLE}")
@@ -70,84 +75,55 @@ public class RedisCumulative implements Cumulative {
         } catch (IOException e) {
             LemonException.throwLemonException(e);
         }
+        this.redisScript = new DefaultRedisScript<>(this.script, Long.class);
     }
     
     @Override
     public void countByDay(String key, Dimension... dimensions) {
-        if(JudgeUtils.isBlank(key) || null == dimensions || dimensions.length <= 0) {
-            LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), "param key or dimensions is null.");
-        }
-        List<String> keys = new ArrayList<>();
-        keys.add(getKey(HASH_KEY_PREFIX, key, CumulativeMode.DAY));
-        keys.add("");
-        List<String> args = new ArrayList<>();
-        args.add(CumulativeMode.DAY.getMode());
-        for(Dimension d : dimensions) {
-            args.add(d.getKey());
-            args.add(d.getValue());
-        }
-        Object[] argsArray = args.toArray(new String[]{});
-        if(logger.isDebugEnabled()) {
-            logger.debug("redis day cumulative with keys {} ~~~ args {}", keys, argsArray);
-        }
-        Long rst = this.redisTemplate.execute(new DefaultRedisScript<Long>(this.script, Long.class),
-            new StringRedisSerializer(), new LongRedisSerializer(), keys, argsArray);
-        if(rst != 0) {
-            LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), 
-                "redis day cumulative occured error, keys "+keys + ", args "+ argsArray);
-        }
+        countImmediately(key, CumulativeMode.DAY, dimensions);
     }
 
     @Override
     public void countByMonth(String key, Dimension... dimensions) {
-        if(JudgeUtils.isBlank(key) || null == dimensions || dimensions.length <= 0) {
-            LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), "param key or dimensions is null.");
-        }
-        List<String> keys = new ArrayList<>();
-        keys.add("");
-        keys.add(getKey(HASH_KEY_PREFIX, key, CumulativeMode.MONTH));
-        List<String> args = new ArrayList<>();
-        args.add(CumulativeMode.MONTH.getMode());
-        for(Dimension d : dimensions) {
-            args.add(d.getKey());
-            args.add(d.getValue());
+        countImmediately(key, CumulativeMode.MONTH, dimensions);
+    }
+
+    @Override
+    public void countByDayAndMonth(String key, Dimension... dimensions) {
+        countImmediately(key, CumulativeMode.DAY_AND_MONTH, dimensions);
+    }
+
+    /**
+     * 同步累计，返回时累计值已写入redis
+     * @param key
+     * @param mode
+     * @param dimensions
+     */
+    public void countImmediately(String key, CumulativeMode mode, Dimension... dimensions) {
+        checkArguments(key, dimensions);
+        List<String> keys = Arrays.asList(
+                CumulativeMode.MONTH == mode ? "" : getKey(HASH_KEY_PREFIX, key, CumulativeMode.DAY),
+                CumulativeMode.DAY == mode ? "" : getKey(HASH_KEY_PREFIX, key, CumulativeMode.MONTH));
+        Object[] argsArray = new Object[dimensions.length * 2 + 1];
+        argsArray[0] = mode.getMode();
+        for (int i = 0; i < dimensions.length; i++) {
+            argsArray[2 * i + 1] = dimensions[i].getKey();
+            argsArray[2 * i + 2] = dimensions[i].getValue();
         }
-        Object[] argsArray = args.toArray(new String[]{});
         if(logger.isDebugEnabled()) {
-            logger.debug("redis month cumulative with keys {} ~~~ args {}", keys, argsArray);
+            logger.debug("redis {} cumulative with keys {} ~~~ args {}", mode, keys, argsArray);
         }
-        Long rst = this.redisTemplate.execute(new DefaultRedisScript<Long>(this.script, Long.class),
-            new StringRedisSerializer(), new LongRedisSerializer(), keys, argsArray);
-        if(rst != 0) {
+        Long rst = this.redisTemplate.execute(this.redisScript, STRING_REDIS_SERIALIZER, LONG_REDIS_SERIALIZER, keys, argsArray);
+        if(null == rst || rst != 0) {
             LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), 
-                "redis month cumulative occured error, keys "+keys + ", args "+ argsArray);
+                "redis " + mode + " cumulative occured error, keys "+keys + ", args "+ Arrays.toString(argsArray));
         }
     }
 
-    @Override
-    public void countByDayAndMonth(String key, Dimension... dimensions) {
+    protected void checkArguments(String key, Dimension... dimensions) {
         if(JudgeUtils.isBlank(key) || null == dimensions || dimensions.length <= 0) {
             LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), "param key or dimensions is null.");
         }
-        List<String> keys = new ArrayList<>();
-        keys.add(getKey(HASH_KEY_PREFIX, key, CumulativeMode.DAY));
-        keys.add(getKey(HASH_KEY_PREFIX, key, CumulativeMode.MONTH));
-        List<String> args = new ArrayList<>();
-        args.add(CumulativeMode.DAY_AND_MONTH.getMode());
-        for(Dimension d : dimensions) {
-            args.add(d.getKey());
-            args.add(d.getValue());
-        }
-        Object[] argsArray = args.toArray(new String[]{});
-        if(logger.isDebugEnabled()) {
-            logger.debug("redis day and month cumulative with keys {} ~~~ args {}", keys, argsArray);
-        }
-        Long rst = this.redisTemplate.execute(new DefaultRedisScript<Long>(this.script, Long.class),
-            new StringRedisSerializer(), new LongRedisSerializer(), keys, argsArray);
-        if(rst != 0) {
-            LemonException.throwLemonException(ErrorMsgCode.CUMULATIVE_ERROR.getMsgCd(), 
-                "redis day and month cumulative occured error, keys "+keys + ", args "+ argsArray);
-        }
     }
 
     @Override
@@ -162,6 +138,14 @@ public class RedisCumulative implements Cumulative {
         return String.valueOf(obj);
     }
 
+    protected RedisTemplate<String, String> getRedisTemplate() {
+        return this.redisTemplate;
+    }
+
+    protected RedisScript<Long> getRedisScript() {
+        return this.redisScript;
+    }
+
     public String getKey(String prefix, String key, CumulativeMode mode, Mode redisMode) {
         switch (redisMode) {
             case CLUSTER:
@@ -26,7 +26,7 @@ for k,v in ipairs(ARGV) do
 		end
 		-- month
 		if tonumber(mode) == 1 or tonumber(mode) == 2 then
-			redis.call('HINCRBY',monthKey,ARGV[k],ARGV[k+2])
+			redis.call('HINCRBY',monthKey,ARGV[k],ARGV[k+1])
 			--redis.logging(redis.LOG_WARNING,"mode is"..ARGV[1]..", key is "..KEYS[2]..", hash key is "..KEYS[k]..", hash value is "..ARGV[k])
 		end
 	end
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.cumulative;
+
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.framework.cumulative.Cumulative.Dimension;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link BufferedRedisCumulative} 刷新失败时的重试行为
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see BufferedRedisCumulative
+ * @since 1.0.0
+ */
+
+public class BufferedRedisCumulativeTest {
+
+    private FakeRedisTemplate redisTemplate;
+    private BufferedRedisCumulative cumulative;
+    private String keyA;
+    private String keyB;
+
+    @Before
+    public void setUp() {
+        this.redisTemplate = new FakeRedisTemplate();
+        this.cumulative = new BufferedRedisCumulative(this.redisTemplate, 1000, 3600_000L);
+        this.keyA = this.cumulative.getKey(RedisCumulative.HASH_KEY_PREFIX, "A", Cumulative.CumulativeMode.DAY);
+        this.keyB = this.cumulative.getKey(RedisCumulative.HASH_KEY_PREFIX, "B", Cumulative.CumulativeMode.DAY);
+        this.cumulative.countByDay("A", new Dimension("d1", "5"));
+        this.cumulative.countByDay("B", new Dimension("d1", "7"));
+    }
+
+    @After
+    public void tearDown() {
+        this.redisTemplate.pipeline = keys -> successResults(keys);
+        this.cumulative.destroy();
+    }
+
+    @Test
+    public void partialPipelineFailureRequeuesOnlyFailedKeys() {
+        this.redisTemplate.pipeline = keys -> {
+            List<Object> results = new ArrayList<>();
+            for (String key : keys) {
+                results.add(key.equals(this.keyB) ? new RedisSystemException("ERR value is not an integer", null) : 0L);
+            }
+            throw new RedisPipelineException(new RuntimeException("pipeline error"), results);
+        };
+        try {
+            this.cumulative.flush();
+            Assert.fail("flush should fail when any key failed");
+        } catch (LemonException e) {
+            //expected
+        }
+        Assert.assertEquals(Long.valueOf(5), this.redisTemplate.applied(this.keyA));
+        Assert.assertNull(this.redisTemplate.applied(this.keyB));
+
+        this.redisTemplate.pipeline = keys -> successResults(keys);
+        this.cumulative.flush();
+        Assert.assertEquals(Long.valueOf(5), this.redisTemplate.applied(this.keyA));
+        Assert.assertEquals(Long.valueOf(7), this.redisTemplate.applied(this.keyB));
+        Assert.assertTrue(this.redisTemplate.oneByOneKeys.isEmpty());
+    }
+
+    @Test
+    public void noScriptKeysAreRetriedOneByOne() {
+        this.redisTemplate.pipeline = keys -> {
+            List<Object> results = new ArrayList<>();
+            for (String key : keys) {
+                results.add(key.equals(this.keyB) ? new RedisSystemException("NOSCRIPT No matching script", null) : 0L);
+            }
+            throw new RedisPipelineException(new RuntimeException("pipeline error"), results);
+        };
+        this.cumulative.flush();
+        Assert.assertEquals(Long.valueOf(5), this.redisTemplate.applied(this.keyA));
+        Assert.assertEquals(Long.valueOf(7), this.redisTemplate.applied(this.keyB));
+        Assert.assertEquals(1, this.redisTemplate.oneByOneKeys.size());
+        Assert.assertEquals(this.keyB, this.redisTemplate.oneByOneKeys.get(0));
+    }
+
+    @Test
+    public void failureBeforePipelineFallsBackToOneByOne() {
+        this.redisTemplate.connectionAvailable = false;
+        this.cumulative.flush();
+        Assert.assertEquals(Long.valueOf(5), this.redisTemplate.applied(this.keyA));
+        Assert.assertEquals(Long.valueOf(7), this.redisTemplate.applied(this.keyB));
+        Assert.assertEquals(2, this.redisTemplate.oneByOneKeys.size());
+    }
+
+    @Test
+    public void failureWithUnknownOutcomeIsNotReplayed() {
+        this.redisTemplate.pipeline = keys -> {
+            this.redisTemplate.applyAll();
+            throw new RedisConnectionFailureException("connection reset");
+        };
+        this.cumulative.flush();
+        this.redisTemplate.pipeline = keys -> successResults(keys);
+        this.cumulative.flush();
+        Assert.assertEquals(Long.valueOf(5), this.redisTemplate.applied(this.keyA));
+        Assert.assertEquals(Long.valueOf(7), this.redisTemplate.applied(this.keyB));
+        Assert.assertTrue(this.redisTemplate.oneByOneKeys.isEmpty());
+    }
+
+    private static List<Object> successResults(List<String> keys) {
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            results.add(0L);
+        }
+        return results;
+    }
+
+    /**
+     * 记录已执行的累计，pipeline中结果为0的命令视为已执行
+     */
+    private static class FakeRedisTemplate extends RedisTemplate<String, String> {
+        private final Map<String, Long> applied = new HashMap<>();
+        private final List<String> oneByOneKeys = new ArrayList<>();
+        private final Map<String, Long> pipelined = new HashMap<>();
+        private Function<List<String>, List<Object>> pipeline = BufferedRedisCumulativeTest::successResults;
+        private boolean connectionAvailable = true;
+
+        Long applied(String hashKey) {
+            return this.applied.get(hashKey);
+        }
+
+        void applyAll() {
+            this.pipelined.forEach((k, v) -> this.applied.merge(k, v, Long::sum));
+        }
+
+        @Override
+        public <T> T execute(RedisCallback<T> action) {
+            return null;
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            if (!this.connectionAvailable) {
+                throw new RedisConnectionFailureException("Cannot get connection");
+            }
+            List<String> keys = new ArrayList<>();
+            this.pipelined.clear();
+            RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> {
+                if ("evalSha".equals(method.getName())) {
+                    byte[][] keysAndArgs = (byte[][]) args[3];
+                    String hashKey = new String(keysAndArgs[0], StandardCharsets.UTF_8);
+                    long sum = 0;
+                    for (int i = 4; i < keysAndArgs.length; i += 2) {
+                        sum += Long.parseLong(new String(keysAndArgs[i], StandardCharsets.UTF_8));
+                    }
+                    keys.add(hashKey);
+                    this.pipelined.put(hashKey, sum);
+                }
+                return null;
+            });
+            action.doInRedis(connection);
+            List<Object> results;
+            try {
+                results = this.pipeline.apply(keys);
+            } catch (RedisPipelineException e) {
+                applySucceeded(keys, e.getResults());
+                throw e;
+            }
+            applySucceeded(keys, results);
+            return results;
+        }
+
+        private void applySucceeded(List<String> keys, List<Object> results) {
+            for (int i = 0; i < keys.size(); i++) {
+                if (Long.valueOf(0).equals(results.get(i))) {
+                    this.applied.merge(keys.get(i), this.pipelined.get(keys.get(i)), Long::sum);
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, RedisSerializer<?> argsSerializer, RedisSerializer<T> resultSerializer, List<String> keys, Object... args) {
+            String hashKey = keys.get(0);
+            long sum = 0;
+            for (int i = 2; i < args.length; i += 2) {
+                sum += Long.parseLong((String) args[i]);
+            }
+            this.oneByOneKeys.add(hashKey);
+            this.applied.merge(hashKey, sum, Long::sum);
+            return (T) Long.valueOf(0);
+        }
+    }
+}
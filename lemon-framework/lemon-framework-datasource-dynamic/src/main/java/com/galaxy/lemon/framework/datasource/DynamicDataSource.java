@@ -17,12 +17,39 @@
 
 package com.galaxy.lemon.framework.datasource;
 
+import com.galaxy.lemon.common.context.ContextKey;
+import com.galaxy.lemon.common.context.LemonContext;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.common.utils.JudgeUtils;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.ConnectionProxy;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 动态数据源
+ * 配置了只读副本时，只读事务或只读方法的连接路由到对应主数据源的副本，按权重与在途连接数选择副本，获取连接失败的副本暂时剔除；
+ * 主数据源的连接会被包装，同一请求内在其上执行过写语句或提交过非只读事务后，后续读取固定使用主数据源，
+ * 自动提交的写入、编程式事务均适用；该标记存放在 {@link LemonContext}，随请求或消费结束清除
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
  * @see
  * @since 1.0.0
@@ -32,12 +59,183 @@ public class DynamicDataSource extends AbstractRoutingDataSource {
     private static final Logger logger = LoggerFactory.getLogger(DynamicDataSource.class);
     
     private static final ThreadLocal<String> datasourceHolder = new ThreadLocal<>();
-    
+
+    private static final ThreadLocal<Boolean> readOnlyHolder = new ThreadLocal<>();
+
+    private static final String[] READ_STATEMENT_PREFIXES = {"SELECT", "SHOW", "EXPLAIN", "DESC"};
+
+    /**
+     * 在主数据源写入过的请求流水号
+     */
+    private static final ContextKey<String> PRIMARY_STICKY_REQUEST_ID = ContextKey.of("LC_DATASOURCE_PRIMARY_STICKY_REQUEST_ID");
+
+    private Map<Object, Object> targetDataSources;
+    private String defaultDataSourceName;
+    private Map<String, String> replicaDataSources;
+    private long replicaEjectionMillis = 30000L;
+    private Map<String, ReplicaDataSource[]> resolvedReplicaDataSources = Collections.emptyMap();
+
     @Override
     protected Object determineCurrentLookupKey() {
         return getDatasource();
     }
-    
+
+    @Override
+    public void setTargetDataSources(Map<Object, Object> targetDataSources) {
+        super.setTargetDataSources(targetDataSources);
+        this.targetDataSources = targetDataSources;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        resolveReplicaDataSources();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.resolvedReplicaDataSources.isEmpty()) {
+            return super.getConnection();
+        }
+        String currentRequestId = getCurrentRequestId();
+        ReplicaDataSource[] replicas = determineReplicaDataSources(currentRequestId);
+        return null == replicas ? wrapPrimaryConnection(super.getConnection(), currentRequestId) : getReplicaConnection(replicas, null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (this.resolvedReplicaDataSources.isEmpty()) {
+            return super.getConnection(username, password);
+        }
+        String currentRequestId = getCurrentRequestId();
+        ReplicaDataSource[] replicas = determineReplicaDataSources(currentRequestId);
+        return null == replicas ? wrapPrimaryConnection(super.getConnection(username, password), currentRequestId) : getReplicaConnection(replicas, username, password);
+    }
+
+    /**
+     * 当前连接可使用的副本，返回null时使用主数据源
+     * @param currentRequestId
+     * @return
+     */
+    private ReplicaDataSource[] determineReplicaDataSources(String currentRequestId) {
+        if (!isReadOnly() || isPrimarySticky(currentRequestId)) {
+            return null;
+        }
+        String dataSourceName = datasourceHolder.get();
+        return this.resolvedReplicaDataSources.get(null == dataSourceName ? this.defaultDataSourceName : dataSourceName);
+    }
+
+    /**
+     * 请求内非只读的主数据源连接，写入或提交时标记该请求固定使用主数据源
+     * @param connection
+     * @param currentRequestId
+     * @return
+     */
+    private Connection wrapPrimaryConnection(Connection connection, String currentRequestId) {
+        if (JudgeUtils.isBlank(currentRequestId) || isReadOnly() || isPrimarySticky(currentRequestId)) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {ConnectionProxy.class},
+                new PrimaryConnectionInvocationHandler(connection, currentRequestId));
+    }
+
+    private Connection getReplicaConnection(ReplicaDataSource[] replicas, String username, String password) throws SQLException {
+        long currentTime = System.currentTimeMillis();
+        ReplicaDataSource replica = selectReplica(replicas, currentTime);
+        while (null != replica) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                replica.eject(currentTime + this.replicaEjectionMillis);
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Ejected replica dataSource {} for {} ms after failing to get connection.", replica.getName(), this.replicaEjectionMillis, e);
+                }
+            }
+            replica = selectReplica(replicas, currentTime);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("No replica dataSource available, using the primary dataSource.");
+        }
+        return null == username ? super.getConnection() : super.getConnection(username, password);
+    }
+
+    /**
+     * 选择 在途连接数/权重 最小的副本
+     */
+    private ReplicaDataSource selectReplica(ReplicaDataSource[] replicas, long currentTime) {
+        ReplicaDataSource selected = null;
+        int start = replicas.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            ReplicaDataSource replica = replicas[(start + i) % replicas.length];
+            if (replica.isEjected(currentTime)) {
+                continue;
+            }
+            if (null == selected || (long) replica.getInFlight() * selected.getWeight() < (long) selected.getInFlight() * replica.getWeight()) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    private void resolveReplicaDataSources() {
+        if (JudgeUtils.isEmpty(this.replicaDataSources)) {
+            return;
+        }
+        Map<String, ReplicaDataSource[]> resolved = new HashMap<>();
+        this.replicaDataSources.forEach((primary, replicaNames) -> {
+            String[] replicaDefinitions = replicaNames.split(",");
+            ReplicaDataSource[] replicas = new ReplicaDataSource[replicaDefinitions.length];
+            for (int i = 0; i < replicaDefinitions.length; i++) {
+                String[] nameAndWeight = replicaDefinitions[i].trim().split(":");
+                String replicaName = nameAndWeight[0].trim();
+                int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+                Object replicaDataSource = null == this.targetDataSources ? null : this.targetDataSources.get(replicaName);
+                if (null == replicaDataSource || weight <= 0) {
+                    throw LemonException.create(LemonException.SYS_ERROR_MSGCD, "Invalid replica dataSource \"" + replicaDefinitions[i] + "\" of dataSource " + primary);
+                }
+                replicas[i] = new ReplicaDataSource(replicaName, resolveSpecifiedDataSource(replicaDataSource), weight);
+            }
+            resolved.put(primary, replicas);
+            if (logger.isInfoEnabled()) {
+                logger.info("Read-only connections of dataSource {} are routed to replicas [{}]", primary, replicaNames);
+            }
+        });
+        this.resolvedReplicaDataSources = resolved;
+    }
+
+    private static boolean isPrimarySticky(String currentRequestId) {
+        return JudgeUtils.isNotBlank(currentRequestId) && currentRequestId.equals(LemonContext.getCurrentContext().get(PRIMARY_STICKY_REQUEST_ID));
+    }
+
+    private static void markPrimarySticky(String requestId) {
+        LemonContext.getCurrentContext().put(PRIMARY_STICKY_REQUEST_ID, requestId);
+    }
+
+    /**
+     * 是否读语句，无法识别的按写语句处理
+     * @param sql
+     * @return
+     */
+    static boolean isReadStatement(String sql) {
+        if (null == sql) {
+            return false;
+        }
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        for (String prefix : READ_STATEMENT_PREFIXES) {
+            if (sql.regionMatches(true, start, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getCurrentRequestId() {
+        return Optional.ofNullable(LemonDataHolder.getLemonData()).map(BaseLemonData::getRequestId).orElse(null);
+    }
+
     public static String getDatasource() {
         if(logger.isDebugEnabled()) {
             logger.debug("Acquired dataSource {}", null == datasourceHolder.get() ? "\"default datasource\"" : datasourceHolder.get());
@@ -53,4 +251,254 @@ public class DynamicDataSource extends AbstractRoutingDataSource {
         datasourceHolder.remove();
     }
 
+    /**
+     * 当前是否只读，只读方法或只读事务
+     * @return
+     */
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(readOnlyHolder.get()) || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public static void setReadOnly(boolean readOnly) {
+        readOnlyHolder.set(readOnly);
+    }
+
+    public static void clearReadOnly() {
+        readOnlyHolder.remove();
+    }
+
+    static Boolean getReadOnlyHolder() {
+        return readOnlyHolder.get();
+    }
+
+    static void restoreReadOnlyHolder(Boolean readOnly) {
+        if (null == readOnly) {
+            readOnlyHolder.remove();
+        } else {
+            readOnlyHolder.set(readOnly);
+        }
+    }
+
+    public void setDefaultDataSourceName(String defaultDataSourceName) {
+        this.defaultDataSourceName = defaultDataSourceName;
+    }
+
+    /**
+     * 主数据源名称 ==> 副本列表，格式 "replica1:2,replica2"，冒号后为权重，默认1
+     * @param replicaDataSources
+     */
+    public void setReplicaDataSources(Map<String, String> replicaDataSources) {
+        this.replicaDataSources = replicaDataSources;
+    }
+
+    public void setReplicaEjectionMillis(long replicaEjectionMillis) {
+        this.replicaEjectionMillis = replicaEjectionMillis;
+    }
+
+    private static class ReplicaDataSource {
+        private final String name;
+        private final DataSource dataSource;
+        private final int weight;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long ejectedUntil;
+
+        ReplicaDataSource(String name, DataSource dataSource, int weight) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.weight = weight;
+        }
+
+        Connection getConnection(String username, String password) throws SQLException {
+            Connection connection = null == username ? this.dataSource.getConnection() : this.dataSource.getConnection(username, password);
+            this.inFlight.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {ConnectionProxy.class},
+                    new InFlightConnectionInvocationHandler(connection, this.inFlight));
+        }
+
+        void eject(long ejectedUntil) {
+            this.ejectedUntil = ejectedUntil;
+        }
+
+        boolean isEjected(long currentTime) {
+            return currentTime < this.ejectedUntil;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getWeight() {
+            return weight;
+        }
+
+        int getInFlight() {
+            return inFlight.get();
+        }
+    }
+
+    /**
+     * 连接关闭时扣减副本的在途连接数
+     */
+    private static class InFlightConnectionInvocationHandler implements InvocationHandler {
+        private final Connection target;
+        private final AtomicInteger inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        InFlightConnectionInvocationHandler(Connection target, AtomicInteger inFlight) {
+            this.target = target;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return this.target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "close":
+                    if (this.released.compareAndSet(false, true)) {
+                        this.inFlight.decrementAndGet();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    /**
+     * 主数据源连接，执行写语句或提交非只读事务时标记请求固定使用主数据源
+     */
+    private static class PrimaryConnectionInvocationHandler implements InvocationHandler {
+        private final Connection target;
+        private final String requestId;
+        private boolean readOnly;
+        private boolean marked;
+
+        PrimaryConnectionInvocationHandler(Connection target, String requestId) {
+            this.target = target;
+            this.requestId = requestId;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return this.target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "setReadOnly":
+                    this.readOnly = (Boolean) args[0];
+                    break;
+                case "commit":
+                    if (!this.readOnly) {
+                        mark();
+                    }
+                    break;
+                case "prepareStatement":
+                    if (!isReadStatement((String) args[0])) {
+                        mark();
+                    }
+                    break;
+                case "prepareCall":
+                    mark();
+                    break;
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (!this.marked && "createStatement".equals(method.getName())) {
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {Statement.class},
+                        new PrimaryStatementInvocationHandler((Statement) result, (Connection) proxy, this));
+            }
+            return result;
+        }
+
+        void mark() {
+            if (!this.marked) {
+                this.marked = true;
+                markPrimarySticky(this.requestId);
+            }
+        }
+    }
+
+    /**
+     * 主数据源连接创建的语句，执行写语句时标记
+     */
+    private static class PrimaryStatementInvocationHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection connection;
+        private final PrimaryConnectionInvocationHandler connectionHandler;
+
+        PrimaryStatementInvocationHandler(Statement target, Connection connection, PrimaryConnectionInvocationHandler connectionHandler) {
+            this.target = target;
+            this.connection = connection;
+            this.connectionHandler = connectionHandler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return this.connection;
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    this.connectionHandler.mark();
+                    break;
+                case "execute":
+                case "addBatch":
+                    if (!isReadStatement((String) args[0])) {
+                        this.connectionHandler.mark();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
 }
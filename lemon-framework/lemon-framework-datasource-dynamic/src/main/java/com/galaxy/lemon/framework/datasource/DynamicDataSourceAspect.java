@@ -19,8 +19,10 @@ package com.galaxy.lemon.framework.datasource;
 
 import com.galaxy.lemon.framework.datasource.DynamicDataSource;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.slf4j.Logger;
@@ -28,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringValueResolver;
 
 /**
@@ -47,6 +50,9 @@ public class DynamicDataSourceAspect implements EmbeddedValueResolverAware, Orde
     @Before("@annotation(targetDataSource)")
     public void changeDataSource(JoinPoint joinPoint, TargetDataSource targetDataSource) {
         DynamicDataSource.setDatasource(stringValueResolver.resolveStringValue(targetDataSource.value()));
+        if (targetDataSource.readOnly()) {
+            DynamicDataSource.setReadOnly(true);
+        }
         if(logger.isDebugEnabled()) {
             logger.debug("dataSource change to {} at method {}." , targetDataSource.value(), resolveMethodName(joinPoint));
         }
@@ -55,6 +61,9 @@ public class DynamicDataSourceAspect implements EmbeddedValueResolverAware, Orde
     @After("@annotation(targetDataSource)")
     public void releaseDataSource(JoinPoint joinPoint, TargetDataSource targetDataSource) {
         DynamicDataSource.clearDatasource();
+        if (targetDataSource.readOnly()) {
+            DynamicDataSource.clearReadOnly();
+        }
         if(logger.isDebugEnabled()) {
             logger.debug("release dataSource {} at method {}.", targetDataSource.value(), resolveMethodName(joinPoint));
         }
@@ -63,11 +72,48 @@ public class DynamicDataSourceAspect implements EmbeddedValueResolverAware, Orde
     @AfterThrowing("@annotation(targetDataSource)")
     public void releaseDataSourceAfterThrowing(JoinPoint joinPoint, TargetDataSource targetDataSource) {
         DynamicDataSource.clearDatasource();
+        if (targetDataSource.readOnly()) {
+            DynamicDataSource.clearReadOnly();
+        }
         if(logger.isDebugEnabled()) {
             logger.debug("release data source {} at method {} after throwing exception.", targetDataSource.value(), resolveMethodName(joinPoint));
         }
     }
 
+    /**
+     * 在事务开启前标记只读，事务连接获取时据此路由到副本
+     * @param joinPoint
+     * @param transactional
+     * @return
+     * @throws Throwable
+     */
+    @Around("@annotation(transactional)")
+    public Object markReadOnlyTransaction(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        return proceedWithReadOnly(joinPoint, transactional);
+    }
+
+    /**
+     * 类上标注的 @Transactional，方法上的注解优先
+     * @param joinPoint
+     * @param transactional
+     * @return
+     * @throws Throwable
+     */
+    @Around("@within(transactional) && !@annotation(org.springframework.transaction.annotation.Transactional)")
+    public Object markReadOnlyTransactionOfType(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        return proceedWithReadOnly(joinPoint, transactional);
+    }
+
+    private Object proceedWithReadOnly(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        Boolean readOnly = DynamicDataSource.getReadOnlyHolder();
+        DynamicDataSource.setReadOnly(transactional.readOnly());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DynamicDataSource.restoreReadOnlyHolder(readOnly);
+        }
+    }
+
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE + 1;
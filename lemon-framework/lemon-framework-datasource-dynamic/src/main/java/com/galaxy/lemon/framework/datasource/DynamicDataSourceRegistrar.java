@@ -62,6 +62,8 @@ public class DynamicDataSourceRegistrar implements ImportBeanDefinitionRegistrar
     private Environment environment;
     //默认数据源名称
     private String defaultDataSourceName = "primary";
+    // 主数据源 ==> 只读副本
+    private Map<String, String> replicaDataSources = new HashMap<>();
     // 默认数据源
     private DataSource defaultDataSource;
     // 动态数据源
@@ -89,6 +91,7 @@ public class DynamicDataSourceRegistrar implements ImportBeanDefinitionRegistrar
         try {
             findDefaultDataSource(importingClassMetadata);
             registerDataSources();
+            resolveReplicaDataSources();
             registerDynamicDataSource(registry);
         } catch (DisableDynamicDataSourceException disableDynamicDataSourceException) {
             if (logger.isWarnEnabled()) {
@@ -166,8 +169,31 @@ public class DynamicDataSourceRegistrar implements ImportBeanDefinitionRegistrar
         MutablePropertyValues mpv = beanDefinition.getPropertyValues();
         mpv.addPropertyValue("defaultTargetDataSource", defaultDataSource);
         mpv.addPropertyValue("targetDataSources", targetDataSources);
+        mpv.addPropertyValue("defaultDataSourceName", this.defaultDataSourceName);
+        mpv.addPropertyValue("replicaDataSources", this.replicaDataSources);
+        RelaxedPropertyResolver propertyResolver = new RelaxedPropertyResolver(this.environment, PROPERTY_PREFIX_DYNAMIC_DATASOURCE);
+        if (JudgeUtils.isNotBlank(propertyResolver.getProperty("replicaEjectionMillis"))) {
+            mpv.addPropertyValue("replicaEjectionMillis", propertyResolver.getProperty("replicaEjectionMillis", Long.class));
+        }
         registry.registerBeanDefinition("dataSource", beanDefinition);
     }
+    /**
+     * 只读副本配置，如 lemon.dynamicDataSource.replicas.primary=replica1:2,replica2
+     * 副本需同其他数据源一样配置在数据源列表中
+     */
+    private void resolveReplicaDataSources() {
+        RelaxedPropertyResolver propertyResolver = new RelaxedPropertyResolver(this.environment, PROPERTY_PREFIX_DYNAMIC_DATASOURCE);
+        propertyResolver.getSubProperties("replicas.").forEach((primary, replicas) -> {
+            if (JudgeUtils.isBlank(primary) || null == replicas || JudgeUtils.isBlank(replicas.toString())) {
+                return;
+            }
+            if (!JudgeUtils.equals(this.defaultDataSourceName, primary) && !this.dynamicDataSources.containsKey(primary)) {
+                throw LemonException.create(LemonException.SYS_ERROR_MSGCD, "No dataSource " + primary + " was found for replicas " + replicas);
+            }
+            this.replicaDataSources.put(primary, replicas.toString());
+        });
+    }
+
     /**
      * 初始化数据源
      * @param dataSourceName 数据源名称
@@ -40,4 +40,10 @@ public @interface TargetDataSource {
      * @return
      */
     String value() default "lemon";
+
+    /**
+     * 只读方法，数据源配置了副本时路由到副本
+     * @return
+     */
+    boolean readOnly() default false;
 }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.datasource;
+
+import com.galaxy.lemon.common.context.LemonContext;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DynamicDataSource} 副本路由及写入后固定主数据源
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see DynamicDataSource
+ * @since 1.0.0
+ */
+
+public class DynamicDataSourceTest {
+    private DynamicDataSource dataSource;
+    private boolean replicaDown;
+
+    @Before
+    public void setUp() {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put("primary", dataSourceOf("primary"));
+        targetDataSources.put("replica", dataSourceOf("replica"));
+        Map<String, String> replicaDataSources = new HashMap<>();
+        replicaDataSources.put("primary", "replica");
+        this.dataSource = new DynamicDataSource();
+        this.dataSource.setTargetDataSources(targetDataSources);
+        this.dataSource.setDefaultTargetDataSource(targetDataSources.get("primary"));
+        this.dataSource.setDefaultDataSourceName("primary");
+        this.dataSource.setReplicaDataSources(replicaDataSources);
+        this.dataSource.afterPropertiesSet();
+        startRequest("R1");
+    }
+
+    @After
+    public void tearDown() {
+        DynamicDataSource.clearReadOnly();
+        LemonDataHolder.setLemonData(null);
+        LemonContext.clearCurrentContext();
+    }
+
+    @Test
+    public void readOnlyRoutesToReplica() throws SQLException {
+        Assert.assertEquals("primary", currentDataSource(false));
+        Assert.assertEquals("replica", currentDataSource(true));
+    }
+
+    @Test
+    public void readsWithoutWriteDoNotStickToPrimary() throws SQLException {
+        Connection connection = this.dataSource.getConnection();
+        connection.prepareStatement("  select * from t where id = ?");
+        connection.createStatement().executeQuery("select 1");
+        connection.createStatement().execute("SHOW TABLES");
+        connection.close();
+        Assert.assertEquals("replica", currentDataSource(true));
+    }
+
+    @Test
+    public void autoCommitWriteSticksToPrimary() throws SQLException {
+        Connection connection = this.dataSource.getConnection();
+        connection.prepareStatement("update t set v = ? where id = ?");
+        connection.close();
+        Assert.assertEquals("primary", currentDataSource(true));
+    }
+
+    @Test
+    public void plainStatementWriteSticksToPrimary() throws SQLException {
+        Statement statement = this.dataSource.getConnection().createStatement();
+        statement.execute("select 1");
+        Assert.assertEquals("replica", currentDataSource(true));
+        statement.execute("insert into t values (1)");
+        Assert.assertEquals("primary", currentDataSource(true));
+    }
+
+    @Test
+    public void commitSticksToPrimary() throws SQLException {
+        Connection connection = this.dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.commit();
+        Assert.assertEquals("primary", currentDataSource(true));
+    }
+
+    @Test
+    public void readOnlyTransactionCommitDoesNotStick() throws SQLException {
+        Connection connection = this.dataSource.getConnection();
+        connection.setReadOnly(true);
+        connection.commit();
+        connection.setReadOnly(false);
+        Assert.assertEquals("replica", currentDataSource(true));
+    }
+
+    @Test
+    public void stickinessIsScopedToRequest() throws SQLException {
+        this.dataSource.getConnection().prepareStatement("delete from t");
+        Assert.assertEquals("primary", currentDataSource(true));
+        startRequest("R2");
+        Assert.assertEquals("replica", currentDataSource(true));
+    }
+
+    @Test
+    public void writeWithoutRequestIdDoesNotStick() throws SQLException {
+        LemonDataHolder.setLemonData(null);
+        Connection connection = this.dataSource.getConnection();
+        Assert.assertFalse(connection instanceof ConnectionProxy);
+        connection.prepareStatement("update t set v = 1");
+        Assert.assertEquals("replica", currentDataSource(true));
+    }
+
+    @Test
+    public void primaryConnectionUnwrapsToTarget() throws SQLException {
+        Connection connection = this.dataSource.getConnection();
+        Assert.assertEquals("primary", ((ConnectionProxy) connection).getTargetConnection().getCatalog());
+        Assert.assertSame(connection, connection.createStatement().getConnection());
+    }
+
+    @Test
+    public void failingReplicaFallsBackToPrimary() throws SQLException {
+        this.replicaDown = true;
+        Assert.assertEquals("primary", currentDataSource(true));
+    }
+
+    @Test
+    public void classifiesReadStatements() {
+        Assert.assertTrue(DynamicDataSource.isReadStatement("SELECT 1"));
+        Assert.assertTrue(DynamicDataSource.isReadStatement("\n ( select 1) union (select 2)"));
+        Assert.assertTrue(DynamicDataSource.isReadStatement("explain select 1"));
+        Assert.assertFalse(DynamicDataSource.isReadStatement("insert into t select * from s"));
+        Assert.assertFalse(DynamicDataSource.isReadStatement("{call p()}"));
+        Assert.assertFalse(DynamicDataSource.isReadStatement(null));
+    }
+
+    private String currentDataSource(boolean readOnly) throws SQLException {
+        DynamicDataSource.setReadOnly(readOnly);
+        try (Connection connection = this.dataSource.getConnection()) {
+            return connection.getCatalog();
+        } finally {
+            DynamicDataSource.clearReadOnly();
+        }
+    }
+
+    private static void startRequest(String requestId) {
+        LemonContext.clearCurrentContext();
+        BaseLemonData lemonData = new BaseLemonData() {
+        };
+        lemonData.setRequestId(requestId);
+        LemonDataHolder.setLemonData(lemonData);
+    }
+
+    private DataSource dataSourceOf(String name) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {DataSource.class}, (proxy, method, args) -> {
+            if (!"getConnection".equals(method.getName())) {
+                return null;
+            }
+            if ("replica".equals(name) && this.replicaDown) {
+                throw new SQLException("Replica is down.");
+            }
+            return connectionOf(name);
+        });
+    }
+
+    private static Connection connectionOf(String name) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getCatalog":
+                    return name;
+                case "createStatement":
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {Statement.class},
+                            (statement, statementMethod, statementArgs) -> "execute".equals(statementMethod.getName()) ? Boolean.FALSE : null);
+                default:
+                    return null;
+            }
+        });
+    }
+}
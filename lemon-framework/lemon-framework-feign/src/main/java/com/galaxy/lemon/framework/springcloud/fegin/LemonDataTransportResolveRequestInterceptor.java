@@ -24,6 +24,7 @@ import com.galaxy.lemon.common.utils.Encodes;
 import com.galaxy.lemon.framework.data.BaseLemonData;
 import com.galaxy.lemon.framework.data.LemonDataHolder;
 import com.galaxy.lemon.framework.data.LemonDataMessageConverter;
+import com.galaxy.lemon.framework.data.support.CompactLemonDataMessageConverter;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import feign.Util;
@@ -59,6 +60,9 @@ public class LemonDataTransportResolveRequestInterceptor<L extends BaseLemonData
 
 
     private String urlEncode(String arg) {
+        if (CompactLemonDataMessageConverter.isCompactMessage(arg)) {
+            return arg;
+        }
         try {
             return Encodes.urlEncode(arg, getEncoding());
         } catch (UnsupportedEncodingException e) {
@@ -19,7 +19,8 @@ package com.galaxy.lemon.framework.springcloud.fegin.logging;
 
 import com.galaxy.lemon.common.codec.CodecException;
 import com.galaxy.lemon.common.codec.ObjectEncoder;
-import com.galaxy.lemon.common.log.AccessLogger;
+import com.galaxy.lemon.common.log.AccessLogSnapshot;
+import com.galaxy.lemon.common.log.FormattableAccessLogger;
 import com.galaxy.lemon.common.log.RequestInfo;
 import com.galaxy.lemon.common.log.ResponseInfo;
 import org.slf4j.Logger;
@@ -32,7 +33,7 @@ import org.slf4j.LoggerFactory;
  * @since 1.0.0
  */
 
-public class FeignAccessLogger implements AccessLogger {
+public class FeignAccessLogger implements FormattableAccessLogger {
     private static final Logger logger = LoggerFactory.getLogger(FeignAccessLogger.class);
 
     private ObjectEncoder objectEncoder;
@@ -43,19 +44,41 @@ public class FeignAccessLogger implements AccessLogger {
 
     @Override
     public <T, REQ extends RequestInfo<T>> void request(REQ requestInfo) {
-        try {
-            logger.info(this.objectEncoder.writeValueAsString(requestInfo));
-        } catch (CodecException e) {
-            logger.error("", e);
-        }
+        write(format(snapshotRequest(requestInfo)));
     }
 
     @Override
     public <T, RSP extends ResponseInfo<T>> void response(RSP responseInfo) {
+        write(format(snapshotResponse(responseInfo)));
+    }
+
+    @Override
+    public AccessLogSnapshot snapshotRequest(RequestInfo<?> requestInfo) {
+        return logger.isInfoEnabled() ? AccessLogSnapshot.ofRequest(requestInfo, requestInfo.getKeywords(), null) : null;
+    }
+
+    @Override
+    public AccessLogSnapshot snapshotResponse(ResponseInfo<?> responseInfo) {
+        return logger.isInfoEnabled() ? AccessLogSnapshot.ofResponse(responseInfo, responseInfo.getKeywords(), null) : null;
+    }
+
+    @Override
+    public String format(AccessLogSnapshot snapshot) {
+        if (null == snapshot) {
+            return null;
+        }
         try {
-            logger.info(this.objectEncoder.writeValueAsString(responseInfo));
+            return this.objectEncoder.writeValueAsString(snapshot.getInfo());
         } catch (CodecException e) {
             logger.error("", e);
         }
+        return null;
+    }
+
+    @Override
+    public void write(String formattedLog) {
+        if (null != formattedLog) {
+            logger.info(formattedLog);
+        }
     }
 }
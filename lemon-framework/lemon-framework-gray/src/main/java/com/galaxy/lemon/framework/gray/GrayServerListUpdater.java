@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.gray;
+
+import com.netflix.loadbalancer.ServerListUpdater;
+
+/**
+ * 服务列表刷新后通知{@link GrayZoneAvoidanceRule}，以感知实例灰度版本的变化
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see GrayZoneAvoidanceRule#serverListUpdated()
+ * @since 1.0.0
+ */
+
+public class GrayServerListUpdater implements ServerListUpdater {
+    private final ServerListUpdater delegate;
+    private final GrayZoneAvoidanceRule grayZoneAvoidanceRule;
+
+    public GrayServerListUpdater(ServerListUpdater delegate, GrayZoneAvoidanceRule grayZoneAvoidanceRule) {
+        this.delegate = delegate;
+        this.grayZoneAvoidanceRule = grayZoneAvoidanceRule;
+    }
+
+    @Override
+    public void start(UpdateAction updateAction) {
+        this.delegate.start(() -> {
+            updateAction.doUpdate();
+            this.grayZoneAvoidanceRule.serverListUpdated();
+        });
+    }
+
+    @Override
+    public void stop() {
+        this.delegate.stop();
+    }
+
+    @Override
+    public String getLastUpdate() {
+        return this.delegate.getLastUpdate();
+    }
+
+    @Override
+    public long getDurationSinceLastUpdateMs() {
+        return this.delegate.getDurationSinceLastUpdateMs();
+    }
+
+    @Override
+    public int getNumberMissedCycles() {
+        return this.delegate.getNumberMissedCycles();
+    }
+
+    @Override
+    public int getCoreThreads() {
+        return this.delegate.getCoreThreads();
+    }
+}
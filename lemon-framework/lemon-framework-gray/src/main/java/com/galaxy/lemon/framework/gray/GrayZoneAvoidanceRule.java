@@ -18,89 +18,264 @@
 package com.galaxy.lemon.framework.gray;
 
 
-import com.galaxy.lemon.common.cglib.Proxy;
-import com.galaxy.lemon.framework.data.BaseLemonData;
-import com.galaxy.lemon.framework.data.LemonDataHolder;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
-import com.google.common.collect.Lists;
+import com.netflix.config.DynamicBooleanProperty;
+import com.netflix.config.DynamicIntProperty;
+import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.loadbalancer.*;
-import org.springframework.cglib.proxy.MethodInterceptor;
-import org.springframework.cglib.proxy.MethodProxy;
-import org.springframework.util.ReflectionUtils;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 灰度规则处理
+ * 服务列表按灰度版本分区，仅在负载均衡器刷新服务列表后重新分区；请求时在匹配的分区内按 power-of-two-choices 选择活跃请求数较少的服务，
+ * 匹配分区无可用服务时回退到非灰度服务
+ * <p>
+ * 服务列表(host:port)变化时由{@link ServerListChangeListener}重新分区；该监听感知不到实例灰度版本(metadata)的变化，
+ * 由{@link GrayServerListUpdater}在每次刷新后调用{@link #serverListUpdated()}比较灰度版本，有变化时重新分区；
+ * 非{@link BaseLoadBalancer}的负载均衡器无法监听，请求时按Server对象是否相同判断是否需要重新分区
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
  * @see
  * @since 1.0.0
  */
 
 public class GrayZoneAvoidanceRule extends ZoneAvoidanceRule {
-    private static final Field FIELD_DELEGATE = ReflectionUtils.findField(CompositePredicate.class, "delegate");
-    private static final Field FIELD_FALLBACKS = ReflectionUtils.findField(CompositePredicate.class, "fallbacks");
+    /**
+     * 与 {@link AvailabilityPredicate} 使用相同的配置
+     */
+    private static final DynamicBooleanProperty CIRCUIT_BREAKER_FILTERING =
+            DynamicPropertyFactory.getInstance().getBooleanProperty("niws.loadbalancer.availabilityFilteringRule.filterCircuitTripped", true);
+    private static final DynamicIntProperty ACTIVE_CONNECTIONS_LIMIT =
+            DynamicPropertyFactory.getInstance().getIntProperty("niws.loadbalancer.availabilityFilteringRule.activeConnectionsLimit", Integer.MAX_VALUE);
 
-    private AbstractServerPredicate cachedServerPredicate;
-    private Lock lock = new ReentrantLock();
+    private final AtomicReference<ServerPartitions> serverPartitions = new AtomicReference<>();
+    private volatile boolean listening;
 
-    static {
-        ReflectionUtils.makeAccessible(FIELD_DELEGATE);
-        ReflectionUtils.makeAccessible(FIELD_FALLBACKS);
+    @Override
+    public void setLoadBalancer(ILoadBalancer lb) {
+        boolean changed = lb != getLoadBalancer();
+        super.setLoadBalancer(lb);
+        if (!changed) {
+            return;
+        }
+        this.serverPartitions.set(null);
+        this.listening = lb instanceof BaseLoadBalancer;
+        if (this.listening) {
+            ((BaseLoadBalancer) lb).addServerListChangeListener((oldList, newList) -> {
+                if (lb == getLoadBalancer()) {
+                    this.serverPartitions.set(new ServerPartitions(newList));
+                }
+            });
+        }
+    }
+
+    /**
+     * 负载均衡器刷新服务列表后调用，实例灰度版本或区域变化时重新分区
+     */
+    public void serverListUpdated() {
+        ILoadBalancer lb = getLoadBalancer();
+        if (null == lb) {
+            return;
+        }
+        List<Server> allServers = lb.getAllServers();
+        ServerPartitions partitions = this.serverPartitions.get();
+        if (null == partitions || !partitions.isEquivalentTo(allServers)) {
+            this.serverPartitions.set(new ServerPartitions(allServers));
+        }
     }
 
     @Override
-    public AbstractServerPredicate getPredicate() {
-        if (null == this.cachedServerPredicate) {
-            lock.lock();
-            try {
-                if (null == this.cachedServerPredicate) {
-                    this.cachedServerPredicate = createDelegateCompositePredicated();
-                }
-            } finally {
-                lock.unlock();
+    public Server choose(Object key) {
+        ILoadBalancer lb = getLoadBalancer();
+        if (null == lb) {
+            return null;
+        }
+        ServerPartitions partitions = getServerPartitions(lb);
+        LoadBalancerStats loadBalancerStats = lb instanceof AbstractLoadBalancer ? ((AbstractLoadBalancer) lb).getLoadBalancerStats() : null;
+        String requestGrayVersion = GrayUtils.getRequestGrayVersion();
+        Server server = null;
+        if (GrayUtils.isGray(requestGrayVersion)) {
+            server = chooseFromPartition(partitions.getGrayServers(requestGrayVersion), partitions.isMultiZone(), loadBalancerStats, requestGrayVersion);
+        }
+        if (null == server) {
+            server = chooseFromPartition(partitions.getNormalServers(), partitions.isMultiZone(), loadBalancerStats, requestGrayVersion);
+        }
+        return server;
+    }
+
+    private ServerPartitions getServerPartitions(ILoadBalancer lb) {
+        ServerPartitions partitions = this.serverPartitions.get();
+        if (this.listening) {
+            if (null == partitions) {
+                this.serverPartitions.compareAndSet(null, new ServerPartitions(lb.getAllServers()));
+                partitions = this.serverPartitions.get();
+            }
+            return partitions;
+        }
+        List<Server> allServers = lb.getAllServers();
+        if (null == partitions || !partitions.isSnapshotOf(allServers)) {
+            partitions = new ServerPartitions(allServers);
+            this.serverPartitions.set(partitions);
+        }
+        return partitions;
+    }
+
+    /**
+     * 单一区域时直接在分区内选择；多区域时先经过 ZoneAvoidanceRule 的区域、可用性过滤
+     */
+    private Server chooseFromPartition(Server[] servers, boolean multiZone, LoadBalancerStats loadBalancerStats, Object key) {
+        if (servers.length == 0) {
+            return null;
+        }
+        if (multiZone) {
+            List<Server> eligibleServers = getPredicate().getEligibleServers(Arrays.asList(servers), key);
+            servers = eligibleServers.toArray(new Server[eligibleServers.size()]);
+        }
+        return choosePowerOfTwo(servers, loadBalancerStats);
+    }
+
+    private Server choosePowerOfTwo(Server[] servers, LoadBalancerStats loadBalancerStats) {
+        int size = servers.length;
+        if (size == 0) {
+            return null;
+        }
+        long currentTime = System.currentTimeMillis();
+        if (size == 1) {
+            return isAvailable(servers[0], loadBalancerStats, currentTime) ? servers[0] : null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        boolean firstAvailable = isAvailable(servers[first], loadBalancerStats, currentTime);
+        boolean secondAvailable = isAvailable(servers[second], loadBalancerStats, currentTime);
+        if (firstAvailable && secondAvailable) {
+            return compareLoad(servers[first], servers[second], loadBalancerStats, currentTime) <= 0 ? servers[first] : servers[second];
+        }
+        if (firstAvailable) {
+            return servers[first];
+        }
+        if (secondAvailable) {
+            return servers[second];
+        }
+        for (int i = 1; i < size; i++) {
+            Server server = servers[(first + i) % size];
+            if (isAvailable(server, loadBalancerStats, currentTime)) {
+                return server;
             }
+        }
+        return null;
+    }
+
+    private boolean isAvailable(Server server, LoadBalancerStats loadBalancerStats, long currentTime) {
+        if (null == loadBalancerStats) {
+            return true;
+        }
+        ServerStats serverStats = loadBalancerStats.getSingleServerStat(server);
+        if (CIRCUIT_BREAKER_FILTERING.get() && serverStats.isCircuitBreakerTripped(currentTime)) {
+            return false;
+        }
+        return serverStats.getActiveRequestsCount(currentTime) < ACTIVE_CONNECTIONS_LIMIT.get();
+    }
 
+    private int compareLoad(Server first, Server second, LoadBalancerStats loadBalancerStats, long currentTime) {
+        if (null == loadBalancerStats) {
+            return 0;
         }
-        return this.cachedServerPredicate;
+        ServerStats firstStats = loadBalancerStats.getSingleServerStat(first);
+        ServerStats secondStats = loadBalancerStats.getSingleServerStat(second);
+        int result = Integer.compare(firstStats.getActiveRequestsCount(currentTime), secondStats.getActiveRequestsCount(currentTime));
+        return result != 0 ? result : Double.compare(firstStats.getResponseTimeAvg(), secondStats.getResponseTimeAvg());
     }
 
-    private AbstractServerPredicate createDelegateCompositePredicated() {
-        AbstractServerPredicate serverPredicate = super.getPredicate();
-        if (serverPredicate instanceof CompositePredicate) {
-            AbstractServerPredicate originalPredicate = (AbstractServerPredicate) ReflectionUtils.getField(FIELD_DELEGATE, serverPredicate);
-            GrayMatchServerPredicate grayServerPredicate = new GrayMatchServerPredicate();
-            Predicate<PredicateKey> chain = Predicates.<PredicateKey>and(originalPredicate, grayServerPredicate);
-            ReflectionUtils.setField(FIELD_DELEGATE, serverPredicate, AbstractServerPredicate.ofKeyPredicate(chain));
-
-            AvailabilityPredicate availabilityPredicate = new AvailabilityPredicate(this, null);
-            GrayAvoidanceServerPredicate fallbackServerPredicate = new GrayAvoidanceServerPredicate();
-            Predicate<PredicateKey> fallChain = Predicates.<PredicateKey>and(availabilityPredicate, fallbackServerPredicate);
-            List<AbstractServerPredicate> fallbacks = Lists.newArrayList();
-            fallbacks.add(AbstractServerPredicate.ofKeyPredicate(fallChain));
-            ReflectionUtils.setField(FIELD_FALLBACKS, serverPredicate, fallbacks);
-
-            return (AbstractServerPredicate) Proxy.getProxy(CompositePredicate.class).newInstance(new MethodInterceptor() {
-                @Override
-                public Object intercept(Object o, Method method, Object[] objects, MethodProxy methodProxy) throws Throwable {
-                    if (method.getName().equals("chooseRoundRobinAfterFiltering")) {
-                        Object[] newObjects = new Object[objects.length];
-                        System.arraycopy(objects, 0, newObjects, 0, objects.length);
-                        BaseLemonData lemonData = LemonDataHolder.getLemonData();
-                        String loadBalancerKey = Optional.ofNullable(lemonData.getVersionId()).orElse("");
-                        newObjects[objects.length - 1] = loadBalancerKey;
-                        return method.invoke(serverPredicate, newObjects);
-                    }
-                    return method.invoke(serverPredicate, objects);
+    /**
+     * 按灰度版本分区的服务列表快照
+     */
+    private static final class ServerPartitions {
+        private static final Server[] EMPTY_SERVERS = new Server[0];
+
+        private final Server[] servers;
+        private final Map<String, Server[]> grayServers;
+        private final Server[] normalServers;
+        private final boolean multiZone;
+
+        ServerPartitions(List<Server> servers) {
+            this.servers = null == servers ? EMPTY_SERVERS : servers.toArray(new Server[servers.size()]);
+            Map<String, List<Server>> grayServerLists = new HashMap<>();
+            List<Server> normalServerList = new ArrayList<>();
+            Set<String> zones = new HashSet<>();
+            for (Server server : this.servers) {
+                String serverGrayVersion = grayVersionOf(server);
+                if (GrayUtils.isGray(serverGrayVersion)) {
+                    grayServerLists.computeIfAbsent(serverGrayVersion, v -> new ArrayList<>()).add(server);
+                } else {
+                    normalServerList.add(server);
                 }
-            });
+                zones.add(String.valueOf(server.getZone()));
+            }
+            this.grayServers = new HashMap<>();
+            grayServerLists.forEach((v, l) -> this.grayServers.put(v, l.toArray(new Server[l.size()])));
+            this.normalServers = normalServerList.toArray(new Server[normalServerList.size()]);
+            this.multiZone = zones.size() > 1;
+        }
+
+        /**
+         * 是否为该服务列表的快照，逐个比较Server对象是否相同
+         */
+        boolean isSnapshotOf(List<Server> allServers) {
+            if (null == allServers) {
+                return this.servers.length == 0;
+            }
+            if (allServers.size() != this.servers.length) {
+                return false;
+            }
+            for (int i = 0; i < this.servers.length; i++) {
+                if (this.servers[i] != allServers.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 与服务列表的host:port、灰度版本及区域是否都相同
+         */
+        boolean isEquivalentTo(List<Server> allServers) {
+            if (null == allServers) {
+                return this.servers.length == 0;
+            }
+            if (allServers.size() != this.servers.length) {
+                return false;
+            }
+            for (int i = 0; i < this.servers.length; i++) {
+                Server server = allServers.get(i);
+                if (!Objects.equals(this.servers[i].getId(), server.getId())
+                        || !Objects.equals(this.servers[i].getZone(), server.getZone())
+                        || !Objects.equals(grayVersionOf(this.servers[i]), grayVersionOf(server))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Server[] getGrayServers(String grayVersion) {
+            return this.grayServers.getOrDefault(grayVersion, EMPTY_SERVERS);
+        }
+
+        Server[] getNormalServers() {
+            return normalServers;
+        }
+
+        boolean isMultiZone() {
+            return multiZone;
+        }
+
+        private static String grayVersionOf(Server server) {
+            return server instanceof DiscoveryEnabledServer ? GrayUtils.getGrayVersion((DiscoveryEnabledServer) server) : null;
         }
-        return serverPredicate;
     }
 }
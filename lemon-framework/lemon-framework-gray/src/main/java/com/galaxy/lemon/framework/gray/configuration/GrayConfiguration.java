@@ -17,8 +17,12 @@
 
 package com.galaxy.lemon.framework.gray.configuration;
 
+import com.galaxy.lemon.framework.gray.GrayServerListUpdater;
 import com.galaxy.lemon.framework.gray.GrayZoneAvoidanceRule;
+import com.netflix.client.config.IClientConfig;
 import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.PollingServerListUpdater;
+import com.netflix.loadbalancer.ServerListUpdater;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -40,4 +44,17 @@ public class GrayConfiguration {
     public IRule ribbonRule() {
         return new GrayZoneAvoidanceRule();
     }
+
+    /**
+     * 服务列表刷新后通知灰度规则比较实例灰度版本
+     * @param config
+     * @param ribbonRule
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ServerListUpdater ribbonServerListUpdater(IClientConfig config, IRule ribbonRule) {
+        ServerListUpdater serverListUpdater = new PollingServerListUpdater(config);
+        return ribbonRule instanceof GrayZoneAvoidanceRule ? new GrayServerListUpdater(serverListUpdater, (GrayZoneAvoidanceRule) ribbonRule) : serverListUpdater;
+    }
 }
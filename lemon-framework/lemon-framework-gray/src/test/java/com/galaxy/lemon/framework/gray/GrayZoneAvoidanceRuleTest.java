@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.gray;
+
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
+import com.galaxy.lemon.framework.gray.constant.GrayConstants;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerListUpdater;
+import com.netflix.loadbalancer.ServerStats;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link GrayZoneAvoidanceRule} 灰度分区、power-of-two-choices、回退及服务列表刷新后重新分区
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see GrayZoneAvoidanceRule
+ * @since 1.0.0
+ */
+
+public class GrayZoneAvoidanceRuleTest {
+    private static final int CHOICES = 200;
+
+    private BaseLoadBalancer loadBalancer;
+    private GrayZoneAvoidanceRule rule;
+
+    @Before
+    public void setUp() {
+        this.rule = new GrayZoneAvoidanceRule();
+        this.loadBalancer = new BaseLoadBalancer();
+        this.loadBalancer.setRule(this.rule);
+    }
+
+    @After
+    public void tearDown() {
+        LemonDataHolder.clear();
+    }
+
+    @Test
+    public void choosesFromPartitionOfRequestVersion() {
+        this.loadBalancer.setServersList(Arrays.asList(server("n1", null), server("n2", "1.0"), server("g1", "1.1" + GrayConstants.GRAY_TAG),
+                server("g2", "1.1" + GrayConstants.GRAY_TAG), server("h1", "1.2" + GrayConstants.GRAY_TAG)));
+
+        Assert.assertEquals(hosts("n1", "n2"), choose(null));
+        Assert.assertEquals(hosts("g1", "g2"), choose("1.1" + GrayConstants.GRAY_TAG));
+        Assert.assertEquals(hosts("h1"), choose("1.2" + GrayConstants.GRAY_TAG));
+    }
+
+    @Test
+    public void fallsBackToNormalServersWithoutAvailableGrayServer() {
+        List<Server> servers = Arrays.asList(server("n1", null), server("g1", "1.1" + GrayConstants.GRAY_TAG));
+        this.loadBalancer.setServersList(servers);
+
+        Assert.assertEquals(hosts("n1"), choose("9.9" + GrayConstants.GRAY_TAG));
+
+        ServerStats grayServerStats = this.loadBalancer.getLoadBalancerStats().getSingleServerStat(servers.get(1));
+        for (int i = 0; i < 3; i++) {
+            grayServerStats.incrementSuccessiveConnectionFailureCount();
+        }
+        Assert.assertEquals(hosts("n1"), choose("1.1" + GrayConstants.GRAY_TAG));
+    }
+
+    @Test
+    public void powerOfTwoChoicesNeverPicksMostLoadedServer() {
+        List<Server> servers = Arrays.asList(server("n1", null), server("n2", null), server("n3", null));
+        this.loadBalancer.setServersList(servers);
+        ServerStats busyServerStats = this.loadBalancer.getLoadBalancerStats().getSingleServerStat(servers.get(1));
+        for (int i = 0; i < 5; i++) {
+            busyServerStats.incrementActiveRequestsCount();
+        }
+
+        Assert.assertEquals(hosts("n1", "n3"), choose(null));
+    }
+
+    @Test
+    public void repartitionsWhenVersionChangesWithoutAddressChange() {
+        RecordingServerListUpdater delegate = new RecordingServerListUpdater();
+        GrayServerListUpdater serverListUpdater = new GrayServerListUpdater(delegate, this.rule);
+        List<Server> refreshed = Arrays.asList(server("n1", null), server("n2", "2.0" + GrayConstants.GRAY_TAG));
+        serverListUpdater.start(() -> this.loadBalancer.setServersList(refreshed));
+        this.loadBalancer.setServersList(Arrays.asList(server("n1", null), server("n2", "1.0")));
+        Assert.assertEquals(hosts("n1", "n2"), choose("2.0" + GrayConstants.GRAY_TAG));
+
+        delegate.updateAction.doUpdate();
+
+        Assert.assertEquals(hosts("n2"), choose("2.0" + GrayConstants.GRAY_TAG));
+        Assert.assertEquals(hosts("n1"), choose(null));
+    }
+
+    private Set<String> choose(String requestVersion) {
+        TestLemonData lemonData = new TestLemonData();
+        lemonData.setVersionId(requestVersion);
+        LemonDataHolder.setLemonData(lemonData);
+        Set<String> hosts = new HashSet<>();
+        for (int i = 0; i < CHOICES; i++) {
+            hosts.add(this.rule.choose(null).getHost());
+        }
+        return hosts;
+    }
+
+    private static Set<String> hosts(String... hosts) {
+        return new HashSet<>(Arrays.asList(hosts));
+    }
+
+    private static Server server(String host, String version) {
+        InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder().setAppName("test").setHostName(host).setPort(8080);
+        if (null != version) {
+            builder.add(GrayConstants.VERSION_ID, version);
+        }
+        return new DiscoveryEnabledServer(builder.build(), false);
+    }
+
+    private static class TestLemonData extends BaseLemonData {
+    }
+
+    private static class RecordingServerListUpdater implements ServerListUpdater {
+        private UpdateAction updateAction;
+
+        @Override
+        public void start(UpdateAction updateAction) {
+            this.updateAction = updateAction;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public String getLastUpdate() {
+            return null;
+        }
+
+        @Override
+        public long getDurationSinceLastUpdateMs() {
+            return 0;
+        }
+
+        @Override
+        public int getNumberMissedCycles() {
+            return 0;
+        }
+
+        @Override
+        public int getCoreThreads() {
+            return 0;
+        }
+    }
+}
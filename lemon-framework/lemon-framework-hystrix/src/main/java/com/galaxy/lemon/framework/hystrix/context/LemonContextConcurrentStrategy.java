@@ -152,7 +152,7 @@ public class LemonContextConcurrentStrategy extends HystrixConcurrencyStrategy {
         }
 
         public HystrixLemonCallable(Callable<S> callable) {
-            this.lemonContext = LemonContext.getCurrentContext();
+            this.lemonContext = LemonContext.snapshotCurrentContext();
             this.lemonData = LemonDataHolder.getLemonData();
             this.callable = callable;
         }
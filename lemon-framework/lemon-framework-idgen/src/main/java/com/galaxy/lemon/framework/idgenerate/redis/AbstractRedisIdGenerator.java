@@ -25,6 +25,8 @@ import com.galaxy.lemon.common.utils.StringUtils;
 import com.galaxy.lemon.framework.id.AbstractCachingIdGenerator;
 import com.galaxy.lemon.framework.id.IdGenProperties;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.io.IOException;
 
@@ -41,6 +43,7 @@ public abstract class AbstractRedisIdGenerator extends AbstractCachingIdGenerato
 
     private RedisTemplate<String, Long> redisTemplate;
     private String idgenScript;
+    private RedisScript<Long> idgenRedisScript;
 
     public AbstractRedisIdGenerator(RedisTemplate<String, Long> redisTemplate,
                                     IdGenProperties idGenProperties,
@@ -57,6 +60,7 @@ public abstract class AbstractRedisIdGenerator extends AbstractCachingIdGenerato
             LemonException.throwLemonException(e);
         }
         LemonException.throwLemonExceptionIfNecessary(JudgeUtils.isBlank(this.idgenScript), ErrorMsgCode.SYS_ERROR.getMsgCd(), "Redis hash id generator script " + redisScriptFilePath + " is not found.");
+        this.idgenRedisScript = new DefaultRedisScript<>(this.idgenScript, Long.class);
         if(logger.isDebugEnabled()) {
             logger.debug("Load IdGen lua script {}.", redisScriptFilePath);
             logger.debug("{}", this.idgenScript);
@@ -67,6 +71,14 @@ public abstract class AbstractRedisIdGenerator extends AbstractCachingIdGenerato
         return this.idgenScript;
     }
 
+    /**
+     * 脚本SHA1只计算一次，执行时优先使用EVALSHA
+     * @return
+     */
+    public RedisScript<Long> getRedisIdGenRedisScript() {
+        return this.idgenRedisScript;
+    }
+
     public RedisTemplate<String, Long> getRedisTemplate() {
         return redisTemplate;
     }
@@ -24,7 +24,6 @@ import com.galaxy.lemon.framework.redis.serializer.LongRedisSerializer;
 import com.galaxy.lemon.framework.idgenerate.redis.AbstractRedisIdGenerator;
 import com.galaxy.lemon.framework.utils.LemonUtils;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.util.ArrayList;
@@ -43,6 +42,8 @@ public class RedisHashIdGenerator extends AbstractRedisIdGenerator {
 
     private static final String DEFAULT_IDGEN_LUA_FILE_PATH = "lua" + ResourceUtils.JAR_PACKAGE_PATH_SEPARATOR + "hashIdGen.lua";
     private static final Map<String, List<String>> CACHE_REDIS_SCRIPT_KEYS = new ConcurrentHashMap<>();
+    private static final StringRedisSerializer STRING_REDIS_SERIALIZER = new StringRedisSerializer();
+    private static final LongRedisSerializer LONG_REDIS_SERIALIZER = new LongRedisSerializer();
 
     public RedisHashIdGenerator(RedisTemplate<String, Long> redisTemplate, IdGenProperties idGenProperties) {
         super(redisTemplate, idGenProperties, DEFAULT_IDGEN_LUA_FILE_PATH);
@@ -56,8 +57,8 @@ public class RedisHashIdGenerator extends AbstractRedisIdGenerator {
             keys.add(resolveIdGenRedisKey(global));
             CACHE_REDIS_SCRIPT_KEYS.put(idName, keys);
         }
-        return this.getRedisTemplate().execute(new DefaultRedisScript<>(this.getRedisIdGenScript(), Long.class),
-                new StringRedisSerializer(), new LongRedisSerializer(), keys, idName, String.valueOf(maxValue), String.valueOf(delta), String.valueOf(minValue));
+        return this.getRedisTemplate().execute(this.getRedisIdGenRedisScript(),
+                STRING_REDIS_SERIALIZER, LONG_REDIS_SERIALIZER, keys, idName, String.valueOf(maxValue), String.valueOf(delta), String.valueOf(minValue));
     }
 
     /**
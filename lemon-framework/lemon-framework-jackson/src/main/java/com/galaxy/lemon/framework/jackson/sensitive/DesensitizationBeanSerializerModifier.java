@@ -20,17 +20,17 @@ package com.galaxy.lemon.framework.jackson.sensitive;
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.common.utils.StringUtils;
 import com.galaxy.lemon.framework.desensitization.DesensitizationConfigurer;
-import com.galaxy.lemon.framework.desensitization.DesensitizationConfigurer.DesensitizationContext;
 import com.galaxy.lemon.framework.desensitization.Desensitizer;
 import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
-import com.galaxy.lemon.framework.jackson.sensitive.DesensitizationJsonSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -48,6 +48,10 @@ public class DesensitizationBeanSerializerModifier extends BeanSerializerModifie
 
     private DesensitizationConfigurer configurer;
     private Map<Desensitizer, DesensitizationJsonSerializer> desensitizationJsonSerializerMap = new ConcurrentHashMap<>();
+    /**
+     * 每个类的脱敏计划，同一个类在多个ObjectMapper或多次构建序列化器时不再重复解析
+     */
+    private Map<Class<?>, DesensitizationPlan> desensitizationPlans = new ConcurrentHashMap<>();
 
     public DesensitizationBeanSerializerModifier(DesensitizationConfigurer configurer) {
         this.configurer = configurer;
@@ -59,51 +63,91 @@ public class DesensitizationBeanSerializerModifier extends BeanSerializerModifie
         if (JudgeUtils.isEmpty(beanProperties)) {
             return beanProperties;
         }
-        this.configurer.configure(beanDesc.getBeanClass(), ctx -> configureBeanPropertyWriter(ctx, beanProperties));
+        DesensitizationPlan desensitizationPlan = this.desensitizationPlans.computeIfAbsent(beanDesc.getBeanClass(), this::createDesensitizationPlan);
+        if (!desensitizationPlan.isEmpty()) {
+            desensitizationPlan.apply(beanProperties);
+        }
         return beanProperties;
     }
 
-    private void configureBeanPropertyWriter(DesensitizationContext context, List<BeanPropertyWriter> beanProperties) {
-        Optional.ofNullable(context.getDesensitizationMetadatas()).filter(JudgeUtils::isNotEmpty).ifPresent(s -> s.stream().forEach(
+    private DesensitizationPlan createDesensitizationPlan(Class<?> beanClass) {
+        DesensitizationPlan desensitizationPlan = new DesensitizationPlan();
+        this.configurer.configure(beanClass, ctx -> Optional.ofNullable(ctx.getDesensitizationMetadatas()).filter(JudgeUtils::isNotEmpty).ifPresent(s -> s.forEach(
                 m -> {
-                    Desensitizer<?, ?> desensitizer =  context.getDesensitizer(m);
-                    BeanPropertyWriter beanPropertyWriter = extractBeanPropertyWriter(beanProperties, m.getField());
-                    if (null != beanPropertyWriter) {
-                        beanPropertyWriter.assignSerializer(resolveDesensitizationJsonSerializer(desensitizer));
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Fetched desensitizer [{}] for field [{}] with type [{}].", desensitizer, m.getField(), m.getType());
-                        }
-                    } else {
-                        if (logger.isWarnEnabled()) {
-                            logger.warn("No BeanPropertyWriter found in {} with field {}. ", beanProperties, m.getField());
-                        }
+                    Desensitizer<?, ?> desensitizer = ctx.getDesensitizer(m);
+                    desensitizationPlan.add(m.getField(), resolveDesensitizationJsonSerializer(desensitizer));
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Fetched desensitizer [{}] for field [{}] with type [{}].", desensitizer, m.getField(), m.getType());
                     }
                 }
-        ));
+        )));
+        return desensitizationPlan;
+    }
+
+    //TODO SpelDesensitizer 应该不需要缓存
+    public DesensitizationJsonSerializer resolveDesensitizationJsonSerializer(Desensitizer desensitization) {
+        return this.desensitizationJsonSerializerMap.computeIfAbsent(desensitization, DesensitizationJsonSerializer::new);
     }
 
-    private BeanPropertyWriter extractBeanPropertyWriter(List<BeanPropertyWriter> beanPropertyWriters, Field field) {
-        BeanPropertyWriter beanPropertyWriter1 = null;
-        String fieldName = field.getName();
-        for (BeanPropertyWriter beanPropertyWriter : beanPropertyWriters) {
-            if (StringUtils.equals(beanPropertyWriter.getName(), fieldName) &&
-                    beanPropertyWriter.getMember().getDeclaringClass().equals(field.getDeclaringClass())) {
-                beanPropertyWriter1 = beanPropertyWriter;
-                break;
+    /**
+     * 类的脱敏计划，按属性名索引需要脱敏的字段
+     */
+    private static class DesensitizationPlan {
+        private final Map<String, List<PropertyDesensitization>> propertyDesensitizations = new HashMap<>();
+        private int size;
+
+        void add(Field field, DesensitizationJsonSerializer serializer) {
+            this.propertyDesensitizations.computeIfAbsent(field.getName(), k -> new ArrayList<>(1)).add(new PropertyDesensitization(field, serializer));
+            this.size++;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void apply(List<BeanPropertyWriter> beanProperties) {
+            int applied = 0;
+            for (BeanPropertyWriter beanPropertyWriter : beanProperties) {
+                List<PropertyDesensitization> candidates = this.propertyDesensitizations.get(beanPropertyWriter.getName());
+                if (null == candidates) {
+                    continue;
+                }
+                Class<?> declaringClass = beanPropertyWriter.getMember().getDeclaringClass();
+                for (PropertyDesensitization candidate : candidates) {
+                    if (candidate.field.getDeclaringClass().equals(declaringClass)) {
+                        beanPropertyWriter.assignSerializer(candidate.serializer);
+                        applied++;
+                        break;
+                    }
+                }
+            }
+            if (applied < this.size && logger.isWarnEnabled()) {
+                this.propertyDesensitizations.values().forEach(l -> l.forEach(p -> {
+                    if (!matches(beanProperties, p.field)) {
+                        logger.warn("No BeanPropertyWriter found in {} with field {}. ", beanProperties, p.field);
+                    }
+                }));
             }
         }
-        return beanPropertyWriter1;
-    }
 
-    //TODO SpelDesensitizer 应该不需要缓存
-    public DesensitizationJsonSerializer resolveDesensitizationJsonSerializer(Desensitizer desensitization) {
-        if (null == desensitizationJsonSerializerMap.get(desensitization)) {
-            synchronized (desensitizationJsonSerializerMap) {
-                if (null == desensitizationJsonSerializerMap.get(desensitization)) {
-                    desensitizationJsonSerializerMap.put(desensitization, new DesensitizationJsonSerializer(desensitization));
+        private static boolean matches(List<BeanPropertyWriter> beanProperties, Field field) {
+            for (BeanPropertyWriter beanPropertyWriter : beanProperties) {
+                if (StringUtils.equals(beanPropertyWriter.getName(), field.getName()) &&
+                        beanPropertyWriter.getMember().getDeclaringClass().equals(field.getDeclaringClass())) {
+                    return true;
                 }
             }
+            return false;
+        }
+    }
+
+    private static class PropertyDesensitization {
+        private final Field field;
+        private final DesensitizationJsonSerializer serializer;
+
+        PropertyDesensitization(Field field, DesensitizationJsonSerializer serializer) {
+            this.field = field;
+            this.serializer = serializer;
         }
-        return desensitizationJsonSerializerMap.get(desensitization);
     }
 }
@@ -18,6 +18,7 @@
 package com.galaxy.lemon.framework.jackson.sensitive;
 
 import com.galaxy.lemon.framework.desensitization.Desensitizer;
+import com.galaxy.lemon.framework.desensitization.StreamingDesensitizer;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -26,20 +27,50 @@ import java.io.IOException;
 
 /**
  * Json脱敏序列化
+ * 支持{@link StreamingDesensitizer}的脱敏器将结果写入线程内复用的字符数组，再直接交给JsonGenerator，不产生中间字符串
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
  * @see
  * @since 1.0.0
  */
 
 public class DesensitizationJsonSerializer extends JsonSerializer<Object> {
+    /**
+     * 超过该长度的值不缓存字符数组
+     */
+    private static final int MAX_CACHED_BUFFER_LENGTH = 1024;
+    private static final ThreadLocal<char[]> BUFFER_HOLDER = ThreadLocal.withInitial(() -> new char[64]);
+
     private Desensitizer<Object, String> desensitizer;
+    private StreamingDesensitizer streamingDesensitizer;
 
     public DesensitizationJsonSerializer(Desensitizer<Object, String> desensitizer) {
         this.desensitizer = desensitizer;
+        this.streamingDesensitizer = desensitizer instanceof StreamingDesensitizer ? (StreamingDesensitizer) desensitizer : null;
     }
     
     @Override
     public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (null != this.streamingDesensitizer) {
+            CharSequence source = value instanceof CharSequence ? (CharSequence) value : String.valueOf(value);
+            char[] buffer = getBuffer(source.length());
+            int length = this.streamingDesensitizer.desensitizeTo(source, buffer);
+            if (length >= 0) {
+                gen.writeString(buffer, 0, length);
+                return;
+            }
+        }
         gen.writeString(this.desensitizer.desensitize(value));
     }
+
+    private static char[] getBuffer(int length) {
+        if (length > MAX_CACHED_BUFFER_LENGTH) {
+            return new char[length];
+        }
+        char[] buffer = BUFFER_HOLDER.get();
+        if (buffer.length < length) {
+            buffer = new char[MAX_CACHED_BUFFER_LENGTH];
+            BUFFER_HOLDER.set(buffer);
+        }
+        return buffer;
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.jackson.sensitive;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.galaxy.lemon.common.codec.CodecException;
+import com.galaxy.lemon.framework.desensitization.Desensitization;
+import com.galaxy.lemon.framework.desensitization.DesensitizationConfigurer;
+import com.galaxy.lemon.framework.desensitization.Desensitizer;
+import com.galaxy.lemon.framework.desensitization.Type;
+import com.galaxy.lemon.framework.jackson.log.DefaultLoggingCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志脱敏序列化的基准测试，对比逐字段生成脱敏字符串与{@link DesensitizationJsonSerializer}直接写入JsonGenerator
+ * 通过 {@link #main(String[])} 运行，附带GC profiler，对比 gc.alloc.rate.norm 即每次序列化的分配字节数
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DesensitizationSerializerBenchmark {
+
+    private DefaultLoggingCodec loggingCodec;
+    private ObjectMapper legacyObjectMapper;
+    private CustomerDTO customer;
+
+    @Setup
+    public void setup() {
+        this.loggingCodec = new DefaultLoggingCodec(new ObjectMapper(), null);
+        this.legacyObjectMapper = new ObjectMapper();
+        this.legacyObjectMapper.setSerializerFactory(this.legacyObjectMapper.getSerializerFactory()
+                .withSerializerModifier(new LegacyDesensitizationBeanSerializerModifier(new DesensitizationConfigurer())));
+        this.customer = new CustomerDTO();
+    }
+
+    @Benchmark
+    public String legacy() throws IOException {
+        return this.legacyObjectMapper.writeValueAsString(this.customer);
+    }
+
+    @Benchmark
+    public String streaming() throws CodecException {
+        return this.loggingCodec.writeValueAsString(this.customer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DesensitizationSerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    /**
+     * 原有方式：脱敏器先生成完整的脱敏字符串
+     */
+    static class LegacyDesensitizationBeanSerializerModifier extends DesensitizationBeanSerializerModifier {
+
+        LegacyDesensitizationBeanSerializerModifier(DesensitizationConfigurer configurer) {
+            super(configurer);
+        }
+
+        @Override
+        public DesensitizationJsonSerializer resolveDesensitizationJsonSerializer(Desensitizer desensitizer) {
+            return new DesensitizationJsonSerializer(desensitizer) {
+                @Override
+                public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                    gen.writeString((String) desensitizer.desensitize(value));
+                }
+            };
+        }
+    }
+
+    public static class CustomerDTO {
+        @Desensitization(Type.CHINESE_NAME)
+        private String name = "张三丰";
+        @Desensitization(Type.ID_CARD)
+        private String idCard = "110101199003076532";
+        @Desensitization(Type.MOBILE_NO)
+        private String mobileNo = "13812345678";
+        @Desensitization(Type.EMAIL)
+        private String email = "zhangsanfeng@163.com";
+        @Desensitization(Type.BANK_CARD)
+        private String bankCard = "6222600260001072444";
+        @Desensitization(Type.ADDRESS)
+        private String address = "北京市海淀区中关村大街1号";
+        private String orderNo = "ORD20180101000001";
+        private long amount = 10000L;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getIdCard() {
+            return idCard;
+        }
+
+        public String getMobileNo() {
+            return mobileNo;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getBankCard() {
+            return bankCard;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public String getOrderNo() {
+            return orderNo;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+    }
+}
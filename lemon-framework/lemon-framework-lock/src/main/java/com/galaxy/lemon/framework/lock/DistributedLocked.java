@@ -35,6 +35,14 @@ public @interface DistributedLocked {
      * @return
      */
     String lockName() default "";
+
+    /**
+     * 锁的key，SpEL表达式，可引用方法参数，如 {"#req.debitAcNo", "#req.creditAcNo"}
+     * 表达式结果为集合或数组时展开为多个key；设置了lockName时实际锁名为 lockName:key
+     * 多个锁去重排序后一次获取，全部获取成功才执行方法
+     * @return
+     */
+    String[] keys() default {};
     /**
      * 等待锁超时时间，单位：秒
      * 默认30s
@@ -45,6 +53,7 @@ public @interface DistributedLocked {
     /**
      * 自动解锁时间，单位秒
      * 自动解锁时间一定得大于方法执行时间，否则会导致锁提前释放
+     * 小于等于0时不设固定到期时间，持有锁期间自动续期，适用于执行时间不确定的方法
      * 默认100s
      * @return
      */
@@ -17,7 +17,10 @@
 
 package com.galaxy.lemon.framework.lock;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 分布式锁
@@ -49,4 +52,26 @@ public interface DistributedLocker {
      * @throws Exception
      */
     <T> T lock(String lockName, int leaseTime, int waitTime, Supplier<T> supplier) throws UnableToAcquireLockException;
+
+    /**
+     * 同时获取多个锁，全部获取成功才执行回调，否则一个都不持有
+     * 锁名去重后按字典序加锁，避免不同调用方加锁顺序不一致导致死锁
+     * 默认实现按序嵌套调用{@link #lock(String, int, int, Supplier)}，每个锁分别等待 waitTime
+     * @param lockNames 锁名
+     * @param leaseTime 锁到期自动解锁时间，单位秒
+     * @param waitTime 等待锁时间
+     * @param supplier 获取锁后的回调
+     * @return
+     * @throws UnableToAcquireLockException
+     */
+    default <T> T lock(Collection<String> lockNames, int leaseTime, int waitTime, Supplier<T> supplier) throws UnableToAcquireLockException {
+        List<String> sortedLockNames = lockNames.stream().distinct().sorted().collect(Collectors.toList());
+        Supplier<T> lockedSupplier = supplier;
+        for (int i = sortedLockNames.size() - 1; i >= 0; i--) {
+            String lockName = sortedLockNames.get(i);
+            Supplier<T> innerSupplier = lockedSupplier;
+            lockedSupplier = () -> lock(lockName, leaseTime, waitTime, innerSupplier);
+        }
+        return lockedSupplier.get();
+    }
 }
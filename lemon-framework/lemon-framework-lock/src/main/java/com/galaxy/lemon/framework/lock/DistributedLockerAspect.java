@@ -20,15 +20,27 @@ package com.galaxy.lemon.framework.lock;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.Ordered;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.util.ObjectUtils;
 
 import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.common.utils.StringUtils;
 import com.galaxy.lemon.common.utils.Validate;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 分布式锁Aspect
  * @author <mailto:eleven.hm@vip.163.com">eleven</a>
@@ -41,6 +53,10 @@ import com.galaxy.lemon.common.utils.Validate;
 public class DistributedLockerAspect implements Ordered {
     private static final Logger logger = LoggerFactory.getLogger(DistributedLockerAspect.class);
     
+    private static final String LOCK_NAME_SEPARATOR = ":";
+
+    private final LockKeyExpressionEvaluator lockKeyExpressionEvaluator = new LockKeyExpressionEvaluator();
+    
     @Autowired
     private DistributedLocker distributedLocker;
 
@@ -55,17 +71,27 @@ public class DistributedLockerAspect implements Ordered {
     }
 
     private void doLock(LockMetadata lockMetadata, ProceedingJoinPoint pjp) {
-        Validate.notEmpty(lockMetadata.getLockName());
+        List<String> lockNames = null;
+        if (null != lockMetadata.getKeys() && lockMetadata.getKeys().length > 0) {
+            lockNames = resolveLockNames(lockMetadata, pjp);
+        } else {
+            Validate.notEmpty(lockMetadata.getLockName());
+        }
         try {
-            distributedLocker.lock(lockMetadata.getLockName(), lockMetadata.getLeaseTime(), lockMetadata.getWaitTime(),
-                    () -> proceed(pjp));
+            if (null == lockNames) {
+                distributedLocker.lock(lockMetadata.getLockName(), lockMetadata.getLeaseTime(), lockMetadata.getWaitTime(),
+                        () -> proceed(pjp));
+            } else {
+                distributedLocker.lock(lockNames, lockMetadata.getLeaseTime(), lockMetadata.getWaitTime(),
+                        () -> proceed(pjp));
+            }
         } catch (UnableToAcquireLockException e) {
             if(!(lockMetadata.isIgnoreUnableToAcquiredLockException() || lockMetadata.isIgnoreException())) {
                 throw e;
             }
             if(logger.isWarnEnabled()) {
                 logger.warn("Failed to acquire distributed lock with name {}, lease time {}, wait time {} at method {}",
-                        lockMetadata.getLockName(), lockMetadata.getLeaseTime(), lockMetadata.getWaitTime(), pjp.getSignature().getName());
+                        null == lockNames ? lockMetadata.getLockName() : lockNames, lockMetadata.getLeaseTime(), lockMetadata.getWaitTime(), pjp.getSignature().getName());
             }
         } catch (LemonException e) {
             if(! lockMetadata.isIgnoreException()) {
@@ -84,6 +110,38 @@ public class DistributedLockerAspect implements Ordered {
         }
     }
     
+    /**
+     * 解析{@link DistributedLocked#keys()}，得到本次调用的所有锁名
+     * @param lockMetadata
+     * @param pjp
+     * @return
+     */
+    private List<String> resolveLockNames(LockMetadata lockMetadata, ProceedingJoinPoint pjp) {
+        Object target = pjp.getTarget();
+        Class<?> targetClass = AopUtils.getTargetClass(target);
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) pjp.getSignature()).getMethod(), targetClass);
+        AnnotatedElementKey methodKey = new AnnotatedElementKey(method, targetClass);
+        EvaluationContext evaluationContext = this.lockKeyExpressionEvaluator.createEvaluationContext(method, pjp.getArgs(), target);
+        List<String> lockNames = new ArrayList<>();
+        for (String key : lockMetadata.getKeys()) {
+            Object value = this.lockKeyExpressionEvaluator.key(key, methodKey, evaluationContext);
+            Validate.notNull(value, "Lock key \"%s\" evaluated to null at method %s.", key, method.getName());
+            if (value instanceof Collection) {
+                ((Collection<?>) value).forEach(v -> lockNames.add(lockName(lockMetadata.getLockName(), v)));
+            } else if (value.getClass().isArray()) {
+                Arrays.stream(ObjectUtils.toObjectArray(value)).forEach(v -> lockNames.add(lockName(lockMetadata.getLockName(), v)));
+            } else {
+                lockNames.add(lockName(lockMetadata.getLockName(), value));
+            }
+        }
+        Validate.notEmpty(lockNames, "No lock key resolved at method %s.", method.getName());
+        return lockNames;
+    }
+
+    private static String lockName(String prefix, Object key) {
+        return StringUtils.isEmpty(prefix) ? String.valueOf(key) : prefix + LOCK_NAME_SEPARATOR + key;
+    }
+
     public Object proceed(ProceedingJoinPoint pjp) {
         try {
             return pjp.proceed();
@@ -98,7 +156,7 @@ public class DistributedLockerAspect implements Ordered {
     }
 
     private LockMetadata readMetadata(DistributedLocked distributedLocked) {
-        return new LockMetadata(distributedLocked.lockName(), distributedLocked.waitTime(), distributedLocked.leaseTime(), distributedLocked.ignoreException(), distributedLocked.ignoreUnableToAcquiredLockException());
+        return new LockMetadata(distributedLocked.lockName(), distributedLocked.keys(), distributedLocked.waitTime(), distributedLocked.leaseTime(), distributedLocked.ignoreException(), distributedLocked.ignoreUnableToAcquiredLockException());
     }
 
     private LockMetadata readMetadata(Locked distributedLocked) {
@@ -110,6 +168,10 @@ public class DistributedLockerAspect implements Ordered {
          * 锁名
          */
         private String lockName;
+        /**
+         * 锁key表达式
+         */
+        private String[] keys;
         /**
          * 等待锁超时时间，单位：秒
          * 默认30s
@@ -135,7 +197,12 @@ public class DistributedLockerAspect implements Ordered {
         private boolean ignoreUnableToAcquiredLockException;
 
         public LockMetadata(String lockName, int waitTime, int leaseTime, boolean ignoreException, boolean ignoreUnableToAcquiredLockException) {
+            this(lockName, null, waitTime, leaseTime, ignoreException, ignoreUnableToAcquiredLockException);
+        }
+
+        public LockMetadata(String lockName, String[] keys, int waitTime, int leaseTime, boolean ignoreException, boolean ignoreUnableToAcquiredLockException) {
             this.lockName = lockName;
+            this.keys = keys;
             this.waitTime = waitTime;
             this.leaseTime = leaseTime;
             this.ignoreException = ignoreException;
@@ -150,6 +217,14 @@ public class DistributedLockerAspect implements Ordered {
             this.lockName = lockName;
         }
 
+        public String[] getKeys() {
+            return keys;
+        }
+
+        public void setKeys(String[] keys) {
+            this.keys = keys;
+        }
+
         public int getWaitTime() {
             return waitTime;
         }
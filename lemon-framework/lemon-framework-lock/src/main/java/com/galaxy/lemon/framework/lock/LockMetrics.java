@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.lock;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按锁名统计获取锁耗时及竞争情况
+ * <p>
+ * 锁名数量超过{@link #getMaxLockNames()}后，新锁名统一计入{@link #OTHERS}
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see LockStatistics
+ * @since 1.0.0
+ */
+
+public class LockMetrics {
+    public static final String OTHERS = "_others";
+    public static final int DEFAULT_MAX_LOCK_NAMES = 1000;
+
+    private final ConcurrentHashMap<String, LockStatistics> statistics = new ConcurrentHashMap<>();
+    private final int maxLockNames;
+
+    public LockMetrics() {
+        this(DEFAULT_MAX_LOCK_NAMES);
+    }
+
+    public LockMetrics(int maxLockNames) {
+        this.maxLockNames = maxLockNames;
+    }
+
+    public LockStatistics getStatistics(String lockName) {
+        LockStatistics lockStatistics = this.statistics.get(lockName);
+        if (null != lockStatistics) {
+            return lockStatistics;
+        }
+        return this.statistics.computeIfAbsent(this.statistics.size() < this.maxLockNames ? lockName : OTHERS, k -> new LockStatistics());
+    }
+
+    public Map<String, LockStatistics> getAllStatistics() {
+        return Collections.unmodifiableMap(this.statistics);
+    }
+
+    public int getMaxLockNames() {
+        return maxLockNames;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个锁名的统计
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see LockMetrics
+ * @since 1.0.0
+ */
+
+public class LockStatistics {
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    /**
+     * 本地条带锁已被其他线程持有的次数
+     */
+    private final LongAdder localContendedCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0L);
+
+    void recordAcquired(long nanos, boolean localContended) {
+        this.acquiredCount.increment();
+        this.acquireNanos.add(nanos);
+        this.maxAcquireNanos.accumulate(nanos);
+        if (localContended) {
+            this.localContendedCount.increment();
+        }
+    }
+
+    void recordFailed(boolean localContended) {
+        this.failedCount.increment();
+        if (localContended) {
+            this.localContendedCount.increment();
+        }
+    }
+
+    void recordReleased(long holdNanos) {
+        this.holdNanos.add(holdNanos);
+        this.maxHoldNanos.accumulate(holdNanos);
+    }
+
+    public long getAcquiredCount() {
+        return this.acquiredCount.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    public long getLocalContendedCount() {
+        return this.localContendedCount.sum();
+    }
+
+    public double getMeanAcquireMillis() {
+        return mean(this.acquireNanos.sum(), getAcquiredCount());
+    }
+
+    public long getMaxAcquireMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxAcquireNanos.get());
+    }
+
+    public double getMeanHoldMillis() {
+        return mean(this.holdNanos.sum(), getAcquiredCount());
+    }
+
+    public long getMaxHoldMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxHoldNanos.get());
+    }
+
+    private static double mean(long nanos, long count) {
+        return count == 0 ? 0D : nanos / 1_000_000D / count;
+    }
+
+    @Override
+    public String toString() {
+        return "LockStatistics{acquired=" + getAcquiredCount() + ", failed=" + getFailedCount()
+                + ", localContended=" + getLocalContendedCount() + ", meanAcquireMillis=" + getMeanAcquireMillis()
+                + ", maxAcquireMillis=" + getMaxAcquireMillis() + ", meanHoldMillis=" + getMeanHoldMillis()
+                + ", maxHoldMillis=" + getMaxHoldMillis() + "}";
+    }
+}
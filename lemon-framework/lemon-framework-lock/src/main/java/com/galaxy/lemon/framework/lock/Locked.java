@@ -61,6 +61,7 @@ public @interface Locked {
     /**
      * 自动解锁时间，单位秒
      * 自动解锁时间一定得大于方法执行时间，否则会导致锁提前释放
+     * 小于等于0时不设固定到期时间，持有锁期间自动续期，适用于执行时间不确定的方法
      * 默认100s
      * @return
      */
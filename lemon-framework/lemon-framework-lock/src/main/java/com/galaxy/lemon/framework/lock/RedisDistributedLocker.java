@@ -17,16 +17,23 @@
 
 package com.galaxy.lemon.framework.lock;
 
-import com.galaxy.lemon.common.utils.DateTimeUtils;
 import com.galaxy.lemon.common.utils.Validate;
+import org.redisson.RedissonMultiLock;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.function.Supplier;
 
 /**
@@ -40,12 +47,23 @@ public class RedisDistributedLocker implements DistributedLocker, InitializingBe
     private static final Logger logger = LoggerFactory.getLogger(RedisDistributedLocker.class);
     
     private final static String LOCKER_PREFIX = "LOCK:";
+
+    public static final int DEFAULT_LOCAL_STRIPES = 256;
+
+    /**
+     * redisson 按看门狗超时自动续期
+     */
+    private static final long WATCHDOG_LEASE_TIME = -1L;
     
     private Integer defaultLeaseTime;
     
     private Integer defaultWaitTime;
     
     private RedissonClient redissonClient;
+
+    private StripedLock stripedLock;
+
+    private LockMetrics lockMetrics;
     
     /**
      * @param redissonClient    redisson client
@@ -55,9 +73,26 @@ public class RedisDistributedLocker implements DistributedLocker, InitializingBe
     public RedisDistributedLocker(RedissonClient redissonClient,
                                   Integer defaultLeaseTime,
                                   Integer defaultWaitTime) {
+        this(redissonClient, defaultLeaseTime, defaultWaitTime, DEFAULT_LOCAL_STRIPES, new LockMetrics());
+    }
+
+    /**
+     * @param redissonClient    redisson client
+     * @param defaultLeaseTime  默认自动解锁时间，小于等于0时由看门狗自动续期
+     * @param defaultWaitTime   默认的获取锁等待时间
+     * @param localStripes      本地条带锁数量，小于等于0时不使用本地锁
+     * @param lockMetrics       锁统计
+     */
+    public RedisDistributedLocker(RedissonClient redissonClient,
+                                  Integer defaultLeaseTime,
+                                  Integer defaultWaitTime,
+                                  int localStripes,
+                                  LockMetrics lockMetrics) {
         this.redissonClient = redissonClient;
         this.defaultLeaseTime = defaultLeaseTime;
         this.defaultWaitTime = defaultWaitTime;
+        this.stripedLock = localStripes > 0 ? new StripedLock(localStripes) : null;
+        this.lockMetrics = lockMetrics;
     }
     
     @Override
@@ -66,32 +101,153 @@ public class RedisDistributedLocker implements DistributedLocker, InitializingBe
         return lock(lockName, this.defaultLeaseTime, defaultWaitTime, supplier);
     }
 
+    /**
+     * 同名锁先在本地条带锁上排队，获取本地锁后再竞争分布式锁，两者的等待时间合计不超过 waitTime
+     * 本地锁在获取分布式锁成功或失败后即释放，不在执行supplier期间持有
+     * @param lockName
+     * @param leaseTime 锁到期自动解锁时间，单位秒；小于等于0时由看门狗自动续期，直到解锁
+     * @param waitTime 等待锁时间
+     * @param supplier
+     * @return
+     * @throws UnableToAcquireLockException
+     */
     @Override
     public <T> T lock(String lockName, int leaseTime, int waitTime, Supplier<T> supplier)
             throws UnableToAcquireLockException {
         RLock lock = redissonClient.getLock(LOCKER_PREFIX + lockName);
-        Instant startInstant = Instant.now();
+        return doLock(Collections.singletonList(lockName), lock, lock::tryLock, leaseTime, waitTime, supplier);
+    }
+
+    /**
+     * 多个锁全部获取成功或全部不持有
+     * 先对全部锁名同时发出不等待的异步加锁，命令在同一轮往返内发出；全部成功即返回，否则释放已获取的锁，
+     * 再退回{@link RedissonMultiLock}按顺序逐个等待加锁（每个锁名一次redis往返）
+     * 未使用单个lua脚本原子获取，因为集群模式下不同slot的key无法在同一脚本中操作，且自定义脚本无法复用redisson的锁格式与看门狗续期
+     * @param lockNames
+     * @param leaseTime 锁到期自动解锁时间，单位秒；小于等于0时由看门狗自动续期，直到解锁
+     * @param waitTime 等待锁时间
+     * @param supplier
+     * @return
+     * @throws UnableToAcquireLockException
+     */
+    @Override
+    public <T> T lock(Collection<String> lockNames, int leaseTime, int waitTime, Supplier<T> supplier)
+            throws UnableToAcquireLockException {
+        Validate.notEmpty(lockNames, "Lock names must not be empty.");
+        List<String> sortedLockNames = lockNames.stream().distinct().sorted().collect(Collectors.toList());
+        if (sortedLockNames.size() == 1) {
+            return lock(sortedLockNames.get(0), leaseTime, waitTime, supplier);
+        }
+        RLock[] locks = sortedLockNames.stream().map(n -> redissonClient.getLock(LOCKER_PREFIX + n)).toArray(RLock[]::new);
+        RedissonMultiLock multiLock = new RedissonMultiLock(locks);
+        return doLock(sortedLockNames, multiLock, (wait, lease, unit) -> {
+            long startNanos = System.nanoTime();
+            if (tryLockAllAtOnce(locks, lease, unit)) {
+                return true;
+            }
+            long remainingWait = wait - unit.convert(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            return multiLock.tryLock(Math.max(remainingWait, 0L), lease, unit);
+        }, leaseTime, waitTime, supplier);
+    }
+
+    /**
+     * 同时对全部锁发出不等待的异步加锁，任意一个失败则释放已获取的锁
+     * @param locks
+     * @param leaseTime
+     * @param unit
+     * @return 全部获取成功返回true
+     */
+    private boolean tryLockAllAtOnce(RLock[] locks, long leaseTime, TimeUnit unit) {
+        List<RFuture<Boolean>> futures = new ArrayList<>(locks.length);
+        for (RLock lock : locks) {
+            futures.add(lock.tryLockAsync(0L, leaseTime, unit));
+        }
+        List<RLock> acquiredLocks = new ArrayList<>(locks.length);
+        for (int i = 0; i < locks.length; i++) {
+            RFuture<Boolean> future = futures.get(i).awaitUninterruptibly();
+            if (future.isSuccess() && Boolean.TRUE.equals(future.getNow())) {
+                acquiredLocks.add(locks[i]);
+            }
+        }
+        if (acquiredLocks.size() == locks.length) {
+            return true;
+        }
+        List<RFuture<Void>> unlockFutures = acquiredLocks.stream().map(RLock::unlockAsync).collect(Collectors.toList());
+        for (RFuture<Void> unlockFuture : unlockFutures) {
+            if (!unlockFuture.awaitUninterruptibly().isSuccess()) {
+                logger.warn("Failed to release lock after partial acquisition.", unlockFuture.cause());
+            }
+        }
+        return false;
+    }
+
+    private <T> T doLock(List<String> lockNames, Lock lock, LeaseTryLock leaseTryLock, int leaseTime, int waitTime,
+                         Supplier<T> supplier) {
+        List<LockStatistics> statistics = lockNames.stream().map(this.lockMetrics::getStatistics).collect(Collectors.toList());
+        long startNanos = System.nanoTime();
+        long waitNanos = TimeUnit.SECONDS.toNanos(waitTime);
+        List<ReentrantLock> localLocks = null == this.stripedLock ? Collections.emptyList() : this.stripedLock.get(lockNames);
+        boolean localContended = false;
+        int localAcquired = 0;
         boolean acquired;
         try {
-            acquired = lock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            for (ReentrantLock localLock : localLocks) {
+                if (!localLock.tryLock()) {
+                    localContended = true;
+                    if (!localLock.tryLock(waitNanos - (System.nanoTime() - startNanos), TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                }
+                localAcquired++;
+            }
+            if (localAcquired < localLocks.size()) {
+                recordFailed(statistics, localContended);
+                throw new UnableToAcquireLockException();
+            }
+            acquired = leaseTryLock.tryLock(TimeUnit.NANOSECONDS.toMillis(Math.max(waitNanos - (System.nanoTime() - startNanos), 0L)),
+                    leaseTime > 0 ? TimeUnit.SECONDS.toMillis(leaseTime) : WATCHDOG_LEASE_TIME, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordFailed(statistics, localContended);
             throw new UnableToAcquireLockException(e);
+        } finally {
+            //本地锁只用于合并分布式锁的竞争，不在临界区内持有，避免同条带的不同锁名互相阻塞
+            for (int i = localAcquired - 1; i >= 0; i--) {
+                localLocks.get(i).unlock();
+            }
+        }
+        if (!acquired) {
+            recordFailed(statistics, localContended);
+            throw new UnableToAcquireLockException();
         }
+        return doInLock(lockNames, lock, startNanos, localContended, statistics, supplier);
+    }
 
-        if (acquired) {
+    private <T> T doInLock(List<String> lockNames, Lock lock, long startNanos, boolean localContended,
+                           List<LockStatistics> statistics, Supplier<T> supplier) {
+        long acquiredNanos = System.nanoTime();
+        statistics.forEach(s -> s.recordAcquired(acquiredNanos - startNanos, localContended));
+        if(logger.isDebugEnabled()) {
+            logger.debug("Acquired distributed lock {}, wait time {}/ms. ", lockNames, TimeUnit.NANOSECONDS.toMillis(acquiredNanos - startNanos));
+        }
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+            long releasedNanos = System.nanoTime();
+            statistics.forEach(s -> s.recordReleased(releasedNanos - acquiredNanos));
             if(logger.isDebugEnabled()) {
-                logger.debug("Acquired distributed lock {}, wait time {}/ms. ", lockName, DateTimeUtils.durationMillis(startInstant, Instant.now()));
-            }
-            try {
-                return supplier.get();
-            } finally {
-                lock.unlock();
-                if(logger.isDebugEnabled()) {
-                    logger.debug("Release distributed lock {}. used lock time {}/ms", lockName, DateTimeUtils.durationMillis(startInstant, Instant.now()));
-                }
+                logger.debug("Release distributed lock {}. used lock time {}/ms", lockNames, TimeUnit.NANOSECONDS.toMillis(releasedNanos - startNanos));
             }
         }
-        throw new UnableToAcquireLockException();
+    }
+
+    private void recordFailed(List<LockStatistics> statistics, boolean localContended) {
+        statistics.forEach(s -> s.recordFailed(localContended));
+    }
+
+    public LockMetrics getLockMetrics() {
+        return lockMetrics;
     }
 
     @Override
@@ -99,6 +255,11 @@ public class RedisDistributedLocker implements DistributedLocker, InitializingBe
         Validate.notNull(this.defaultLeaseTime, "Default expire time must not be null, please configure with key \"lemon.lock.defaultLeaseTime\"");
         Validate.notNull(this.defaultWaitTime, "Default expire time must not be null, please configure with key \"lemon.lock.defaultWaitTime\"");
         Validate.notNull(this.redissonClient, "Redisson client can not be null.");
+        Validate.notNull(this.lockMetrics, "Lock metrics can not be null.");
     }
 
+    @FunctionalInterface
+    private interface LeaseTryLock {
+        boolean tryLock(long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException;
+    }
 }
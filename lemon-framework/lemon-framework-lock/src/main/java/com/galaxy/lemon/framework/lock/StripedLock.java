@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.lock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内条带锁，同名锁的竞争者先在本地排队，只有一个线程去竞争分布式锁
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see RedisDistributedLocker
+ * @since 1.0.0
+ */
+
+public class StripedLock {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes 条带数，向上取2的幂
+     */
+    public StripedLock(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock get(String lockName) {
+        return this.locks[indexOf(lockName)];
+    }
+
+    /**
+     * 多个锁名对应的条带锁，去重并按条带下标排序，按此顺序加锁不会相互死锁
+     * @param lockNames
+     * @return
+     */
+    public List<ReentrantLock> get(Collection<String> lockNames) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        lockNames.forEach(n -> indexes.add(indexOf(n)));
+        List<ReentrantLock> result = new ArrayList<>(indexes.size());
+        indexes.forEach(i -> result.add(this.locks[i]));
+        return result;
+    }
+
+    private int indexOf(String lockName) {
+        int h = lockName.hashCode();
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+
+    public int size() {
+        return this.locks.length;
+    }
+}
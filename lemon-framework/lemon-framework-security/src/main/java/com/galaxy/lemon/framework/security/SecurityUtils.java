@@ -17,6 +17,7 @@
 
 package com.galaxy.lemon.framework.security;
 
+import com.galaxy.lemon.common.context.ContextKey;
 import com.galaxy.lemon.common.context.LemonContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -32,6 +33,7 @@ import java.util.Optional;
 public class SecurityUtils {
     
     public static final String LEMON_CONTEXT_LOGIN_USER_INFO = "LEMON_CONTEXT_LOGIN_USER_INFO";
+    private static final ContextKey<UserInfoBase> LOGIN_USER_INFO_CONTEXT_KEY = ContextKey.of(LEMON_CONTEXT_LOGIN_USER_INFO);
     /**
      * 获取登录用户信息
      * @return
@@ -48,7 +50,7 @@ public class SecurityUtils {
      * @return
      */
     public static UserInfoBase getLoginUserAfterLoginRequest() {
-        return Optional.ofNullable(LemonContext.getCurrentContext()).map(c -> c.get(LEMON_CONTEXT_LOGIN_USER_INFO)).map(UserInfoBase.class::cast).orElse(null);
+        return LemonContext.getCurrentContext().get(LOGIN_USER_INFO_CONTEXT_KEY);
     }
     
     /**
@@ -56,7 +58,7 @@ public class SecurityUtils {
      * @param userInfo
      */
     public static void setLoginUserAfterLoginRequest(UserInfoBase userInfo) {
-        LemonContext.getCurrentContext().put(LEMON_CONTEXT_LOGIN_USER_INFO, userInfo);
+        LemonContext.getCurrentContext().put(LOGIN_USER_INFO_CONTEXT_KEY, userInfo);
     }
     
     /**
@@ -21,9 +21,6 @@ import com.galaxy.lemon.common.context.LemonContext;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.extension.SpringExtensionLoader;
-import com.galaxy.lemon.common.security.Digests;
-import com.galaxy.lemon.common.utils.Encodes;
-import com.galaxy.lemon.common.utils.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,21 +105,20 @@ public abstract class AbstractSignatureVerifier<T> implements SignatureVerifier<
         String secure = signatureMetadata.getSecure();
         boolean customizeVerifyFlag = false;
         boolean flag = false;
-        String content = null;
         String signedMsg = null;
-        String contentSignedValue = null;
         switch (algorithm) {
             case MD5:
-                content = resolveSignatureContent(signatureDataSource);
-                signedMsg = resolveSignatureSignedValue(signatureDataSource);
-                contentSignedValue = Encodes.encodeHex(Digests.md5((content + secure).getBytes()));
-                flag = StringUtils.equals(signedMsg, contentSignedValue);
-                break;
             case SHA1:
-                content = resolveSignatureContent(signatureDataSource);
+            case HMAC_SHA256:
+            case RSA:
                 signedMsg = resolveSignatureSignedValue(signatureDataSource);
-                contentSignedValue = Encodes.encodeHex(Digests.sha1((content + secure).getBytes()));
-                flag = StringUtils.equals(signedMsg, contentSignedValue);
+                SignatureDigester signatureDigester = SignatureDigester.of(algorithm, secure);
+                try {
+                    writeSignatureContent(signatureDataSource, signatureDigester);
+                    flag = signatureDigester.verify(signedMsg);
+                } finally {
+                    signatureDigester.reset();
+                }
                 break;
             case CUSTOMIZE:
                 customizeVerifyFlag = true;
@@ -139,14 +135,24 @@ public abstract class AbstractSignatureVerifier<T> implements SignatureVerifier<
             if(customizeVerifyFlag ) {
                 logger.error("Failed to do signature verify by customizer \"{}\".", secure);
             } else {
-                logger.error("Failed to do signature verify, signed value \"{}\", content \"{}\", secure \"{}\", algorithm \"{}\", required signed value \"{}\".",
-                        signedMsg, content, secure, algorithm, contentSignedValue);
+                logger.error("Failed to do signature verify, signed value \"{}\", secure \"{}\", algorithm \"{}\".",
+                        signedMsg, secure, algorithm);
             }
         }
 
         return flag;
     }
 
+    /**
+     * 写入需要验签的内容，子类可覆盖以直接写入请求体字节流
+     * @param signatureDataSource
+     * @param signatureDigester
+     */
+    protected void writeSignatureContent(SignatureDataSource<T> signatureDataSource, SignatureDigester signatureDigester) {
+        //与 content + secure 的拼接结果保持一致
+        signatureDigester.update(String.valueOf(resolveSignatureContent(signatureDataSource)));
+    }
+
     /**
      * 已签名的内容
      * @return
@@ -25,5 +25,5 @@ package com.galaxy.lemon.framework.signature;
  */
 
 public enum Algorithm {
-    MD5, SHA1, RSA, CUSTOMIZE
+    MD5, SHA1, HMAC_SHA256, RSA, CUSTOMIZE
 }
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.signature;
+
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.common.utils.Encodes;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式验签摘要
+ * 验签内容可分段写入，MessageDigest/Mac/Signature 按线程复用，签名值采用定长时间比较
+ * 同一线程同一时刻只能使用一个同算法的实例
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see Algorithm
+ * @since 1.0.0
+ */
+
+public abstract class SignatureDigester {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> getInstance(() -> MessageDigest.getInstance("MD5")));
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> getInstance(() -> MessageDigest.getInstance("SHA-1")));
+    private static final ThreadLocal<Mac> HMAC_SHA256 = ThreadLocal.withInitial(() -> getInstance(() -> Mac.getInstance("HmacSHA256")));
+    private static final ThreadLocal<Signature> SHA256_WITH_RSA = ThreadLocal.withInitial(() -> getInstance(() -> Signature.getInstance("SHA256withRSA")));
+
+    private static final Map<String, PublicKey> PUBLIC_KEYS = new ConcurrentHashMap<>();
+
+    private boolean hasText;
+
+    /**
+     * 获取算法对应的验签摘要
+     * @param algorithm 签名算法
+     * @param secure MD5/SHA1为拼接在内容后的密钥，HMAC_SHA256为HMAC密钥，RSA为Base64编码的X.509公钥
+     * @return
+     */
+    public static SignatureDigester of(Algorithm algorithm, String secure) {
+        switch (algorithm) {
+            case MD5:
+                return new MessageDigestSignatureDigester(MD5.get(), secure);
+            case SHA1:
+                return new MessageDigestSignatureDigester(SHA1.get(), secure);
+            case HMAC_SHA256:
+                return new MacSignatureDigester(HMAC_SHA256.get(), requireSecure(algorithm, secure));
+            case RSA:
+                return new RSASignatureDigester(SHA256_WITH_RSA.get(), requireSecure(algorithm, secure));
+            default:
+                throw LemonException.create(ErrorMsgCode.SIGNATURE_EXCEPTION.getMsgCd(), "Does not support algorithm \"" + algorithm + "\" for streaming signature.");
+        }
+    }
+
+    /**
+     * 写入验签内容
+     * @param input
+     * @param offset
+     * @param length
+     */
+    public void update(byte[] input, int offset, int length) {
+        if (! this.hasText) {
+            this.hasText = containsText(input, offset, length);
+        }
+        doUpdate(input, offset, length);
+    }
+
+    public void update(byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    /**
+     * 写入验签内容，与 String.getBytes() 编码一致
+     * @param content
+     */
+    public void update(String content) {
+        update(content.getBytes());
+    }
+
+    /**
+     * 读取流并写入验签内容，不关闭流
+     * @param input
+     * @return 写入的字节数
+     * @throws IOException
+     */
+    public long update(InputStream input) throws IOException {
+        byte[] buffer = BUFFER.get();
+        long count = 0;
+        int read;
+        while ((read = input.read(buffer, 0, buffer.length)) > -1) {
+            update(buffer, 0, read);
+            count += read;
+        }
+        return count;
+    }
+
+    /**
+     * 已写入的内容是否包含非空白字符
+     * @return
+     */
+    public boolean hasText() {
+        return this.hasText;
+    }
+
+    /**
+     * 丢弃已写入的内容
+     */
+    public void reset() {
+        this.hasText = false;
+        doReset();
+    }
+
+    /**
+     * 结束写入并与签名值比较，完成后实例被重置
+     * @param signedValue 请求方的签名值
+     * @return
+     */
+    public boolean verify(String signedValue) {
+        try {
+            return null != signedValue && doVerify(signedValue);
+        } finally {
+            reset();
+        }
+    }
+
+    protected abstract void doUpdate(byte[] input, int offset, int length);
+
+    protected abstract void doReset();
+
+    protected abstract boolean doVerify(String signedValue);
+
+    /**
+     * 与十六进制小写签名值做定长时间比较
+     * @param digest
+     * @param signedValue
+     * @return
+     */
+    protected static boolean hexEquals(byte[] digest, String signedValue) {
+        int length = signedValue.length();
+        int result = length ^ (digest.length << 1);
+        for (int i = 0; i < digest.length << 1; i++) {
+            int b = digest[i >> 1];
+            char expected = HEX_DIGITS[(i & 1) == 0 ? (b >> 4) & 0x0F : b & 0x0F];
+            char actual = i < length ? signedValue.charAt(i) : 0;
+            result |= expected ^ actual;
+        }
+        return result == 0;
+    }
+
+    private static String requireSecure(Algorithm algorithm, String secure) {
+        if (null == secure || secure.isEmpty()) {
+            throw new AbstractSignatureVerifier.InvalidSignatureException("Secure of algorithm \"" + algorithm + "\" must not be empty.");
+        }
+        return secure;
+    }
+
+    private static boolean containsText(byte[] input, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            byte b = input[i];
+            if (b != ' ' && (b < 0x09 || b > 0x0D) && (b < 0x1C || b > 0x1F)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <E> E getInstance(EngineSupplier<E> supplier) {
+        try {
+            return supplier.get();
+        } catch (GeneralSecurityException e) {
+            throw LemonException.create(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EngineSupplier<E> {
+        E get() throws GeneralSecurityException;
+    }
+
+    /**
+     * MD5/SHA1, 摘要内容为 content + secure
+     */
+    private static class MessageDigestSignatureDigester extends SignatureDigester {
+        private final MessageDigest messageDigest;
+        private final String secure;
+
+        MessageDigestSignatureDigester(MessageDigest messageDigest, String secure) {
+            this.messageDigest = messageDigest;
+            this.secure = secure;
+            this.messageDigest.reset();
+        }
+
+        @Override
+        protected void doUpdate(byte[] input, int offset, int length) {
+            this.messageDigest.update(input, offset, length);
+        }
+
+        @Override
+        protected void doReset() {
+            this.messageDigest.reset();
+        }
+
+        @Override
+        protected boolean doVerify(String signedValue) {
+            this.messageDigest.update(String.valueOf(this.secure).getBytes());
+            return hexEquals(this.messageDigest.digest(), signedValue);
+        }
+    }
+
+    /**
+     * HMAC-SHA256, 以UTF-8编码的secure为密钥
+     */
+    private static class MacSignatureDigester extends SignatureDigester {
+        private final Mac mac;
+
+        MacSignatureDigester(Mac mac, String secure) {
+            this.mac = mac;
+            try {
+                this.mac.init(new SecretKeySpec(secure.getBytes(StandardCharsets.UTF_8), mac.getAlgorithm()));
+            } catch (GeneralSecurityException e) {
+                throw new AbstractSignatureVerifier.InvalidSignatureException("Invalid HMAC secure key.");
+            }
+        }
+
+        @Override
+        protected void doUpdate(byte[] input, int offset, int length) {
+            this.mac.update(input, offset, length);
+        }
+
+        @Override
+        protected void doReset() {
+            this.mac.reset();
+        }
+
+        @Override
+        protected boolean doVerify(String signedValue) {
+            return hexEquals(this.mac.doFinal(), signedValue);
+        }
+    }
+
+    /**
+     * SHA256withRSA, 签名值为Base64编码
+     */
+    private static class RSASignatureDigester extends SignatureDigester {
+        private final Signature signature;
+        private final PublicKey publicKey;
+
+        RSASignatureDigester(Signature signature, String secure) {
+            this.signature = signature;
+            this.publicKey = PUBLIC_KEYS.computeIfAbsent(secure, RSASignatureDigester::generatePublicKey);
+            doReset();
+        }
+
+        @Override
+        protected void doUpdate(byte[] input, int offset, int length) {
+            try {
+                this.signature.update(input, offset, length);
+            } catch (SignatureException e) {
+                throw LemonException.create(e);
+            }
+        }
+
+        @Override
+        protected void doReset() {
+            try {
+                this.signature.initVerify(this.publicKey);
+            } catch (GeneralSecurityException e) {
+                throw new AbstractSignatureVerifier.InvalidSignatureException("Invalid RSA public key.");
+            }
+        }
+
+        @Override
+        protected boolean doVerify(String signedValue) {
+            try {
+                return this.signature.verify(Encodes.decodeBase64(signedValue));
+            } catch (SignatureException e) {
+                return false;
+            }
+        }
+
+        private static PublicKey generatePublicKey(String secure) {
+            try {
+                return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Encodes.decodeBase64(secure)));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                throw new AbstractSignatureVerifier.InvalidSignatureException("Invalid RSA public key.");
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream;
+
+import com.galaxy.lemon.common.ExposeBeanName;
+import com.galaxy.lemon.framework.data.BaseDTO;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量消息handler接口
+ * <p>
+ * 开启批量监听后，同一handler的消息按条数或时间聚合后一次交给{@link #onMessagesReceive(List, List)}，
+ * 便于handler使用JDBC批量操作并在一个事务内提交；未开启时逐条调用{@link #onMessageReceive(BaseDTO)}
+ * <p>
+ * 批量处理抛出异常时整批消息都不会被确认，由binder重新投递，handler需保证重复消费幂等
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see com.galaxy.lemon.framework.stream.consumer.DefaultInputConsumer#BATCH_LISTENER_ENABLE
+ * @since 1.0.0
+ */
+
+public interface BatchMessageHandler<T, D extends BaseDTO<T> & ExposeBeanName> extends MessageHandler<T, D> {
+
+    /**
+     * 批量处理消息，调用期间{@link LemonDataHolder}中不绑定任何消息的LemonData
+     * @param cmdDtos    消息
+     * @param lemonDatas 与cmdDtos按下标一一对应的LemonData，按单条消息的上下文处理时通过{@link LemonDataHolder#setLemonData}绑定
+     */
+    void onMessagesReceive(List<D> cmdDtos, List<BaseLemonData> lemonDatas);
+
+    @Override
+    default void onMessageReceive(D cmdDto) {
+        onMessagesReceive(Collections.singletonList(cmdDto), Collections.singletonList(LemonDataHolder.getLemonData()));
+    }
+}
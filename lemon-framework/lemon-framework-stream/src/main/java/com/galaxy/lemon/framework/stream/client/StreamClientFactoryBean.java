@@ -28,6 +28,7 @@ import com.galaxy.lemon.framework.data.LemonDataHolder;
 import com.galaxy.lemon.framework.data.instantiator.CommandDTOInstantiator;
 import com.galaxy.lemon.framework.stream.BindingNameDecorator;
 import com.galaxy.lemon.framework.stream.Source;
+import com.galaxy.lemon.framework.stream.outbox.OutboxWriter;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
@@ -76,6 +77,8 @@ public class StreamClientFactoryBean implements MethodInterceptor, FactoryBean<O
     private List<RequestInterceptor> requestInterceptors;
     @Autowired(required = false)
     private BindingNameDecorator bindingNameDecorator;
+    @Autowired(required = false)
+    private OutboxWriter outboxWriter;
 
     private Map<Method, StreamMetadata> streamMetadataMap = new HashMap<>();
 
@@ -131,6 +134,10 @@ public class StreamClientFactoryBean implements MethodInterceptor, FactoryBean<O
     }
 
     private void sendMessage(Method method, BaseDTO commandDTO) {
+        if (null != this.outboxWriter) {
+            this.outboxWriter.write(this.streamMetadataMap.get(method).getBindingName(), commandDTO);
+            return;
+        }
         this.messageChannelCache.get(method).send(MessageBuilder.withPayload(commandDTO).build());
     }
 
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.consumer;
+
+import com.galaxy.lemon.common.NamedThreadFactory;
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.framework.data.BaseDTO;
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.LemonDataHolder;
+import com.galaxy.lemon.framework.stream.BatchMessageHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量消息分发
+ * <p>
+ * 监听线程将消息入队后阻塞，直到消息所在批次处理完成；处理失败时异常抛回监听线程，由binder重新投递，
+ * 因此消息只有在批次处理成功后才会被确认。分发线程每次最多取 batchSize 条或等待 batchTimeout 毫秒，
+ * 按handler分组后调用{@link BatchMessageHandler#onMessagesReceive(List, List)}
+ * <p>
+ * 每个监听线程同时只有一条消息在批次中，批次大小不超过消费者并发数(spring.cloud.stream.bindings.input.consumer.concurrency)，
+ * 所有监听线程都在等待时立即分发，不再等待 batchTimeout
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see DefaultInputConsumer
+ * @since 1.0.0
+ */
+
+public class BatchMessageDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(BatchMessageDispatcher.class);
+
+    private static final long IDLE_POLL_MILLIS = 1000L;
+
+    private final long batchTimeout;
+    /**
+     * 单批最大条数，取 batchSize 与消费者并发数的较小值
+     */
+    private final int maxBatchSize;
+    private final BlockingQueue<Entry> queue;
+    private final ExecutorService dispatchExecutor;
+    private volatile boolean running = true;
+
+    /**
+     * @param batchSize    每批最大条数
+     * @param batchTimeout 每批最长等待时间，单位毫秒
+     */
+    public BatchMessageDispatcher(int batchSize, long batchTimeout) {
+        this(batchSize, batchTimeout, batchSize);
+    }
+
+    /**
+     * @param batchSize    每批最大条数
+     * @param batchTimeout 每批最长等待时间，单位毫秒
+     * @param concurrency  消费者并发数，即同时等待的监听线程数上限
+     */
+    public BatchMessageDispatcher(int batchSize, long batchTimeout, int concurrency) {
+        this.batchTimeout = batchTimeout;
+        this.maxBatchSize = Math.max(1, Math.min(batchSize, concurrency));
+        this.queue = new ArrayBlockingQueue<>(batchSize * 2);
+        this.dispatchExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("lemon-input-batch", true));
+        this.dispatchExecutor.execute(this::dispatchLoop);
+    }
+
+    /**
+     * 消息入队并阻塞，直到所在批次处理完成，处理失败时抛出异常
+     * 等待分发时被中断则撤回消息并抛出异常；已开始处理的消息会等待处理结果
+     * @param handler
+     * @param cmdDto
+     * @param lemonData 当前消息对应的LemonData
+     */
+    public void dispatch(BatchMessageHandler<?, ?> handler, BaseDTO<?> cmdDto, BaseLemonData lemonData) {
+        if (!this.running) {
+            LemonException.throwLemonException(ErrorMsgCode.CONSUMER_RABBIT_EXCEPTION, "Batch message dispatcher is shutting down, message " + cmdDto.getRequestId() + " is rejected.");
+        }
+        Entry entry = new Entry(handler, cmdDto, lemonData);
+        try {
+            this.queue.put(entry);
+            entry.completed.await();
+        } catch (InterruptedException e) {
+            if (entry.state.compareAndSet(Entry.PENDING, Entry.CANCELLED)) {
+                Thread.currentThread().interrupt();
+                throw LemonException.create(e);
+            }
+            //已交给handler，等待处理结果后再返回
+            awaitUninterruptibly(entry);
+            Thread.currentThread().interrupt();
+        }
+        if (null != entry.failure) {
+            if (entry.failure instanceof RuntimeException) {
+                throw (RuntimeException) entry.failure;
+            }
+            if (entry.failure instanceof Error) {
+                throw (Error) entry.failure;
+            }
+            throw LemonException.create(entry.failure);
+        }
+    }
+
+    private void awaitUninterruptibly(Entry entry) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                entry.completed.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止分发，处理完队列中剩余的消息；超时未处理的消息以失败返回给监听线程
+     */
+    public void shutdown() {
+        this.running = false;
+        this.dispatchExecutor.shutdown();
+        try {
+            if (!this.dispatchExecutor.awaitTermination(this.batchTimeout + IDLE_POLL_MILLIS * 10, TimeUnit.MILLISECONDS)) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Batch message dispatcher did not terminate in time, {} messages remain.", this.queue.size());
+                }
+                failRemaining();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failRemaining();
+        }
+    }
+
+    private void failRemaining() {
+        List<Entry> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        LemonException failure = LemonException.create(ErrorMsgCode.CONSUMER_RABBIT_EXCEPTION, "Batch message dispatcher has been shut down.");
+        remaining.stream().filter(e -> e.state.compareAndSet(Entry.PENDING, Entry.DISPATCHED)).forEach(e -> e.complete(failure));
+    }
+
+    private void dispatchLoop() {
+        List<Entry> batch = new ArrayList<>(this.maxBatchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Entry first = this.queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.batchTimeout);
+                while (batch.size() < this.maxBatchSize) {
+                    if (this.queue.drainTo(batch, this.maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !this.running) {
+                        break;
+                    }
+                    Entry next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatchBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.running = false;
+                LemonException failure = LemonException.create(e);
+                batch.stream().filter(en -> en.state.compareAndSet(Entry.PENDING, Entry.DISPATCHED)).forEach(en -> en.complete(failure));
+                failRemaining();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void dispatchBatch(List<Entry> batch) {
+        Map<BatchMessageHandler, List<Entry>> groups = new LinkedHashMap<>();
+        batch.stream().filter(e -> e.state.compareAndSet(Entry.PENDING, Entry.DISPATCHED))
+                .forEach(e -> groups.computeIfAbsent(e.handler, k -> new ArrayList<>()).add(e));
+        groups.forEach((handler, entries) -> {
+            List cmdDtos = new ArrayList<>(entries.size());
+            List<BaseLemonData> lemonDatas = new ArrayList<>(entries.size());
+            entries.forEach(e -> {
+                cmdDtos.add(e.cmdDto);
+                lemonDatas.add(e.lemonData);
+            });
+            Throwable failure = null;
+            LemonDataHolder.clear();
+            try {
+                handler.onMessagesReceive(cmdDtos, lemonDatas);
+            } catch (Throwable t) {
+                failure = t;
+                if (logger.isErrorEnabled()) {
+                    logger.error("Failed during handing {} messages by batch handler {}, the messages will be redelivered.", cmdDtos.size(), handler);
+                    logger.error("", t);
+                }
+            } finally {
+                LemonDataHolder.clear();
+            }
+            for (Entry entry : entries) {
+                entry.complete(failure);
+            }
+        });
+    }
+
+    private static class Entry {
+        private static final int PENDING = 0;
+        private static final int DISPATCHED = 1;
+        private static final int CANCELLED = 2;
+
+        private final BatchMessageHandler<?, ?> handler;
+        private final BaseDTO<?> cmdDto;
+        private final BaseLemonData lemonData;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Throwable failure;
+
+        Entry(BatchMessageHandler<?, ?> handler, BaseDTO<?> cmdDto, BaseLemonData lemonData) {
+            this.handler = handler;
+            this.cmdDto = cmdDto;
+            this.lemonData = lemonData;
+        }
+
+        void complete(Throwable failure) {
+            this.failure = failure;
+            this.completed.countDown();
+        }
+    }
+}
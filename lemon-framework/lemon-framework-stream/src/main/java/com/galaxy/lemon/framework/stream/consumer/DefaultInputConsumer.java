@@ -25,6 +25,7 @@ import com.galaxy.lemon.framework.data.BaseDTO;
 import com.galaxy.lemon.framework.data.InternalDataHelper;
 import com.galaxy.lemon.framework.data.LemonDataHolder;
 import com.galaxy.lemon.framework.data.interceptor.InitialLemonData;
+import com.galaxy.lemon.framework.stream.BatchMessageHandler;
 import com.galaxy.lemon.framework.stream.DefaultInput;
 import com.galaxy.lemon.framework.stream.MessageHandler;
 import com.galaxy.lemon.framework.stream.logging.InputLogger;
@@ -37,8 +38,10 @@ import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.annotation.StreamListener;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.Map;
 import java.util.Optional;
 
@@ -58,6 +61,17 @@ public class DefaultInputConsumer {
 
     public static final String ENABLE = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.enabled";
     public static final String BATCH_ENABLE = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.batchEnabled";
+    /**
+     * 批量监听，对{@link BatchMessageHandler}按条数或时间聚合消息后批量处理
+     * 监听线程阻塞至所在批次处理完成，批次大小不超过消费者并发数，需同时调大spring.cloud.stream.bindings.input.consumer.concurrency；
+     * 全部监听线程都在等待时立即分发
+     */
+    public static final String BATCH_LISTENER_ENABLE = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.batchListenerEnabled";
+    public static final String BATCH_LISTENER_SIZE = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.batchListenerSize";
+    public static final String BATCH_LISTENER_TIMEOUT = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.batchListenerTimeout";
+    public static final String CONSUMER_CONCURRENCY = "spring.cloud.stream.bindings." + DefaultInput.DEFAULT_INPUT + ".consumer.concurrency";
+    public static final int DEFAULT_BATCH_LISTENER_SIZE = 100;
+    public static final long DEFAULT_BATCH_LISTENER_TIMEOUT = 200L;
 
     private Map<String, MessageHandler> messageHandlers;
 
@@ -65,12 +79,20 @@ public class DefaultInputConsumer {
 
     private InputLogger inputLogger;
 
+    private BatchMessageDispatcher batchMessageDispatcher;
+
     public DefaultInputConsumer(InternalDataHelper internalDataHelper,
                                 ObjectProvider<Map<String, MessageHandler>> messageHandlerMap,
-                                InputLogger inputLogger) {
+                                InputLogger inputLogger,
+                                Environment environment) {
         this.internalDataHelper = internalDataHelper;
         this.messageHandlers = messageHandlerMap.getIfAvailable();
         this.inputLogger = inputLogger;
+        if (environment.getProperty(BATCH_LISTENER_ENABLE, Boolean.class, false)) {
+            this.batchMessageDispatcher = new BatchMessageDispatcher(environment.getProperty(BATCH_LISTENER_SIZE, Integer.class, DEFAULT_BATCH_LISTENER_SIZE),
+                    environment.getProperty(BATCH_LISTENER_TIMEOUT, Long.class, DEFAULT_BATCH_LISTENER_TIMEOUT),
+                    environment.getProperty(CONSUMER_CONCURRENCY, Integer.class, 1));
+        }
     }
 
     @PostConstruct
@@ -80,6 +102,13 @@ public class DefaultInputConsumer {
         }
     }
 
+    @PreDestroy
+    public void destroy() {
+        if (null != this.batchMessageDispatcher) {
+            this.batchMessageDispatcher.shutdown();
+        }
+    }
+
     @InitialLemonData("onlyInstantiationContextLemonDataInitializer")
     @StreamListener(DefaultInput.DEFAULT_INPUT)
     public <T, D extends BaseDTO<T> & ExposeBeanName> void receive(D genericCmdDTO) {
@@ -107,6 +136,12 @@ public class DefaultInputConsumer {
             }
             return;
         }
+        if (null != this.batchMessageDispatcher && handler instanceof BatchMessageHandler) {
+            this.internalDataHelper.copyDTOToLemonData(genericCmdDTO, LemonDataHolder.getLemonData());
+            //阻塞至所在批次处理完成，处理失败时抛出异常，消息不被确认并由binder重新投递
+            this.batchMessageDispatcher.dispatch((BatchMessageHandler<T, D>) handler, genericCmdDTO, LemonDataHolder.getLemonData());
+            return;
+        }
         try {
             this.internalDataHelper.copyDTOToLemonData(genericCmdDTO, LemonDataHolder.getLemonData());
             handler.onMessageReceive(genericCmdDTO);
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 基于jdbc的发件箱存储，写入时通过{@link JdbcTemplate}加入当前事务，路由数据源时使用事务绑定的连接
+ * <p>
+ * 只使用标准SQL，条数限制通过{@link PreparedStatement#setMaxRows(int)}实现，不依赖 UPDATE ... LIMIT；
+ * 按分区键认领：先按id取至多 limit 条候选消息，再逐个分区键以单条UPDATE认领不超过候选最大id的可认领消息，
+ * 若该分区键存在更早的、未被本实例认领的待发送消息(被其他实例持有或等待重试)，则释放本次认领，保证同一分区键按id顺序发送
+ * <pre>
+ * -- MySQL，其他数据库调整自增主键及文本类型
+ * CREATE TABLE lemon_outbox (
+ *   id            BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+ *   binding_name  VARCHAR(128) NOT NULL,
+ *   partition_key VARCHAR(128) NOT NULL,
+ *   payload_type  VARCHAR(256) NOT NULL,
+ *   payload       MEDIUMTEXT   NOT NULL,
+ *   attempts      INT          NOT NULL DEFAULT 0,
+ *   owner         VARCHAR(64),
+ *   lease_until   BIGINT       NOT NULL DEFAULT 0,
+ *   created_time  BIGINT       NOT NULL,
+ *   KEY idx_lemon_outbox_lease (lease_until),
+ *   KEY idx_lemon_outbox_partition (partition_key, id)
+ * );
+ * </pre>
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+public class JdbcOutboxStore implements OutboxStore {
+    public static final String DEFAULT_TABLE_NAME = "lemon_outbox";
+    /**
+     * 不再发送的消息的 lease_until
+     */
+    public static final long DEAD_LEASE_UNTIL = Long.MAX_VALUE;
+
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(rs.getLong("id"));
+        message.setBindingName(rs.getString("binding_name"));
+        message.setPartitionKey(rs.getString("partition_key"));
+        message.setPayloadType(rs.getString("payload_type"));
+        message.setPayload(rs.getString("payload"));
+        message.setAttempts(rs.getInt("attempts"));
+        message.setCreatedTime(rs.getLong("created_time"));
+        return message;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final String candidateSql;
+    private final String claimSql;
+    private final String selectClaimedSql;
+    private final String countEarlierPendingSql;
+    private final String deleteSql;
+    private final String releaseSql;
+
+    public JdbcOutboxStore(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE_NAME);
+    }
+
+    public JdbcOutboxStore(DataSource dataSource, String tableName) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.insertSql = "INSERT INTO " + tableName + " (binding_name, partition_key, payload_type, payload, attempts, lease_until, created_time) VALUES (?, ?, ?, ?, 0, 0, ?)";
+        this.candidateSql = "SELECT id, partition_key FROM " + tableName + " WHERE lease_until < ? ORDER BY id";
+        this.claimSql = "UPDATE " + tableName + " SET owner = ?, lease_until = ? WHERE partition_key = ? AND id <= ? AND lease_until < ?";
+        this.selectClaimedSql = "SELECT id, binding_name, partition_key, payload_type, payload, attempts, created_time FROM " + tableName + " WHERE owner = ? AND lease_until = ? ORDER BY id";
+        this.countEarlierPendingSql = "SELECT COUNT(*) FROM " + tableName + " WHERE partition_key = ? AND id < ? AND (owner IS NULL OR owner <> ?) AND lease_until < ?";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE id IN ";
+        this.releaseSql = "UPDATE " + tableName + " SET owner = NULL, lease_until = ?, attempts = attempts + ? WHERE id IN ";
+    }
+
+    @Override
+    public void save(OutboxMessage message) {
+        this.jdbcTemplate.update(this.insertSql, message.getBindingName(), message.getPartitionKey(), message.getPayloadType(),
+                message.getPayload(), message.getCreatedTime());
+    }
+
+    @Override
+    public List<OutboxMessage> claim(String owner, int limit, long leaseTime) {
+        long now = System.currentTimeMillis();
+        long leaseUntil = now + leaseTime;
+        Map<String, Long> maxIdByPartitionKey = new LinkedHashMap<>();
+        this.jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(this.candidateSql);
+            ps.setLong(1, now);
+            ps.setMaxRows(limit);
+            return ps;
+        }, (RowCallbackHandler) rs -> maxIdByPartitionKey.put(rs.getString("partition_key"), rs.getLong("id")));
+        if (maxIdByPartitionKey.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int claimed = 0;
+        for (Map.Entry<String, Long> entry : maxIdByPartitionKey.entrySet()) {
+            claimed += this.jdbcTemplate.update(this.claimSql, owner, leaseUntil, entry.getKey(), entry.getValue(), now);
+        }
+        if (claimed == 0) {
+            return Collections.emptyList();
+        }
+        Map<String, List<OutboxMessage>> claimedByPartitionKey = this.jdbcTemplate.query(this.selectClaimedSql, ROW_MAPPER, owner, leaseUntil)
+                .stream().collect(Collectors.groupingBy(OutboxMessage::getPartitionKey, LinkedHashMap::new, Collectors.toList()));
+        List<OutboxMessage> messages = new ArrayList<>(claimed);
+        claimedByPartitionKey.forEach((partitionKey, partitionMessages) -> {
+            Long earlierPending = this.jdbcTemplate.queryForObject(this.countEarlierPendingSql, Long.class, partitionKey,
+                    partitionMessages.get(0).getId(), owner, DEAD_LEASE_UNTIL);
+            if (null != earlierPending && earlierPending > 0) {
+                release(partitionMessages.stream().map(OutboxMessage::getId).collect(Collectors.toList()), false, 0L);
+            } else {
+                messages.addAll(partitionMessages);
+            }
+        });
+        messages.sort(Comparator.comparing(OutboxMessage::getId));
+        return messages;
+    }
+
+    @Override
+    public void delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.update(this.deleteSql + inClause(ids), ids.toArray());
+    }
+
+    @Override
+    public void release(List<Long> ids, boolean failed, long availableAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[ids.size() + 2];
+        args[0] = availableAt;
+        args[1] = failed ? 1 : 0;
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 2] = ids.get(i);
+        }
+        this.jdbcTemplate.update(this.releaseSql + inClause(ids), args);
+    }
+
+    private static String inClause(List<Long> ids) {
+        return ids.stream().map(i -> "?").collect(Collectors.joining(",", "(", ")"));
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+/**
+ * 中继轮询多个数据源时切换数据源，如动态数据源
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see OutboxRelay
+ * @since 1.0.0
+ */
+
+public interface OutboxDataSourceRouter {
+    OutboxDataSourceRouter NONE = new OutboxDataSourceRouter() {
+        @Override
+        public void route(String dataSource) {
+        }
+
+        @Override
+        public void clear() {
+        }
+    };
+
+    void route(String dataSource);
+
+    void clear();
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+/**
+ * 发件箱中待发送的消息
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see OutboxStore
+ * @since 1.0.0
+ */
+
+public class OutboxMessage {
+    private Long id;
+    /**
+     * 发送的binding(通道)名
+     */
+    private String bindingName;
+    /**
+     * 分区键，同一分区键的消息按id顺序发送
+     */
+    private String partitionKey;
+    /**
+     * 消息体类型
+     */
+    private String payloadType;
+    /**
+     * json 编码的消息体
+     */
+    private String payload;
+    /**
+     * 已发送失败的次数
+     */
+    private int attempts;
+    private long createdTime;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String bindingName, String payloadType, String payload) {
+        this(bindingName, bindingName, payloadType, payload);
+    }
+
+    public OutboxMessage(String bindingName, String partitionKey, String payloadType, String payload) {
+        this.bindingName = bindingName;
+        this.partitionKey = partitionKey;
+        this.payloadType = payloadType;
+        this.payload = payload;
+        this.createdTime = System.currentTimeMillis();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBindingName() {
+        return bindingName;
+    }
+
+    public void setBindingName(String bindingName) {
+        this.bindingName = bindingName;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public String getPayloadType() {
+        return payloadType;
+    }
+
+    public void setPayloadType(String payloadType) {
+        this.payloadType = payloadType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(long createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{id=" + id + ", bindingName=" + bindingName + ", partitionKey=" + partitionKey + ", payloadType=" + payloadType
+                + ", attempts=" + attempts + "}";
+    }
+}
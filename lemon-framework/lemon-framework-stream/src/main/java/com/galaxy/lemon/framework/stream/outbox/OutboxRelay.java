@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.galaxy.lemon.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.core.DestinationResolver;
+import org.springframework.util.ClassUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 发件箱中继，将已提交的消息按id顺序批量发送到binder，发送成功后批量删除
+ * <p>
+ * 单线程按分区键分组、组内按id顺序发送，某条消息重试后仍失败时该分区键的剩余消息延后 retryDelay 毫秒，下次从该消息重新开始，
+ * 其他分区键继续发送；失败次数达到 deadAttempts 的消息不再发送，需人工处理
+ * <p>
+ * 多实例部署时认领机制保证消息不会被重复认领，同一分区键存在其他实例认领或等待重试的更早消息时不会被认领，保证分区键内的顺序
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see OutboxWriter
+ * @since 1.0.0
+ */
+
+public class OutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxStore outboxStore;
+    private final DestinationResolver<MessageChannel> channelResolver;
+    private final ObjectMapper objectMapper;
+    private final OutboxDataSourceRouter dataSourceRouter;
+    private final List<String> dataSources;
+    private final String owner;
+    private final ExecutorService relayExecutor;
+    private final Object monitor = new Object();
+    private volatile boolean running;
+    private boolean signalled;
+
+    private int batchSize = 100;
+    private long pollInterval = 1000L;
+    private long leaseTime = 30000L;
+    private int maxAttempts = 3;
+    private long retryBackoff = 200L;
+    private long retryDelay = 5000L;
+    private int deadAttempts = 10;
+    private long sendTimeout = 5000L;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * @param outboxStore
+     * @param channelResolver
+     * @param objectMapper
+     * @param dataSourceRouter
+     * @param dataSources      需要轮询的数据源，为空时只轮询默认数据源
+     */
+    public OutboxRelay(OutboxStore outboxStore, DestinationResolver<MessageChannel> channelResolver, ObjectMapper objectMapper,
+                       OutboxDataSourceRouter dataSourceRouter, List<String> dataSources) {
+        this.outboxStore = outboxStore;
+        this.channelResolver = channelResolver;
+        this.objectMapper = objectMapper;
+        this.dataSourceRouter = null == dataSourceRouter ? OutboxDataSourceRouter.NONE : dataSourceRouter;
+        this.dataSources = null == dataSources || dataSources.isEmpty() ? Collections.singletonList(null) : dataSources;
+        this.owner = resolveOwner();
+        this.relayExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("lemon-outbox-relay", true));
+    }
+
+    public void start() {
+        this.running = true;
+        this.relayExecutor.execute(this::relayLoop);
+        if (logger.isInfoEnabled()) {
+            logger.info("Started outbox relay {} on data sources {}.", this.owner, this.dataSources);
+        }
+    }
+
+    public void shutdown() {
+        this.running = false;
+        wakeUp();
+        this.relayExecutor.shutdown();
+        try {
+            this.relayExecutor.awaitTermination(this.pollInterval + this.sendTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 有新消息提交时唤醒中继，不必等待下一个轮询周期
+     */
+    public void wakeUp() {
+        synchronized (this.monitor) {
+            this.signalled = true;
+            this.monitor.notifyAll();
+        }
+    }
+
+    private void relayLoop() {
+        while (this.running) {
+            boolean more = false;
+            boolean failed = false;
+            for (String dataSource : this.dataSources) {
+                this.dataSourceRouter.route(dataSource);
+                try {
+                    more |= relayOnce() == this.batchSize;
+                } catch (Throwable t) {
+                    failed = true;
+                    if (logger.isErrorEnabled()) {
+                        logger.error("Outbox relay failed on data source " + dataSource + ".", t);
+                    }
+                } finally {
+                    this.dataSourceRouter.clear();
+                }
+            }
+            if (!more || failed) {
+                await(failed ? this.retryDelay : this.pollInterval);
+            }
+        }
+    }
+
+    /**
+     * @return 本批认领的条数
+     */
+    int relayOnce() {
+        List<OutboxMessage> messages = this.outboxStore.claim(this.owner, this.batchSize, this.leaseTime);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<OutboxMessage>> partitions = messages.stream()
+                .collect(Collectors.groupingBy(OutboxMessage::getPartitionKey, LinkedHashMap::new, Collectors.toList()));
+        List<Long> sentIds = new ArrayList<>(messages.size());
+        try {
+            for (List<OutboxMessage> partition : partitions.values()) {
+                relayPartition(partition, sentIds);
+            }
+            return messages.size();
+        } finally {
+            this.outboxStore.delete(sentIds);
+            this.sentCount.add(sentIds.size());
+        }
+    }
+
+    /**
+     * 按id顺序发送同一分区键的消息，失败时该分区键剩余消息延后 retryDelay 毫秒重新认领，不影响其他分区键
+     * @param partition
+     * @param sentIds
+     */
+    private void relayPartition(List<OutboxMessage> partition, List<Long> sentIds) {
+        for (int i = 0; i < partition.size(); i++) {
+            OutboxMessage message = partition.get(i);
+            if (send(message)) {
+                sentIds.add(message.getId());
+                continue;
+            }
+            this.failedCount.increment();
+            if (message.getAttempts() + 1 >= this.deadAttempts) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("Outbox message {} failed {} times, stop relaying it.", message, message.getAttempts() + 1);
+                }
+                this.outboxStore.release(Collections.singletonList(message.getId()), true, Long.MAX_VALUE);
+                continue;
+            }
+            long availableAt = System.currentTimeMillis() + this.retryDelay;
+            this.outboxStore.release(Collections.singletonList(message.getId()), true, availableAt);
+            this.outboxStore.release(partition.subList(i + 1, partition.size()).stream().map(OutboxMessage::getId)
+                    .collect(Collectors.toList()), false, availableAt);
+            return;
+        }
+    }
+
+    private boolean send(OutboxMessage message) {
+        for (int attempt = 1; attempt <= this.maxAttempts; attempt++) {
+            try {
+                Object payload = this.objectMapper.readValue(message.getPayload(),
+                        ClassUtils.forName(message.getPayloadType(), ClassUtils.getDefaultClassLoader()));
+                MessageChannel channel = this.channelResolver.resolveDestination(message.getBindingName());
+                if (channel.send(MessageBuilder.withPayload(payload).build(), this.sendTimeout)) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Relayed outbox message {} to {}", message.getId(), message.getBindingName());
+                    }
+                    return true;
+                }
+            } catch (Throwable t) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Failed to relay outbox message " + message + ", attempt " + attempt + "/" + this.maxAttempts + ".", t);
+                }
+            }
+            if (attempt < this.maxAttempts && !sleep(this.retryBackoff * attempt)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void await(long millis) {
+        synchronized (this.monitor) {
+            if (!this.signalled && this.running) {
+                try {
+                    this.monitor.wait(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.running = false;
+                }
+            }
+            this.signalled = false;
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.running = false;
+            return false;
+        }
+    }
+
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        String owner = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return owner.length() > 64 ? owner.substring(owner.length() - 64) : owner;
+    }
+
+    public long getSentCount() {
+        return this.sentCount.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public void setLeaseTime(long leaseTime) {
+        this.leaseTime = leaseTime;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+    }
+
+    public void setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    public void setDeadAttempts(int deadAttempts) {
+        this.deadAttempts = deadAttempts;
+    }
+
+    public void setSendTimeout(long sendTimeout) {
+        this.sendTimeout = sendTimeout;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+import java.util.List;
+
+/**
+ * 发件箱存储
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see JdbcOutboxStore
+ * @since 1.0.0
+ */
+
+public interface OutboxStore {
+    /**
+     * 保存消息，存在事务时加入当前事务
+     * @param message
+     */
+    void save(OutboxMessage message);
+
+    /**
+     * 按分区键认领未被占用的消息，认领期间其他实例不会再取到；
+     * 同一分区键只认领其最早的未发送消息起连续的消息，更早的消息被其他认领者持有或等待重试时不认领该分区键
+     * @param owner     认领者
+     * @param limit     最大条数
+     * @param leaseTime 认领有效期，单位毫秒
+     * @return 按id排序
+     */
+    List<OutboxMessage> claim(String owner, int limit, long leaseTime);
+
+    /**
+     * 删除已发送的消息
+     * @param ids
+     */
+    void delete(List<Long> ids);
+
+    /**
+     * 释放认领的消息
+     * @param ids
+     * @param failed    是否累加失败次数
+     * @param availableAt 可再次认领的时间，单位毫秒
+     */
+    void release(List<Long> ids, boolean failed, long availableAt);
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.galaxy.lemon.common.exception.LemonException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 发件箱写入
+ * <p>
+ * 消息编码后写入本地表，与业务数据在同一事务中提交；事务提交后唤醒{@link OutboxRelay}发送
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see OutboxRelay
+ * @since 1.0.0
+ */
+
+public class OutboxWriter {
+    private final OutboxStore outboxStore;
+    private final ObjectMapper objectMapper;
+    private final TransactionOperations transactionOperations;
+    private final OutboxRelay outboxRelay;
+
+    /**
+     * @param outboxStore
+     * @param objectMapper
+     * @param transactionOperations 用于{@link #executeInTransaction(Supplier)}，为null时不开启事务
+     * @param outboxRelay           为null时不唤醒中继，等待中继轮询
+     */
+    public OutboxWriter(OutboxStore outboxStore, ObjectMapper objectMapper, TransactionOperations transactionOperations,
+                        OutboxRelay outboxRelay) {
+        this.outboxStore = outboxStore;
+        this.objectMapper = objectMapper;
+        this.transactionOperations = transactionOperations;
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * 写入发件箱，以绑定名为分区键
+     * @param bindingName
+     * @param payload
+     */
+    public void write(String bindingName, Object payload) {
+        write(bindingName, bindingName, payload);
+    }
+
+    /**
+     * 写入发件箱，存在事务时加入当前事务
+     * @param bindingName
+     * @param partitionKey 同一分区键的消息按写入顺序发送
+     * @param payload
+     */
+    public void write(String bindingName, String partitionKey, Object payload) {
+        String encoded = null;
+        try {
+            encoded = this.objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            LemonException.throwLemonException(e);
+        }
+        this.outboxStore.save(new OutboxMessage(bindingName, partitionKey, payload.getClass().getName(), encoded));
+        if (null == this.outboxRelay) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            this.outboxRelay.wakeUp();
+        }
+    }
+
+    /**
+     * 在事务中执行，已存在事务时加入
+     * <p>
+     * 事务在调用时的数据源上开启，使用动态数据源时须在数据源路由之后调用
+     * @param supplier
+     * @return
+     */
+    public <T> T executeInTransaction(Supplier<T> supplier) {
+        if (null == this.transactionOperations) {
+            return supplier.get();
+        }
+        return this.transactionOperations.execute(status -> supplier.get());
+    }
+}
@@ -52,4 +52,11 @@ public @interface Producer {
     */
     
     String channelName() default MultiOutput.OUTPUT_DEFAULT;
+
+    /**
+     * 写入事务发件箱时的分区键，以方法返回值为根对象的SpEL表达式，如"orderNo"；
+     * 同一分区键的消息按写入顺序发送，不同分区键之间互不阻塞。为空时使用channelName
+     * @return
+     */
+    String partitionKey() default "";
 }
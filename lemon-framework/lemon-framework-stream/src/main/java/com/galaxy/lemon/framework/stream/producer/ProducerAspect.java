@@ -26,21 +26,29 @@ import com.galaxy.lemon.framework.data.BaseDTO;
 import com.galaxy.lemon.framework.data.InternalDataHelper;
 import com.galaxy.lemon.framework.data.LemonDataHolder;
 import com.galaxy.lemon.framework.data.instantiator.CommandDTOInstantiator;
+import com.galaxy.lemon.framework.stream.outbox.OutboxWriter;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -60,18 +68,41 @@ public class ProducerAspect implements Ordered, ApplicationContextAware {
     private static final Logger logger = LoggerFactory.getLogger(ProducerAspect.class);
 
     private ApplicationContext applicationContext;
+    private static final ExpressionParser PARSER = new SpelExpressionParser();
+
     private Map<String, MessageChannel> senders = new ConcurrentHashMap<>();
+    private Map<String, Expression> partitionKeyExpressions = new ConcurrentHashMap<>();
     private InternalDataHelper internalDataHelper;
     private CommandDTOInstantiator commandDTOInstantiator;
-
+    private ProducerPipeline producerPipeline;
+    private OutboxWriter outboxWriter;
+    private PublisherConfirmRetrier publisherConfirmRetrier;
+
+    /**
+     * @param commandDTOInstantiator
+     * @param internalDataHelper
+     * @param producerPipeline 不存在时在业务线程同步发送，多个通道并行发送
+     * @param outboxWriter 存在时消息与业务数据在同一事务中写入发件箱，由中继发送
+     * @param publisherConfirmRetrier 存在时broker未确认的消息按次数重发
+     */
     public ProducerAspect(CommandDTOInstantiator commandDTOInstantiator,
-                          InternalDataHelper internalDataHelper) {
+                          InternalDataHelper internalDataHelper,
+                          ObjectProvider<ProducerPipeline> producerPipeline,
+                          ObjectProvider<OutboxWriter> outboxWriter,
+                          ObjectProvider<PublisherConfirmRetrier> publisherConfirmRetrier) {
         this.commandDTOInstantiator = commandDTOInstantiator;
         this.internalDataHelper = internalDataHelper;
+        this.producerPipeline = producerPipeline.getIfAvailable();
+        this.outboxWriter = outboxWriter.getIfAvailable();
+        this.publisherConfirmRetrier = publisherConfirmRetrier.getIfAvailable();
     }
 
     @Around("@annotation(producers)")
     public void producer(ProceedingJoinPoint pjp, Producers producers) {
+        if (null != this.outboxWriter) {
+            this.outboxWriter.executeInTransaction(() -> produceToOutbox(pjp, producers));
+            return;
+        }
         Object result = null;
         try {
             result = pjp.proceed();
@@ -89,14 +120,20 @@ public class ProducerAspect implements Ordered, ApplicationContextAware {
         try {
             final Object execRst = result;
             Producer[] producerArray = producers.value();
-            Stream.of(producerArray).parallel().forEach(p -> {
+            //消息在业务线程构造(需读取LemonData)，多个通道时并行发送
+            List<OutgoingMessage> outgoingMessages = Stream.of(producerArray).map(p -> {
+                try {
+                    return buildMsg(execRst, p);
+                } catch (Throwable e2) {
+                    logSendFailure(p, execRst, e2);
+                    return null;
+                }
+            }).filter(Objects::nonNull).collect(Collectors.toList());
+            (outgoingMessages.size() > 1 ? outgoingMessages.parallelStream() : outgoingMessages.stream()).forEach(m -> {
                 try {
-                    sendMsg(execRst, p);
+                    sendMsg(m);
                 } catch (Throwable e2) {
-                    if (logger.isErrorEnabled()) {
-                        logger.error("failed to sending msg to {} ==>> {}", p.channelName(), execRst);
-                        logger.error("", e2);
-                    }
+                    logSendFailure(m.producer, execRst, e2);
                 }
             });
         } catch (Throwable e) {         //防御性异常外抛
@@ -107,13 +144,67 @@ public class ProducerAspect implements Ordered, ApplicationContextAware {
 
     }
 
-    private void sendMsg(Object result, Producer producer) {
+    /**
+     * 业务方法与发件箱写入在同一事务中执行，写入失败时业务一并回滚
+     * @param pjp
+     * @param producers
+     * @return
+     */
+    private Object produceToOutbox(ProceedingJoinPoint pjp, Producers producers) {
+        Object result = null;
+        try {
+            result = pjp.proceed();
+        } catch (Throwable e1) {
+            LemonException.throwLemonException(e1);
+        }
+        if (null == result) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Ignore sending data to channel {}, because of data is null.", Stream.of(producers.value()).map(Producer::channelName).collect(Collectors.joining(",")));
+            }
+            return null;
+        }
+        for (Producer producer : producers.value()) {
+            LemonException.throwLemonExceptionIfNecessary(JudgeUtils.isNull(this.senders.get(producer.channelName())), ErrorMsgCode.PRODUCER_RABBIT_EXCEPTION.getMsgCd(), "MessageChannel \"" + producer.channelName() + "\" does not exists.");
+            this.outboxWriter.write(producer.channelName(), resolvePartitionKey(producer, result), decorateCommandDTO(this.commandDTOInstantiator.newInstanceCommandDTO(), producer, result));
+        }
+        return result;
+    }
+
+    private String resolvePartitionKey(Producer producer, Object result) {
+        if (JudgeUtils.isBlank(producer.partitionKey())) {
+            return producer.channelName();
+        }
+        Object partitionKey = this.partitionKeyExpressions.computeIfAbsent(producer.partitionKey(), PARSER::parseExpression).getValue(result);
+        return null == partitionKey ? producer.channelName() : producer.channelName() + ":" + partitionKey;
+    }
+
+    private OutgoingMessage buildMsg(Object result, Producer producer) {
         MessageChannel sender = this.senders.get(producer.channelName());
         LemonException.throwLemonExceptionIfNecessary(JudgeUtils.isNull(sender), ErrorMsgCode.PRODUCER_RABBIT_EXCEPTION.getMsgCd(), "MessageChannel \"" + producer.channelName() + "\" does not exists.");
         Object dto = decorateCommandDTO(this.commandDTOInstantiator.newInstanceCommandDTO(), producer, result);
-        sender.send(MessageBuilder.withPayload(dto).build());
-        if (logger.isInfoEnabled()) {
-            logger.info("Sending msg to {} : {}", producer.channelName(), dto);
+        Message<?> message = MessageBuilder.withPayload(dto).build();
+        if (null != this.publisherConfirmRetrier) {
+            message = this.publisherConfirmRetrier.correlate(producer.channelName(), sender, message);
+        }
+        return new OutgoingMessage(producer, sender, message);
+    }
+
+    private void sendMsg(OutgoingMessage outgoingMessage) {
+        String channelName = outgoingMessage.producer.channelName();
+        if (null != this.producerPipeline) {
+            this.producerPipeline.submit(channelName, outgoingMessage.sender, outgoingMessage.message);
+            return;
+        }
+        outgoingMessage.sender.send(outgoingMessage.message);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending msg to {} : {}", channelName, outgoingMessage.message.getPayload());
+        }
+    }
+
+    private void logSendFailure(Producer producer, Object result, Throwable throwable) {
+        if (logger.isErrorEnabled()) {
+            logger.error("failed to sending msg to {} ==>> {}", producer.channelName(), result);
+            logger.error("", throwable);
         }
     }
 
@@ -135,9 +226,13 @@ public class ProducerAspect implements Ordered, ApplicationContextAware {
         }
     }
 
+    /**
+     * 在DynamicDataSourceAspect(HIGHEST_PRECEDENCE + 1)之后执行，发件箱事务在路由后的数据源上开启，业务方法的事务加入该事务
+     * @return
+     */
     @Override
     public int getOrder() {
-        return Ordered.HIGHEST_PRECEDENCE - 2;
+        return Ordered.HIGHEST_PRECEDENCE + 2;
     }
 
     @Override
@@ -145,4 +240,16 @@ public class ProducerAspect implements Ordered, ApplicationContextAware {
             throws BeansException {
         this.applicationContext = applicationContext;
     }
+
+    private static class OutgoingMessage {
+        private final Producer producer;
+        private final MessageChannel sender;
+        private final Message<?> message;
+
+        OutgoingMessage(Producer producer, MessageChannel sender, Message<?> message) {
+            this.producer = producer;
+            this.sender = sender;
+            this.message = message;
+        }
+    }
 }
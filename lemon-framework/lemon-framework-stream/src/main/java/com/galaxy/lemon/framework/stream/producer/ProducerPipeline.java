@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.producer;
+
+import com.galaxy.lemon.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步消息发送管道
+ * <p>
+ * 业务线程将消息放入有界队列后返回；发送线程每次最多取 batchSize 条，按通道分组连续发送，
+ * {@link MessageChannel#send(Message, long)} 返回false或抛出异常时按退避时间重试，超过最大次数后丢弃并记录
+ * <p>
+ * 注意：send返回true只表示binder已接收消息(如rabbit binder交给RabbitTemplate)，不代表broker已确认；
+ * 队列中尚未发送的消息在进程崩溃时会丢失，需要可靠投递时使用事务发件箱(lemon.stream.outbox.enabled)
+ * <p>
+ * 队列达到高水位时输出告警，队列满时业务线程最多等待 offerTimeout 毫秒，仍无法入队则在业务线程同步发送
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ProducerAspect
+ * @since 1.0.0
+ */
+
+public class ProducerPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ProducerPipeline.class);
+
+    private static final long IDLE_POLL_MILLIS = 1000L;
+    private static final long SATURATION_WARN_INTERVAL_MILLIS = 10000L;
+
+    private final BlockingQueue<OutboundMessage> queue;
+    private final int queueCapacity;
+    private final int highWaterMark;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoff;
+    private final long sendTimeout;
+    private final long offerTimeout;
+    private final ExecutorService sendExecutor;
+    private final int threads;
+    private volatile boolean running = true;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder callerRunsCount = new LongAdder();
+    private final AtomicLong lastSaturationWarnMillis = new AtomicLong();
+
+    /**
+     * @param queueCapacity 队列容量
+     * @param batchSize     每批最大条数
+     * @param threads       发送线程数，为1时同一通道的消息保持发送顺序
+     * @param maxAttempts   最大发送次数
+     * @param retryBackoff  重试间隔，单位毫秒，按次数线性递增
+     * @param sendTimeout   单次发送超时，单位毫秒，小于0时不超时
+     * @param offerTimeout  队列满时业务线程的最长等待时间，单位毫秒
+     */
+    public ProducerPipeline(int queueCapacity, int batchSize, int threads, int maxAttempts, long retryBackoff,
+                            long sendTimeout, long offerTimeout) {
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.highWaterMark = queueCapacity * 4 / 5;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoff = retryBackoff;
+        this.sendTimeout = sendTimeout;
+        this.offerTimeout = offerTimeout;
+        this.sendExecutor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("lemon-producer", true));
+        for (int i = 0; i < threads; i++) {
+            this.sendExecutor.execute(this::sendLoop);
+        }
+    }
+
+    /**
+     * 提交消息
+     * @param channelName
+     * @param channel
+     * @param message
+     */
+    public void submit(String channelName, MessageChannel channel, Message<?> message) {
+        OutboundMessage outboundMessage = new OutboundMessage(channelName, channel, message);
+        if (this.running) {
+            if (this.queue.offer(outboundMessage)) {
+                checkSaturation();
+                return;
+            }
+            try {
+                if (this.queue.offer(outboundMessage, this.offerTimeout, TimeUnit.MILLISECONDS)) {
+                    checkSaturation();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.callerRunsCount.increment();
+        if (logger.isWarnEnabled()) {
+            logger.warn("Producer queue is full or stopped, sending message to {} on caller thread.", channelName);
+        }
+        send(outboundMessage);
+    }
+
+    /**
+     * 队列是否达到高水位
+     * @return
+     */
+    public boolean isSaturated() {
+        return this.queue.size() >= this.highWaterMark;
+    }
+
+    public int getPendingCount() {
+        return this.queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getSentCount() {
+        return this.sentCount.sum();
+    }
+
+    public long getRetriedCount() {
+        return this.retriedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    public long getCallerRunsCount() {
+        return this.callerRunsCount.sum();
+    }
+
+    /**
+     * 停止接收，发送完队列中剩余的消息
+     */
+    public void shutdown() {
+        this.running = false;
+        this.sendExecutor.shutdown();
+        try {
+            if (!this.sendExecutor.awaitTermination(IDLE_POLL_MILLIS * 30, TimeUnit.MILLISECONDS) && logger.isWarnEnabled()) {
+                logger.warn("Producer pipeline did not terminate in time, {} messages remain.", this.queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkSaturation() {
+        if (!isSaturated()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = this.lastSaturationWarnMillis.get();
+        if (now - last >= SATURATION_WARN_INTERVAL_MILLIS && this.lastSaturationWarnMillis.compareAndSet(last, now)
+                && logger.isWarnEnabled()) {
+            logger.warn("Producer queue is saturated, pending {}/{}.", this.queue.size(), this.queueCapacity);
+        }
+    }
+
+    private void sendLoop() {
+        List<OutboundMessage> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                OutboundMessage first = this.queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                this.queue.drainTo(batch, this.batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<OutboundMessage> batch) {
+        if (batch.size() == 1) {
+            send(batch.get(0));
+            return;
+        }
+        Map<String, List<OutboundMessage>> groups = new LinkedHashMap<>();
+        batch.forEach(m -> groups.computeIfAbsent(m.channelName, k -> new ArrayList<>()).add(m));
+        groups.values().forEach(g -> g.forEach(this::send));
+    }
+
+    private void send(OutboundMessage outboundMessage) {
+        for (int attempt = 1; attempt <= this.maxAttempts; attempt++) {
+            try {
+                boolean accepted = this.sendTimeout < 0 ? outboundMessage.channel.send(outboundMessage.message)
+                        : outboundMessage.channel.send(outboundMessage.message, this.sendTimeout);
+                if (accepted) {
+                    this.sentCount.increment();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Sent msg to {} : {}", outboundMessage.channelName, outboundMessage.message.getPayload());
+                    }
+                    return;
+                }
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Message to {} was not accepted, attempt {}/{}.", outboundMessage.channelName, attempt, this.maxAttempts);
+                }
+            } catch (Throwable t) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Failed to send message to " + outboundMessage.channelName + ", attempt " + attempt + "/" + this.maxAttempts + ".", t);
+                }
+            }
+            if (attempt < this.maxAttempts) {
+                this.retriedCount.increment();
+                if (!backoff(attempt)) {
+                    break;
+                }
+            }
+        }
+        this.failedCount.increment();
+        if (logger.isErrorEnabled()) {
+            logger.error("failed to sending msg to {} ==>> {}", outboundMessage.channelName, outboundMessage.message.getPayload());
+        }
+    }
+
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(this.retryBackoff * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProducerPipeline{queueCapacity=" + this.queueCapacity + ", batchSize=" + this.batchSize
+                + ", threads=" + this.threads + ", maxAttempts=" + this.maxAttempts + "}";
+    }
+
+    private static class OutboundMessage {
+        private final String channelName;
+        private final MessageChannel channel;
+        private final Message<?> message;
+
+        OutboundMessage(String channelName, MessageChannel channel, Message<?> message) {
+            this.channelName = channelName;
+            this.channel = channel;
+            this.message = message;
+        }
+    }
+}
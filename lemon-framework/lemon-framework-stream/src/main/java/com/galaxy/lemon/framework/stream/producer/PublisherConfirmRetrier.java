@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.producer;
+
+import com.galaxy.lemon.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.SubscribableChannel;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * rabbit publisher confirm 失败重发
+ * <p>
+ * 发送前为消息加上关联id、通道名及发送次数header；开启 spring.rabbitmq.publisher-confirms 及绑定的
+ * spring.cloud.stream.bindings.&lt;name&gt;.producer.errorChannelEnabled 后，broker nack 或无法路由的消息由binder
+ * 以原消息为关联数据发送到 errorChannel，此处按header找到通道，按退避时间重发，超过最大次数后记录失败
+ * <p>
+ * broker ack 不回调，已确认的消息不占用内存
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ProducerAspect
+ * @since 1.0.0
+ */
+
+public class PublisherConfirmRetrier implements MessageHandler {
+    private static final Logger logger = LoggerFactory.getLogger(PublisherConfirmRetrier.class);
+
+    public static final String CORRELATION_ID = "lemonCorrelationId";
+    public static final String CHANNEL_NAME = "lemonChannelName";
+    public static final String ATTEMPT = "lemonSendAttempt";
+
+    private final Map<String, MessageChannel> channels = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+    private final long retryBackoff;
+    private final long sendTimeout;
+    private final ScheduledExecutorService retryExecutor;
+    private volatile boolean running = true;
+
+    private final LongAdder nackedCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * @param maxAttempts  最大发送次数
+     * @param retryBackoff 重发间隔，单位毫秒，按次数线性递增
+     * @param sendTimeout  重发时单次发送超时，单位毫秒，小于0时不超时
+     */
+    public PublisherConfirmRetrier(int maxAttempts, long retryBackoff, long sendTimeout) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoff = retryBackoff;
+        this.sendTimeout = sendTimeout;
+        this.retryExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("lemon-producer-confirm", true));
+    }
+
+    /**
+     * 订阅binder的错误通道
+     * @param errorChannel
+     */
+    public void subscribe(SubscribableChannel errorChannel) {
+        errorChannel.subscribe(this);
+    }
+
+    /**
+     * 为消息加上关联header
+     * @param channelName
+     * @param channel
+     * @param message
+     * @return
+     */
+    public Message<?> correlate(String channelName, MessageChannel channel, Message<?> message) {
+        this.channels.putIfAbsent(channelName, channel);
+        return MessageBuilder.fromMessage(message).setHeader(CORRELATION_ID, UUID.randomUUID().toString())
+                .setHeader(CHANNEL_NAME, channelName).setHeader(ATTEMPT, 1).build();
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        if (!(message.getPayload() instanceof MessagingException)) {
+            return;
+        }
+        MessagingException exception = (MessagingException) message.getPayload();
+        Message<?> failedMessage = exception.getFailedMessage();
+        if (null == failedMessage || null == failedMessage.getHeaders().get(CORRELATION_ID)) {
+            return;
+        }
+        this.nackedCount.increment();
+        retryOrFail(failedMessage, exception);
+    }
+
+    private void retryOrFail(Message<?> failedMessage, Throwable cause) {
+        String correlationId = failedMessage.getHeaders().get(CORRELATION_ID, String.class);
+        String channelName = failedMessage.getHeaders().get(CHANNEL_NAME, String.class);
+        Integer attempt = failedMessage.getHeaders().get(ATTEMPT, Integer.class);
+        MessageChannel channel = null == channelName ? null : this.channels.get(channelName);
+        if (null != attempt && attempt < this.maxAttempts && null != channel && this.running) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Message {} to {} was not confirmed by broker, attempt {}/{}, cause: {}", correlationId, channelName, attempt, this.maxAttempts, cause.getMessage());
+            }
+            Message<?> retryMessage = MessageBuilder.fromMessage(failedMessage).setHeader(ATTEMPT, attempt + 1).build();
+            try {
+                this.retryExecutor.schedule(() -> resend(channel, retryMessage), this.retryBackoff * attempt, TimeUnit.MILLISECONDS);
+                this.retriedCount.increment();
+                return;
+            } catch (RejectedExecutionException e) {
+                //已停止
+            }
+        }
+        this.failedCount.increment();
+        if (logger.isErrorEnabled()) {
+            logger.error("Message " + correlationId + " to " + channelName + " was not confirmed by broker after " + attempt + " attempts ==>> " + failedMessage.getPayload(), cause);
+        }
+    }
+
+    private void resend(MessageChannel channel, Message<?> retryMessage) {
+        try {
+            boolean accepted = this.sendTimeout < 0 ? channel.send(retryMessage) : channel.send(retryMessage, this.sendTimeout);
+            if (!accepted) {
+                retryOrFail(retryMessage, new MessagingException(retryMessage, "Message was not accepted by channel."));
+            }
+        } catch (Throwable t) {
+            retryOrFail(retryMessage, t);
+        }
+    }
+
+    public long getNackedCount() {
+        return this.nackedCount.sum();
+    }
+
+    public long getRetriedCount() {
+        return this.retriedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    /**
+     * 停止重发，已排队的重发仍会执行
+     */
+    public void shutdown() {
+        this.running = false;
+        this.retryExecutor.shutdown();
+        try {
+            if (!this.retryExecutor.awaitTermination(this.retryBackoff * this.maxAttempts + Math.max(this.sendTimeout, 0L), TimeUnit.MILLISECONDS)
+                    && logger.isWarnEnabled()) {
+                logger.warn("Publisher confirm retrier did not terminate in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
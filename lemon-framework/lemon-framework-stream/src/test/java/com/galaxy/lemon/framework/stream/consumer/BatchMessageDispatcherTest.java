@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.consumer;
+
+import com.galaxy.lemon.framework.data.BaseLemonData;
+import com.galaxy.lemon.framework.data.DefaultCmdDTO;
+import com.galaxy.lemon.framework.data.DefaultLemonData;
+import com.galaxy.lemon.framework.stream.BatchMessageHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link BatchMessageDispatcher} 批次大小、分发时机及处理结果返回给监听线程
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see BatchMessageDispatcher
+ * @since 1.0.0
+ */
+
+public class BatchMessageDispatcherTest {
+    private static final long LONG_BATCH_TIMEOUT = 5000L;
+
+    private BatchMessageDispatcher batchMessageDispatcher;
+    private ExecutorService listeners = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        this.listeners.shutdownNow();
+        if (null != this.batchMessageDispatcher) {
+            this.batchMessageDispatcher.shutdown();
+        }
+    }
+
+    @Test(timeout = 3000L)
+    public void singleListenerDispatchesWithoutWaitingForTimeout() {
+        RecordingHandler handler = new RecordingHandler();
+        this.batchMessageDispatcher = new BatchMessageDispatcher(100, LONG_BATCH_TIMEOUT, 1);
+        this.batchMessageDispatcher.dispatch(handler, message("1"), new DefaultLemonData());
+        this.batchMessageDispatcher.dispatch(handler, message("2"), new DefaultLemonData());
+        Assert.assertEquals(2, handler.batchSizes.size());
+        Assert.assertEquals(Integer.valueOf(1), handler.batchSizes.get(0));
+    }
+
+    @Test(timeout = 3000L)
+    public void dispatchesOnceAllListenersAreWaiting() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        this.batchMessageDispatcher = new BatchMessageDispatcher(100, LONG_BATCH_TIMEOUT, 3);
+        Future<?> first = dispatchAsync(handler, "1");
+        Future<?> second = dispatchAsync(handler, "2");
+        Future<?> third = dispatchAsync(handler, "3");
+        first.get();
+        second.get();
+        third.get();
+        Assert.assertEquals(1, handler.batchSizes.size());
+        Assert.assertEquals(Integer.valueOf(3), handler.batchSizes.get(0));
+    }
+
+    @Test(timeout = 3000L)
+    public void listenerReturnsOnlyAfterBatchSucceeds() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        handler.release = new CountDownLatch(1);
+        this.batchMessageDispatcher = new BatchMessageDispatcher(100, LONG_BATCH_TIMEOUT, 1);
+        Future<?> listener = dispatchAsync(handler, "1");
+        Assert.assertTrue(handler.started.await(1L, TimeUnit.SECONDS));
+        try {
+            listener.get(200L, TimeUnit.MILLISECONDS);
+            Assert.fail("Listener must not return, and the message must not be acked, before the batch is handled.");
+        } catch (TimeoutException e) {
+            //expected
+        }
+        handler.release.countDown();
+        listener.get();
+    }
+
+    @Test(timeout = 3000L)
+    public void batchFailureIsThrownToEveryListener() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        handler.failure = new IllegalStateException("batch failed");
+        this.batchMessageDispatcher = new BatchMessageDispatcher(100, LONG_BATCH_TIMEOUT, 2);
+        Future<?> first = dispatchAsync(handler, "1");
+        Future<?> second = dispatchAsync(handler, "2");
+        for (Future<?> listener : new Future<?>[]{first, second}) {
+            try {
+                listener.get();
+                Assert.fail("Failed batch must not be acked.");
+            } catch (java.util.concurrent.ExecutionException e) {
+                Assert.assertSame(handler.failure, e.getCause());
+            }
+        }
+        Assert.assertEquals(1, handler.batchSizes.size());
+    }
+
+    private Future<?> dispatchAsync(RecordingHandler handler, String requestId) {
+        return this.listeners.submit(() -> this.batchMessageDispatcher.dispatch(handler, message(requestId), new DefaultLemonData()));
+    }
+
+    private static DefaultCmdDTO<String> message(String requestId) {
+        DefaultCmdDTO<String> cmdDTO = new DefaultCmdDTO<>("recordingHandler");
+        cmdDTO.setRequestId(requestId);
+        return cmdDTO;
+    }
+
+    private static class RecordingHandler implements BatchMessageHandler<String, DefaultCmdDTO<String>> {
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+        private volatile RuntimeException failure;
+
+        @Override
+        public void onMessagesReceive(List<DefaultCmdDTO<String>> cmdDtos, List<BaseLemonData> lemonDatas) {
+            this.batchSizes.add(cmdDtos.size());
+            this.started.countDown();
+            if (null != this.release) {
+                try {
+                    this.release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (null != this.failure) {
+                throw this.failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link OutboxRelay} 按分区键发送，失败的分区键不阻塞其他分区键
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see OutboxRelay
+ * @since 1.0.0
+ */
+
+public class OutboxRelayTest {
+
+    @Test
+    public void failedPartitionDoesNotBlockOthers() {
+        InMemoryOutboxStore store = new InMemoryOutboxStore();
+        store.add("a", "a1");
+        store.add("b", "b1");
+        store.add("a", "a2");
+        store.add("b", "b2");
+        List<Object> sent = new ArrayList<>();
+        OutboxRelay relay = relay(store, sent, "a1");
+
+        Assert.assertEquals(4, relay.relayOnce());
+        Assert.assertEquals(Arrays.asList("b1", "b2"), sent);
+        Assert.assertEquals(Arrays.asList(1L, 3L), new ArrayList<>(store.messages.keySet()));
+        Assert.assertEquals(1, store.messages.get(1L).getAttempts());
+        Assert.assertEquals(0, store.messages.get(3L).getAttempts());
+        Assert.assertTrue(store.availableAt.get(1L) > System.currentTimeMillis());
+        Assert.assertEquals(store.availableAt.get(1L), store.availableAt.get(3L));
+        Assert.assertEquals(1, relay.getFailedCount());
+        Assert.assertEquals(2, relay.getSentCount());
+    }
+
+    @Test
+    public void deadMessageIsSkippedAndPartitionContinues() {
+        InMemoryOutboxStore store = new InMemoryOutboxStore();
+        store.add("a", "a1");
+        store.add("a", "a2");
+        List<Object> sent = new ArrayList<>();
+        OutboxRelay relay = relay(store, sent, "a1");
+        relay.setDeadAttempts(1);
+
+        Assert.assertEquals(2, relay.relayOnce());
+        Assert.assertEquals(Collections.singletonList("a2"), sent);
+        Assert.assertEquals(Collections.singletonList(1L), new ArrayList<>(store.messages.keySet()));
+        Assert.assertEquals(Long.MAX_VALUE, store.availableAt.get(1L).longValue());
+    }
+
+    private static OutboxRelay relay(InMemoryOutboxStore store, List<Object> sent, String failingPayload) {
+        MessageChannel channel = new MessageChannel() {
+            @Override
+            public boolean send(Message<?> message) {
+                return send(message, -1L);
+            }
+
+            @Override
+            public boolean send(Message<?> message, long timeout) {
+                if (failingPayload.equals(message.getPayload())) {
+                    return false;
+                }
+                sent.add(message.getPayload());
+                return true;
+            }
+        };
+        OutboxRelay relay = new OutboxRelay(store, name -> channel, new ObjectMapper(), null, null);
+        relay.setMaxAttempts(1);
+        relay.setRetryDelay(60000L);
+        return relay;
+    }
+
+    private static class InMemoryOutboxStore implements OutboxStore {
+        private final Map<Long, OutboxMessage> messages = new TreeMap<>();
+        private final Map<Long, Long> availableAt = new TreeMap<>();
+        private long sequence;
+
+        void add(String partitionKey, String payload) {
+            OutboxMessage message = new OutboxMessage("output", partitionKey, String.class.getName(), "\"" + payload + "\"");
+            message.setId(++this.sequence);
+            save(message);
+        }
+
+        @Override
+        public void save(OutboxMessage message) {
+            this.messages.put(message.getId(), message);
+            this.availableAt.put(message.getId(), 0L);
+        }
+
+        @Override
+        public List<OutboxMessage> claim(String owner, int limit, long leaseTime) {
+            return this.messages.values().stream().limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public void delete(List<Long> ids) {
+            ids.forEach(this.messages::remove);
+        }
+
+        @Override
+        public void release(List<Long> ids, boolean failed, long availableAt) {
+            ids.forEach(id -> {
+                this.availableAt.put(id, availableAt);
+                if (failed) {
+                    this.messages.get(id).setAttempts(this.messages.get(id).getAttempts() + 1);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.stream.producer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PublisherConfirmRetrier} 按关联header重发未确认的消息，重发次数有上限
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see PublisherConfirmRetrier
+ * @since 1.0.0
+ */
+
+public class PublisherConfirmRetrierTest {
+    private final PublisherConfirmRetrier publisherConfirmRetrier = new PublisherConfirmRetrier(3, 1L, -1L);
+    private final RecordingChannel channel = new RecordingChannel();
+
+    @After
+    public void shutdown() {
+        this.publisherConfirmRetrier.shutdown();
+    }
+
+    @Test
+    public void correlatesMessage() {
+        Message<?> message = this.publisherConfirmRetrier.correlate("output", this.channel, new GenericMessage<>("payload"));
+        Assert.assertEquals("payload", message.getPayload());
+        Assert.assertNotNull(message.getHeaders().get(PublisherConfirmRetrier.CORRELATION_ID));
+        Assert.assertEquals("output", message.getHeaders().get(PublisherConfirmRetrier.CHANNEL_NAME));
+        Assert.assertEquals(1, message.getHeaders().get(PublisherConfirmRetrier.ATTEMPT));
+    }
+
+    @Test(timeout = 5000L)
+    public void resendsNackedMessageWithSameCorrelationId() throws Exception {
+        Message<?> message = this.publisherConfirmRetrier.correlate("output", this.channel, new GenericMessage<>("payload"));
+        nack(message);
+        Message<?> resent = this.channel.sent.poll(2L, TimeUnit.SECONDS);
+        Assert.assertNotNull(resent);
+        Assert.assertEquals("payload", resent.getPayload());
+        Assert.assertEquals(message.getHeaders().get(PublisherConfirmRetrier.CORRELATION_ID), resent.getHeaders().get(PublisherConfirmRetrier.CORRELATION_ID));
+        Assert.assertEquals(2, resent.getHeaders().get(PublisherConfirmRetrier.ATTEMPT));
+        Assert.assertEquals(1L, this.publisherConfirmRetrier.getRetriedCount());
+        Assert.assertEquals(0L, this.publisherConfirmRetrier.getFailedCount());
+    }
+
+    @Test(timeout = 5000L)
+    public void givesUpAfterMaxAttempts() throws Exception {
+        Message<?> message = this.publisherConfirmRetrier.correlate("output", this.channel, new GenericMessage<>("payload"));
+        nack(message);
+        nack(this.channel.sent.poll(2L, TimeUnit.SECONDS));
+        Message<?> lastAttempt = this.channel.sent.poll(2L, TimeUnit.SECONDS);
+        Assert.assertEquals(3, lastAttempt.getHeaders().get(PublisherConfirmRetrier.ATTEMPT));
+        nack(lastAttempt);
+        Assert.assertNull(this.channel.sent.poll(100L, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(3L, this.publisherConfirmRetrier.getNackedCount());
+        Assert.assertEquals(2L, this.publisherConfirmRetrier.getRetriedCount());
+        Assert.assertEquals(1L, this.publisherConfirmRetrier.getFailedCount());
+    }
+
+    @Test(timeout = 5000L)
+    public void rejectedResendCountsAsAttempt() throws Exception {
+        this.channel.accept = false;
+        Message<?> message = this.publisherConfirmRetrier.correlate("output", this.channel, new GenericMessage<>("payload"));
+        nack(message);
+        while (this.publisherConfirmRetrier.getFailedCount() == 0L) {
+            Thread.sleep(5L);
+        }
+        Assert.assertEquals(2, this.channel.sent.size());
+        Assert.assertEquals(2L, this.publisherConfirmRetrier.getRetriedCount());
+    }
+
+    @Test
+    public void ignoresErrorsOfUncorrelatedMessages() {
+        nack(new GenericMessage<>("payload"));
+        Assert.assertEquals(0L, this.publisherConfirmRetrier.getNackedCount());
+        Assert.assertTrue(this.channel.sent.isEmpty());
+    }
+
+    private void nack(Message<?> message) {
+        this.publisherConfirmRetrier.handleMessage(new ErrorMessage(new MessagingException(message, "nack")));
+    }
+
+    private static class RecordingChannel implements MessageChannel {
+        private final BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+        private volatile boolean accept = true;
+
+        @Override
+        public boolean send(Message<?> message) {
+            return send(message, -1L);
+        }
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            this.sent.add(message);
+            return this.accept;
+        }
+    }
+}
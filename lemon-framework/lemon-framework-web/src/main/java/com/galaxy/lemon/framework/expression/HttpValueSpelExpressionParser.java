@@ -22,6 +22,7 @@ import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 /**
@@ -32,6 +33,15 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
  */
 
 public class HttpValueSpelExpressionParser extends SpelExpressionParser {
+
+    public HttpValueSpelExpressionParser() {
+        super();
+    }
+
+    public HttpValueSpelExpressionParser(SpelParserConfiguration configuration) {
+        super(configuration);
+    }
+
     @Override
     public Expression parseExpression(String expressionString) throws ParseException {
         if (AbstractHttpValueExpression.isHttpValueExpression(expressionString)) {
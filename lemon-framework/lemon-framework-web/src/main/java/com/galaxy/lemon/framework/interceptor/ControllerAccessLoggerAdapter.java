@@ -38,6 +38,28 @@ public abstract class ControllerAccessLoggerAdapter {
 
     public abstract void response(ProceedingJoinPoint pjp, Object responseObject, long durationMillis);
 
+    /**
+     * 使用预先计算的方法元数据记录请求，默认忽略元数据
+     *
+     * @param pjp
+     * @param metadata 可能为null
+     */
+    public void request(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata) {
+        request(pjp);
+    }
+
+    /**
+     * 使用预先计算的方法元数据记录响应，默认忽略元数据
+     *
+     * @param pjp
+     * @param metadata 可能为null
+     * @param responseObject
+     * @param durationMillis
+     */
+    public void response(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata, Object responseObject, long durationMillis) {
+        response(pjp, responseObject, durationMillis);
+    }
+
     public AccessLogger getAccessLogger() {
         return accessLogger;
     }
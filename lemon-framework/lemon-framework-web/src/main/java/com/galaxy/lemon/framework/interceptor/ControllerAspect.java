@@ -29,6 +29,7 @@ import com.galaxy.lemon.framework.context.LemonContextUtils;
 import com.galaxy.lemon.framework.data.BaseDTO;
 import com.galaxy.lemon.framework.data.BaseLemonData;
 import com.galaxy.lemon.framework.data.LemonDataMessageConverter;
+import com.galaxy.lemon.framework.data.support.CompactLemonDataMessageConverter;
 import com.galaxy.lemon.framework.response.FailureHandlerResponseResolver;
 import com.galaxy.lemon.framework.utils.LemonUtils;
 import com.galaxy.lemon.framework.utils.WebUtils;
@@ -44,6 +45,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Optional;
@@ -70,6 +72,7 @@ public class ControllerAspect {
     private ControllerAccessLoggerAdapter controllerAccessLoggerAdapter;
     private LemonDataMessageConverter lemonDataMessageConverter;
     private FailureHandlerResponseResolver failureHandlerResponseResolver;
+    private ControllerMethodMetadataRegistry controllerMethodMetadataRegistry;
 
     public ControllerAspect(
             LemonDataMessageConverter lemonDataMessageConverter,
@@ -82,6 +85,7 @@ public class ControllerAspect {
         this.lemonDataMessageConverter = lemonDataMessageConverter;
         this.controllerAccessLoggerAdapter = controllerAccessLoggerAdapter;
         this.failureHandlerResponseResolver = failureHandlerResponseResolver;
+        this.controllerMethodMetadataRegistry = new ControllerMethodMetadataRegistry();
     }
 
     @Pointcut("execution (* com.galaxy..*Controller.*(..))")
@@ -95,17 +99,19 @@ public class ControllerAspect {
     @Around("anyCmpayControllerMethod()||anyRestControllerMethod()")
     public Object doAroundController(ProceedingJoinPoint pjp) throws Throwable {
         Object responseObject = null;
+        ControllerMethodMetadata metadata = null;
         try {
-            LemonContextUtils.setCurrentTxName(resolveTransactionName(pjp));
-            beforeProceed(pjp);
+            metadata = this.controllerMethodMetadataRegistry.getMetadata(pjp);
+            LemonContextUtils.setCurrentTxName(resolveTransactionName(pjp, metadata));
+            beforeProceed(pjp, metadata);
             MDCUtil.putMDCKey(LemonUtils.getRequestId());
-            this.controllerAccessLoggerAdapter.request(pjp);
+            this.controllerAccessLoggerAdapter.request(pjp, metadata);
             responseObject = pjp.proceed();
         } catch (Throwable e) {
-            responseObject = throwableProceed(pjp, e);
+            responseObject = throwableProceed(pjp, metadata, e);
         } finally {
             afterProceed(pjp, responseObject);
-            this.controllerAccessLoggerAdapter.response(pjp, responseObject, DateTimeUtils.durationMillis(LemonContextUtils.getTradeStartTime(), DateTimeUtils.getCurrentLocalDateTime()));
+            this.controllerAccessLoggerAdapter.response(pjp, metadata, responseObject, DateTimeUtils.durationMillis(LemonContextUtils.getTradeStartTime(), DateTimeUtils.getCurrentLocalDateTime()));
         }
         return responseObject;
     }
@@ -114,9 +120,10 @@ public class ControllerAspect {
      * controller 前处理
      *
      * @param pjp
+     * @param metadata
      */
-    private void beforeProceed(ProceedingJoinPoint pjp) {
-        BaseDTO<?> genericDTO = extractRequestDTO(pjp);
+    private void beforeProceed(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata) {
+        BaseDTO<?> genericDTO = null == metadata ? extractRequestDTO(pjp) : metadata.extractRequestDTO(pjp.getArgs());
         WebUtils.validateRequestData(genericDTO);
         BaseLemonData lemonData = extractLemonData();
 
@@ -140,17 +147,21 @@ public class ControllerAspect {
      * 异常处理
      *
      * @param pjp
+     * @param metadata
      * @param throwable
      */
-    private Object throwableProceed(ProceedingJoinPoint pjp, Throwable throwable) {
+    private Object throwableProceed(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata, Throwable throwable) {
         if (logger.isErrorEnabled() && !ExceptionUtils.isBusinessException(throwable)) {
             logger.error("Unexpected error occurred during executing method \"{}\". ", pjp.getSignature().getName());
             logger.error("==>", throwable);
         }
         Optional.ofNullable(throwable).filter(t -> t instanceof AlertParameterizable).map(t -> (AlertParameterizable) t)
                 .map(AlertParameterizable::getParameters).filter(JudgeUtils::isNotEmpty).ifPresent(LemonContextUtils::setAlertParameters);
-        Optional.of(pjp.getSignature()).filter(s -> s instanceof MethodSignature).map(s -> (MethodSignature) s).map(MethodSignature::getReturnType).ifPresent(LemonContextUtils::setResponseDTOType);
-        return this.failureHandlerResponseResolver.handlerFailure(throwable, Optional.of(pjp.getSignature()).filter(s -> s instanceof MethodSignature).map(s -> (MethodSignature) s).map(MethodSignature::getReturnType).orElse(null));
+        Class<?> returnType = null == metadata ? resolveReturnType(pjp) : metadata.getReturnType();
+        if (null != returnType) {
+            LemonContextUtils.setResponseDTOType(returnType);
+        }
+        return this.failureHandlerResponseResolver.handlerFailure(throwable, returnType);
 
     }
 
@@ -225,20 +236,32 @@ public class ControllerAspect {
     }
 
     private BaseLemonData extractLemonData() {
-        return Optional.of(WebUtils.getHttpServletRequest()).filter(WebUtils::isGetRequest).map(r -> r.getHeader(LemonConstants.HTTP_HEADER_DTO)).map(this::encodeDTOMessage).map(this::fromMessage).orElse(null);
+        HttpServletRequest request = WebUtils.getHttpServletRequest();
+        if (!WebUtils.isGetRequest(request)) {
+            return null;
+        }
+        String dtoMessage = request.getHeader(LemonConstants.HTTP_HEADER_DTO);
+        return null == dtoMessage ? null : fromMessage(encodeDTOMessage(request, dtoMessage));
     }
 
-    private String resolveTransactionName(ProceedingJoinPoint pjp) {
-        return StringUtils.substringBefore(pjp.getSignature().toShortString(), LemonConstants.LEFT_PARENTHESIS);
+    private String resolveTransactionName(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata) {
+        return null == metadata ? StringUtils.substringBefore(pjp.getSignature().toShortString(), LemonConstants.LEFT_PARENTHESIS) : metadata.getTransactionName();
+    }
+
+    private Class<?> resolveReturnType(ProceedingJoinPoint pjp) {
+        return Optional.of(pjp.getSignature()).filter(s -> s instanceof MethodSignature).map(s -> (MethodSignature) s).map(MethodSignature::getReturnType).orElse(null);
     }
 
     private BaseLemonData fromMessage(String message) {
         return this.lemonDataMessageConverter.fromMessage(message);
     }
 
-    private String encodeDTOMessage(String dtoMessage) {
-        return Optional.ofNullable(WebUtils.getHttpServletRequest()).map(r -> Optional.ofNullable(r.getHeader(LemonConstants.HTTP_HEADER_DTO_ENCODE))
-                .map(e -> StringUtils.equals(LemonConstants.TRUE, e) ? Encodes.DEFAULT_URL_ENCODING : e).orElse(Encodes.DEFAULT_URL_ENCODING)).map(e -> urlDecode(dtoMessage, e)).orElse(dtoMessage);
+    private String encodeDTOMessage(HttpServletRequest request, String dtoMessage) {
+        if (CompactLemonDataMessageConverter.isCompactMessage(dtoMessage)) {
+            return dtoMessage;
+        }
+        String encoding = request.getHeader(LemonConstants.HTTP_HEADER_DTO_ENCODE);
+        return urlDecode(dtoMessage, null == encoding || StringUtils.equals(LemonConstants.TRUE, encoding) ? Encodes.DEFAULT_URL_ENCODING : encoding);
     }
 
     private String urlDecode(String dtoMessage, String encoding) {
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.interceptor;
+
+import com.galaxy.lemon.common.LemonConstants;
+import com.galaxy.lemon.common.exception.ErrorMsgCode;
+import com.galaxy.lemon.common.exception.LemonException;
+import com.galaxy.lemon.common.log.KeywordsExpressionSource;
+import com.galaxy.lemon.common.utils.StringUtils;
+import com.galaxy.lemon.framework.data.BaseDTO;
+
+import java.lang.reflect.Method;
+
+/**
+ * Controller 方法的调用元数据，首次调用时计算，之后每次请求只做数组读取
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ControllerMethodMetadataRegistry
+ * @since 1.0.0
+ */
+
+public class ControllerMethodMetadata {
+    private static final int[] NO_DTO_CANDIDATES = new int[0];
+
+    private final String methodName;
+    private final String transactionName;
+    private final Class<?> returnType;
+    private final int[] dtoCandidateIndexes;
+    private final KeywordsExpressionSource.ExpressionKey expressionKey;
+
+    public ControllerMethodMetadata(String signatureShortString, Method method, Class<?> targetClass, Method targetMethod) {
+        this.methodName = method.getName();
+        this.transactionName = StringUtils.substringBefore(signatureShortString, LemonConstants.LEFT_PARENTHESIS);
+        this.returnType = method.getReturnType();
+        this.dtoCandidateIndexes = resolveDTOCandidateIndexes(method.getParameterTypes());
+        this.expressionKey = null == targetMethod ? null : new KeywordsExpressionSource.ExpressionKey(targetClass, targetMethod);
+    }
+
+    /**
+     * 从参数中取出唯一的BaseDTO，只检查声明类型可能为BaseDTO的参数位置
+     *
+     * @param args
+     * @return
+     */
+    public BaseDTO<?> extractRequestDTO(Object[] args) {
+        if (null == args || this.dtoCandidateIndexes.length == 0) {
+            return null;
+        }
+        BaseDTO<?> requestDTO = null;
+        for (int index : this.dtoCandidateIndexes) {
+            if (index < args.length && args[index] instanceof BaseDTO) {
+                if (null != requestDTO) {
+                    LemonException.throwLemonException(ErrorMsgCode.SYS_ERROR.getMsgCd(),
+                            "There is only one parameter which assignable from \"BaseDTO\" in Controller method [" + this.methodName + "].");
+                }
+                requestDTO = (BaseDTO<?>) args[index];
+            }
+        }
+        return requestDTO;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getTransactionName() {
+        return transactionName;
+    }
+
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * 关键字表达式的key，目标类上找不到方法时为null
+     * @return
+     */
+    public KeywordsExpressionSource.ExpressionKey getExpressionKey() {
+        return expressionKey;
+    }
+
+    private static int[] resolveDTOCandidateIndexes(Class<?>[] parameterTypes) {
+        int[] indexes = new int[parameterTypes.length];
+        int count = 0;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            //声明为Object等父类型的参数运行时也可能是BaseDTO
+            if (BaseDTO.class.isAssignableFrom(parameterType) || parameterType.isAssignableFrom(BaseDTO.class)) {
+                indexes[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return NO_DTO_CANDIDATES;
+        }
+        int[] candidates = new int[count];
+        System.arraycopy(indexes, 0, candidates, 0, count);
+        return candidates;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.framework.interceptor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.MethodClassKey;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 Method + 目标类缓存{@link ControllerMethodMetadata}
+ *
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ControllerMethodMetadata
+ * @since 1.0.0
+ */
+
+public class ControllerMethodMetadataRegistry {
+    private final Map<MethodClassKey, ControllerMethodMetadata> metadataCache = new ConcurrentHashMap<>(256);
+
+    /**
+     * 获取当前连接点的元数据，非方法签名返回null
+     *
+     * @param pjp
+     * @return
+     */
+    public ControllerMethodMetadata getMetadata(ProceedingJoinPoint pjp) {
+        Signature signature = pjp.getSignature();
+        if (!(signature instanceof MethodSignature)) {
+            return null;
+        }
+        Method method = ((MethodSignature) signature).getMethod();
+        Object target = pjp.getTarget();
+        Class<?> targetClass = null == target ? method.getDeclaringClass() : target.getClass();
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        ControllerMethodMetadata metadata = this.metadataCache.get(key);
+        if (null == metadata) {
+            metadata = this.metadataCache.computeIfAbsent(key, k -> new ControllerMethodMetadata(signature.toShortString(), method, targetClass, findTargetMethod(method, targetClass)));
+        }
+        return metadata;
+    }
+
+    private Method findTargetMethod(Method method, Class<?> targetClass) {
+        return ClassUtils.getMethodIfAvailable(targetClass, method.getName(), method.getParameterTypes());
+    }
+}
@@ -20,6 +20,7 @@ package com.galaxy.lemon.framework.interceptor.support;
 import com.galaxy.lemon.common.AlertCapable;
 import com.galaxy.lemon.framework.context.LemonContextUtils;
 import com.galaxy.lemon.framework.interceptor.ControllerAccessLoggerAdapter;
+import com.galaxy.lemon.framework.interceptor.ControllerMethodMetadata;
 import com.galaxy.lemon.framework.utils.LemonUtils;
 import com.galaxy.lemon.framework.utils.WebUtils;
 import com.galaxy.lemon.common.log.*;
@@ -53,37 +54,60 @@ public class DefaultControllerAccessLoggerAdapter extends ControllerAccessLogger
 
     @Override
     public void request(ProceedingJoinPoint pjp) {
-
         if (this.logRequest) {
-            RequestInfo requestInfo = RequestInfo.builder()
-                    .requestId(LemonUtils.getRequestId())
-                    .msgId(LemonUtils.getMsgId())
-                    .keywords(extractRawExpressionKeywords(pjp))
-                    .method(WebUtils.getHttpServletRequest().getMethod())
-                    .uri(WebUtils.getHttpServletRequest().getRequestURI())
-                    .clientIp(LemonUtils.getClientIp())
-                    .reqeustTime(LemonContextUtils.getTradeStartTime())
-                    .target(pjp.getArgs())
-                    .build();
-            this.getAccessLogger().request(requestInfo);
+            writeRequestLog(pjp, extractRawExpressionKeywords(pjp));
         }
+    }
 
+    @Override
+    public void request(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata) {
+        if (this.logRequest) {
+            writeRequestLog(pjp, null == metadata ? extractRawExpressionKeywords(pjp) : createRawExpressionKeywords(metadata));
+        }
     }
 
     @Override
     public void response(ProceedingJoinPoint pjp, Object responseObject, long durationMillis) {
         if (this.logResponse) {
-            ResponseInfo responseInfo = ResponseInfo.builder()
-                    .requestId(LemonUtils.getRequestId())
-                    .msgId(LemonUtils.getMsgId())
-                    .duration(durationMillis)
-                    .status(Optional.ofNullable(responseObject).filter(r -> r instanceof AlertCapable).map(AlertCapable.class::cast).map(AlertCapable::getMsgCd).orElse(null))
-                    .result(responseObject)
-                    .keywords(extractRawExpressionKeywords(pjp))
-                    .build();
-            this.getAccessLogger().response(responseInfo);
+            writeResponseLog(responseObject, durationMillis, extractRawExpressionKeywords(pjp));
         }
+    }
+
+    @Override
+    public void response(ProceedingJoinPoint pjp, ControllerMethodMetadata metadata, Object responseObject, long durationMillis) {
+        if (this.logResponse) {
+            writeResponseLog(responseObject, durationMillis, null == metadata ? extractRawExpressionKeywords(pjp) : createRawExpressionKeywords(metadata));
+        }
+    }
+
+    private void writeRequestLog(ProceedingJoinPoint pjp, RawExpressionKeywords keywords) {
+        RequestInfo requestInfo = RequestInfo.builder()
+                .requestId(LemonUtils.getRequestId())
+                .msgId(LemonUtils.getMsgId())
+                .keywords(keywords)
+                .method(WebUtils.getHttpServletRequest().getMethod())
+                .uri(WebUtils.getHttpServletRequest().getRequestURI())
+                .clientIp(LemonUtils.getClientIp())
+                .reqeustTime(LemonContextUtils.getTradeStartTime())
+                .target(pjp.getArgs())
+                .build();
+        this.getAccessLogger().request(requestInfo);
+    }
+
+    private void writeResponseLog(Object responseObject, long durationMillis, RawExpressionKeywords keywords) {
+        ResponseInfo responseInfo = ResponseInfo.builder()
+                .requestId(LemonUtils.getRequestId())
+                .msgId(LemonUtils.getMsgId())
+                .duration(durationMillis)
+                .status(Optional.ofNullable(responseObject).filter(r -> r instanceof AlertCapable).map(AlertCapable.class::cast).map(AlertCapable::getMsgCd).orElse(null))
+                .result(responseObject)
+                .keywords(keywords)
+                .build();
+        this.getAccessLogger().response(responseInfo);
+    }
 
+    private RawExpressionKeywords createRawExpressionKeywords(ControllerMethodMetadata metadata) {
+        return null == metadata.getExpressionKey() ? null : new RawExpressionKeywords(metadata.getExpressionKey());
     }
 
     private RawExpressionKeywords extractRawExpressionKeywords(ProceedingJoinPoint pjp) {
@@ -32,7 +32,7 @@ import org.springframework.expression.Expression;
 public class WebKeywordsExpressionEvaluator extends KeywordsExpressionEvaluator {
 
     public WebKeywordsExpressionEvaluator(String... exp) {
-        super(new HttpValueSpelExpressionParser(), exp);
+        super(new HttpValueSpelExpressionParser(createCompilingParserConfiguration()), exp);
     }
 
     @Override
@@ -19,6 +19,7 @@ package com.galaxy.lemon.framework.utils;
 
 import com.galaxy.lemon.common.HttpMethod;
 import com.galaxy.lemon.common.LemonConstants;
+import com.galaxy.lemon.common.context.ContextKey;
 import com.galaxy.lemon.common.context.LemonContext;
 import com.galaxy.lemon.common.exception.ErrorMsgCode;
 import com.galaxy.lemon.common.exception.LemonException;
@@ -42,13 +43,14 @@ import java.util.Optional;
 public class WebUtils {
     public static final String REQUEST_ATTRIBUTE_REQUEST_ID = "REQUEST_ATTRIBUTE_REQUEST_ID";
     public static final String LEMON_CONTEXT_REQUEST = "LEMON_CONTEXT_REQUEST";
+    private static final ContextKey<HttpServletRequest> REQUEST_CONTEXT_KEY = ContextKey.of(LEMON_CONTEXT_REQUEST);
 
     /**
      * @return  HttpServletRequest
      */
     public static HttpServletRequest getHttpServletRequest() {
         return Optional.ofNullable(RequestContextHolder.getRequestAttributes()).filter(s -> s instanceof ServletRequestAttributes).map(a -> (ServletRequestAttributes)a).map(s -> s.getRequest())
-                .orElseGet(() -> Optional.of(LemonContext.getCurrentContext()).map(c -> c.get(LEMON_CONTEXT_REQUEST)).map(r -> (HttpServletRequest)r).orElse(null));
+                .orElseGet(() -> LemonContext.getCurrentContext().get(REQUEST_CONTEXT_KEY));
     }
 
     /**
@@ -56,7 +58,7 @@ public class WebUtils {
      * @param request
      */
     public static void setLemonContextRequest(HttpServletRequest request) {
-        LemonContext.getCurrentContext().put(LEMON_CONTEXT_REQUEST, request);
+        LemonContext.getCurrentContext().put(REQUEST_CONTEXT_KEY, request);
     }
 
     /**
@@ -18,6 +18,7 @@
 package com.galaxy.lemon.framework.web;
 
 import com.galaxy.lemon.framework.metrics.MetricsCollector;
+import com.galaxy.lemon.framework.metrics.PerformanceMetricsCollector;
 import com.galaxy.lemon.framework.metrics.PerformanceMetricsManager;
 import com.galaxy.lemon.framework.utils.WebUtils;
 
@@ -49,10 +50,10 @@ public class WebRequestMetricsCollector implements MetricsCollector<Supplier<Lon
     public void collect(Supplier<Long> supplier) {
         if (requiredCollection &&
                 null != WebUtils.getHttpServletRequest()) {
-            MetricsCollector<Long> metricsCollector = this.getPerformanceMetricsManager()
+            PerformanceMetricsCollector metricsCollector = this.getPerformanceMetricsManager()
                     .getMetricsCollector(this.metricGroup, WebUtils.getHttpServletRequest().getRequestURI());
             if (null != metricsCollector) {
-                metricsCollector.collect(supplier.get());
+                metricsCollector.collect(supplier.get().longValue());
             }
         }
 
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.galaxy.lemon.framework.interceptor;
+
+import com.galaxy.lemon.common.LemonConstants;
+import com.galaxy.lemon.common.log.KeywordsExpressionSource;
+import com.galaxy.lemon.common.utils.JudgeUtils;
+import com.galaxy.lemon.common.utils.StringUtils;
+import com.galaxy.lemon.framework.data.BaseDTO;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
+import org.springframework.aop.framework.ReflectiveMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ControllerAspect 每次请求解析方法信息的基准测试，对比原有的逐次反射解析与{@link ControllerMethodMetadataRegistry}
+ * 只覆盖与servlet无关的部分：交易名、BaseDTO参数、返回类型、关键字表达式key
+ * 通过 {@link #main(String[])} 运行
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see
+ * @since 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerAspectBenchmark {
+
+    private ProceedingJoinPoint pjp;
+    private ControllerMethodMetadataRegistry registry;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        DemoController controller = new DemoController();
+        Method method = DemoController.class.getMethod("query", String.class, DemoDTO.class, Integer.class);
+        Object[] args = new Object[]{"user", new DemoDTO(), 1};
+        this.pjp = new MethodInvocationProceedingJoinPoint(new ReflectiveMethodInvocation(controller, controller, method, args,
+                DemoController.class, Collections.<Object>emptyList()) {
+        });
+        this.registry = new ControllerMethodMetadataRegistry();
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) {
+        blackhole.consume(StringUtils.substringBefore(pjp.getSignature().toShortString(), LemonConstants.LEFT_PARENTHESIS));
+        List<BaseDTO<?>> requestDTOList = Optional.ofNullable(pjp.getArgs()).filter(JudgeUtils::isNotEmpty)
+                .map(args -> Stream.of(args).filter(o -> o instanceof BaseDTO).map(m -> (BaseDTO<?>) m).collect(Collectors.toList())).orElse(null);
+        blackhole.consume(JudgeUtils.isEmpty(requestDTOList) ? null : requestDTOList.get(0));
+        blackhole.consume(Optional.of(pjp.getSignature()).filter(s -> s instanceof MethodSignature).map(s -> (MethodSignature) s).map(MethodSignature::getReturnType).orElse(null));
+        //请求日志与响应日志各解析一次
+        blackhole.consume(expressionKey());
+        blackhole.consume(expressionKey());
+    }
+
+    @Benchmark
+    public void precomputed(Blackhole blackhole) {
+        ControllerMethodMetadata metadata = registry.getMetadata(pjp);
+        blackhole.consume(metadata.getTransactionName());
+        blackhole.consume(metadata.extractRequestDTO(pjp.getArgs()));
+        blackhole.consume(metadata.getReturnType());
+        blackhole.consume(metadata.getExpressionKey());
+        blackhole.consume(metadata.getExpressionKey());
+    }
+
+    private KeywordsExpressionSource.ExpressionKey expressionKey() {
+        Class<?> targetClass = pjp.getTarget().getClass();
+        MethodSignature methodSignature = (MethodSignature) pjp.getSignature();
+        try {
+            return new KeywordsExpressionSource.ExpressionKey(targetClass, targetClass.getMethod(methodSignature.getName(), methodSignature.getParameterTypes()));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ControllerAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class DemoDTO extends BaseDTO<Object> {
+    }
+
+    public static class DemoController {
+        public DemoDTO query(String name, DemoDTO demoDTO, Integer page) {
+            return demoDTO;
+        }
+    }
+}
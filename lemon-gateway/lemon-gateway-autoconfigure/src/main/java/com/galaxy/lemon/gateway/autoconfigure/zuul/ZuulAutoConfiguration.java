@@ -67,7 +67,7 @@ public class ZuulAutoConfiguration {
                                      RouteLocator routeLocator) {
             UrlPathHelper urlPathHelper = new UrlPathHelper();
             urlPathHelper.setRemoveSemicolonContent(properties.isRemoveSemicolonContent());
-            return new ZuulHelper(urlPathHelper, routeLocator, zuulExtensionProperties);
+            return new ZuulHelper(urlPathHelper, routeLocator, zuulExtensionProperties, properties);
         }
     }
 
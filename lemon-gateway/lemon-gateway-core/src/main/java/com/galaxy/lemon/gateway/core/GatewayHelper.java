@@ -20,6 +20,7 @@ package com.galaxy.lemon.gateway.core;
 import com.galaxy.lemon.common.LemonConstants;
 import com.galaxy.lemon.common.codec.CodecException;
 import com.galaxy.lemon.common.codec.ObjectDecoder;
+import com.galaxy.lemon.common.context.ContextKey;
 import com.galaxy.lemon.common.context.LemonContext;
 import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.utils.IOUtils;
@@ -52,12 +53,13 @@ public class GatewayHelper {
     public static final String REQUEST_ATTRIBUTE_BODY = "REQUEST_ATTRIBUTE_BODY";
     public static final String REQUEST_ATTRIBUTE_BODY_MAP = "REQUEST_ATTRIBUTE_BODY_MAP";
     public static final String LEMON_CONTEXT_LOCALE_RESOLVER = "LEMON_CONTEXT_LOCALE_RESOLVER";
+    private static final ContextKey<LocaleResolver> LOCALE_RESOLVER_CONTEXT_KEY = ContextKey.of(LEMON_CONTEXT_LOCALE_RESOLVER);
 
     public static final Object NULL_OBJECT = new Object();
     public static final Map NULL_MAP =  Collections.emptyMap();
 
     public static Locale resolveLocale(HttpServletRequest request) {
-        LocaleResolver localeResolver = Optional.ofNullable(LemonContext.getCurrentContext().get(LEMON_CONTEXT_LOCALE_RESOLVER)).map(l -> (LocaleResolver) l).orElse(null);
+        LocaleResolver localeResolver = LemonContext.getCurrentContext().get(LOCALE_RESOLVER_CONTEXT_KEY);
         if (JudgeUtils.isNotNull(localeResolver)) {
             return localeResolver.resolveLocale(request);
         }
@@ -125,6 +127,6 @@ public class GatewayHelper {
     }
 
     public static void setLemonContextLocaleResolver(LocaleResolver localeResolver) {
-        LemonContext.getCurrentContext().put(LEMON_CONTEXT_LOCALE_RESOLVER, localeResolver);
+        LemonContext.getCurrentContext().put(LOCALE_RESOLVER_CONTEXT_KEY, localeResolver);
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.gateway.zuul;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 响应流透传
+ * 下游读取响应时记录前 limit 个字节，流读完或关闭时回调一次，不缓冲整个响应
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ZuulGatewayAccessLoggerAdapter
+ * @since 1.0.0
+ */
+
+public class ResponseCapturingInputStream extends FilterInputStream {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCapturingInputStream.class);
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int limit;
+    private final Consumer<ResponseCapturingInputStream> completionCallback;
+    private byte[] captured;
+    private int capturedLength;
+    private long totalLength;
+    private boolean completed;
+
+    /**
+     * @param in 上游响应流
+     * @param limit 记录的最大字节数
+     * @param completionCallback 流读完或关闭时的回调
+     */
+    public ResponseCapturingInputStream(InputStream in, int limit, Consumer<ResponseCapturingInputStream> completionCallback) {
+        super(in);
+        this.limit = Math.max(0, limit);
+        this.completionCallback = completionCallback;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+            complete();
+        } else {
+            capture(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read == -1) {
+            complete();
+        } else {
+            capture(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        this.totalLength += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            complete();
+        }
+    }
+
+    /**
+     * 已记录的字节
+     * @return
+     */
+    public byte[] getCaptured() {
+        return null == this.captured ? new byte[0] : Arrays.copyOf(this.captured, this.capturedLength);
+    }
+
+    /**
+     * 已记录的内容，超出部分以 "..." 表示
+     * @return
+     */
+    public String getCapturedString() {
+        String content = null == this.captured ? "" : new String(this.captured, 0, this.capturedLength);
+        return isTruncated() ? content + "..." : content;
+    }
+
+    /**
+     * 已透传的字节数
+     * @return
+     */
+    public long getTotalLength() {
+        return this.totalLength;
+    }
+
+    public boolean isTruncated() {
+        return this.totalLength > this.capturedLength;
+    }
+
+    private void capture(int b) {
+        this.totalLength++;
+        if (ensureCapacity(1) > 0) {
+            this.captured[this.capturedLength++] = (byte) b;
+        }
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        this.totalLength += len;
+        int length = ensureCapacity(len);
+        if (length > 0) {
+            System.arraycopy(b, off, this.captured, this.capturedLength, length);
+            this.capturedLength += length;
+        }
+    }
+
+    private int ensureCapacity(int len) {
+        int length = Math.min(len, this.limit - this.capturedLength);
+        if (length <= 0) {
+            return 0;
+        }
+        int required = this.capturedLength + length;
+        if (null == this.captured) {
+            this.captured = new byte[Math.min(this.limit, Math.max(INITIAL_CAPACITY, required))];
+        } else if (required > this.captured.length) {
+            this.captured = Arrays.copyOf(this.captured, Math.min(this.limit, Math.max(this.captured.length << 1, required)));
+        }
+        return length;
+    }
+
+    private void complete() {
+        if (! this.completed) {
+            this.completed = true;
+            try {
+                this.completionCallback.accept(this);
+            } catch (RuntimeException e) {
+                //不影响响应透传
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Failed to complete response capturing.", e);
+                }
+            }
+        }
+    }
+}
@@ -39,6 +39,16 @@ public class ZuulExtensionProperties {
      * Map of route names to properties.
      */
     private Map<String, ZuulRoute> routes = new LinkedHashMap<>();
+
+    /**
+     * Flag to determine whether upstream responses are streamed to the client while a bounded prefix is captured for logging.
+     */
+    private boolean responseStreaming = true;
+
+    /**
+     * Max bytes of the response captured for logging in streaming mode.
+     */
+    private int responseLogLimit = 4096;
     
     public Map<String, ZuulRoute> getRoutes() {
         return routes;
@@ -47,6 +57,22 @@ public class ZuulExtensionProperties {
     public void setRoutes(Map<String, ZuulRoute> routes) {
         this.routes = routes;
     }
+
+    public boolean isResponseStreaming() {
+        return responseStreaming;
+    }
+
+    public void setResponseStreaming(boolean responseStreaming) {
+        this.responseStreaming = responseStreaming;
+    }
+
+    public int getResponseLogLimit() {
+        return responseLogLimit;
+    }
+
+    public void setResponseLogLimit(int responseLogLimit) {
+        this.responseLogLimit = responseLogLimit;
+    }
     
     public ZuulRoute getZuulRoute(String key) {
         return this.routes.get(key);
@@ -71,6 +97,12 @@ public class ZuulExtensionProperties {
             if(null == value.getSignatured()) {
                 value.setSignatured(true);
             }
+            if(null == value.getResponseStreaming()) {
+                value.setResponseStreaming(this.responseStreaming);
+            }
+            if(null == value.getResponseLogLimit()) {
+                value.setResponseLogLimit(this.responseLogLimit);
+            }
         }
     }
 
@@ -121,6 +153,17 @@ public class ZuulExtensionProperties {
          * 暂时不用
          */
         private String signaturedParameters;
+
+        /**
+         * Flag to determine whether the response is streamed to the client instead of fully buffered,
+         * defaults to zuul.response-streaming.
+         */
+        private Boolean responseStreaming;
+
+        /**
+         * Max bytes of the response captured for logging in streaming mode, defaults to zuul.response-log-limit.
+         */
+        private Integer responseLogLimit;
         
         public ZuulRoute(){}
         
@@ -225,6 +268,22 @@ public class ZuulExtensionProperties {
         public void setMercSignatured(Boolean mercSignatured) {
             this.mercSignatured = mercSignatured;
         }
+
+        public Boolean getResponseStreaming() {
+            return responseStreaming;
+        }
+
+        public void setResponseStreaming(Boolean responseStreaming) {
+            this.responseStreaming = responseStreaming;
+        }
+
+        public Integer getResponseLogLimit() {
+            return responseLogLimit;
+        }
+
+        public void setResponseLogLimit(Integer responseLogLimit) {
+            this.responseLogLimit = responseLogLimit;
+        }
         
     }
 }
@@ -26,6 +26,7 @@ import com.netflix.zuul.context.RequestContext;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -45,6 +46,27 @@ public class ZuulGatewayAccessLoggerAdapter extends GatewayAccessLoggerAdapter {
         super(accessLogger);
         this.zuulHelper = zuulHelper;
     }
+
+    /**
+     * 流式透传模式下包装响应流，在响应透传完成后以记录的前缀打印响应日志
+     * 异常时不会执行SendResponseFilter，响应流不会被读取或关闭，直接打印响应日志
+     * @param httpServletRequest
+     * @param httpServletResponse
+     */
+    @Override
+    public void response(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        InputStream responseDataStream = ctx.getResponseDataStream();
+        if (null == ctx.getThrowable() && null == ctx.getResponseBody() && null != responseDataStream
+                && !(responseDataStream instanceof ResponseCapturingInputStream)
+                && this.zuulHelper.isResponseStreaming(httpServletRequest)) {
+            ctx.setResponseDataStream(new ResponseCapturingInputStream(responseDataStream, this.zuulHelper.getResponseLogLimit(httpServletRequest),
+                    s -> response(httpServletRequest, httpServletResponse, s.getCapturedString())));
+            return;
+        }
+        super.response(httpServletRequest, httpServletResponse);
+    }
+
     @Override
     protected void customize(RequestInfo.Builder builder) {
 
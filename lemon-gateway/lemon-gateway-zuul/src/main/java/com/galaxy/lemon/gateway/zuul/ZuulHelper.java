@@ -26,8 +26,13 @@ import com.galaxy.lemon.gateway.zuul.ZuulExtensionProperties.ZuulRoute;
 import com.netflix.zuul.context.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.netflix.zuul.RoutesRefreshedEvent;
 import org.springframework.cloud.netflix.zuul.filters.Route;
 import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
@@ -36,8 +41,10 @@ import javax.servlet.http.HttpServletRequest;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * zuul helper
@@ -46,7 +53,7 @@ import java.util.Optional;
  * @since 1.0.0
  */
 
-public class ZuulHelper {
+public class ZuulHelper implements ApplicationListener<ApplicationEvent> {
     private static final Logger logger = LoggerFactory.getLogger(ZuulHelper.class);
     
     public static final String CTX_CURRENT_REQUEST_URI = "LEMON_CURRENT_REQUEST_URI";
@@ -58,14 +65,44 @@ public class ZuulHelper {
     private UrlPathHelper urlPathHelper;
     private RouteLocator routeLocator;
     private ZuulExtensionProperties zuulExtensionProperties;
+    private ZuulProperties zuulProperties;
     private PathMatcher pathMatcher = new AntPathMatcher();
+    private volatile ZuulRouteIndex zuulRouteIndex;
 
     public ZuulHelper(UrlPathHelper urlPathHelper,
                       RouteLocator routeLocator,
                       ZuulExtensionProperties zuulExtensionProperties) {
+        this(urlPathHelper, routeLocator, zuulExtensionProperties, null);
+    }
+
+    public ZuulHelper(UrlPathHelper urlPathHelper,
+                      RouteLocator routeLocator,
+                      ZuulExtensionProperties zuulExtensionProperties,
+                      ZuulProperties zuulProperties) {
         this.urlPathHelper = urlPathHelper;
         this.routeLocator = routeLocator;
         this.zuulExtensionProperties = zuulExtensionProperties;
+        this.zuulProperties = zuulProperties;
+        refreshRouteIndex();
+    }
+
+    /**
+     * 路由或配置刷新后重建路由索引
+     * @param event
+     */
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof RoutesRefreshedEvent || event instanceof RefreshScopeRefreshedEvent) {
+            refreshRouteIndex();
+        }
+    }
+
+    /**
+     * 根据当前的路由配置重建路由索引
+     */
+    public void refreshRouteIndex() {
+        String prefix = Optional.ofNullable(this.zuulProperties).map(ZuulProperties::getPrefix).orElse(null);
+        this.zuulRouteIndex = ZuulRouteIndex.build(this.zuulExtensionProperties.getRoutes().values(), prefix);
     }
     
     @SuppressWarnings("unchecked")
@@ -93,6 +130,10 @@ public class ZuulHelper {
     }
     
     public ZuulRoute getZuulRouteByPath(String path) {
+        ZuulRouteIndex.RouteMatch routeMatch = matchRouteIndex(path);
+        if (null != routeMatch) {
+            return routeMatch.getZuulRoute();
+        }
         Route route = this.routeLocator.getMatchingRoute(path);
         if(JudgeUtils.isNull(route)) {
             return null;
@@ -104,11 +145,41 @@ public class ZuulHelper {
         RequestContext ctx = RequestContext.getCurrentContext();
         return Optional.ofNullable(ctx.get(CTX_CURRENT_ZUUL_ROUTE)).map(m -> (ZuulRoute)m)
             .orElseGet(() -> {
-                ZuulRoute zuulRoute = this.getZuulRouteByPath(this.getCurrentRequestURI(httpServletRequest));
+                String requestURI = this.getCurrentRequestURI(httpServletRequest);
+                ZuulRouteIndex.RouteMatch routeMatch = matchRouteIndex(requestURI);
+                if (null != routeMatch) {
+                    ctx.set(CTX_CURRENT_ZUUL_ROUTE, routeMatch.getZuulRoute());
+                    ctx.set(CTX_CURRENT_PATH_MATCHERS, routeMatch.getUriTemplateVariables());
+                    return routeMatch.getZuulRoute();
+                }
+                ZuulRoute zuulRoute = this.getZuulRouteByPath(requestURI);
                 ctx.set(CTX_CURRENT_ZUUL_ROUTE, zuulRoute);
                 return zuulRoute;
             });
     }
+
+    /**
+     * 通过路由索引匹配，未命中或路径被忽略时返回null，由RouteLocator处理
+     * @param path
+     * @return
+     */
+    private ZuulRouteIndex.RouteMatch matchRouteIndex(String path) {
+        ZuulRouteIndex routeIndex = this.zuulRouteIndex;
+        if (null == routeIndex || isIgnoredPath(path)) {
+            return null;
+        }
+        return routeIndex.match(path);
+    }
+
+    private boolean isIgnoredPath(String path) {
+        Set<String> ignoredPatterns = Optional.ofNullable(this.zuulProperties).map(ZuulProperties::getIgnoredPatterns).orElse(Collections.emptySet());
+        for (String ignoredPattern : ignoredPatterns) {
+            if (this.pathMatcher.match(ignoredPattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
     
     public String getCurrentRequestBody(HttpServletRequest request) {
         RequestContext ctx = RequestContext.getCurrentContext();
@@ -120,11 +191,53 @@ public class ZuulHelper {
             });
     }
     
+    /**
+     * 请求体已被读取为字符串时返回该字符串，否则返回null
+     * @param request
+     * @return
+     */
+    public String getCachedRequestBody(HttpServletRequest request) {
+        return Optional.ofNullable(RequestContext.getCurrentContext().get(CTX_CURRENT_BODY_STRING)).map(m -> (String)m).orElse(null);
+    }
+
+    /**
+     * 请求体字节流，不做字符解码
+     * @param request
+     * @return
+     */
+    public InputStream getCurrentRequestBodyStream(HttpServletRequest request) {
+        return GatewayHelper.getRequestInputStream(request);
+    }
+    
     public Map<String, String[]> getParameterMap(HttpServletRequest request) {
         Map<String, String[]> maps = request.getParameterMap();
         return maps;
     }
     
+    /**
+     * 当前路由是否以流式透传响应
+     * @param request
+     * @return
+     */
+    public boolean isResponseStreaming(HttpServletRequest request) {
+        return Optional.ofNullable(getCurrentZuulRoute(request)).map(ZuulRoute::getResponseStreaming)
+            .orElseGet(this.zuulExtensionProperties::isResponseStreaming);
+    }
+
+    /**
+     * 流式透传时记录日志的最大字节数
+     * @param request
+     * @return
+     */
+    public int getResponseLogLimit(HttpServletRequest request) {
+        return Optional.ofNullable(getCurrentZuulRoute(request)).map(ZuulRoute::getResponseLogLimit)
+            .orElseGet(this.zuulExtensionProperties::getResponseLogLimit);
+    }
+
+    /**
+     * 读取整个响应体并替换为可重复读取的流，仅在需要完整响应体时使用
+     * @return
+     */
     public byte[] getResponseDataStream() {
         InputStream inputStream = RequestContext.getCurrentContext().getResponseDataStream();
         if(null == inputStream) return null;
@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.galaxy.lemon.gateway.zuul;
+
+import com.galaxy.lemon.gateway.zuul.ZuulExtensionProperties.ZuulRoute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 路由索引
+ * 按路径段构建的前缀树，字面量段走哈希查找，通配符及模板段预编译；
+ * 与 AntPathMatcher 语义一致，多个路由匹配时按配置顺序取第一个，并同时提取模板变量
+ * 实例不可变，路由变化时整体重建
+ * @author <mailto:eleven.hm@vip.163.com">eleven</a>
+ * @see ZuulHelper
+ * @since 1.0.0
+ */
+
+public class ZuulRouteIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ZuulRouteIndex.class);
+
+    private static final char PATH_SEPARATOR = '/';
+    private static final String DOUBLE_WILDCARD = "**";
+    private static final String WILDCARD = "*";
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+    private static final Pattern SINGLE_VARIABLE_PATTERN = Pattern.compile("\\{([^/{}:]+)\\}");
+
+    private final Node root;
+    private final int size;
+
+    private ZuulRouteIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 构建路由索引，路由路径中含有无法预编译的段时返回null
+     * @param zuulRoutes 按配置顺序排列的路由
+     * @param prefix zuul.prefix
+     * @return
+     */
+    public static ZuulRouteIndex build(Collection<ZuulRoute> zuulRoutes, String prefix) {
+        Node root = new Node();
+        int ordinal = 0;
+        try {
+            for (ZuulRoute zuulRoute : zuulRoutes) {
+                if (null == zuulRoute || null == zuulRoute.getPath()) {
+                    continue;
+                }
+                root.add(resolvePattern(zuulRoute.getPath(), prefix), new Terminal(ordinal++, zuulRoute));
+            }
+        } catch (IllegalArgumentException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Could not build zuul route index, fall back to route locator. {}", e.getMessage());
+            }
+            return null;
+        }
+        return new ZuulRouteIndex(root, ordinal);
+    }
+
+    /**
+     * 匹配路由
+     * @param path
+     * @return 未匹配时返回null
+     */
+    public RouteMatch match(String path) {
+        if (null == path || this.size == 0 || path.isEmpty() || path.charAt(0) != PATH_SEPARATOR) {
+            return null;
+        }
+        MatchState state = new MatchState(tokenize(path), path.charAt(path.length() - 1) == PATH_SEPARATOR);
+        this.root.match(state, 0);
+        return state.toRouteMatch();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private static String resolvePattern(String path, String prefix) {
+        if (StringUtils.hasText(prefix)) {
+            path = prefix + path;
+        }
+        if (path.isEmpty() || path.charAt(0) != PATH_SEPARATOR) {
+            path = PATH_SEPARATOR + path;
+        }
+        return path;
+    }
+
+    private static String[] tokenize(String path) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0, length = path.length(); i <= length; i++) {
+            if (i == length || path.charAt(i) == PATH_SEPARATOR) {
+                if (i > start) {
+                    tokens.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    /**
+     * 路由匹配结果
+     */
+    public static class RouteMatch {
+        private final ZuulRoute zuulRoute;
+        private final Map<String, String> uriTemplateVariables;
+
+        RouteMatch(ZuulRoute zuulRoute, Map<String, String> uriTemplateVariables) {
+            this.zuulRoute = zuulRoute;
+            this.uriTemplateVariables = uriTemplateVariables;
+        }
+
+        public ZuulRoute getZuulRoute() {
+            return zuulRoute;
+        }
+
+        /**
+         * 模板变量，顺序与路由路径中的声明顺序一致
+         * @return
+         */
+        public Map<String, String> getUriTemplateVariables() {
+            return uriTemplateVariables;
+        }
+    }
+
+    private static class Terminal {
+        private final int ordinal;
+        private final ZuulRoute zuulRoute;
+        private List<String> variableNames;
+        private boolean endsWithSeparator;
+        private boolean containsDoubleWildcard;
+
+        Terminal(int ordinal, ZuulRoute zuulRoute) {
+            this.ordinal = ordinal;
+            this.zuulRoute = zuulRoute;
+        }
+
+        boolean accept(boolean trailingSeparator) {
+            return this.containsDoubleWildcard || this.endsWithSeparator == trailingSeparator;
+        }
+    }
+
+    private static class MatchState {
+        private final String[] tokens;
+        private final boolean trailingSeparator;
+        private final List<String> variables = new ArrayList<>();
+        private Terminal terminal;
+        private String[] terminalVariables;
+
+        MatchState(String[] tokens, boolean trailingSeparator) {
+            this.tokens = tokens;
+            this.trailingSeparator = trailingSeparator;
+        }
+
+        int bestOrdinal() {
+            return null == this.terminal ? Integer.MAX_VALUE : this.terminal.ordinal;
+        }
+
+        void offer(Terminal candidate, boolean anySeparator) {
+            if (candidate.ordinal < bestOrdinal() && (anySeparator || candidate.accept(this.trailingSeparator))) {
+                this.terminal = candidate;
+                this.terminalVariables = this.variables.toArray(new String[this.variables.size()]);
+            }
+        }
+
+        RouteMatch toRouteMatch() {
+            if (null == this.terminal) {
+                return null;
+            }
+            List<String> variableNames = this.terminal.variableNames;
+            if (variableNames.isEmpty()) {
+                return new RouteMatch(this.terminal.zuulRoute, Collections.emptyMap());
+            }
+            Map<String, String> uriTemplateVariables = new LinkedHashMap<>();
+            for (int i = 0; i < variableNames.size(); i++) {
+                uriTemplateVariables.put(variableNames.get(i), this.terminalVariables[i]);
+            }
+            return new RouteMatch(this.terminal.zuulRoute, uriTemplateVariables);
+        }
+    }
+
+    private static class Node {
+        private Map<String, Node> literalChildren;
+        private List<SegmentMatcher> patternChildren;
+        private Node doubleWildcardChild;
+        private List<Terminal> terminals;
+        private boolean doubleWildcard;
+        private int minOrdinal = Integer.MAX_VALUE;
+
+        void add(String pattern, Terminal terminal) {
+            String[] segments = tokenize(pattern);
+            List<String> variableNames = new ArrayList<>();
+            Node node = this;
+            node.minOrdinal = Math.min(node.minOrdinal, terminal.ordinal);
+            for (String segment : segments) {
+                if (DOUBLE_WILDCARD.equals(segment)) {
+                    terminal.containsDoubleWildcard = true;
+                    if (null == node.doubleWildcardChild) {
+                        node.doubleWildcardChild = new Node();
+                        node.doubleWildcardChild.doubleWildcard = true;
+                    }
+                    node = node.doubleWildcardChild;
+                } else if (isLiteral(segment)) {
+                    if (null == node.literalChildren) {
+                        node.literalChildren = new HashMap<>();
+                    }
+                    node = node.literalChildren.computeIfAbsent(segment, s -> new Node());
+                } else {
+                    SegmentMatcher segmentMatcher = node.getOrCreatePatternChild(segment);
+                    variableNames.addAll(segmentMatcher.variableNames);
+                    node = segmentMatcher.node;
+                }
+                node.minOrdinal = Math.min(node.minOrdinal, terminal.ordinal);
+            }
+            terminal.variableNames = variableNames;
+            terminal.endsWithSeparator = pattern.charAt(pattern.length() - 1) == PATH_SEPARATOR;
+            if (null == node.terminals) {
+                node.terminals = new ArrayList<>(1);
+            }
+            node.terminals.add(terminal);
+        }
+
+        void match(MatchState state, int index) {
+            if (this.minOrdinal >= state.bestOrdinal()) {
+                return;
+            }
+            String[] tokens = state.tokens;
+            if (index == tokens.length) {
+                matchExhausted(state);
+                return;
+            }
+            if (null != this.literalChildren) {
+                Node child = this.literalChildren.get(tokens[index]);
+                if (null != child) {
+                    child.match(state, index + 1);
+                }
+            }
+            if (null != this.patternChildren) {
+                for (SegmentMatcher segmentMatcher : this.patternChildren) {
+                    int mark = state.variables.size();
+                    if (segmentMatcher.match(tokens[index], state.variables)) {
+                        segmentMatcher.node.match(state, index + 1);
+                    }
+                    while (state.variables.size() > mark) {
+                        state.variables.remove(state.variables.size() - 1);
+                    }
+                }
+            }
+            if (null != this.doubleWildcardChild) {
+                for (int i = index; i <= tokens.length; i++) {
+                    this.doubleWildcardChild.match(state, i);
+                }
+            }
+        }
+
+        private void matchExhausted(MatchState state) {
+            offerTerminals(state, this.doubleWildcard);
+            // 剩余的路由路径段全部为 "**"
+            for (Node node = this.doubleWildcardChild; null != node; node = node.doubleWildcardChild) {
+                node.offerTerminals(state, true);
+            }
+            // "/foo/*" 匹配 "/foo/"
+            if (state.trailingSeparator && null != this.patternChildren) {
+                for (SegmentMatcher segmentMatcher : this.patternChildren) {
+                    if (WILDCARD.equals(segmentMatcher.segment) && null != segmentMatcher.node.terminals) {
+                        for (Terminal terminal : segmentMatcher.node.terminals) {
+                            if (! terminal.containsDoubleWildcard) {
+                                state.offer(terminal, true);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void offerTerminals(MatchState state, boolean anySeparator) {
+            if (null != this.terminals) {
+                for (Terminal terminal : this.terminals) {
+                    state.offer(terminal, anySeparator);
+                }
+            }
+        }
+
+        private SegmentMatcher getOrCreatePatternChild(String segment) {
+            if (null == this.patternChildren) {
+                this.patternChildren = new ArrayList<>();
+            }
+            for (SegmentMatcher segmentMatcher : this.patternChildren) {
+                if (segmentMatcher.segment.equals(segment)) {
+                    return segmentMatcher;
+                }
+            }
+            SegmentMatcher segmentMatcher = new SegmentMatcher(segment);
+            this.patternChildren.add(segmentMatcher);
+            return segmentMatcher;
+        }
+
+        private static boolean isLiteral(String segment) {
+            return segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1;
+        }
+    }
+
+    /**
+     * 非字面量路径段，"*" 与 "{name}" 不走正则
+     */
+    private static class SegmentMatcher {
+        private final String segment;
+        private final Node node = new Node();
+        private final List<String> variableNames = new ArrayList<>();
+        private final boolean anySegment;
+        private final Pattern pattern;
+
+        SegmentMatcher(String segment) {
+            this.segment = segment;
+            Matcher singleVariable = SINGLE_VARIABLE_PATTERN.matcher(segment);
+            if (WILDCARD.equals(segment)) {
+                this.anySegment = true;
+                this.pattern = null;
+            } else if (singleVariable.matches()) {
+                this.anySegment = true;
+                this.pattern = null;
+                this.variableNames.add(singleVariable.group(1));
+            } else {
+                this.anySegment = false;
+                this.pattern = compile(segment, this.variableNames);
+            }
+        }
+
+        boolean match(String token, List<String> variables) {
+            if (this.anySegment) {
+                if (! this.variableNames.isEmpty()) {
+                    variables.add(token);
+                }
+                return true;
+            }
+            Matcher matcher = this.pattern.matcher(token);
+            if (! matcher.matches()) {
+                return false;
+            }
+            for (int i = 1; i <= this.variableNames.size(); i++) {
+                variables.add(matcher.group(i));
+            }
+            return true;
+        }
+
+        private static Pattern compile(String segment, List<String> variableNames) {
+            StringBuilder patternBuilder = new StringBuilder();
+            Matcher matcher = GLOB_PATTERN.matcher(segment);
+            int end = 0;
+            while (matcher.find()) {
+                patternBuilder.append(quote(segment, end, matcher.start()));
+                String match = matcher.group();
+                if ("?".equals(match)) {
+                    patternBuilder.append('.');
+                } else if (WILDCARD.equals(match)) {
+                    patternBuilder.append(".*");
+                } else {
+                    int colonIdx = match.indexOf(':');
+                    if (colonIdx == -1) {
+                        patternBuilder.append("(.*)");
+                        variableNames.add(matcher.group(1));
+                    } else {
+                        patternBuilder.append('(').append(match, colonIdx + 1, match.length() - 1).append(')');
+                        variableNames.add(match.substring(1, colonIdx));
+                    }
+                }
+                end = matcher.end();
+            }
+            patternBuilder.append(quote(segment, end, segment.length()));
+            Pattern pattern = Pattern.compile(patternBuilder.toString());
+            if (pattern.matcher("").groupCount() != variableNames.size()) {
+                throw new IllegalArgumentException("Capturing groups are not supported in route path segment \"" + segment + "\".");
+            }
+            return pattern;
+        }
+
+        private static String quote(String s, int start, int end) {
+            return start == end ? "" : Pattern.quote(s.substring(start, end));
+        }
+    }
+}
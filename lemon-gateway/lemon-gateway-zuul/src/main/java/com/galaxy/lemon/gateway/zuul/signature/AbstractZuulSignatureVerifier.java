@@ -18,14 +18,18 @@
 package com.galaxy.lemon.gateway.zuul.signature;
 
 import com.galaxy.lemon.common.HttpMethod;
+import com.galaxy.lemon.common.exception.LemonException;
 import com.galaxy.lemon.common.utils.JudgeUtils;
 import com.galaxy.lemon.framework.signature.AbstractSignatureVerifier;
+import com.galaxy.lemon.framework.signature.SignatureDigester;
 import com.galaxy.lemon.framework.signature.SignatureMetadataExtractor;
 import com.galaxy.lemon.gateway.zuul.ZuulExtensionProperties.ZuulRoute;
 import com.galaxy.lemon.gateway.zuul.ZuulHelper;
 import org.springframework.http.MediaType;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -93,14 +97,52 @@ public abstract class AbstractZuulSignatureVerifier extends AbstractSignatureVer
             if(JudgeUtils.isNotBlank(contentMessage)) {
                 return contentMessage;
             }
-            if(isFormRequest(request)) {
-                contentMessage = this.getFormData(request);
-                if(JudgeUtils.isNotBlank(contentMessage)) {
-                    return contentMessage;
-                }
+            return getContentMessageWithoutBody(request);
+        }
+    }
+
+    /**
+     * 请求体为空时的签名内容
+     * @param request
+     * @return
+     */
+    protected String getContentMessageWithoutBody(HttpServletRequest request) {
+        if(isFormRequest(request)) {
+            String contentMessage = this.getFormData(request);
+            if(JudgeUtils.isNotBlank(contentMessage)) {
+                return contentMessage;
+            }
+        }
+        return getPathVariable(request);
+    }
+
+    /**
+     * 请求体未被读取为字符串时，直接将请求体字节写入验签摘要
+     * @param signatureDataSource
+     * @param signatureDigester
+     */
+    @Override
+    protected void writeSignatureContent(SignatureDataSource<HttpServletRequest> signatureDataSource, SignatureDigester signatureDigester) {
+        HttpServletRequest request = signatureDataSource.getSignatureData();
+        if (null == request || HttpMethod.GET.name().equalsIgnoreCase(request.getMethod())
+                || null != this.zuulHelper.getCachedRequestBody(request)) {
+            super.writeSignatureContent(signatureDataSource, signatureDigester);
+            return;
+        }
+        InputStream body = this.zuulHelper.getCurrentRequestBodyStream(request);
+        if (null != body) {
+            try {
+                signatureDigester.update(body);
+            } catch (IOException e) {
+                throw LemonException.create(e);
+            }
+            if (signatureDigester.hasText()) {
+                return;
             }
-            return getPathVariable(request);
+            signatureDigester.reset();
         }
+        String contentMessage = Optional.ofNullable(getContentMessageWithoutBody(request)).orElseThrow(() -> new InvalidSignatureException("Failed to extract signature content."));
+        signatureDigester.update(contentMessage);
     }
     
     protected boolean isFormRequest(HttpServletRequest request) {